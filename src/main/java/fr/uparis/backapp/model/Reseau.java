@@ -2,7 +2,14 @@ package fr.uparis.backapp.model;
 
 import fr.uparis.backapp.model.lieu.Station;
 import fr.uparis.backapp.model.section.SectionTransport;
+import fr.uparis.backapp.utils.ContractionHierarchy;
+import fr.uparis.backapp.utils.FootpathGraph;
+import fr.uparis.backapp.utils.NearbyStationIndex;
 import fr.uparis.backapp.utils.Parser;
+import fr.uparis.backapp.utils.ConnectionTimetable;
+import fr.uparis.backapp.utils.RaptorTimetable;
+import fr.uparis.backapp.utils.TransitGraph;
+import fr.uparis.backapp.utils.constants.Constants;
 
 import java.util.*;
 
@@ -13,6 +20,13 @@ public class Reseau {
     private static Reseau instance = null;
     private static Set<Station> stations;
     private static Set<SectionTransport> sections;
+    private static NearbyStationIndex nearbyStationIndex;
+    private static FootpathGraph footpathGraph;
+    private static TransitGraph transitGraph;
+    private static ContractionHierarchy contractionHierarchy;
+    private static RaptorTimetable raptorTimetable;
+    private static ConnectionTimetable connectionTimetable;
+    private static long version; //incrémentée à chaque modification des stations ou des sections
 
     /**
      * Constructeur privé pour créer une instance de la classe Reseau.
@@ -22,6 +36,8 @@ public class Reseau {
         sections = parser.getSections();
         stations = new HashSet<>();
         Collections.addAll(stations, parser.getStations());
+        nearbyStationIndex = new NearbyStationIndex(stations, Constants.NEARBY_INDEX_CELL_SIZE);
+        footpathGraph = new FootpathGraph(nearbyStationIndex, Constants.MAX_FOOTPATH_DISTANCE);
     }
 
     /**
@@ -29,7 +45,7 @@ public class Reseau {
      *
      * @return l'instance de la classe Reseau.
      */
-    public static Reseau getInstance() {
+    public static synchronized Reseau getInstance() {
         if (instance == null) instance = new Reseau();
         return instance;
     }
@@ -43,6 +59,104 @@ public class Reseau {
         return stations;
     }
 
+    /**
+     * Renvoie l'index spatial des stations du Reseau.
+     * Il est recalculé si les stations du Reseau ont changé depuis son dernier calcul.
+     *
+     * @return l'index spatial des stations du Reseau.
+     */
+    public synchronized NearbyStationIndex getNearbyStationIndex() {
+        if (nearbyStationIndex == null) nearbyStationIndex = new NearbyStationIndex(stations, Constants.NEARBY_INDEX_CELL_SIZE);
+        return nearbyStationIndex;
+    }
+
+    /**
+     * Renvoie le graphe des chemins à pied entre les stations du Reseau.
+     * Il est recalculé si les stations du Reseau ont changé depuis son dernier calcul.
+     *
+     * @return le graphe des chemins à pied entre les stations du Reseau.
+     */
+    public synchronized FootpathGraph getFootpathGraph() {
+        if (footpathGraph == null) footpathGraph = new FootpathGraph(getNearbyStationIndex(), Constants.MAX_FOOTPATH_DISTANCE);
+        return footpathGraph;
+    }
+
+    /**
+     * Invalide les structures calculées à partir des stations et des sections du Reseau, qui seront recalculées à la demande.
+     */
+    private synchronized void invalidateIndex() {
+        version++;
+        nearbyStationIndex = null;
+        footpathGraph = null;
+        transitGraph = null;
+        contractionHierarchy = null;
+        raptorTimetable = null;
+        connectionTimetable = null;
+    }
+
+    /**
+     * Renvoie la version du Reseau, qui change à chaque modification de ses stations ou de ses sections :
+     * les résultats calculés avec une version antérieure ne sont plus valables.
+     *
+     * @return la version du Reseau.
+     */
+    public synchronized long getVersion() {
+        return version;
+    }
+
+    /**
+     * Renvoie le graphe figé des sections en transport du Reseau, où les stations et les lignes sont repérées par un index.
+     * Il est calculé à la première demande, et recalculé si les stations ou les sections du Reseau ont changé.
+     *
+     * @return le graphe figé des sections en transport du Reseau.
+     */
+    public synchronized TransitGraph getTransitGraph() {
+        if (transitGraph == null) transitGraph = new TransitGraph(getFootpathGraph());
+        return transitGraph;
+    }
+
+    /**
+     * Renvoie la hiérarchie de contraction du graphe des durées minimales du Reseau, qui donne les minorants des durées de trajet.
+     * Elle est calculée à la première demande, et recalculée si les stations ou les sections du Reseau ont changé.
+     *
+     * @return la hiérarchie de contraction du Reseau.
+     */
+    public synchronized ContractionHierarchy getContractionHierarchy() {
+        if (contractionHierarchy == null) contractionHierarchy = new ContractionHierarchy(getTransitGraph());
+        return contractionHierarchy;
+    }
+
+    /**
+     * Renvoie les horaires du réseau rangés par routes, pour l'algorithme RAPTOR.
+     * Ils sont calculés à la première demande, et recalculés si les stations ou les sections du Reseau ont changé.
+     *
+     * @return les horaires du réseau rangés par routes.
+     */
+    public synchronized RaptorTimetable getRaptorTimetable() {
+        if (raptorTimetable == null) raptorTimetable = new RaptorTimetable(sections, getTransitGraph());
+        return raptorTimetable;
+    }
+
+    /**
+     * Renvoie les connexions du réseau rangées par horaire de départ, pour l'algorithme CSA.
+     * Elles sont calculées à la première demande, et recalculées si les stations ou les sections du Reseau ont changé.
+     *
+     * @return les connexions du réseau rangées par horaire de départ.
+     */
+    public synchronized ConnectionTimetable getConnectionTimetable() {
+        if (connectionTimetable == null) connectionTimetable = new ConnectionTimetable(getRaptorTimetable());
+        return connectionTimetable;
+    }
+
+    /**
+     * Calcule dès maintenant les structures du Reseau qui le sont sinon à la première demande,
+     * pour que la première recherche d'itinéraire n'en paie pas la construction.
+     */
+    public synchronized void prepareIndexes() {
+        getContractionHierarchy();
+        getConnectionTimetable();
+    }
+
     /**
      * Retrouve une station dans le réseau avec le nom de la station.
      *
@@ -63,10 +177,7 @@ public class Reseau {
      * @return la station qui se trouve à la coordonnée précisée.
      */
     public Station getStation(Coordonnee coordonneeStation) {
-        for (Station s : stations)
-            if (s.getLocalisation().equals(coordonneeStation))
-                return s;
-        return null;
+        return getNearbyStationIndex().getStation(coordonneeStation);
     }
 
     /**
@@ -75,7 +186,7 @@ public class Reseau {
      * @param station la station à ajouter dans le Reseau.
      */
     public void addStation(Station station) {
-        stations.add(station);
+        if (stations.add(station)) invalidateIndex();
     }
 
     /**
@@ -84,7 +195,7 @@ public class Reseau {
      * @param station la station à supprimer du Reseau.
      */
     public void removeStation(Station station) {
-        stations.remove(station);
+        if (stations.remove(station)) invalidateIndex();
         List<SectionTransport> toDelete = sections.stream()
                 .filter(s -> s.isStationDepart(station) || s.isStationArrivee(station))
                 .toList();
@@ -107,7 +218,7 @@ public class Reseau {
      * @param section la section à ajouter dans le Reseau.
      */
     public void addSection(SectionTransport section) {
-        sections.add(section);
+        if (sections.add(section)) invalidateIndex();
         addStation(section.getDepart());
         addStation(section.getArrivee());
     }
@@ -119,7 +230,7 @@ public class Reseau {
      * @param section la section à supprimer du Reseau.
      */
     public void removeSection(SectionTransport section) {
-        sections.remove(section);
+        if (sections.remove(section)) invalidateIndex();
         if (sections.stream().noneMatch(s -> s.isStationDepart(section.getDepart()) || s.isStationArrivee(section.getDepart())))
             removeStation(section.getDepart());
         if (sections.stream().noneMatch(s -> s.isStationDepart(section.getArrivee()) || s.isStationArrivee(section.getArrivee())))
@@ -1,16 +1,21 @@
 package fr.uparis.backapp.model.lieu;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import fr.uparis.backapp.model.Coordonnee;
 
 import java.time.LocalTime;
 
+import static fr.uparis.backapp.utils.Utils.getTimeFromSeconds;
+
 /**
  * Représente un Lieu.
  */
 public class Lieu {
+    final protected static int INCONNU = Integer.MIN_VALUE; //horaire de passage pas encore calculé
+
     final protected String nomLieu;
     final protected Coordonnee localisation;
-    protected LocalTime horaireDePassage;
+    protected int secondesDePassage; //en secondes depuis le début de la journée de service
 
     /**
      * Constructeur de la classe Lieu, à partir de tous les attributs.
@@ -20,9 +25,20 @@ public class Lieu {
      * @param horaireDePassage l'horaire de passage au lieu.
      */
     public Lieu(String nomLieu, Coordonnee localisation, LocalTime horaireDePassage) {
+        this(nomLieu, localisation, (horaireDePassage == null)? INCONNU : horaireDePassage.toSecondOfDay());
+    }
+
+    /**
+     * Constructeur de la classe Lieu, avec un horaire de passage en secondes depuis le début de la journée de service.
+     *
+     * @param nomLieu le nom du lieu.
+     * @param localisation la localisation du lieu.
+     * @param secondesDePassage l'horaire de passage au lieu, en secondes depuis le début de la journée de service.
+     */
+    public Lieu(String nomLieu, Coordonnee localisation, int secondesDePassage) {
         this.nomLieu = nomLieu;
         this.localisation = localisation;
-        this.horaireDePassage = horaireDePassage;
+        this.secondesDePassage = secondesDePassage;
     }
 
     /**
@@ -32,7 +48,7 @@ public class Lieu {
      * @param localisation la localisation du lieu.
      */
     public Lieu(String nomLieu, Coordonnee localisation) {
-        this(nomLieu, localisation, null);
+        this(nomLieu, localisation, INCONNU);
     }
 
     /**
@@ -55,11 +71,12 @@ public class Lieu {
 
     /**
      * Pour le dernier trajet calculé, renvoie l'horaire auquel il faut être au lieu courant.
+     * C'est l'horaire présenté à l'utilisateur : après minuit, il revient dans la journée.
      *
-     * @return l'horaire auquel il faut être au lieu courant.
+     * @return l'horaire auquel il faut être au lieu courant, ou null s'il n'est pas connu.
      */
     public LocalTime getHoraireDePassage() {
-        return horaireDePassage;
+        return (secondesDePassage == INCONNU)? null : getTimeFromSeconds(secondesDePassage);
     }
 
     /**
@@ -68,13 +85,33 @@ public class Lieu {
      * @param horaireDePassage l'horaire auquel il faut être au lieu courant.
      */
     public void setHoraireDePassage(LocalTime horaireDePassage) {
-        this.horaireDePassage = horaireDePassage;
+        this.secondesDePassage = (horaireDePassage == null)? INCONNU : horaireDePassage.toSecondOfDay();
+    }
+
+    /**
+     * Pour le dernier trajet calculé, renvoie l'horaire auquel il faut être au lieu courant,
+     * en secondes depuis le début de la journée de service : il dépasse une journée après minuit.
+     *
+     * @return l'horaire auquel il faut être au lieu courant, en secondes.
+     */
+    @JsonIgnore
+    public int getSecondesDePassage() {
+        return secondesDePassage;
+    }
+
+    /**
+     * Configure l'horaire auquel il faut être au lieu courant, en secondes depuis le début de la journée de service.
+     *
+     * @param secondesDePassage l'horaire auquel il faut être au lieu courant, en secondes.
+     */
+    public void setSecondesDePassage(int secondesDePassage) {
+        this.secondesDePassage = secondesDePassage;
     }
 
     /**
      * Fournit une copie du Lieu courant.
      */
     public Lieu copy() {
-        return new Lieu(nomLieu, localisation, horaireDePassage);
+        return new Lieu(nomLieu, localisation, secondesDePassage);
     }
 }
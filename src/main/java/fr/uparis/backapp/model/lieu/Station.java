@@ -4,7 +4,6 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 import fr.uparis.backapp.model.Coordonnee;
 import fr.uparis.backapp.model.section.SectionTransport;
 
-import java.time.LocalTime;
 import java.util.*;
 
 /**
@@ -45,10 +44,10 @@ public class Station extends Lieu {
      *
      * @param nomStation nom de la Station.
      * @param localisation Coordonnee de la Station.
-     * @param horaireDePassage horaire de passage à la station.
+     * @param secondesDePassage horaire de passage à la station, en secondes depuis le début de la journée de service.
      */
-    private Station(String nomStation, Coordonnee localisation, LocalTime horaireDePassage) {
-        super(nomStation, localisation, horaireDePassage);
+    private Station(String nomStation, Coordonnee localisation, int secondesDePassage) {
+        super(nomStation, localisation, secondesDePassage);
         autresLocalisations = null;
         correspondances = null;
     }
@@ -154,6 +153,6 @@ public class Station extends Lieu {
      * Fournit une copie de la station courante.
      */
     public Station copy() {
-        return new Station(nomLieu, localisation, horaireDePassage);
+        return new Station(nomLieu, localisation, secondesDePassage);
     }
 }
@@ -5,16 +5,21 @@ import fr.uparis.backapp.model.lieu.Station;
 
 import java.time.Duration;
 import java.time.LocalTime;
-import java.util.HashSet;
-import java.util.List;
-import java.util.Set;
+import java.util.*;
+
+import static fr.uparis.backapp.utils.Utils.getTimeFromSeconds;
+import static fr.uparis.backapp.utils.constants.Constants.SECONDS_PER_DAY;
 
 /**
  * Représente une Section de transport, avec deux stations, dans le Reseau.
  */
 public class SectionTransport extends Section {
+    final public static int AUCUN_DEPART = Integer.MIN_VALUE; //pas de dernier départ, les horaires de la veille étant négatifs
+
     final protected Ligne ligne;
-    final private Set<LocalTime> horairesDepart;
+    final private Set<Integer> horairesDepart; //en secondes depuis le début de la journée de service, au-delà d'une journée après minuit
+    final private Set<LocalTime> heuresDepart; //vue des horaires de départ en heures, pour l'affichage
+    private volatile int[] departs; //horaires de départ triés, null tant qu'ils ne sont pas figés
 
     /**
      * Constructeur de la SectionTransport.
@@ -29,6 +34,7 @@ public class SectionTransport extends Section {
         super(stationDepart, stationArrivee, duree, distance);
         this.ligne = ligne;
         this.horairesDepart = new HashSet<>();
+        this.heuresDepart = new HeuresDepart();
     }
 
     /**
@@ -63,11 +69,117 @@ public class SectionTransport extends Section {
 
     /**
      * Renvoie les heures de départ de la Section.
+     * C'est une vue des horaires de départ : elle suit leurs modifications, et les siennes passent par les méthodes d'ajout et de suppression.
+     * Les heures n'ont pas de journée : un horaire d'après minuit d'une course de la veille, 24:10, y devient 00:10,
+     * et s'y confond avec un départ à 00:10 de la journée, qui n'y apparaît qu'une fois. Supprimer cette heure les supprime tous deux.
+     * Les horaires en secondes, eux, les gardent distincts pour les recherches.
      *
      * @return les heures de départ de la Section.
      */
     public Set<LocalTime> getHorairesDepart() {
-        return horairesDepart;
+        return heuresDepart;
+    }
+
+    /**
+     * Renvoie les horaires de départ de la Section triés, en secondes depuis le début de la journée de service.
+     * Ils sont figés au premier appel, puis à nouveau après chaque modification des horaires ; le tableau ne doit pas être modifié.
+     *
+     * @return les horaires de départ triés, en secondes.
+     */
+    public int[] getDeparts() {
+        int[] figes = departs;
+        if (figes == null) figes = figerHoraires();
+        return figes;
+    }
+
+    /**
+     * Fige les horaires de départ de la Section dans un tableau trié, pour les recherches du prochain départ.
+     * Le Parser l'appelle une fois les horaires chargés, pour ne pas le faire pendant les calculs d'itinéraires.
+     *
+     * @return les horaires de départ triés, en secondes.
+     */
+    public synchronized int[] figerHoraires() {
+        int[] figes = new int[horairesDepart.size()];
+        int i = 0;
+        for (int horaire : horairesDepart) figes[i++] = horaire;
+        Arrays.sort(figes);
+        departs = figes;
+        return figes;
+    }
+
+    /**
+     * Renvoie l'horaire du prochain départ, strictement après un horaire, par recherche dichotomique dans les horaires figés.
+     * Les horaires se répètent chaque journée de service : les courses de la journée précédente qui roulent encore après minuit
+     * sont prises en compte, puis, s'il n'y a plus de départ dans la journée, les départs de la journée suivante,
+     * quel que soit le nombre de journées écoulées sur l'axe des horaires.
+     *
+     * @param secondes l'horaire actuel, en secondes depuis le début de la journée de service.
+     * @return l'horaire du prochain départ sur le même axe, au-delà d'une journée s'il a lieu le lendemain, ou -1 s'il n'y a aucun départ.
+     */
+    public int getProchainDepart(int secondes) {
+        int[] figes = getDeparts();
+        if (figes.length == 0) return -1;
+        int jour = Math.floorDiv(secondes, SECONDS_PER_DAY) * SECONDS_PER_DAY; //début de la journée de service de l'horaire
+        int prochain = getPremierApres(figes, secondes - jour);
+        int veille = getPremierApres(figes, secondes - jour + SECONDS_PER_DAY);
+        if (veille >= 0 && (prochain < 0 || veille - SECONDS_PER_DAY < prochain)) prochain = veille - SECONDS_PER_DAY;
+        if (prochain == -1) prochain = figes[0] + SECONDS_PER_DAY; //les horaires figés sont positifs : premier départ du lendemain
+        return jour + prochain;
+    }
+
+    /**
+     * Cherche par dichotomie le premier horaire strictement après un horaire donné.
+     *
+     * @param figes les horaires triés, en secondes.
+     * @param secondes l'horaire donné, en secondes.
+     * @return le premier horaire strictement après l'horaire donné, ou -1 s'il n'y en a pas.
+     */
+    private static int getPremierApres(int[] figes, int secondes) {
+        int bas = 0, haut = figes.length;
+        while (bas < haut) {
+            int milieu = (bas + haut) >>> 1;
+            if (figes[milieu] <= secondes) bas = milieu + 1;
+            else haut = milieu;
+        }
+        return (bas < figes.length) ? figes[bas] : -1;
+    }
+
+    /**
+     * Renvoie l'horaire du dernier départ, au plus tard à un horaire, par recherche dichotomique dans les horaires figés :
+     * c'est le symétrique de getProchainDepart, pour les recherches en arrière depuis l'horaire d'arrivée.
+     * Les courses de la journée de service précédente sont prises en compte, avant minuit sur un horaire négatif,
+     * ainsi que celles des journées suivantes si l'horaire dépasse une journée, quel que soit le nombre de journées écoulées.
+     *
+     * @param secondes l'horaire limite, en secondes depuis le début de la journée de service.
+     * @return l'horaire du dernier départ sur le même axe, ou AUCUN_DEPART s'il n'y a aucun départ.
+     */
+    public int getDernierDepart(int secondes) {
+        int[] figes = getDeparts();
+        if (figes.length == 0) return AUCUN_DEPART;
+        int jour = Math.floorDiv(secondes, SECONDS_PER_DAY) * SECONDS_PER_DAY; //début de la journée de service de l'horaire
+        int dernier = getDernierAvant(figes, secondes - jour);
+        if (dernier == AUCUN_DEPART || figes[figes.length - 1] - SECONDS_PER_DAY > dernier) { //une course de la veille peut partir plus tard
+            int veille = getDernierAvant(figes, secondes - jour + SECONDS_PER_DAY);
+            if (veille != AUCUN_DEPART) dernier = Math.max(dernier, veille - SECONDS_PER_DAY);
+        }
+        return (dernier == AUCUN_DEPART) ? AUCUN_DEPART : jour + dernier;
+    }
+
+    /**
+     * Cherche par dichotomie le dernier horaire au plus tard à un horaire donné.
+     *
+     * @param figes les horaires triés, en secondes.
+     * @param secondes l'horaire donné, en secondes.
+     * @return le dernier horaire au plus tard à l'horaire donné, ou AUCUN_DEPART s'il n'y en a pas.
+     */
+    private static int getDernierAvant(int[] figes, int secondes) {
+        int bas = 0, haut = figes.length;
+        while (bas < haut) {
+            int milieu = (bas + haut) >>> 1;
+            if (figes[milieu] <= secondes) bas = milieu + 1;
+            else haut = milieu;
+        }
+        return (bas > 0) ? figes[bas - 1] : AUCUN_DEPART;
     }
 
     /**
@@ -78,15 +190,8 @@ public class SectionTransport extends Section {
      */
     @Override
     public LocalTime getHoraireProchainDepart(LocalTime depart) {
-        LocalTime prochainDepart = LocalTime.MAX;
-        boolean hasProchainDepart = false;
-        for (LocalTime localTime : horairesDepart) {
-            if (localTime.isAfter(depart)) {
-                hasProchainDepart = true;
-                if (localTime.isBefore(prochainDepart)) prochainDepart = localTime;
-            }
-        }
-        return (hasProchainDepart) ? prochainDepart : null;
+        int prochainDepart = getProchainDepart(depart.toSecondOfDay());
+        return (prochainDepart >= 0) ? getTimeFromSeconds(prochainDepart) : null;
     }
 
     /**
@@ -95,7 +200,7 @@ public class SectionTransport extends Section {
      * @param horaire l'horaire de départ à ajouter à la Section.
      */
     public void addHoraireDepart(LocalTime horaire) {
-        this.horairesDepart.add(horaire);
+        addDepart(horaire.toSecondOfDay());
     }
 
     /**
@@ -103,8 +208,27 @@ public class SectionTransport extends Section {
      *
      * @param horaires les horaires de départ à ajouter à la Section.
      */
-    public void addHorairesDepart(List<LocalTime> horaires) {
-        horairesDepart.addAll(horaires);
+    public synchronized void addHorairesDepart(List<LocalTime> horaires) {
+        for (LocalTime horaire : horaires)
+            if (horairesDepart.add(horaire.toSecondOfDay())) departs = null;
+    }
+
+    /**
+     * Ajout d'un horaire de départ à la Section, si elle n'y est pas déjà.
+     *
+     * @param secondes l'horaire de départ, en secondes depuis le début de la journée de service, au-delà d'une journée après minuit.
+     */
+    public synchronized void addDepart(int secondes) {
+        if (horairesDepart.add(secondes)) departs = null;
+    }
+
+    /**
+     * Ajout des horaires de départ à la Section, si elles n'y sont pas déjà.
+     *
+     * @param secondes les horaires de départ, en secondes depuis le début de la journée de service.
+     */
+    public synchronized void addDeparts(Collection<Integer> secondes) {
+        if (horairesDepart.addAll(secondes)) departs = null;
     }
 
     /**
@@ -112,8 +236,91 @@ public class SectionTransport extends Section {
      *
      * @param horaire l'horaire de départ à enlever de la Section.
      */
-    public void removeHoraireDepart(LocalTime horaire) {
-        this.horairesDepart.remove(horaire);
+    public synchronized void removeHoraireDepart(LocalTime horaire) {
+        if (this.horairesDepart.remove(horaire.toSecondOfDay())) departs = null;
+    }
+
+    /**
+     * Vue des horaires de départ de la Section en heures.
+     * Le parcours se fait sur une copie des heures : les modifications faites pendant le parcours ne s'y voient pas.
+     */
+    private class HeuresDepart extends AbstractSet<LocalTime> {
+        /**
+         * Renvoie les heures de départ de la Section, sans doublon, à l'instant de l'appel.
+         *
+         * @return les heures de départ de la Section.
+         */
+        private List<LocalTime> getHeures() {
+            Set<LocalTime> heures = new LinkedHashSet<>();
+            for (int horaire : getDeparts()) heures.add(getTimeFromSeconds(horaire));
+            return new ArrayList<>(heures);
+        }
+
+        @Override
+        public Iterator<LocalTime> iterator() {
+            Iterator<LocalTime> heures = getHeures().iterator();
+            return new Iterator<>() {
+                private LocalTime derniere; //dernière heure rendue, à supprimer
+
+                @Override
+                public boolean hasNext() {
+                    return heures.hasNext();
+                }
+
+                @Override
+                public LocalTime next() {
+                    derniere = heures.next();
+                    return derniere;
+                }
+
+                @Override
+                public void remove() {
+                    if (derniere == null) throw new IllegalStateException();
+                    HeuresDepart.this.remove(derniere);
+                    derniere = null;
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return getHeures().size();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            if (!(o instanceof LocalTime heure)) return false;
+            synchronized (SectionTransport.this) {
+                return horairesDepart.contains(heure.toSecondOfDay()) || horairesDepart.contains(heure.toSecondOfDay() + SECONDS_PER_DAY);
+            }
+        }
+
+        @Override
+        public boolean add(LocalTime heure) {
+            synchronized (SectionTransport.this) {
+                if (contains(heure)) return false;
+                addHoraireDepart(heure);
+                return true;
+            }
+        }
+
+        @Override
+        public boolean remove(Object o) {
+            if (!(o instanceof LocalTime heure)) return false;
+            synchronized (SectionTransport.this) {
+                boolean retiree = horairesDepart.remove(heure.toSecondOfDay()) | horairesDepart.remove(heure.toSecondOfDay() + SECONDS_PER_DAY);
+                if (retiree) departs = null;
+                return retiree;
+            }
+        }
+
+        @Override
+        public void clear() {
+            synchronized (SectionTransport.this) {
+                horairesDepart.clear();
+                departs = null;
+            }
+        }
     }
 
     /**
@@ -154,7 +361,7 @@ public class SectionTransport extends Section {
         s += this.depart.getNomLieu() + " -> " + this.arrivee.getNomLieu();
         s += " (durée = " + this.duree.toString() + ", distance = " + this.distance + " km";
         if (!this.horairesDepart.isEmpty()) s += ", à";
-        for (LocalTime time : this.horairesDepart) s += " " + time;
+        for (int time : getDeparts()) s += " " + getTimeFromSeconds(time);
         return s + ")";
     }
 
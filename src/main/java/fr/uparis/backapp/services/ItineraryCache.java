@@ -0,0 +1,251 @@
+package fr.uparis.backapp.services;
+
+import fr.uparis.backapp.model.Coordonnee;
+import fr.uparis.backapp.model.Reseau;
+import fr.uparis.backapp.model.section.Section;
+import fr.uparis.backapp.model.section.SectionTransport;
+import fr.uparis.backapp.utils.ItineraryQuery;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static fr.uparis.backapp.utils.Calculator.recalerTrajet;
+
+/**
+ * Cache des itinéraires calculés, de taille bornée, qui oublie d'abord les itinéraires demandés le moins récemment.
+ * Les itinéraires sont rangés par départ et arrivée, arrondis au mètre près (une station et ses coordonnées se confondent),
+ * par mode, paramètres et algorithme de la requête, quand son mode en dépend, et par créneau d'heures de départ : une requête plus tardive du même créneau
+ * reprend les itinéraires déjà calculés, recalés sur son heure de départ avec les prochains départs, tant que chacun arrive toujours
+ * à la même heure. Tout trajet qui part plus tard arrivant au mieux aussi tard, les itinéraires repris restent alors les meilleurs ;
+ * sinon, ils sont recalculés. Les requêtes dont les itinéraires ne se recalent pas (profils, arrivée au plus tard)
+ * ne reprennent que ceux calculés pour la même heure exactement. Le cache est vidé dès que le Reseau est modifié.
+ */
+public class ItineraryCache {
+    final private static double PRECISION = 1e5; //coordonnées arrondies à 1e-5 degré, environ un mètre
+
+    final private Reseau reseau;
+    final private int capacity; //nombre maximal de requêtes gardées, 0 pour ne rien garder
+    final private int bucket; //largeur des créneaux d'heures de départ, en secondes
+    final private Map<Key, Entry> entries; //dans l'ordre des dernières demandes
+    private long version; //version du Reseau avec laquelle les itinéraires gardés ont été calculés
+
+    final private AtomicLong hits = new AtomicLong();
+    final private AtomicLong misses = new AtomicLong();
+    final private AtomicLong evictions = new AtomicLong();
+    final private AtomicLong invalidations = new AtomicLong();
+
+    /**
+     * Clef d'une requête dans le cache.
+     *
+     * @param originLatitude       la latitude du départ, arrondie.
+     * @param originLongitude      la longitude du départ, arrondie.
+     * @param destinationLatitude  la latitude de l'arrivée, arrondie.
+     * @param destinationLongitude la longitude de l'arrivée, arrondie.
+     * @param request              la description de la requête : mode, paramètres et algorithme, si le mode en dépend.
+     * @param slot                 le créneau de l'heure de départ, ou l'heure exacte si les itinéraires ne se recalent pas.
+     */
+    private record Key(long originLatitude, long originLongitude, long destinationLatitude, long destinationLongitude,
+                       String request, int slot) {
+    }
+
+    /**
+     * Itinéraires gardés pour une requête.
+     *
+     * @param seconds  l'heure de départ pour laquelle ils ont été calculés, en secondes depuis le début de la journée de service.
+     * @param trajects les itinéraires calculés.
+     */
+    private record Entry(int seconds, List<Section[]> trajects) {
+    }
+
+    /**
+     * Mesures d'utilisation du cache.
+     *
+     * @param hits          le nombre de requêtes servies par le cache.
+     * @param misses        le nombre de requêtes calculées faute d'itinéraires gardés utilisables.
+     * @param evictions     le nombre de requêtes oubliées pour respecter la taille du cache.
+     * @param invalidations le nombre de fois où le cache a été vidé après une modification du Reseau.
+     * @param size          le nombre de requêtes gardées.
+     */
+    public record Stats(long hits, long misses, long evictions, long invalidations, int size) {
+    }
+
+    /**
+     * Constructeur du cache des itinéraires.
+     *
+     * @param reseau   le Reseau dont les modifications vident le cache.
+     * @param capacity le nombre maximal de requêtes gardées, ou 0 pour ne rien garder.
+     * @param bucket   la largeur des créneaux d'heures de départ, en secondes.
+     */
+    public ItineraryCache(Reseau reseau, int capacity, int bucket) {
+        this.reseau = reseau;
+        this.capacity = capacity;
+        this.bucket = Math.max(bucket, 1);
+        this.version = reseau.getVersion();
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                if (size() <= ItineraryCache.this.capacity) return false;
+                evictions.incrementAndGet();
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Renvoie les itinéraires gardés pour une requête, recalés sur son heure de départ si son mode le permet.
+     *
+     * @param query la requête de calcul d'itinéraire.
+     * @return une nouvelle liste des itinéraires, ou null s'il n'y en a pas de gardés, ou s'ils ne valent plus pour cette heure de départ.
+     */
+    public List<Section[]> get(ItineraryQuery query) {
+        if (capacity <= 0) return null;
+        Entry entry;
+        synchronized (this) {
+            checkVersion();
+            entry = entries.get(key(query));
+        }
+        List<Section[]> res = null;
+        if (entry != null) res = isRetimable(query) ? retime(entry, query.getHoraireDepart().toSecondOfDay()) : entry.trajects();
+        if (res == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return new ArrayList<>(res);
+    }
+
+    /**
+     * Garde les itinéraires calculés pour une requête, s'ils l'ont été avec la version courante du Reseau.
+     *
+     * @param query    la requête de calcul d'itinéraire.
+     * @param trajects les itinéraires calculés, qui ne doivent plus être modifiés.
+     * @param version  la version du Reseau au début du calcul.
+     */
+    public void put(ItineraryQuery query, List<Section[]> trajects, long version) {
+        if (capacity <= 0) return;
+        synchronized (this) {
+            checkVersion();
+            if (version == this.version) entries.put(key(query), new Entry(query.getHoraireDepart().toSecondOfDay(), List.copyOf(trajects)));
+        }
+    }
+
+    /**
+     * Renvoie les mesures d'utilisation du cache.
+     *
+     * @return les mesures d'utilisation du cache.
+     */
+    public synchronized Stats getStats() {
+        return new Stats(hits.get(), misses.get(), evictions.get(), invalidations.get(), entries.size());
+    }
+
+    /**
+     * Vide le cache si le Reseau a été modifié depuis le calcul des itinéraires gardés.
+     */
+    private void checkVersion() {
+        long current = reseau.getVersion();
+        if (current == version) return;
+        version = current;
+        if (!entries.isEmpty()) invalidations.incrementAndGet();
+        entries.clear();
+    }
+
+    /**
+     * Construit la clef d'une requête : sans l'échéance, qui ne change pas les itinéraires d'un calcul complet,
+     * ni l'algorithme, si le mode de la requête n'en dépend pas.
+     *
+     * @param query la requête de calcul d'itinéraire.
+     * @return la clef de la requête.
+     */
+    private Key key(ItineraryQuery query) {
+        Coordonnee origin = query.getDepart(), destination = query.getArrivee();
+        int seconds = query.getHoraireDepart().toSecondOfDay();
+        String request = query.getMode() + "/" + query.getDistance() + (usesAlgorithm(query) ? "/" + query.getAlgorithme() : "")
+                         + ((query.getMode() == ItineraryQuery.Mode.PROFIL) ? "/" + query.getHoraireFin() : "");
+        return new Key(round(origin.getLatitude()), round(origin.getLongitude()), round(destination.getLatitude()), round(destination.getLongitude()),
+                       request, isRetimable(query) ? seconds / bucket : seconds);
+    }
+
+    /**
+     * Indique si les itinéraires d'une requête dépendent de son algorithme : les trajets à pied, ceux qui marchent au moins une distance,
+     * les profils et les trajets non dominés ont chacun leur propre recherche, quel que soit l'algorithme demandé.
+     *
+     * @param query la requête de calcul d'itinéraire.
+     * @return true si l'algorithme de la requête change ses itinéraires, false sinon.
+     */
+    private static boolean usesAlgorithm(ItineraryQuery query) {
+        return switch (query.getMode()) {
+            case A_PIED, MARCHER_AU_MOINS, PROFIL, PARETO -> false;
+            default -> true;
+        };
+    }
+
+    /**
+     * Indique si les itinéraires d'une requête peuvent être recalés sur une autre heure de départ :
+     * ce n'est pas le cas des profils, calculés pour une fenêtre d'heures de départ, ni des arrivées au plus tard.
+     *
+     * @param query la requête de calcul d'itinéraire.
+     * @return true si les itinéraires de la requête se recalent, false s'ils ne valent que pour son heure exacte.
+     */
+    private static boolean isRetimable(ItineraryQuery query) {
+        return query.getMode() != ItineraryQuery.Mode.PROFIL && query.getMode() != ItineraryQuery.Mode.ARRIVER_AVANT;
+    }
+
+    /**
+     * Arrondit une latitude ou une longitude à la précision du cache.
+     *
+     * @param degres la latitude ou la longitude, en degrés.
+     * @return la valeur arrondie, en unités de la précision du cache.
+     */
+    private static long round(double degres) {
+        return Math.round(degres * PRECISION);
+    }
+
+    /**
+     * Recale des itinéraires sur une heure de départ, qui ne doit pas précéder celle de leur calcul :
+     * ceux qui prennent les transports doivent toujours arriver à la même heure, et la première arrivée ne doit pas reculer,
+     * ce qui arrive quand le trajet à pied, décalé d'autant, était le plus rapide.
+     *
+     * @param entry   les itinéraires gardés.
+     * @param seconds l'heure de départ, en secondes depuis le début de la journée de service.
+     * @return les itinéraires recalés, ou null si l'un d'eux ne se recale plus à l'identique.
+     */
+    private static List<Section[]> retime(Entry entry, int seconds) {
+        if (seconds < entry.seconds()) return null; //un trajet plus matinal peut arriver plus tôt
+        List<Section[]> res = new ArrayList<>(entry.trajects().size());
+        int premiere = Integer.MAX_VALUE, premiereRecalee = Integer.MAX_VALUE;
+        for (Section[] traject : entry.trajects()) {
+            Section[] recale = recalerTrajet(traject, seconds);
+            if (recale == null) return null;
+            if (hasTransport(traject) && getArrivee(recale) > getArrivee(traject)) return null; //une correspondance est manquée
+            premiere = Math.min(premiere, getArrivee(traject));
+            premiereRecalee = Math.min(premiereRecalee, getArrivee(recale));
+            res.add(recale);
+        }
+        return (premiereRecalee > premiere) ? null : res;
+    }
+
+    /**
+     * Indique si un itinéraire prend les transports.
+     *
+     * @param traject l'itinéraire.
+     * @return true si une de ses sections est en transport, false s'il est entièrement à pied.
+     */
+    private static boolean hasTransport(Section[] traject) {
+        for (Section section : traject)
+            if (section instanceof SectionTransport) return true;
+        return false;
+    }
+
+    /**
+     * Renvoie l'heure d'arrivée d'un itinéraire.
+     *
+     * @param traject l'itinéraire.
+     * @return l'heure d'arrivée, en secondes depuis le début de la journée de service.
+     */
+    private static int getArrivee(Section[] traject) {
+        return traject[traject.length - 1].getArrivee().getSecondesDePassage();
+    }
+}
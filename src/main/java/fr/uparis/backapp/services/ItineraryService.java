@@ -1,12 +1,15 @@
 package fr.uparis.backapp.services;
 
+import fr.uparis.backapp.config.Config;
 import fr.uparis.backapp.exceptions.StationNotFoundException;
 import fr.uparis.backapp.model.Coordonnee;
 import fr.uparis.backapp.model.Reseau;
 import fr.uparis.backapp.model.lieu.Station;
 import fr.uparis.backapp.model.section.Section;
 import fr.uparis.backapp.model.section.SectionTransport;
-import fr.uparis.backapp.utils.Calculator;
+import fr.uparis.backapp.utils.ItineraryQuery;
+import fr.uparis.backapp.utils.ParetoSearch;
+import fr.uparis.backapp.utils.SearchDeadline;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -20,14 +23,39 @@ import java.util.Map;
 import static fr.uparis.backapp.utils.Calculator.itineraireFactory;
 import static fr.uparis.backapp.utils.Utils.*;
 import static fr.uparis.backapp.utils.constants.Constants.DELIMITER;
+import static fr.uparis.backapp.utils.constants.Constants.ROUTING_CACHE_BUCKET_PROPERTY;
+import static fr.uparis.backapp.utils.constants.Constants.ROUTING_CACHE_SIZE_PROPERTY;
+import static fr.uparis.backapp.utils.constants.Constants.ROUTING_DEADLINE_PROPERTY;
+import static fr.uparis.backapp.utils.constants.Constants.ROUTING_ENGINE_PROPERTY;
 
 @Service
 public class ItineraryService {
     private final Reseau reseau;
+    private final ItineraryQuery.Algorithme defaultEngine;
+    private final long deadline; //temps accordé aux recherches de chaque requête, en millisecondes, 0 sans limite
+    private final ItineraryCache cache; //itinéraires déjà calculés, recalés sur l'heure des requêtes du même créneau
 
     @Autowired
     public ItineraryService() {
         this.reseau = Reseau.getInstance();
+        reseau.prepareIndexes(); //construites au démarrage, et non sur le temps de la première requête
+        String engine = Config.getInstance().getProperty(ROUTING_ENGINE_PROPERTY);
+        this.defaultEngine = (engine == null)? ItineraryQuery.Algorithme.DIJKSTRA : ItineraryQuery.Algorithme.valueOf(engine.trim().toUpperCase());
+        String deadline = Config.getInstance().getProperty(ROUTING_DEADLINE_PROPERTY);
+        this.deadline = (deadline == null)? 0 : Long.parseLong(deadline.trim());
+        String cacheSize = Config.getInstance().getProperty(ROUTING_CACHE_SIZE_PROPERTY);
+        String cacheBucket = Config.getInstance().getProperty(ROUTING_CACHE_BUCKET_PROPERTY);
+        this.cache = new ItineraryCache(reseau, (cacheSize == null)? 0 : Integer.parseInt(cacheSize.trim()),
+                                        (cacheBucket == null)? 1 : Integer.parseInt(cacheBucket.trim()));
+    }
+
+    /**
+     * Itinéraires trouvés pour une requête.
+     *
+     * @param trajects la liste des itinéraires sous forme de tableau de sections.
+     * @param partial  true si la recherche a atteint son échéance : de meilleurs itinéraires ont pu ne pas être trouvés.
+     */
+    public record Itineraries(List<Section[]> trajects, boolean partial) {
     }
 
 
@@ -37,19 +65,42 @@ public class ItineraryService {
      * @param origin      la station ou les coordonnées de départ.
      * @param destination la station ou les coordonnées d'arrivée.
      * @param time        l'heure de départ.
-     * @return la liste des itinéraires possibles sous forme de tableau de sections.
+     * @param engine      l'algorithme de recherche des trajets en transport, ou null pour l'algorithme de la configuration.
+     * @return la liste des itinéraires possibles sous forme de tableau de sections, et s'ils sont partiels.
+     */
+    public Itineraries searchItinerary(String origin, String destination, String time, ItineraryQuery.Algorithme engine) {
+        return searchItinerary(origin, destination, time, engine, ItineraryQuery::optimal);
+    }
+
+    /**
+     * Recherche un itinéraire entre deux lieux spécifiés à un moment donné, avec la requête construite par la fabrique donnée.
+     * Les itinéraires déjà calculés pour la même requête sont repris du cache ; ceux d'une recherche interrompue n'y sont pas gardés.
+     *
+     * @param origin      la station ou les coordonnées de départ.
+     * @param destination la station ou les coordonnées d'arrivée.
+     * @param time        l'heure de départ.
+     * @param engine      l'algorithme de recherche des trajets en transport, ou null pour l'algorithme de la configuration.
+     * @param requete     la fabrique de la requête, à partir du départ, de l'arrivée et de l'heure de départ.
+     * @return la liste des itinéraires possibles sous forme de tableau de sections, et s'ils sont partiels.
      */
-    public List<Section[]> searchItinerary(String origin, String destination, String time) {
+    private Itineraries searchItinerary(String origin, String destination, String time, ItineraryQuery.Algorithme engine, QueryFactory requete) {
         List<Section[]> trajects;
         LocalTime trajectTime = getTimeFromString(time);
+        SearchDeadline echeance = SearchDeadline.dans(deadline);
         try {
             Coordonnee originCoordinates = fetchCoordinates(origin);
             Coordonnee destinationCoordinates = fetchCoordinates(destination);
-            trajects = itineraireFactory(originCoordinates, destinationCoordinates, trajectTime);
+            ItineraryQuery query = requete.create(originCoordinates, destinationCoordinates, trajectTime);
+            query = query.avecAlgorithme((engine != null)? engine : defaultEngine);
+            trajects = cache.get(query);
+            if (trajects != null) return new Itineraries(trajects, false);
+            long version = reseau.getVersion();
+            trajects = itineraireFactory(query.avecEcheance(echeance));
+            if (!echeance.isInterrompue()) cache.put(query, trajects, version);
         } catch (StationNotFoundException e) {
             trajects = new ArrayList<>();
         }
-        return trajects;
+        return new Itineraries(trajects, echeance.isInterrompue());
     }
 
     /**
@@ -59,11 +110,60 @@ public class ItineraryService {
      * @param destination la station ou les coordonnées d'arrivée.
      * @param time        l'heure de départ.
      * @param distanceMax la distance de marche maximum.
-     * @return la liste des itinéraires possibles sous forme de tableau de sections.
+     * @param engine      l'algorithme de recherche des trajets en transport, ou null pour l'algorithme de la configuration.
+     * @return la liste des itinéraires possibles sous forme de tableau de sections, et s'ils sont partiels.
      */
-    public List<Section[]> searchLazyItinerary(String origin, String destination, String time, double distanceMax) {
-        Calculator.changeMarcherAuPlus(distanceMax);
-        return searchItinerary(origin, destination, time);
+    public Itineraries searchLazyItinerary(String origin, String destination, String time, double distanceMax, ItineraryQuery.Algorithme engine) {
+        return searchItinerary(origin, destination, time, engine,
+                (depart, arrivee, horaire) -> ItineraryQuery.marcherAuPlus(depart, arrivee, horaire, distanceMax));
+    }
+
+    /**
+     * Recherche les itinéraires non dominés entre deux lieux spécifiés, pour tous les horaires de départ d'une fenêtre :
+     * aucun autre itinéraire ne part plus tard en arrivant aussi tôt.
+     *
+     * @param origin      la station ou les coordonnées de départ.
+     * @param destination la station ou les coordonnées d'arrivée.
+     * @param from        le début de la fenêtre des heures de départ.
+     * @param to          la fin de la fenêtre des heures de départ.
+     * @return la liste des itinéraires non dominés sous forme de tableau de sections, du départ le plus tôt au plus tardif, et s'ils sont partiels.
+     */
+    public Itineraries searchProfileItinerary(String origin, String destination, String from, String to) {
+        LocalTime horaireFin = getTimeFromString(to);
+        return searchItinerary(origin, destination, from, ItineraryQuery.Algorithme.RAPTOR,
+                (depart, arrivee, horaire) -> ItineraryQuery.profil(depart, arrivee, horaire, horaireFin));
+    }
+
+    /**
+     * Recherche les itinéraires non dominés entre deux lieux spécifiés à un moment donné, sur l'heure d'arrivée,
+     * le nombre de correspondances et la distance marchée, puis ne garde que ceux qui respectent les limites demandées.
+     * Les limites filtrent l'ensemble calculé, ou celui gardé dans le cache pour la même requête, sans nouvelle recherche.
+     * Les recherches optimale, paresseuse et sportive ne passent pas par cet ensemble.
+     *
+     * @param origin      la station ou les coordonnées de départ.
+     * @param destination la station ou les coordonnées d'arrivée.
+     * @param time        l'heure de départ.
+     * @param distanceMax la distance de marche maximale sur l'ensemble du trajet, ou null pour ne pas la limiter.
+     * @param changesMax  le nombre maximal de correspondances, ou null pour ne pas le limiter.
+     * @return la liste des itinéraires non dominés sous forme de tableau de sections, de l'arrivée la plus tôt à la plus tardive, et s'ils sont partiels.
+     */
+    public Itineraries searchParetoItinerary(String origin, String destination, String time, Double distanceMax, Integer changesMax) {
+        Itineraries itineraries = searchItinerary(origin, destination, time, null, ItineraryQuery::pareto);
+        itineraries.trajects().removeIf(traject -> (distanceMax != null && ParetoSearch.getMarche(traject) > distanceMax)
+                                     || (changesMax != null && ParetoSearch.getNbCorrespondances(traject) > changesMax));
+        return itineraries;
+    }
+
+    /**
+     * Recherche les itinéraires entre deux lieux spécifiés qui partent le plus tard possible en arrivant au plus tard à une heure donnée.
+     *
+     * @param origin      la station ou les coordonnées de départ.
+     * @param destination la station ou les coordonnées d'arrivée.
+     * @param time        l'heure d'arrivée au plus tard.
+     * @return la liste des itinéraires possibles sous forme de tableau de sections, du départ le plus tardif au plus tôt, et s'ils sont partiels.
+     */
+    public Itineraries searchArrivalItinerary(String origin, String destination, String time) {
+        return searchItinerary(origin, destination, time, ItineraryQuery.Algorithme.DIJKSTRA, ItineraryQuery::arriverAvant);
     }
 
     /**
@@ -72,11 +172,10 @@ public class ItineraryService {
      * @param origin      la station ou les coordonnées de départ.
      * @param destination la station ou les coordonnées d'arrivée.
      * @param time        l'heure de départ.
-     * @return la liste des itinéraires possibles sous forme de tableau de sections.
+     * @return la liste des itinéraires possibles sous forme de tableau de sections, et s'ils sont partiels.
      */
-    public List<Section[]> searchFullSportItinerary(String origin, String destination, String time) {
-        Calculator.changeAPied();
-        return searchItinerary(origin, destination, time);
+    public Itineraries searchFullSportItinerary(String origin, String destination, String time) {
+        return searchItinerary(origin, destination, time, null, ItineraryQuery::aPied);
     }
 
     /**
@@ -86,11 +185,11 @@ public class ItineraryService {
      * @param destination la station ou les coordonnées d'arrivée.
      * @param time        l'heure de départ.
      * @param distanceMin la distance de marche maximum.
-     * @return la liste des itinéraires possibles sous forme de tableau de sections.
+     * @return la liste des itinéraires possibles sous forme de tableau de sections, et s'ils sont partiels.
      */
-    public List<Section[]> searchItineraryWithMinWalkingDistance(String origin, String destination, String time, double distanceMin) {
-        Calculator.changeMarcherAuMoinsDistance(distanceMin);
-        return searchItinerary(origin, destination, time);
+    public Itineraries searchItineraryWithMinWalkingDistance(String origin, String destination, String time, double distanceMin) {
+        return searchItinerary(origin, destination, time, null,
+                (depart, arrivee, horaire) -> ItineraryQuery.marcherAuMoinsDistance(depart, arrivee, horaire, distanceMin));
     }
 
     /**
@@ -100,11 +199,30 @@ public class ItineraryService {
      * @param destination la station ou les coordonnées d'arrivée.
      * @param time        l'heure de départ.
      * @param walkingTimeMin la distance de marche maximum.
-     * @return la liste des itinéraires possibles sous forme de tableau de sections.
+     * @return la liste des itinéraires possibles sous forme de tableau de sections, et s'ils sont partiels.
+     */
+    public Itineraries searchItineraryWithMinWalkingMinutes(String origin, String destination, String time, double walkingTimeMin) {
+        Duration duree = Duration.ofMinutes((long) walkingTimeMin);
+        return searchItinerary(origin, destination, time, null,
+                (depart, arrivee, horaire) -> ItineraryQuery.marcherAuMoinsTemps(depart, arrivee, horaire, duree));
+    }
+
+    /**
+     * Renvoie l'algorithme de recherche des trajets en transport utilisé quand la requête n'en précise pas.
+     *
+     * @return l'algorithme de la configuration, ou DIJKSTRA si elle n'en précise pas.
+     */
+    public ItineraryQuery.Algorithme getDefaultEngine() {
+        return defaultEngine;
+    }
+
+    /**
+     * Renvoie les mesures d'utilisation du cache des itinéraires.
+     *
+     * @return les nombres de requêtes servies par le cache, calculées, oubliées et invalidées, et la taille du cache.
      */
-    public List<Section[]> searchItineraryWithMinWalkingMinutes(String origin, String destination, String time, double walkingTimeMin) {
-        Calculator.changeMarcherAuMoinsTemps(Duration.ofMinutes((long) walkingTimeMin));
-        return searchItinerary(origin, destination, time);
+    public ItineraryCache.Stats getCacheStats() {
+        return cache.getStats();
     }
 
     /**
@@ -135,4 +253,12 @@ public class ItineraryService {
         List<SectionTransport> sectionTransports = reseau.getSections().stream().filter(section -> section.isStationDepart(station)).toList();
         return getSchedulesByLine(sectionTransports);
     }
-}
\ No newline at end of file
+
+    /**
+     * Fabrique d'une requête de calcul d'itinéraire, une fois le départ, l'arrivée et l'heure de départ connus.
+     */
+    @FunctionalInterface
+    private interface QueryFactory {
+        ItineraryQuery create(Coordonnee depart, Coordonnee arrivee, LocalTime horaireDepart);
+    }
+}
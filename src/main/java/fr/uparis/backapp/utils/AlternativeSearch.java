@@ -0,0 +1,227 @@
+package fr.uparis.backapp.utils;
+
+import fr.uparis.backapp.model.Coordonnee;
+import fr.uparis.backapp.model.lieu.Lieu;
+import fr.uparis.backapp.model.lieu.Station;
+import fr.uparis.backapp.model.section.Section;
+import fr.uparis.backapp.model.section.SectionTransport;
+import fr.uparis.backapp.utils.constants.Constants;
+
+import java.time.Duration;
+import java.util.*;
+
+import static fr.uparis.backapp.utils.Utils.distanceBetween;
+import static fr.uparis.backapp.utils.Utils.walkingDurationOf;
+
+/**
+ * Recherche de trajets réellement différents les uns des autres, par pénalisation des sections déjà empruntées.
+ * La première recherche est celle de dijkstra, guidée vers l'arrivée comme A*, et donne le trajet le plus rapide.
+ * Chaque section d'un trajet trouvé voit ensuite son horaire d'arrivée retardé d'une part de sa durée,
+ * et la recherche suivante, qui préfère alors d'autres sections, donne un nouveau trajet.
+ * Les horaires restent croissants avec les pénalités : chaque recherche reste exacte sur le graphe pénalisé.
+ * Un trajet trouvé est rejoué avec les vrais horaires, et n'est gardé que s'il ne partage pas trop de sa durée en transport
+ * avec un trajet déjà gardé, et qu'il n'est pas beaucoup plus long que le plus rapide.
+ * Le nombre de recherches est borné, et chacune s'arrête dès que l'arrivée est atteinte.
+ */
+public class AlternativeSearch {
+    final private Coordonnee depart;
+    final private Coordonnee arrivee;
+    final private int horaireDepart; //en secondes depuis le début de la journée de service
+    final private TransitGraph transit;
+    final private FootpathGraph graphe;
+    final private double volonte;
+    final private SearchDeadline echeance;
+
+    private int[] penalites; //retard ajouté à l'horaire d'arrivée de chaque section du graphe figé, en secondes
+
+    /**
+     * Constructeur d'une recherche de trajets alternatifs.
+     *
+     * @param depart point de départ du trajet.
+     * @param arrivee point d'arrivée du trajet.
+     * @param horaireDepart horaire de départ, en secondes depuis le début de la journée de service.
+     * @param transit le graphe figé du Reseau, avec les chemins à pied entre les stations.
+     * @param volonte La distance que l'utilisateur accepte de parcourir entre deux stations, en km.
+     * @param echeance l'échéance du calcul, au-delà de laquelle la recherche rend les meilleurs trajets trouvés.
+     */
+    public AlternativeSearch(Coordonnee depart, Coordonnee arrivee, int horaireDepart, TransitGraph transit, double volonte, SearchDeadline echeance) {
+        this.depart = depart;
+        this.arrivee = arrivee;
+        this.horaireDepart = horaireDepart;
+        this.transit = transit;
+        this.graphe = transit.getFootpathGraph();
+        this.volonte = volonte;
+        this.echeance = echeance;
+    }
+
+    /**
+     * Cherche des trajets différents les uns des autres, des stations de départ candidates vers l'arrivée.
+     *
+     * @param sources les stations de départ candidates, avec l'horaire auquel on y arrive à pied depuis le départ.
+     * @param puits les stations d'arrivée candidates, avec la durée de marche jusqu'à l'arrivée.
+     * @param borne l'horaire d'arrivée, en secondes, que les trajets doivent battre.
+     * @param nbTrajets le nombre de trajets à trouver.
+     * @param minorants les minorants exacts de la durée restante de chaque station, donnés par la hiérarchie de contraction, ou null.
+     * @return les trajets gardés, avec leurs sections de début et de fin à pied, dans l'ordre chronologique d'horaire d'arrivée.
+     */
+    public List<Section[]> rechercher(Map<Station, Integer> sources, Map<Station, Duration> puits, int borne, int nbTrajets, int[] minorants) {
+        penalites = new int[transit.debut(transit.getNbStations())];
+        List<Section[]> trajets = new ArrayList<>();
+        List<Set<Integer>> sectionsGardees = new ArrayList<>();
+        int limite = borne - 1;
+
+        for (int recherche = 0; recherche < Constants.MAX_ALTERNATIVE_SEARCHES && trajets.size() < nbTrajets && !echeance.isDepassee(); recherche++) {
+            SearchWorkspace etiquettes = SearchWorkspace.get(graphe.getNbStations());
+            etiquettes.setMinorants(minorants);
+            int arriveeCandidate = chercher(etiquettes, sources, puits, limite);
+            if (arriveeCandidate < 0) break;
+
+            //Les sections du trajet, de la station d'arrivée candidate à la source, et leur durée totale
+            List<Integer> stations = new ArrayList<>();
+            Set<Integer> sections = new HashSet<>();
+            int dureeTransport = 0, partageMax = 0;
+            for (int station = arriveeCandidate; station >= 0; station = etiquettes.getPrecedente(station)) {
+                stations.add(station);
+                int entree = etiquettes.getEntree(station);
+                if (entree >= 0 && sections.add(entree)) dureeTransport += transit.getDuree(entree);
+            }
+            Collections.reverse(stations);
+            for (Set<Integer> gardees : sectionsGardees) {
+                int partage = 0;
+                for (int section : sections) if (gardees.contains(section)) partage += transit.getDuree(section);
+                partageMax = Math.max(partageMax, partage);
+            }
+
+            //Le trajet est rejoué avec les vrais horaires, et n'est gardé que s'il est assez différent et assez rapide
+            Section[] trajet = getTrajet(stations, etiquettes, etiquettes.getFinale(arriveeCandidate));
+            int horaireArrivee = trajet[trajet.length - 1].getArrivee().getSecondesDePassage();
+            if (trajets.isEmpty())
+                limite = Math.min(limite, horaireDepart + (int) ((horaireArrivee - horaireDepart) * Constants.MAX_ALTERNATIVE_STRETCH));
+            if (horaireArrivee <= limite && partageMax <= dureeTransport * Constants.MAX_ALTERNATIVE_OVERLAP) {
+                trajets.add(trajet);
+                sectionsGardees.add(sections);
+            }
+
+            //Les sections empruntées sont pénalisées pour la recherche suivante, même si le trajet n'est pas gardé
+            if (sections.isEmpty()) break; //seule la marche ne peut pas être évitée
+            for (int section : sections) penalites[section] += (int) (transit.getDuree(section) * Constants.ALTERNATIVE_PENALTY_FACTOR);
+        }
+
+        trajets.sort(Comparator.comparingInt(trajet -> trajet[trajet.length - 1].getArrivee().getSecondesDePassage()));
+        return trajets;
+    }
+
+    /**
+     * Cherche le plus court chemin des sources vers l'arrivée, avec les horaires pénalisés.
+     * La clef d'une station dans le tas est son horaire augmenté d'un minorant de la durée restante, que les pénalités ne font qu'allonger :
+     * la recherche s'arrête dès que plus aucune station ne peut arriver avant le meilleur trajet trouvé.
+     *
+     * @param etiquettes les étiquettes des stations, pour une nouvelle recherche.
+     * @param sources les stations de départ candidates, avec l'horaire auquel on y arrive à pied depuis le départ.
+     * @param puits les stations d'arrivée candidates, avec la durée de marche jusqu'à l'arrivée.
+     * @param limite l'horaire d'arrivée pénalisé à ne pas dépasser, en secondes.
+     * @return l'index de la station d'arrivée candidate du meilleur trajet, ou -1 s'il n'y en a pas.
+     */
+    private int chercher(SearchWorkspace etiquettes, Map<Station, Integer> sources, Map<Station, Duration> puits, int limite) {
+        IndexedMinHeap tas = etiquettes.getTas();
+        for (Map.Entry<Station, Duration> puit : puits.entrySet()) {
+            Integer index = graphe.getIndex(puit.getKey());
+            if (index != null) etiquettes.setFinale(index, (int) puit.getValue().getSeconds());
+        }
+        for (Map.Entry<Station, Integer> source : sources.entrySet()) {
+            Integer index = graphe.getIndex(source.getKey());
+            if (index != null && source.getValue() < etiquettes.getHoraire(index))
+                etiquettes.setSource(index, source.getValue(), source.getValue() + etiquettes.getEstimation(index, transit, arrivee));
+        }
+
+        int meilleure = -1, meilleurHoraire = limite + 1;
+        while (!tas.isEmpty() && tas.getClef(tas.peek()) < meilleurHoraire && !echeance.isDepassee()) {
+            int current = tas.poll(), horaire = etiquettes.getHoraire(current);
+            etiquettes.setTraitee(current);
+            int finale = etiquettes.getFinale(current);
+            if (finale >= 0 && horaire + finale < meilleurHoraire) {
+                meilleure = current;
+                meilleurHoraire = horaire + finale;
+            }
+
+            //Les voisins à pied, sans pénalité
+            int borne = meilleurHoraire;
+            graphe.parcourir(current, volonte, (next, duree, distance) -> ameliorer(etiquettes, current, next, horaire + duree, -1, borne));
+            //Puis les voisins en transport, avec le temps de correspondance et la pénalité de la section
+            int entree = etiquettes.getEntree(current);
+            int ligneArrivee = (entree >= 0) ? transit.getLigneSection(entree) : -1;
+            for (int section = transit.debut(current), fin = transit.fin(current); section < fin; section++) {
+                int next = transit.getVoisin(section), duree = transit.getDuree(section) + penalites[section];
+                if (etiquettes.isTraitee(next) || horaire + duree >= etiquettes.getHoraire(next)) continue; //même sans attente
+                int prochainDepart = transit.getSection(section).getProchainDepart(horaire);
+                if (prochainDepart < 0) continue;
+                ameliorer(etiquettes, current, next, prochainDepart + duree
+                          + transit.getTempsCorrespondance(current, ligneArrivee, transit.getLigneSection(section)), section, meilleurHoraire);
+            }
+        }
+        return meilleure;
+    }
+
+    /**
+     * Améliore l'horaire d'une station, si elle n'est pas traitée et qu'elle peut encore battre le meilleur trajet trouvé.
+     *
+     * @param etiquettes les étiquettes des stations dans la recherche en cours.
+     * @param current l'index de la station d'où l'on vient.
+     * @param next l'index de la station à améliorer.
+     * @param horaire l'horaire pénalisé auquel on y arrive, en secondes.
+     * @param entree la position, dans le graphe figé, de la section empruntée, -1 pour un chemin à pied.
+     * @param meilleurHoraire l'horaire d'arrivée pénalisé du meilleur trajet trouvé, en secondes.
+     */
+    private void ameliorer(SearchWorkspace etiquettes, int current, int next, int horaire, int entree, int meilleurHoraire) {
+        if (etiquettes.isTraitee(next) || horaire >= etiquettes.getHoraire(next)) return;
+        int clef = horaire + etiquettes.getEstimation(next, transit, arrivee);
+        if (clef < meilleurHoraire) etiquettes.ameliorer(current, next, horaire, entree, clef);
+    }
+
+    /**
+     * Rejoue un trajet trouvé avec les vrais horaires, sans pénalité, et les règles de dijkstra.
+     * Les horaires rejoués ne sont jamais plus tardifs que les horaires pénalisés.
+     *
+     * @param stations les stations du trajet, de la source à la station d'arrivée candidate.
+     * @param etiquettes les étiquettes des stations dans la recherche qui a trouvé le trajet.
+     * @param finale la durée de marche de la station d'arrivée candidate jusqu'à l'arrivée, en secondes.
+     * @return le trajet, avec ses sections de début et de fin à pied.
+     */
+    private Section[] getTrajet(List<Integer> stations, SearchWorkspace etiquettes, int finale) {
+        Section[] trajet = new Section[stations.size() + 1];
+        int horaire = etiquettes.getHoraire(stations.get(0)), ligneArrivee = -1;
+        Station departCandidat = graphe.copyStation(stations.get(0), horaire);
+        double distanceDebut = distanceBetween(depart, departCandidat.getLocalisation());
+        trajet[0] = new Section(new Lieu(Constants.DEPART, depart, horaireDepart), departCandidat, walkingDurationOf(distanceDebut), distanceDebut);
+
+        for (int i = 1; i < stations.size(); i++) {
+            int station = stations.get(i - 1), suivante = stations.get(i), entree = etiquettes.getEntree(suivante), horaireSuivant;
+            if (entree >= 0) {
+                SectionTransport section = transit.getSection(entree);
+                int ligne = transit.getLigneSection(entree);
+                horaireSuivant = section.getProchainDepart(horaire) + transit.getDuree(entree) + transit.getTempsCorrespondance(station, ligneArrivee, ligne);
+                Section copie = section.copy();
+                copie.getDepart().setSecondesDePassage(horaire);
+                copie.getArrivee().setSecondesDePassage(horaireSuivant);
+                trajet[i] = copie;
+                ligneArrivee = ligne;
+            }
+            else {
+                int duree = etiquettes.getHoraire(suivante) - etiquettes.getHoraire(station); //la marche n'est pas pénalisée
+                horaireSuivant = horaire + duree;
+                Coordonnee c1 = graphe.getStation(station).getLocalisation();
+                Coordonnee c2 = graphe.getStation(suivante).getLocalisation();
+                trajet[i] = new Section(new Lieu(Constants.DEPART, c1, horaire), new Lieu(Constants.ARRIVEE, c2, horaireSuivant),
+                                        Duration.ofSeconds(duree), distanceBetween(c1, c2));
+                ligneArrivee = -1;
+            }
+            horaire = horaireSuivant;
+        }
+
+        Station arriveeCandidat = graphe.copyStation(stations.get(stations.size() - 1), horaire);
+        double distanceFin = distanceBetween(arrivee, arriveeCandidat.getLocalisation());
+        trajet[stations.size()] = new Section(arriveeCandidat, new Lieu(Constants.ARRIVEE, arrivee, horaire + finale),
+                                              walkingDurationOf(distanceFin), distanceFin);
+        return trajet;
+    }
+}
@@ -14,71 +14,78 @@ import java.util.*;
 import static fr.uparis.backapp.utils.Utils.*;
 
 /**
- * Classe static pour calculer des itinéraires en fonction de différents paramètres.
+ * Calcul d'itinéraires en fonction de différents paramètres.
+ * Chaque recherche a sa propre instance, créée à partir d'une requête immuable, et ne fait que lire le Reseau :
+ * plusieurs recherches peuvent donc être faites en parallèle.
+ * Si la requête a une échéance, les recherches s'arrêtent quand elle est dépassée, et les meilleurs trajets trouvés jusque-là sont renvoyés.
  */
 public class Calculator {
-    private static boolean isCalculating = false;
+    final private Coordonnee depart;
+    final private Coordonnee arrivee;
+    final private int horaireDepart; //en secondes depuis le début de la journée de service
 
-    private static boolean A_PIED = false;
+    final private ItineraryQuery.Algorithme algorithme;
+    final private boolean guidee; //recherche A*, guidée vers l'arrivée par un minorant de la durée restante
+    final private boolean bidirectionnelle; //minorants donnés par une recherche en arrière depuis l'arrivée
+    final private SearchDeadline echeance; //au-delà de laquelle les recherches rendent les meilleurs trajets trouvés
 
-    private static boolean MARCHER_AU_MOINS_DISTANCE = false;
-    private static double volonte = 0.0;
-
-    private static boolean MARCHER_AU_MOINS_TEMPS = false;
-    private static double minDistance = 0.0;
-
-    private static boolean MARCHER_AU_PLUS = false;
-
-    private static Coordonnee depart = null;
-    private static Coordonnee arrivee = null;
-    private static LocalTime horaireDepart = null;
-
-    private static HashMap<Station, List<Station>> coupleStations = null;
-
-    public static boolean getIsCalculating() {
-        return isCalculating;
-    }
-
-    /**
-     * Change l'état du boolean pour avoir des trajets à pied.
-     */
-    public static void changeAPied() {
-        A_PIED = !A_PIED;
-    }
+    final private TransitGraph transit; //sections en transport entre les stations, repérées par leur index
+    final private FootpathGraph graphe; //chemins à pied entre les stations, repérées par leur index
+    final private ContractionHierarchy hierarchie; //minorants exacts des durées de trajet entre les stations
+    final private RaptorTimetable horaires; //horaires rangés par routes, uniquement pour RAPTOR et les profils
+    final private ConnectionTimetable connexions; //connexions rangées par horaire de départ, uniquement pour CSA
 
     /**
-     * Change l'état du boolean pour avoir des trajets en mode sportif avec la distance en paramètre.
+     * Constructeur privé d'une recherche, les recherches étant lancées par la fabrique d'itinéraires.
      *
-     * @param distance la distance minimale à parcourir dans le trajet.
+     * @param requete la requête de calcul d'itinéraire.
+     * @param reseau le Reseau dans lequel chercher les trajets.
      */
-    public static void changeMarcherAuMoinsDistance(double distance) {
-        MARCHER_AU_MOINS_DISTANCE = !MARCHER_AU_MOINS_DISTANCE;
-        minDistance = distance;
+    private Calculator(ItineraryQuery requete, Reseau reseau) {
+        this.depart = requete.getDepart();
+        this.arrivee = requete.getArrivee();
+        this.horaireDepart = requete.getHoraireDepart().toSecondOfDay();
+        this.algorithme = requete.getAlgorithme();
+        this.bidirectionnelle = (algorithme == ItineraryQuery.Algorithme.BIDIRECTIONNEL);
+        this.guidee = (algorithme == ItineraryQuery.Algorithme.ASTAR) || bidirectionnelle;
+        this.echeance = requete.getEcheance();
+        this.transit = reseau.getTransitGraph();
+        this.graphe = transit.getFootpathGraph();
+        this.hierarchie = reseau.getContractionHierarchy();
+        this.horaires = (algorithme == ItineraryQuery.Algorithme.RAPTOR || requete.getMode() == ItineraryQuery.Mode.PROFIL)?
+                        reseau.getRaptorTimetable() : null;
+        this.connexions = (algorithme == ItineraryQuery.Algorithme.CSA)? reseau.getConnectionTimetable() : null;
     }
 
     /**
-     * Change l'état du boolean pour avoir des trajets en mode sportif avec la durée en paramètre.
+     * Fabrique d'itinéraires qui va retourner les itinéraires avec les paramètres de la requête.
      *
-     * @param temps la durée minimale à parcourir dans le trajet.
+     * @param requete la requête de calcul d'itinéraire.
+     * @return les 5 trajets les plus rapides, sous forme de liste de Sections.
      */
-    public static void changeMarcherAuMoinsTemps(Duration temps) {
-        MARCHER_AU_MOINS_TEMPS = !MARCHER_AU_MOINS_TEMPS;
-        if(temps == null) minDistance = 0.0;
-        else minDistance = distanceOfWalkingDuration(temps);
-    }
+    public static List<Section[]> itineraireFactory(ItineraryQuery requete) {
+        Calculator calculator = new Calculator(requete, Reseau.getInstance());
+        List<Section[]> res;
 
-    /**
-     * Change l'état du boolean pour avoir des trajets en mode paresseux.
-     *
-     * @param distance la distance maximale à parcourir entre les stations, pour avoir des trajets plus courts.
-     */
-    public static void changeMarcherAuPlus(double distance) {
-        MARCHER_AU_PLUS = !MARCHER_AU_PLUS;
-        volonte = distance;
+        switch(requete.getMode()) {
+            case A_PIED -> {
+                res = new LinkedList<>();
+                res.add(new Section[]{walkingItineraire(requete.getDepart(), requete.getArrivee(), calculator.horaireDepart)});
+            }
+            case MARCHER_AU_MOINS -> res = calculator.sportifItineraire(requete.getDistance());
+            case MARCHER_AU_PLUS -> res = calculator.lazyItineraire(requete.getDistance());
+            case PROFIL -> res = calculator.profilItineraire(requete.getHoraireFin().toSecondOfDay());
+            case ARRIVER_AVANT -> res = calculator.arriveeItineraire();
+            case PARETO -> res = calculator.paretoItineraire();
+            default -> res = calculator.lazyItineraire(Constants.DEFAULT_MIN_DISTANCE);
+        }
+
+        setCorrectTime(res);
+        return res;
     }
 
     /**
-     * Fabrique d'itinéraires qui va retourner les itinéraires avec les bons paramètres.
+     * Fabrique d'itinéraires qui va retourner les trajets les plus rapides.
      *
      * @param depart point de départ du trajet.
      * @param arrivee point d'arrivée du trajet.
@@ -86,43 +93,7 @@ public class Calculator {
      * @return les 5 trajets les plus rapides, sous forme de liste de Sections.
      */
     public static List<Section[]> itineraireFactory(Coordonnee depart, Coordonnee arrivee, LocalTime horaireDepart) {
-        if(!isCalculating) {
-            isCalculating = true;
-            Calculator.depart = depart;
-            Calculator.arrivee = arrivee;
-            Calculator.horaireDepart = horaireDepart;
-            List<Section[]> res;
-
-            if(A_PIED) {
-                res = new LinkedList<>();
-                res.add(new Section[]{walkingItineraire(depart, arrivee, horaireDepart)});
-                changeAPied();
-            }
-            else {
-                coupleStations = new HashMap<>();
-
-                if(MARCHER_AU_MOINS_DISTANCE) {
-                    res = sportifItineraire(minDistance);
-                    changeMarcherAuMoinsDistance(0.0);
-                }
-                else if(MARCHER_AU_MOINS_TEMPS) {
-                    res = sportifItineraire(minDistance);
-                    changeMarcherAuMoinsTemps(null);
-                }
-                else if(MARCHER_AU_PLUS) {
-                    res = lazyItineraire(volonte);
-                    changeMarcherAuPlus(0.0);
-                }
-                else res = lazyItineraire(Constants.DEFAULT_MIN_DISTANCE);
-
-                coupleStations = null;
-            }
-
-            isCalculating = false;
-            setCorrectTime(res);
-            return res;
-        }
-        return null;
+        return itineraireFactory(ItineraryQuery.optimal(depart, arrivee, horaireDepart));
     }
 
     /**
@@ -133,7 +104,46 @@ public class Calculator {
     private static void setCorrectTime(List<Section[]> trajets) {
         for(Section[] sections: trajets)
             for(int i = 1; i < sections.length; i++)
-                sections[i].getDepart().setHoraireDePassage(sections[i].getArrivee().getHoraireDePassage().minus(sections[i].getDuree()));
+                sections[i].getDepart().setSecondesDePassage(sections[i].getArrivee().getSecondesDePassage() - (int) sections[i].getDuree().getSeconds());
+    }
+
+    /**
+     * Recale un trajet déjà calculé sur un autre horaire de départ, en prenant à chaque section en transport le prochain départ,
+     * avec les temps de correspondance des recherches. Le trajet donné n'est pas modifié.
+     *
+     * @param trajet le trajet à recaler.
+     * @param horaireDepart le nouvel horaire de départ, en secondes depuis le début de la journée de service.
+     * @return une copie du trajet avec ses nouveaux horaires de passage, ou null si une de ses sections n'existe plus ou n'a plus de départ.
+     */
+    public static Section[] recalerTrajet(Section[] trajet, int horaireDepart) {
+        TransitGraph transit = Reseau.getInstance().getTransitGraph();
+        FootpathGraph graphe = transit.getFootpathGraph();
+        Section[] recale = new Section[trajet.length];
+        int horaire = horaireDepart, ligneArrivee = -1;
+        for(int i = 0; i < trajet.length; i++) {
+            Section copie = trajet[i].copy();
+            copie.getDepart().setSecondesDePassage(horaire);
+            if(trajet[i] instanceof SectionTransport section) {
+                Integer station = graphe.getIndex(section.getDepart()), suivante = graphe.getIndex(section.getArrivee());
+                int ligne = transit.getIndexLigne(section.getLigne());
+                if(station == null || suivante == null || ligne < 0) return null;
+                int s = transit.debut(station), fin = transit.fin(station);
+                while(s < fin && (transit.getVoisin(s) != suivante || transit.getLigneSection(s) != ligne)) s++;
+                if(s == fin) return null;
+                int prochainDepart = transit.getSection(s).getProchainDepart(horaire);
+                if(prochainDepart < 0) return null;
+                horaire = prochainDepart + transit.getDuree(s) + transit.getTempsCorrespondance(station, ligneArrivee, ligne);
+                ligneArrivee = ligne;
+            }
+            else {
+                horaire += (int) trajet[i].getDuree().getSeconds();
+                ligneArrivee = -1;
+            }
+            copie.getArrivee().setSecondesDePassage(horaire);
+            recale[i] = copie;
+        }
+        setCorrectTime(List.<Section[]>of(recale));
+        return recale;
     }
 
     /**
@@ -141,54 +151,48 @@ public class Calculator {
      *
      * @param depart point de départ du trajet.
      * @param arrivee point d'arrivée du trajet.
-     * @param horaireDepart horaire de départ.
+     * @param horaireDepart horaire de départ, en secondes depuis le début de la journée de service.
      * @return une section contenant toutes les informations du trajet à pied.
      */
-    private static Section walkingItineraire(Coordonnee depart, Coordonnee arrivee, LocalTime horaireDepart) {
+    private static Section walkingItineraire(Coordonnee depart, Coordonnee arrivee, int horaireDepart) {
         double distance = distanceBetween(depart, arrivee);
         Duration duree = walkingDurationOf(distance);
         return new Section(new Lieu(Constants.DEPART, depart, horaireDepart),
-                           new Lieu(Constants.ARRIVEE, arrivee, horaireDepart.plus(duree)),
+                           new Lieu(Constants.ARRIVEE, arrivee, horaireDepart + (int) duree.getSeconds()),
                            duree,
                            distance);
     }
 
     /**
-     * Calcule un itinéraire, avec correspondances et horaires, en imposant une distance de marche minimale dans le trajet.
+     * Calcule un itinéraire, avec correspondances et horaires, en imposant une distance de marche minimale dans le trajet,
+     * en une seule recherche multicritère, quel que soit l'algorithme de la requête :
+     * la marche au début, entre les stations et à la fin compte dans la distance minimale.
      *
      * @param minDistance distance de marche minimale durant le trajet, en km.
      * @return les 5 trajets les plus rapides, sous forme de liste de Sections.
      */
-    private static List<Section[]> sportifItineraire(double minDistance) {
+    private List<Section[]> sportifItineraire(double minDistance) {
         //Les 5 trajets les plus optimaux à retourner, avec celui à pied en termes de comparatif/pire trajet
         List<Section[]> trajetsSaved = new ArrayList<>();
         trajetsSaved.add(new Section[]{walkingItineraire(depart, arrivee, horaireDepart)});
-        LocalTime maxTime = trajetsSaved.get(0)[0].getArrivee().getHoraireDePassage();
 
         double maxDistance = minDistance + Constants.DEFAULT_ECART_DISTANCE;
 
-        //Les stations les plus proches du départ et de l'arrivée, avec un minimum de marche au début
-        List<Station> procheDepartDeb = getNearStations(depart, minDistance, maxDistance);
-        List<Station> procheArriveeDeb = getNearStations(arrivee, Constants.DEFAULT_MIN_DISTANCE, maxDistance);
-
-        //Les stations les plus proches du départ et de l'arrivée, avec un minimum de marche au début et à la fin
-        List<Station> procheDepartMid = getNearStations(depart, minDistance / 2, maxDistance);
-        List<Station> procheArriveeMid = getNearStations(arrivee, minDistance / 2, maxDistance);
-
-        //Les stations les plus proches du départ et de l'arrivée, avec un minimum de marche à la fin
-        List<Station> procheDepartFin = getNearStations(depart, Constants.DEFAULT_MIN_DISTANCE, maxDistance);
-        List<Station> procheArriveeFin = getNearStations(arrivee, minDistance, maxDistance);
-
-        //Initialise les couples de stations déjà traités par dijkstra
-        addStationsAndListToMap(procheDepartDeb);
-        addStationsAndListToMap(procheDepartMid);
-        addStationsAndListToMap(procheDepartFin);
-
-        //Trouve le plus court chemin pour chaque couple procheDepart-procheArrivee
-        addTrajetsOptimaux(trajetsSaved, procheDepartDeb, procheArriveeDeb, maxTime, maxDistance);
-        addTrajetsOptimaux(trajetsSaved, procheDepartMid, procheArriveeMid, maxTime, maxDistance);
-        addTrajetsOptimaux(trajetsSaved, procheDepartFin, procheArriveeFin, maxTime, maxDistance);
+        //Les stations proches du départ et de l'arrivée, avec la distance de marche pour les rejoindre
+        Map<Station, Double> sources = new LinkedHashMap<>();
+        for(Station departCandidat: getNearStations(depart, Constants.DEFAULT_MIN_DISTANCE, maxDistance))
+            sources.put(departCandidat, distanceBetween(depart, departCandidat.getLocalisation()));
+        Map<Station, Double> puits = new HashMap<>();
+        Map<Station, Duration> dureesFin = new HashMap<>();
+        for(Station arriveeCandidat: getNearStations(arrivee, Constants.DEFAULT_MIN_DISTANCE, maxDistance)) {
+            puits.put(arriveeCandidat, distanceBetween(arrivee, arriveeCandidat.getLocalisation()));
+            dureesFin.put(arriveeCandidat, walkingDurationOf(puits.get(arriveeCandidat)));
+        }
 
+        int borne = getMaxTime(trajetsSaved);
+        int[] minorants = getMinorants(dureesFin, borne - horaireDepart, maxDistance);
+        saveTrajets(trajetsSaved, new MinimumWalkSearch(depart, arrivee, horaireDepart, transit, maxDistance, minDistance, echeance)
+                                      .rechercher(sources, puits, borne, Constants.MAX_TRAJETS_NUMBER, minorants));
         return trajetsSaved;
     }
 
@@ -198,28 +202,109 @@ public class Calculator {
      * @param volonte La distance que l'utilisateur accepte de parcourir, si jamais le chemin est plus rapide à pied qu'en transport.
      * @return les 5 trajets les plus rapides, sous forme de liste de Sections.
      */
-    private static List<Section[]> lazyItineraire(double volonte) {
+    private List<Section[]> lazyItineraire(double volonte) {
         //Les 5 trajets les plus optimaux à retourner, avec celui à pied en termes de comparatif/pire trajet
         List<Section[]> trajetsSaved = new ArrayList<>();
         trajetsSaved.add(new Section[]{walkingItineraire(depart, arrivee, horaireDepart)});
-        LocalTime maxTime = trajetsSaved.get(0)[0].getArrivee().getHoraireDePassage();
 
         //Trouve les stations les plus proches du départ et de l'arrivée
         double maxDistance = (volonte != Constants.DEFAULT_MIN_DISTANCE)? volonte : Constants.DEFAULT_ECART_DISTANCE;
         List<Station> procheDepart = getNearStations(depart, Constants.DEFAULT_MIN_DISTANCE, maxDistance);
         List<Station> procheArrivee = getNearStations(arrivee, Constants.DEFAULT_MIN_DISTANCE, maxDistance);
 
-        //Initialise les couples de stations déjà traités par dijkstra
-        addStationsAndListToMap(procheDepart);
+        //Trouve les plus courts chemins des stations proches du départ vers celles proches de l'arrivée
+        addTrajetsOptimaux(trajetsSaved, procheDepart, procheArrivee, volonte);
 
-        //Trouve le plus court chemin pour chaque couple procheDepart-procheArrivee
-        addTrajetsOptimaux(trajetsSaved, procheDepart, procheArrivee, maxTime, volonte);
+        return trajetsSaved;
+    }
+
+    /**
+     * Calcule les trajets non dominés pour tous les horaires de départ d'une fenêtre, en une seule recherche de profil RAPTOR,
+     * quel que soit l'algorithme de la requête. Le trajet à pied vaut pour tout horaire de départ :
+     * un trajet n'est gardé que s'il arrive avant le trajet à pied qui part en même temps,
+     * et le trajet à pied qui part à la fin de la fenêtre est ajouté s'il n'est pas dominé.
+     *
+     * @param horaireFin la fin de la fenêtre des horaires de départ, en secondes, qui commence à l'horaire de départ.
+     * @return les trajets non dominés, du départ le plus tôt au plus tardif, sous forme de liste de Sections.
+     */
+    private List<Section[]> profilItineraire(int horaireFin) {
+        int fin = (horaireFin < horaireDepart)? horaireFin + Constants.SECONDS_PER_DAY : horaireFin; //la fenêtre passe minuit
+
+        //Les stations proches du départ, avec la durée de marche pour les rejoindre, et celles proches de l'arrivée
+        Map<Station, Integer> marches = new LinkedHashMap<>();
+        for(Station departCandidat: getNearStations(depart, Constants.DEFAULT_MIN_DISTANCE, Constants.DEFAULT_ECART_DISTANCE))
+            marches.put(departCandidat, (int) walkingDurationOf(distanceBetween(depart, departCandidat.getLocalisation())).getSeconds());
+        Map<Station, Duration> puits = new HashMap<>();
+        for(Station arriveeCandidat: getNearStations(arrivee, Constants.DEFAULT_MIN_DISTANCE, Constants.DEFAULT_ECART_DISTANCE))
+            puits.put(arriveeCandidat, walkingDurationOf(distanceBetween(arrivee, arriveeCandidat.getLocalisation())));
+
+        Section marche = walkingItineraire(depart, arrivee, fin);
+        List<Section[]> trajets = new Raptor(depart, arrivee, horaireDepart, horaires, transit, Constants.DEFAULT_MIN_DISTANCE, echeance)
+                                      .rechercherProfil(marches, puits, horaireDepart, fin, (int) marche.getDuree().getSeconds());
+        if(trajets.isEmpty() || trajets.get(trajets.size() - 1)[0].getDepart().getSecondesDePassage() < fin)
+            trajets.add(new Section[]{marche});
+        return trajets;
+    }
 
+    /**
+     * Calcule les trajets qui partent le plus tard possible en arrivant au plus tard à l'horaire de la requête,
+     * par une recherche en arrière depuis l'arrivée, quel que soit l'algorithme de la requête.
+     * Le trajet à pied, qui part juste à temps, sert de pire trajet.
+     *
+     * @return les 5 trajets qui partent le plus tard, du départ le plus tardif au plus tôt, sous forme de liste de Sections.
+     */
+    private List<Section[]> arriveeItineraire() {
+        int horaireArrivee = horaireDepart; //l'horaire de la requête est celui d'arrivée
+        int dureeMarche = (int) walkingDurationOf(distanceBetween(depart, arrivee)).getSeconds();
+        List<Section[]> trajetsSaved = new ArrayList<>();
+        trajetsSaved.add(new Section[]{walkingItineraire(depart, arrivee, horaireArrivee - dureeMarche)});
+
+        //Les stations proches du départ, avec la durée de marche pour les rejoindre, et celles proches de l'arrivée
+        Map<Station, Integer> marches = new LinkedHashMap<>();
+        for(Station departCandidat: getNearStations(depart, Constants.DEFAULT_MIN_DISTANCE, Constants.DEFAULT_ECART_DISTANCE))
+            marches.put(departCandidat, (int) walkingDurationOf(distanceBetween(depart, departCandidat.getLocalisation())).getSeconds());
+        Map<Station, Duration> puits = new HashMap<>();
+        for(Station arriveeCandidat: getNearStations(arrivee, Constants.DEFAULT_MIN_DISTANCE, Constants.DEFAULT_ECART_DISTANCE))
+            puits.put(arriveeCandidat, walkingDurationOf(distanceBetween(arrivee, arriveeCandidat.getLocalisation())));
+
+        //Les trajets arrivent par ordre de départ décroissant, et le trajet à pied part avant eux
+        trajetsSaved.addAll(0, new ReverseSearch(depart, arrivee, horaireArrivee, transit, Constants.DEFAULT_MIN_DISTANCE, echeance)
+                                   .rechercher(marches, puits, horaireArrivee - dureeMarche));
+        while(trajetsSaved.size() > Constants.MAX_TRAJETS_NUMBER) trajetsSaved.remove(trajetsSaved.size() - 1);
         return trajetsSaved;
     }
 
     /**
-     * Cherche les stations proches d'une coordonnée.
+     * Calcule les trajets non dominés sur l'horaire d'arrivée, le nombre de correspondances et la distance marchée,
+     * en une seule recherche multicritère, quel que soit l'algorithme de la requête.
+     * Le trajet à pied, sans correspondance, en fait toujours partie : il sert de pire trajet, que les autres doivent battre.
+     *
+     * @return les trajets non dominés, dans l'ordre chronologique d'horaire d'arrivée, sous forme de liste de Sections.
+     */
+    private List<Section[]> paretoItineraire() {
+        Section marche = walkingItineraire(depart, arrivee, horaireDepart);
+        int borne = marche.getArrivee().getSecondesDePassage();
+
+        //Les stations proches du départ et de l'arrivée, avec la distance de marche pour les rejoindre
+        Map<Station, Double> sources = new LinkedHashMap<>();
+        for(Station departCandidat: getNearStations(depart, Constants.DEFAULT_MIN_DISTANCE, Constants.DEFAULT_ECART_DISTANCE))
+            sources.put(departCandidat, distanceBetween(depart, departCandidat.getLocalisation()));
+        Map<Station, Double> puits = new HashMap<>();
+        Map<Station, Duration> dureesFin = new HashMap<>();
+        for(Station arriveeCandidat: getNearStations(arrivee, Constants.DEFAULT_MIN_DISTANCE, Constants.DEFAULT_ECART_DISTANCE)) {
+            puits.put(arriveeCandidat, distanceBetween(arrivee, arriveeCandidat.getLocalisation()));
+            dureesFin.put(arriveeCandidat, walkingDurationOf(puits.get(arriveeCandidat)));
+        }
+
+        int[] minorants = getMinorants(dureesFin, borne - horaireDepart, Constants.DEFAULT_ECART_DISTANCE);
+        List<Section[]> trajets = new ParetoSearch(depart, arrivee, horaireDepart, transit, Constants.DEFAULT_ECART_DISTANCE, echeance)
+                                      .rechercher(sources, puits, borne, minorants);
+        trajets.add(new Section[]{marche});
+        return trajets;
+    }
+
+    /**
+     * Cherche les stations proches d'une coordonnée, avec l'index spatial du Reseau.
      *
      * @param coordonnee coordonnée du point de départ.
      * @param minDistance distance minimale acceptable entre deux points, en km.
@@ -227,236 +312,437 @@ public class Calculator {
      * @return la liste des stations dont la distance est majorée par maxDistance et minorée par minDistance.
      */
     private static List<Station> getNearStations(Coordonnee coordonnee, double minDistance, double maxDistance) {
-        List<Station> nearStations = new ArrayList<>();
-        double distance;
-        for(Station s: Reseau.getInstance().getStations()) {
-            distance = distanceBetween(coordonnee, s.getLocalisation());
-            if(distance >= minDistance && distance <= maxDistance) nearStations.add(s);
-        }
-
-        return nearStations;
+        return Reseau.getInstance().getNearbyStationIndex().rechercher(coordonnee, minDistance, maxDistance);
     }
 
     /**
-     * Ajoute les couples (Station, List<Station>) pour chaque station, avec la liste initialisée à la station en clef.
-     * Le but étant d'y ajouter les couples de stations déjà traités par dijkstra.
+     * Trouve les plus courts chemins des stations proches du départ vers celles proches de l'arrivée,
+     * et les ajoute dans les trajets sauvegardés.
+     * Une seule recherche est faite, sauf pour les trajets alternatifs : chaque station de départ candidate est une source,
+     * atteinte à pied depuis le départ, et l'arrivée est un puits, atteint à pied depuis chaque station d'arrivée candidate.
      *
-     * @param procheOrigine les stations à ajouter dans la HashMap dans le format désiré.
+     * @param trajetsSaved les trajets déjà sauvegardés, dans l'ordre chronologique d'horaire d'arrivée.
+     * @param procheDepart les stations proches du départ.
+     * @param procheArrivee les stations proches de l'arrivée.
+     * @param volonte La distance que l'utilisateur accepte de parcourir, si jamais le chemin est plus rapide à pied qu'en transport.
      */
-    private static void addStationsAndListToMap(List<Station> procheOrigine) {
-        for(Station station: procheOrigine) {
-            List<Station> list = new LinkedList<>();
-            list.add(station);
-            coupleStations.put(station, list);
+    private void addTrajetsOptimaux(List<Section[]> trajetsSaved, List<Station> procheDepart, List<Station> procheArrivee, double volonte) {
+        //Horaire d'arrivée, en secondes, que les trajets doivent battre pour faire partie des meilleurs
+        int borne = getMaxTime(trajetsSaved);
+
+        //Les arcs vers le puits, avec la durée de marche jusqu'à l'arrivée, sauf ceux qu'on ne peut pas atteindre à temps
+        Map<Station, Duration> puits = new HashMap<>();
+        for(Station arriveeCandidat: procheArrivee) {
+            Duration dureeFin = walkingDurationOf(distanceBetween(arrivee, arriveeCandidat.getLocalisation()));
+            if(horaireDepart + transit.getDureeMinimale(depart, arriveeCandidat.getLocalisation()) + dureeFin.getSeconds() <= borne)
+                puits.put(arriveeCandidat, dureeFin);
+        }
+        int[] minorants = getMinorants(puits, borne - horaireDepart, volonte);
+
+        //Les sources, avec l'horaire auquel on y arrive à pied depuis le départ,
+        //sauf celles d'où l'on ne peut pas battre la borne, même sans attente ni correspondance
+        Map<Station, Integer> sources = new LinkedHashMap<>();
+        for(Station departCandidat: procheDepart) {
+            int horaire = horaireDepart + (int) walkingDurationOf(distanceBetween(depart, departCandidat.getLocalisation())).getSeconds();
+            Integer index = graphe.getIndex(departCandidat);
+            int minorant = (minorants == null || index == null)? 0 : minorants[index];
+            if(horaire + Math.max(transit.getDureeMinimale(departCandidat.getLocalisation(), arrivee), minorant) <= borne)
+                sources.put(departCandidat, horaire);
+        }
+
+        if(sources.isEmpty() || puits.isEmpty()) return;
+        switch(algorithme) {
+            case RAPTOR -> saveTrajets(trajetsSaved, new Raptor(depart, arrivee, horaireDepart, horaires, transit, volonte, echeance)
+                                                          .rechercher(sources, puits, borne));
+            case CSA -> saveTrajets(trajetsSaved, new ConnectionScan(depart, arrivee, horaireDepart, connexions, transit, volonte, echeance)
+                                                       .rechercher(sources, puits, borne));
+            case ALTERNATIVES -> saveTrajets(trajetsSaved, new AlternativeSearch(depart, arrivee, horaireDepart, transit, volonte, echeance)
+                                                                .rechercher(sources, puits, borne, Constants.MAX_TRAJETS_NUMBER - 1, minorants));
+            default -> djikstra(sources, puits, trajetsSaved, volonte, minorants);
         }
     }
 
     /**
-     * Trouve le plus court chemin pour chaque couple procheOrigine-procheDestination, et l'ajoute dans les trajets sauvegardés.
+     * Renvoie, pour chaque station, le minorant exact de la durée restante jusqu'à l'arrivée dans le graphe des durées minimales,
+     * en passant par une station d'arrivée candidate, avec la hiérarchie de contraction du Reseau.
      *
-     * @param trajetsSaved les trajets déjà sauvegardés par rapport à une précédente recherche.
-     * @param procheDepart les stations proches du départ.
-     * @param procheArrivee les stations proches de l'arrivée.
-     * @param maxTime le temps à ne pas dépasser pour être ajouté aux trajets sauvegardés.
+     * @param puits les stations d'arrivée candidates, avec la durée de marche jusqu'à l'arrivée.
+     * @param limite la durée restante au-delà de laquelle on ne peut plus battre la borne, en secondes.
      * @param volonte La distance que l'utilisateur accepte de parcourir, si jamais le chemin est plus rapide à pied qu'en transport.
+     * @return les minorants, en secondes, indexés comme les stations, ou null si les chemins précalculés ne couvrent pas la marche.
      */
-    private static void addTrajetsOptimaux(List<Section[]> trajetsSaved, List<Station> procheDepart, List<Station> procheArrivee, LocalTime maxTime, double volonte) {
-        for(Station departCandidat: procheDepart) {
-            for(Station arriveeCandidat: procheArrivee) {
-
-                //Si la combinaison de stations n'est pas encore traitée
-                List<Station> listStationsTraitees = coupleStations.get(departCandidat);
-                if(!listStationsTraitees.contains(arriveeCandidat)) {
-                    //Calcul de la durée de marche avant d'arriver à la station candidate, puis récupère l'itinéraire avec dijkstra
-                    double distanceDebut = distanceBetween(depart, departCandidat.getLocalisation());
-                    Duration dureeDebut = walkingDurationOf(distanceDebut);
-                    List<Section> trajet = djikstra(departCandidat, arriveeCandidat, horaireDepart.plus(dureeDebut), volonte);
-
-                    if(trajet != null){
-                        //Horaire auquel on finit le trajet
-                        double distanceFin = distanceBetween(arrivee, arriveeCandidat.getLocalisation());
-                        Duration dureeFin = walkingDurationOf(distanceFin);
-                        LocalTime horaireArrivee = trajet.get(trajet.size()-1).getArrivee().getHoraireDePassage().plus(dureeFin);
-
-                        //Vérifie si le trajet est actuellement parmi les 5 trajets les plus optimaux
-                        if(horaireArrivee.isBefore(maxTime)) {
-                            //Si c'est le cas, faire une copie du trajet à ajouter
-                            Section sectionDebut = new Section(new Lieu(Constants.DEPART, depart, horaireDepart), departCandidat, dureeDebut, distanceDebut);
-                            Section sectionFin = new Section(arriveeCandidat, new Lieu(Constants.ARRIVEE, arrivee, horaireArrivee), dureeFin, distanceFin);
-                            Section[] sectionToSave = createNewTrajet(trajet, sectionDebut, sectionFin);
-
-                            //Et l'ajouter dans les trajets, dans l'ordre chronologique d'horaire d'arrivée
-                            trajetsSaved.add(getInsertIndex(trajetsSaved, horaireArrivee), sectionToSave);
-
-                            //Gérer la liste des trajets, pour que le nombre de résultats ne dépasse pas Constants.MAX_TRAJETS_NUMBER
-                            if(trajetsSaved.size() > Constants.MAX_TRAJETS_NUMBER) {
-                                trajetsSaved.remove(trajetsSaved.size() - 1);
-                                Section[] dernierTrajet = trajetsSaved.get(trajetsSaved.size() - 1);
-                                maxTime = dernierTrajet[dernierTrajet.length - 1].getArrivee().getHoraireDePassage();
-                            }
-                        }
-                    }
-
-                    //Ajoute la station aux couples de stations déjà traités
-                    listStationsTraitees.add(arriveeCandidat);
-                }
-            }
+    private int[] getMinorants(Map<Station, Duration> puits, int limite, double volonte) {
+        if(!graphe.couvre(volonte) || puits.isEmpty()) return null;
+        int[] arriveesCandidates = new int[puits.size()], restes = new int[puits.size()];
+        int nbArrivees = 0;
+        for(Map.Entry<Station, Duration> puit: puits.entrySet()) {
+            Integer index = graphe.getIndex(puit.getKey());
+            if(index == null) continue;
+            arriveesCandidates[nbArrivees] = index;
+            restes[nbArrivees++] = (int) puit.getValue().getSeconds();
         }
+        return hierarchie.getDureesMinimales(Arrays.copyOf(arriveesCandidates, nbArrivees), Arrays.copyOf(restes, nbArrivees), limite);
     }
 
     /**
-     * Détermine le plus court chemin pour se rendre d'une Station à une autre en connaissant le Reseau.
+     * Ajoute des trajets complets, trouvés par RAPTOR, CSA ou la recherche de trajets alternatifs, dans les trajets sauvegardés s'ils sont parmi les 5 trajets les plus optimaux.
+     *
+     * @param trajetsSaved les trajets déjà sauvegardés, dans l'ordre chronologique d'horaire d'arrivée.
+     * @param trajets les trajets à ajouter, avec leurs sections de début et de fin à pied.
+     */
+    private static void saveTrajets(List<Section[]> trajetsSaved, List<Section[]> trajets) {
+        for(Section[] trajet: trajets) insertTrajet(trajetsSaved, trajet);
+    }
+
+    /**
+     * Ajoute un trajet dans les trajets sauvegardés, s'il est parmi les 5 trajets les plus optimaux,
+     * en y ajoutant les sections de début et de fin, qui sont à pied.
+     *
+     * Le trajet entre les stations candidates n'est reconstruit, depuis les prédécesseurs, que s'il est sauvegardé.
+     *
+     * @param trajetsSaved les trajets déjà sauvegardés, dans l'ordre chronologique d'horaire d'arrivée.
+     * @param indexDepart l'index du noeud de la station de départ candidate, où commence le trajet.
+     * @param indexArrivee l'index du noeud de la station d'arrivée candidate, où finit le trajet.
+     * @param horaireArrivee l'horaire auquel on finit le trajet, à l'arrivée, en secondes.
+     * @param etiquettes les étiquettes des stations dans la recherche en cours.
+     */
+    private void saveTrajet(List<Section[]> trajetsSaved, int indexDepart, int indexArrivee, int horaireArrivee,
+                            SearchWorkspace etiquettes) {
+        Station departCandidat = graphe.getStation(etiquettes.getStation(indexDepart));
+        Station arriveeCandidat = graphe.getStation(etiquettes.getStation(indexArrivee));
+
+        //Vérifie si le trajet est actuellement parmi les 5 trajets les plus optimaux, et n'est pas déjà sauvegardé
+        if(!isSauvegardable(trajetsSaved, departCandidat, arriveeCandidat, horaireArrivee)) return;
+
+        //Si c'est le cas, faire une copie du trajet à ajouter
+        double distanceDebut = distanceBetween(depart, departCandidat.getLocalisation());
+        double distanceFin = distanceBetween(arrivee, arriveeCandidat.getLocalisation());
+        Station copieDepart = graphe.copyStation(etiquettes.getStation(indexDepart), etiquettes.getHoraire(indexDepart));
+        Station copieArrivee = graphe.copyStation(etiquettes.getStation(indexArrivee), etiquettes.getHoraire(indexArrivee));
+        Section sectionDebut = new Section(new Lieu(Constants.DEPART, depart, horaireDepart), copieDepart, walkingDurationOf(distanceDebut), distanceDebut);
+        Section sectionFin = new Section(copieArrivee, new Lieu(Constants.ARRIVEE, arrivee, horaireArrivee), walkingDurationOf(distanceFin), distanceFin);
+        Section[] sectionToSave = createNewTrajet(indexArrivee, sectionDebut, sectionFin, etiquettes);
+
+        //Et l'ajouter dans les trajets, dans l'ordre chronologique d'horaire d'arrivée
+        insertTrajet(trajetsSaved, sectionToSave);
+    }
+
+    /**
+     * Insère un trajet complet dans les trajets sauvegardés, dans l'ordre chronologique d'horaire d'arrivée,
+     * s'il est parmi les 5 trajets les plus optimaux et n'est pas déjà sauvegardé.
+     *
+     * @param trajetsSaved les trajets déjà sauvegardés, dans l'ordre chronologique d'horaire d'arrivée.
+     * @param trajet le trajet à insérer, avec ses sections de début et de fin à pied.
+     */
+    private static void insertTrajet(List<Section[]> trajetsSaved, Section[] trajet) {
+        int horaireArrivee = trajet[trajet.length - 1].getArrivee().getSecondesDePassage();
+        if(!isSauvegardable(trajetsSaved, trajet[0].getArrivee(), trajet[trajet.length - 1].getDepart(), horaireArrivee)) return;
+
+        trajetsSaved.add(getInsertIndex(trajetsSaved, horaireArrivee), trajet);
+
+        //Gérer la liste des trajets, pour que le nombre de résultats ne dépasse pas Constants.MAX_TRAJETS_NUMBER
+        if(trajetsSaved.size() > Constants.MAX_TRAJETS_NUMBER) trajetsSaved.remove(trajetsSaved.size() - 1);
+    }
+
+    /**
+     * Regarde si un trajet entre deux stations candidates peut être ajouté aux trajets sauvegardés :
+     * il doit arriver strictement avant le pire trajet sauvegardé, et ne pas être déjà sauvegardé.
+     * C'est le seul test d'admission, commun aux trajets de Dijkstra avant leur reconstruction et aux trajets complets des autres moteurs.
+     *
+     * @param trajetsSaved les trajets déjà sauvegardés, dans l'ordre chronologique d'horaire d'arrivée.
+     * @param departCandidat la station de départ candidate.
+     * @param arriveeCandidat la station d'arrivée candidate.
+     * @param horaireArrivee l'horaire d'arrivée du trajet, en secondes.
+     * @return true si le trajet est parmi les 5 trajets les plus optimaux et n'est pas déjà sauvegardé, false sinon.
+     */
+    private static boolean isSauvegardable(List<Section[]> trajetsSaved, Lieu departCandidat, Lieu arriveeCandidat, int horaireArrivee) {
+        return horaireArrivee < getMaxTime(trajetsSaved) && !containsTrajet(trajetsSaved, departCandidat, arriveeCandidat, horaireArrivee);
+    }
+
+    /**
+     * Renvoie le temps à ne pas dépasser pour être ajouté aux trajets sauvegardés,
+     * c'est-à-dire l'horaire d'arrivée du pire trajet sauvegardé (au pire, celui à pied).
+     *
+     * @param trajetsSaved les trajets déjà sauvegardés, dans l'ordre chronologique d'horaire d'arrivée.
+     * @return l'horaire d'arrivée du dernier trajet sauvegardé, en secondes.
+     */
+    private static int getMaxTime(List<Section[]> trajetsSaved) {
+        Section[] dernierTrajet = trajetsSaved.get(trajetsSaved.size() - 1);
+        return dernierTrajet[dernierTrajet.length - 1].getArrivee().getSecondesDePassage();
+    }
+
+    /**
+     * Regarde si un trajet entre deux stations candidates, avec le même horaire d'arrivée, est déjà sauvegardé.
+     * Deux trajets entre les mêmes stations candidates peuvent arriver à des horaires différents,
+     * avec des nombres de correspondances différents.
+     *
+     * @param trajetsSaved les trajets déjà sauvegardés.
+     * @param departCandidat la station de départ candidate.
+     * @param arriveeCandidat la station d'arrivée candidate.
+     * @param horaireArrivee l'horaire d'arrivée du trajet, en secondes.
+     * @return true si un trajet sauvegardé commence à departCandidat, finit à arriveeCandidat et arrive à horaireArrivee, false sinon.
+     */
+    private static boolean containsTrajet(List<Section[]> trajetsSaved, Lieu departCandidat, Lieu arriveeCandidat, int horaireArrivee) {
+        for(Section[] trajet: trajetsSaved)
+            if(trajet.length > 1 && trajet[0].getArrivee().getNomLieu().equals(departCandidat.getNomLieu())
+                    && trajet[trajet.length - 1].getDepart().getNomLieu().equals(arriveeCandidat.getNomLieu())
+                    && trajet[trajet.length - 1].getArrivee().getSecondesDePassage() == horaireArrivee)
+                return true;
+        return false;
+    }
+
+    /**
+     * Détermine les plus courts chemins depuis plusieurs stations sources vers un puits, en connaissant le Reseau.
      * Les horaires des trains et les temps de correspondance sont pris en compte.
+     * Les stations, les lignes et les sections sont repérées par leur index dans le graphe figé du Reseau,
+     * et la prochaine station à traiter est donnée par un tas indexé.
+     * Les étiquettes des stations sont celles de l'espace de travail du thread, réutilisé d'une recherche à l'autre.
+     * Chaque station de départ candidate a sa couche d'étiquettes, comme si elle avait sa propre recherche :
+     * chaque station d'arrivée candidate atteinte depuis une station de départ candidate donne un trajet vers le puits,
+     * sauvegardé s'il fait partie des meilleurs. Une station n'est plus traitée une fois atteinte depuis 5 stations de départ candidates :
+     * les trajets qui y passeraient ensuite arriveraient après 5 trajets, entre des stations candidates différentes, qui y passent déjà.
+     * La recherche s'arrête dès que plus aucune station ne peut améliorer les trajets sauvegardés, ou à l'échéance de la requête,
+     * et une station n'est pas développée si, même à la vitesse maximale du réseau, elle ne permet pas de battre la borne.
+     * Quand la hiérarchie de contraction couvre la marche, ce minorant est renforcé par la durée minimale dans le réseau, sans attente.
+     * En recherche guidée (A*), la clef d'une station dans le tas est son horaire augmenté de ce minorant de la durée restante :
+     * le minorant étant cohérent, les stations sont traitées avec les mêmes horaires, mais celles qui éloignent de l'arrivée plus tard.
+     * En recherche bidirectionnelle, ce minorant vient d'une recherche en arrière depuis les stations d'arrivée candidates,
+     * faite d'abord : la recherche en avant ne développe alors que les stations qu'elle a atteintes.
      *
-     * @param stationDepart la station de départ.
-     * @param stationArrivee la station d'arrivée.
-     * @param horaireDepart horaire de départ.
+     * @param sources les stations de départ candidates, avec leur horaire de départ.
+     * @param puits les stations d'arrivée candidates, avec la durée de marche jusqu'à l'arrivée.
+     * @param trajetsSaved les trajets déjà sauvegardés, dans l'ordre chronologique d'horaire d'arrivée.
      * @param volonte La distance que l'utilisateur accepte de parcourir, si jamais le chemin est plus rapide à pied qu'en transport.
-     * @return le plus court chemin sous forme d'une liste de section, ou null si aucun chemin n'a été trouvé.
+     * @param minorants les minorants exacts de la durée restante de chaque station, donnés par la hiérarchie de contraction, ou null.
      */
-    private static List<Section> djikstra(Station stationDepart, Station stationArrivee, LocalTime horaireDepart, double volonte) {
-        //Initialisation
-        Map<Station, LocalTime> myMap = new HashMap<>();
-        for(Station station: Reseau.getInstance().getStations())
-            myMap.put(station, null); //null représente ici un temps infini
-        myMap.put(stationDepart, horaireDepart);
-
-        //Pour chaque Station, la meilleure liste de section pour y accéder
-        Map<Station, List<Section>> trace = new Hashtable<>();
-        trace.put(stationDepart, new LinkedList<>());
-
-        //Prendre l'élément le plus petit
-        Station currentStation;
-        LocalTime currentHoraire;
-        while(!myMap.isEmpty() && (currentStation = min(myMap)) != null) {
-            currentHoraire = myMap.get(currentStation);
-            currentStation.setHoraireDePassage(currentHoraire);
-
-            //Si c'est la destination, c'est gagné!
-            if(currentStation.equals(stationArrivee)) return trace.get(currentStation);
-            //Sinon, on examine les voisins
-            else {
-                List<Station> nearStations = getNearStations(currentStation.getLocalisation(), Constants.DEFAULT_MIN_DISTANCE, volonte);
-                for(Station nextStation: nearStations) {
-                    if(!nextStation.equals(currentStation)) {
-                        Section section = walkingItineraire(currentStation.getLocalisation(), nextStation.getLocalisation(), currentHoraire);
-                        boucleDjikstra(myMap, currentStation, nextStation, section, currentHoraire, trace);
-                    }
-                }
-                for(SectionTransport sectionTransport: currentStation.getCorrespondances()) {
-                    Station nextStation = sectionTransport.getArrivee();
-                    boucleDjikstra(myMap, currentStation, nextStation, sectionTransport, currentHoraire, trace);
-                }
+    private void djikstra(Map<Station, Integer> sources, Map<Station, Duration> puits, List<Section[]> trajetsSaved,
+                          double volonte, int[] minorants) {
+        //Initialisation, avec une couche d'étiquettes par station de départ candidate
+        SearchWorkspace etiquettes = SearchWorkspace.get(graphe.getNbStations(), sources.size());
+        etiquettes.setMinorants(minorants);
+        IndexedMinHeap tas = etiquettes.getTas();
+
+        for(Map.Entry<Station, Duration> puit: puits.entrySet()) {
+            Integer index = graphe.getIndex(puit.getKey());
+            if(index != null) etiquettes.setFinale(index, (int) puit.getValue().getSeconds());
+        }
+        if(bidirectionnelle) rechercheArriere(etiquettes, puits.keySet(), getMaxTime(trajetsSaved) - Collections.min(sources.values()), volonte);
+        int couche = 0;
+        for(Map.Entry<Station, Integer> source: sources.entrySet()) {
+            int noeud = etiquettes.getNoeud(couche++, graphe.getIndex(source.getKey()));
+            etiquettes.setSource(noeud, source.getValue(), getClef(etiquettes, noeud, source.getValue()));
+        }
+
+        //Prendre l'élément le plus petit, tant qu'il peut encore améliorer les trajets sauvegardés
+        int nbArriveesAtteintes = 0, nbArrivees = puits.size() * Math.min(sources.size(), Constants.MAX_TRAJETS_NUMBER);
+        while(!tas.isEmpty() && nbArriveesAtteintes < nbArrivees && tas.getClef(tas.peek()) < getMaxTime(trajetsSaved) && !echeance.isDepassee()) {
+            int current = tas.poll();
+            if(isFerme(etiquettes, current)) continue;
+            etiquettes.setTraitee(current);
+            int station = etiquettes.getStation(current);
+            int limite = getMaxTime(trajetsSaved);
+
+            //Si c'est une station d'arrivée candidate, on rejoint le puits à pied
+            if(etiquettes.getFinale(station) >= 0) {
+                nbArriveesAtteintes++;
+                saveTrajet(trajetsSaved, etiquettes.getOrigine(current), current,
+                           etiquettes.getHoraire(current) + etiquettes.getFinale(station), etiquettes);
+                limite = getMaxTime(trajetsSaved);
             }
-            myMap.remove(currentStation);
+
+            //Inutile d'examiner les voisins si l'on ne peut plus rejoindre l'arrivée à temps
+            if(etiquettes.getHoraire(current) + etiquettes.getEstimation(station, transit, arrivee) > limite) continue;
+
+            //On examine les voisins à pied, dans la même couche
+            int coucheCourante = etiquettes.getCouche(current), limiteCourante = limite;
+            graphe.parcourir(station, volonte, (voisin, duree, distance) ->
+                    boucleMarche(etiquettes, current, etiquettes.getNoeud(coucheCourante, voisin), duree, limiteCourante));
+            //Puis les voisins en transport
+            for(int section = transit.debut(station), fin = transit.fin(station); section < fin; section++)
+                boucleDjikstra(etiquettes, current, section, limite);
         }
-        return null; //pas de trajet possible à cause de l'heure des transports
+    }
+
+    /**
+     * Indique si un noeud ne peut plus être amélioré : il est traité, ou sa station l'est déjà depuis 5 stations de départ candidates.
+     *
+     * @param etiquettes les étiquettes des stations dans la recherche en cours.
+     * @param noeud l'index du noeud.
+     * @return true si le noeud ne peut plus être amélioré, false sinon.
+     */
+    private static boolean isFerme(SearchWorkspace etiquettes, int noeud) {
+        return etiquettes.isTraitee(noeud) || etiquettes.getNbNoeudsTraites(etiquettes.getStation(noeud)) >= Constants.MAX_TRAJETS_NUMBER;
     }
 
     /**
      * Fonction annexe utilisée dans dijkstra, permettant d'examiner le trajet pour aller chez les voisins.
      *
-     * @param myMap la map qui contient toutes les stations avec leur poids.
-     * @param currentStation la station départ pour cette boucle de dijkstra.
-     * @param nextStation la station suivant pour cette boucle de dijkstra.
-     * @param section la section de la station courante, sur laquelle on se trouve.
-     * @param currentHoraire l'horaire actuelle.
-     * @param trace les bouts de trajets déjà tracés jusque-là.
+     * @param etiquettes les étiquettes des stations dans la recherche en cours.
+     * @param current l'index du noeud de départ pour cette boucle de dijkstra.
+     * @param section la position, dans le graphe figé, de la section partant de la station courante.
+     * @param limite l'horaire d'arrivée à ne pas dépasser, en secondes.
      */
-    private static void boucleDjikstra(Map<Station, LocalTime> myMap, Station currentStation, Station nextStation,
-                                       Section section, LocalTime currentHoraire, Map<Station, List<Section>> trace) {
-        List<Section> currentSectionTrace = trace.getOrDefault(currentStation, new LinkedList<>());
-
-        //On ne veut que ceux qui sont encore dans myMap, et que le prochain train
-        if(myMap.containsKey(nextStation)) {
-            LocalTime prochainDepart = section.getHoraireProchainDepart(currentHoraire);
-            if(prochainDepart != null) {
-                prochainDepart = prochainDepart.plus(section.getDuree());
-
-                //Ajout du temps de correspondance
-                if(!currentSectionTrace.isEmpty()) {
-                    Ligne previousLigne = currentSectionTrace.get(currentSectionTrace.size() - 1).getLigne();
-                    Ligne currentLigne = section.getLigne();
-                    if(previousLigne != null && currentLigne != null && previousLigne != section.getLigne()) {
-                        Coordonnee c1 = currentStation.getLocalisation(previousLigne.getNomLigne());
-                        Coordonnee c2 = currentStation.getLocalisation(section.getLigne().getNomLigne());
-                        prochainDepart = prochainDepart.plus(walkingDurationOf(distanceBetween(c1, c2)))
-                                                       .plus(Duration.ofMinutes(Constants.PENALTY));
-                    }
+    private void boucleDjikstra(SearchWorkspace etiquettes, int current, int section, int limite) {
+        int next = etiquettes.getNoeud(etiquettes.getCouche(current), transit.getVoisin(section));
+
+        //On ne veut que celles qui ne sont pas encore traitées, et que le prochain train
+        if(!isFerme(etiquettes, next)) {
+            int prochainDepart = transit.getSection(section).getProchainDepart(etiquettes.getHoraire(current));
+            if(prochainDepart >= 0) {
+                //Ajout de la durée de la section, et du temps de correspondance
+                int entree = etiquettes.getEntree(current);
+                int ligneArrivee = (entree >= 0) ? transit.getLigneSection(entree) : -1;
+                int horaire = prochainDepart + transit.getDuree(section)
+                              + transit.getTempsCorrespondance(etiquettes.getStation(current), ligneArrivee, transit.getLigneSection(section));
+
+                //Mise à jour de l'horaire de départ et du prédécesseur de nextStation
+                if(horaire < etiquettes.getHoraire(next)) {
+                    int clef = getClef(etiquettes, next, horaire);
+                    if(clef <= limite) etiquettes.ameliorer(current, next, horaire, section, clef);
                 }
+            }
+        }
+    }
 
-                //Mise à jour de l'horaire de départ et du trajet à suivre pour arriver à nextStation
-                LocalTime horaire = myMap.get(nextStation);
-                if(horaire == null || horaire.isAfter(prochainDepart)) {
-                    myMap.put(nextStation, prochainDepart);
+    /**
+     * Fonction annexe utilisée dans dijkstra, permettant d'examiner le chemin à pied pour aller chez un voisin.
+     *
+     * @param etiquettes les étiquettes des stations dans la recherche en cours.
+     * @param current l'index du noeud de départ pour cette boucle de dijkstra.
+     * @param next l'index du noeud de la station voisine, à atteindre à pied.
+     * @param duree la durée de marche, en secondes.
+     * @param limite l'horaire d'arrivée à ne pas dépasser, en secondes.
+     */
+    private void boucleMarche(SearchWorkspace etiquettes, int current, int next, int duree, int limite) {
+        if(isFerme(etiquettes, next)) return;
+        int prochainDepart = etiquettes.getHoraire(current) + duree;
 
-                    List<Section> sections = new LinkedList<>(currentSectionTrace);
-                    sections.add(section);
-                    trace.put(nextStation, sections);
-                }
-            }
+        if(prochainDepart < etiquettes.getHoraire(next)) {
+            int clef = getClef(etiquettes, next, prochainDepart);
+            if(clef <= limite) etiquettes.ameliorer(current, next, prochainDepart, -1, clef);
         }
     }
 
     /**
-     * Trouve l'élément de poids minimal du dictionnaire.
+     * Recherche en arrière depuis les stations d'arrivée candidates, sur le graphe des durées minimales :
+     * les sections en transport sans attente ni correspondance, et les chemins à pied.
+     * Chaque station atteinte dans la limite reçoit un minorant exact de sa durée restante jusqu'à l'arrivée.
+     * Les autres ne peuvent plus donner de trajet à temps : la limite, augmentée d'une seconde, leur sert de minorant.
      *
-     * @param myMap une map telle que celle utilisée dans l'algorithme de djikstra.
-     * @return la station avec le plus petit LocalTime.
+     * @param etiquettes les étiquettes des stations dans la recherche en cours, avec les durées de marche jusqu'à l'arrivée.
+     * @param arriveesCandidates les stations d'arrivée candidates.
+     * @param limite la durée restante au-delà de laquelle on ne peut plus battre la borne, en secondes.
+     * @param volonte La distance que l'utilisateur accepte de parcourir, si jamais le chemin est plus rapide à pied qu'en transport.
      */
-    private static Station min(Map<Station, LocalTime> myMap) {
-        Station stationMin = null;
-        LocalTime tempsMin = null;
-
-        Station stationTmp;
-        LocalTime tempsTmp;
-        for(Map.Entry<Station, LocalTime> entry : myMap.entrySet()) {
-            stationTmp = entry.getKey();
-            tempsTmp = entry.getValue();
-            if(stationMin == null) {
-                stationMin = stationTmp;
-                tempsMin = tempsTmp;
-            }
-            else if(tempsMin == null || (tempsTmp != null && tempsMin.isAfter(tempsTmp))) {
-                stationMin = stationTmp;
-                tempsMin = entry.getValue();
-            }
+    private void rechercheArriere(SearchWorkspace etiquettes, Collection<Station> arriveesCandidates, int limite, double volonte) {
+        IndexedMinHeap tas = etiquettes.getTas();
+        etiquettes.setEstimationParDefaut(Math.max(limite, 0) + 1);
+        for(Station arriveeCandidate: arriveesCandidates) {
+            Integer index = graphe.getIndex(arriveeCandidate);
+            if(index != null) tas.insertOrDecrease(index, etiquettes.getFinale(index));
         }
-        return (tempsMin == null) ? null : stationMin;
+
+        while(!tas.isEmpty() && tas.getClef(tas.peek()) <= limite && !echeance.isDepassee()) {
+            int duree = tas.getClef(tas.peek());
+            int current = tas.poll();
+            etiquettes.setEstimation(current, duree);
+
+            //Les voisins à pied, les chemins étant symétriques
+            graphe.parcourir(current, volonte, (previous, marche, distance) -> boucleArriere(etiquettes, previous, duree + marche));
+            //Puis les stations d'où partent les sections qui arrivent ici
+            for(int entrante = transit.debutEntrantes(current), fin = transit.finEntrantes(current); entrante < fin; entrante++)
+                boucleArriere(etiquettes, transit.getDepartEntrante(entrante), duree + transit.getDuree(transit.getEntrante(entrante)));
+        }
+        tas.clear();
+    }
+
+    /**
+     * Fonction annexe utilisée dans la recherche en arrière, permettant d'examiner une station précédente.
+     *
+     * @param etiquettes les étiquettes des stations dans la recherche en cours.
+     * @param previous l'index de la station précédente.
+     * @param duree la durée restante jusqu'à l'arrivée depuis cette station, en passant par la station courante, en secondes.
+     */
+    private static void boucleArriere(SearchWorkspace etiquettes, int previous, int duree) {
+        if(!etiquettes.isEstimee(previous)) etiquettes.getTas().insertOrDecrease(previous, duree);
     }
 
     /**
-     * Crée un nouveau trajet avec les copies des sections fournies,
+     * Renvoie la clef d'un noeud dans le tas : son horaire d'arrivée,
+     * augmenté du minorant de la durée restante de sa station en recherche guidée.
+     *
+     * @param etiquettes les étiquettes des stations dans la recherche en cours.
+     * @param noeud l'index du noeud.
+     * @param horaire l'horaire d'arrivée au noeud, en secondes.
+     * @return la clef du noeud dans le tas.
+     */
+    private int getClef(SearchWorkspace etiquettes, int noeud, int horaire) {
+        return guidee? horaire + etiquettes.getEstimation(etiquettes.getStation(noeud), transit, arrivee) : horaire;
+    }
+
+    /**
+     * Crée un nouveau trajet en remontant les prédécesseurs depuis la station d'arrivée candidate,
      * et en ajoutant les sections de début et de fin, qui sont à pied.
+     * Les stations du trajet sont toutes traitées : leurs horaires et leurs prédécesseurs ne changent plus.
      *
-     * @param trajet le trajet à copier.
+     * @param arriveeCandidate l'index du noeud de la station d'arrivée candidate, où finit le trajet.
      * @param sectionDebut la section de début, à pied.
      * @param sectionFin la section de fin, à pied.
-     * @return une copie du trajet demandé, avec ajout du début et de la fin à pied.
+     * @param etiquettes les étiquettes des stations dans la recherche en cours.
+     * @return le trajet demandé, avec ajout du début et de la fin à pied.
      */
-    private static Section[] createNewTrajet(List<Section> trajet, Section sectionDebut, Section sectionFin) {
-        Section[] copied = new Section[trajet.size() + 2];
-        int i = 0;
+    private Section[] createNewTrajet(int arriveeCandidate, Section sectionDebut, Section sectionFin, SearchWorkspace etiquettes) {
+        int nbSections = 0;
+        for(int station = arriveeCandidate; etiquettes.getPrecedente(station) >= 0; station = etiquettes.getPrecedente(station)) nbSections++;
 
-        copied[i++] = sectionDebut;
-        for(Section section: trajet) copied[i++] = section.copy();
-        copied[i] = sectionFin;
+        Section[] copied = new Section[nbSections + 2];
+        copied[0] = sectionDebut;
+        int i = nbSections;
+        for(int station = arriveeCandidate; etiquettes.getPrecedente(station) >= 0; station = etiquettes.getPrecedente(station))
+            copied[i--] = createSection(etiquettes.getPrecedente(station), station, etiquettes);
+        copied[nbSections + 1] = sectionFin;
 
         return copied;
     }
 
+    /**
+     * Crée la section empruntée pour arriver à une station d'un trajet, depuis la station précédente, avec leurs horaires de passage.
+     *
+     * @param precedente l'index du noeud de la station de départ de la section.
+     * @param station l'index du noeud de la station d'arrivée de la section.
+     * @param etiquettes les étiquettes des stations dans la recherche en cours.
+     * @return la section empruntée.
+     */
+    private Section createSection(int precedente, int station, SearchWorkspace etiquettes) {
+        //Les stations du Reseau sont partagées entre les recherches : leurs horaires sont donnés aux copies
+        int entree = etiquettes.getEntree(station);
+        if(entree >= 0) {
+            Section copie = transit.getSection(entree).copy();
+            copie.getDepart().setSecondesDePassage(etiquettes.getHoraire(precedente));
+            copie.getArrivee().setSecondesDePassage(etiquettes.getHoraire(station));
+            return copie;
+        }
+
+        Coordonnee c1 = graphe.getStation(etiquettes.getStation(precedente)).getLocalisation();
+        Coordonnee c2 = graphe.getStation(etiquettes.getStation(station)).getLocalisation();
+        return new Section(new Lieu(Constants.DEPART, c1, etiquettes.getHoraire(precedente)),
+                           new Lieu(Constants.ARRIVEE, c2, etiquettes.getHoraire(station)),
+                           Duration.ofSeconds(etiquettes.getHoraire(station) - etiquettes.getHoraire(precedente)),
+                           distanceBetween(c1, c2));
+    }
+
     /**
      * Trouve l'index auquel insérer le nouvel horaire,
      * en maintenant la liste des trajets dans l'ordre croissant des horaires d'arrivée.
      *
      * @param trajetsSaved la liste des trajets, trié dans l'ordre croissant des horaires d'arrivée.
-     * @param horaireArrivee l'horaire d'arrivée du trajet à insérer dans la liste des trajets.
+     * @param horaireArrivee l'horaire d'arrivée du trajet à insérer dans la liste des trajets, en secondes.
      * @return l'index d'insertion d'un trajet qui a pour horaire d'arrivée celui demandé.
      */
-    private static int getInsertIndex(List<Section[]> trajetsSaved, LocalTime horaireArrivee) {
+    private static int getInsertIndex(List<Section[]> trajetsSaved, int horaireArrivee) {
         int index = 0;
         Section[] trajet = trajetsSaved.get(index);
-        while(index < trajetsSaved.size() - 1 && horaireArrivee.isAfter(trajet[trajet.length - 1].getArrivee().getHoraireDePassage()))
+        while(index < trajetsSaved.size() - 1 && horaireArrivee > trajet[trajet.length - 1].getArrivee().getSecondesDePassage())
             trajet = trajetsSaved.get(++index);
         return index;
     }
@@ -0,0 +1,244 @@
+package fr.uparis.backapp.utils;
+
+import fr.uparis.backapp.model.Coordonnee;
+import fr.uparis.backapp.model.lieu.Lieu;
+import fr.uparis.backapp.model.lieu.Station;
+import fr.uparis.backapp.model.section.Section;
+import fr.uparis.backapp.utils.constants.Constants;
+
+import java.time.Duration;
+import java.util.*;
+
+import static fr.uparis.backapp.utils.Utils.distanceBetween;
+import static fr.uparis.backapp.utils.Utils.walkingDurationOf;
+
+/**
+ * Recherche du trajet qui arrive le plus tôt par parcours des connexions (CSA, Connection Scan Algorithm).
+ * Les connexions étant rangées par horaire de départ, une seule passe sur leurs tableaux suffit, sans file de priorité :
+ * une connexion est utilisable si l'on est déjà dans sa course, ou si l'on est à sa station de départ avant son départ.
+ */
+public class ConnectionScan {
+    final private static int INFINI = Integer.MAX_VALUE;
+
+    //Manière dont une station est atteinte
+    final private static int SOURCE = 0;
+    final private static int TRANSPORT = 1;
+    final private static int MARCHE = 2;
+
+    final private Coordonnee depart;
+    final private Coordonnee arrivee;
+    final private int horaireDepart; //en secondes depuis le début de la journée de service
+    final private ConnectionTimetable connexions;
+    final private TransitGraph transit;
+    final private FootpathGraph graphe;
+    final private double volonte;
+    final private SearchDeadline echeance;
+
+    //Étiquettes des stations, indexées comme les stations
+    private int[] etiquettes; //horaires d'arrivée, en secondes
+    private int[] types; //SOURCE, TRANSPORT ou MARCHE
+    private int[] entrees; //connexion d'arrivée pour TRANSPORT, station d'origine pour MARCHE
+    private int[] montees; //connexion de montée dans la course, pour TRANSPORT
+    private int[] embarquements; //connexion de montée dans chaque course, -1 si l'on n'y est pas monté
+    private int[] finales; //durée de marche jusqu'à l'arrivée, -1 si ce n'est pas une station d'arrivée candidate
+
+    private int meilleureArrivee; //meilleur horaire d'arrivée connu, en secondes
+    private int meilleureStation; //station d'arrivée candidate de cet horaire, -1 s'il n'y en a pas
+
+    /**
+     * Constructeur d'une recherche CSA.
+     *
+     * @param depart point de départ du trajet.
+     * @param arrivee point d'arrivée du trajet.
+     * @param horaireDepart horaire de départ, en secondes depuis le début de la journée de service.
+     * @param connexions les connexions du réseau, rangées par horaire de départ.
+     * @param transit le graphe figé du Reseau, avec les chemins à pied entre les stations.
+     * @param volonte La distance que l'utilisateur accepte de parcourir entre deux stations, en km.
+     * @param echeance l'échéance du calcul, au-delà de laquelle la recherche rend les meilleurs trajets trouvés.
+     */
+    public ConnectionScan(Coordonnee depart, Coordonnee arrivee, int horaireDepart, ConnectionTimetable connexions, TransitGraph transit, double volonte, SearchDeadline echeance) {
+        this.depart = depart;
+        this.arrivee = arrivee;
+        this.horaireDepart = horaireDepart;
+        this.connexions = connexions;
+        this.transit = transit;
+        this.graphe = transit.getFootpathGraph();
+        this.volonte = volonte;
+        this.echeance = echeance;
+    }
+
+    /**
+     * Cherche le trajet qui arrive le plus tôt depuis des stations sources vers un puits.
+     *
+     * @param sources les stations de départ candidates, avec leur horaire de départ, en secondes.
+     * @param puits les stations d'arrivée candidates, avec la durée de marche jusqu'à l'arrivée.
+     * @param borne l'horaire d'arrivée, en secondes, que le trajet doit battre.
+     * @return le trajet trouvé, avec ses sections de début et de fin à pied, ou une liste vide s'il n'y en a pas.
+     */
+    public List<Section[]> rechercher(Map<Station, Integer> sources, Map<Station, Duration> puits, int borne) {
+        int nbStations = graphe.getNbStations();
+        etiquettes = new int[nbStations];
+        types = new int[nbStations];
+        entrees = new int[nbStations];
+        montees = new int[nbStations];
+        embarquements = new int[connexions.getNbCourses()];
+        finales = new int[nbStations];
+        Arrays.fill(etiquettes, INFINI);
+        Arrays.fill(embarquements, -1);
+        Arrays.fill(finales, -1);
+        meilleureArrivee = borne;
+        meilleureStation = -1;
+
+        for (Map.Entry<Station, Duration> entree : puits.entrySet()) {
+            Integer index = graphe.getIndex(entree.getKey());
+            if (index != null) finales[index] = (int) entree.getValue().getSeconds();
+        }
+
+        //Les sources, et les stations voisines à pied
+        int premierHoraire = INFINI;
+        List<Integer> indexSources = new ArrayList<>();
+        for (Map.Entry<Station, Integer> source : sources.entrySet()) {
+            Integer index = graphe.getIndex(source.getKey());
+            int horaire = source.getValue();
+            if (index != null && horaire < etiquettes[index]) {
+                etiquettes[index] = horaire;
+                types[index] = SOURCE;
+                indexSources.add(index);
+                premierHoraire = Math.min(premierHoraire, horaire);
+            }
+        }
+        for (int source : indexSources) {
+            if (types[source] != SOURCE) continue;
+            atteindre(source);
+            marcher(source);
+        }
+        if (premierHoraire == INFINI) return new ArrayList<>();
+
+        //Une seule passe sur les connexions, jusqu'à ne plus pouvoir battre le meilleur horaire d'arrivée
+        for (int c = connexions.getPremiereConnexion(premierHoraire); c < connexions.getNbConnexions(); c++) {
+            if (connexions.getHoraireDepart(c) >= meilleureArrivee) break;
+            if ((c & 1023) == 0 && echeance.isDepassee()) break; //l'échéance n'est consultée que de temps en temps
+
+            int course = connexions.getCourse(c);
+            if (embarquements[course] < 0) {
+                int station = connexions.getDepart(c);
+                if (etiquettes[station] == INFINI
+                        || etiquettes[station] + getTempsCorrespondance(station, c) >= connexions.getHoraireDepart(c)) continue;
+                embarquements[course] = c;
+            }
+
+            int station = connexions.getArrivee(c), horaire = connexions.getHoraireArrivee(c);
+            if (horaire < etiquettes[station] && horaire < meilleureArrivee) {
+                etiquettes[station] = horaire;
+                types[station] = TRANSPORT;
+                entrees[station] = c;
+                montees[station] = embarquements[course];
+                atteindre(station);
+                marcher(station);
+            }
+        }
+
+        List<Section[]> trajets = new ArrayList<>();
+        if (meilleureStation >= 0) trajets.add(getTrajet(meilleureStation, meilleureArrivee));
+        return trajets;
+    }
+
+    /**
+     * Met à jour le meilleur horaire d'arrivée, si une station d'arrivée candidate vient d'être améliorée.
+     *
+     * @param station l'index de la station améliorée.
+     */
+    private void atteindre(int station) {
+        if (finales[station] >= 0 && etiquettes[station] + finales[station] < meilleureArrivee) {
+            meilleureArrivee = etiquettes[station] + finales[station];
+            meilleureStation = station;
+        }
+    }
+
+    /**
+     * Renvoie le temps de correspondance pour monter dans la course d'une connexion à une station,
+     * si l'on y est arrivé par une autre ligne : le trajet à pied entre les quais, et la pénalité de correspondance.
+     *
+     * @param station l'index de la station.
+     * @param connexion la connexion dans laquelle on monte.
+     * @return le temps de correspondance, en secondes.
+     */
+    private int getTempsCorrespondance(int station, int connexion) {
+        if (types[station] != TRANSPORT) return 0;
+        return transit.getTempsCorrespondance(station, connexions.getLigne(entrees[station]), connexions.getLigne(connexion));
+    }
+
+    /**
+     * Examine les chemins à pied depuis une station améliorée, sans enchaîner deux chemins à pied.
+     *
+     * @param station l'index de la station améliorée.
+     */
+    private void marcher(int station) {
+        graphe.parcourir(station, volonte, (voisine, duree, distance) -> marcherVers(station, voisine, duree));
+    }
+
+    /**
+     * Examine le chemin à pied d'une station améliorée vers une voisine.
+     *
+     * @param station l'index de la station améliorée.
+     * @param voisine l'index de la station voisine.
+     * @param duree la durée de marche, en secondes.
+     */
+    private void marcherVers(int station, int voisine, int duree) {
+        int horaire = etiquettes[station] + duree;
+        if (horaire < etiquettes[voisine] && horaire < meilleureArrivee) {
+            etiquettes[voisine] = horaire;
+            types[voisine] = MARCHE;
+            entrees[voisine] = station;
+            atteindre(voisine);
+        }
+    }
+
+    /**
+     * Reconstruit le trajet qui arrive à une station d'arrivée candidate, en remontant les étiquettes jusqu'à la source.
+     * Une étiquette utilisée pour monter dans une course n'est plus améliorée ensuite, car les connexions suivantes partent plus tard :
+     * les étiquettes finales décrivent donc bien le trajet.
+     *
+     * @param arriveeCandidate l'index de la station d'arrivée candidate.
+     * @param horaireArrivee l'horaire d'arrivée, en secondes.
+     * @return le trajet, avec ses sections de début et de fin à pied.
+     */
+    private Section[] getTrajet(int arriveeCandidate, int horaireArrivee) {
+        LinkedList<Section> trajet = new LinkedList<>();
+        int station = arriveeCandidate;
+        while (types[station] != SOURCE) {
+            if (types[station] == TRANSPORT) {
+                LinkedList<Section> course = new LinkedList<>();
+                for (int c = montees[station]; ; c = connexions.getSuivante(c)) {
+                    Section section = connexions.getSection(c).copy();
+                    section.getDepart().setSecondesDePassage(connexions.getHoraireDepart(c));
+                    section.getArrivee().setSecondesDePassage(connexions.getHoraireArrivee(c));
+                    course.add(section);
+                    if (c == entrees[station]) break;
+                }
+                trajet.addAll(0, course);
+                station = connexions.getDepart(montees[station]);
+            }
+            else {
+                int precedente = entrees[station];
+                Coordonnee c1 = graphe.getStation(precedente).getLocalisation();
+                Coordonnee c2 = graphe.getStation(station).getLocalisation();
+                trajet.addFirst(new Section(new Lieu(Constants.DEPART, c1, etiquettes[precedente]),
+                                            new Lieu(Constants.ARRIVEE, c2, etiquettes[station]),
+                                            Duration.ofSeconds(etiquettes[station] - etiquettes[precedente]),
+                                            distanceBetween(c1, c2)));
+                station = precedente;
+            }
+        }
+
+        Station departCandidat = graphe.getStation(station);
+        Station arriveeCandidat = graphe.getStation(arriveeCandidate);
+        double distanceDebut = distanceBetween(depart, departCandidat.getLocalisation());
+        double distanceFin = distanceBetween(arrivee, arriveeCandidat.getLocalisation());
+        trajet.addFirst(new Section(new Lieu(Constants.DEPART, depart, horaireDepart), graphe.copyStation(station, etiquettes[station]),
+                                    walkingDurationOf(distanceDebut), distanceDebut));
+        trajet.addLast(new Section(graphe.copyStation(arriveeCandidate, etiquettes[arriveeCandidate]), new Lieu(Constants.ARRIVEE, arrivee, horaireArrivee),
+                                   walkingDurationOf(distanceFin), distanceFin));
+        return trajet.toArray(new Section[0]);
+    }
+}
@@ -0,0 +1,198 @@
+package fr.uparis.backapp.utils;
+
+import fr.uparis.backapp.model.section.SectionTransport;
+
+import java.util.Arrays;
+
+/**
+ * Horaires du réseau sous forme de connexions élémentaires, pour l'algorithme CSA (Connection Scan Algorithm).
+ * Une connexion est le passage d'une course d'une station à la suivante ; les connexions sont rangées par horaire de départ croissant,
+ * dans des tableaux parallèles, de sorte qu'une recherche soit un simple parcours de ces tableaux.
+ * Elles sont tirées des courses des routes RAPTOR, qui couvrent chaque horaire de départ des sections du réseau.
+ */
+public class ConnectionTimetable {
+    final private int nbCourses;
+
+    //Connexion i, à la position i des tableaux suivants
+    final private int[] departs; //index de la station de départ
+    final private int[] arrivees; //index de la station d'arrivée
+    final private int[] horairesDepart; //en secondes
+    final private int[] horairesArrivee; //en secondes
+    final private int[] courses; //index de la course
+    final private int[] lignes; //index de la ligne dans le graphe figé du Reseau
+    final private int[] suivantes; //connexion suivante de la même course, -1 pour la dernière
+    final private SectionTransport[] sections;
+
+    /**
+     * Constructeur des connexions, à partir des horaires du réseau rangés par routes.
+     *
+     * @param horaires les horaires du réseau rangés par routes.
+     */
+    public ConnectionTimetable(RaptorTimetable horaires) {
+        this.nbCourses = horaires.getNbCourses();
+
+        int nbConnexions = 0;
+        for (int route = 0; route < horaires.getNbRoutes(); route++)
+            for (int course = horaires.debutCourses(route); course < horaires.finCourses(route); course++)
+                nbConnexions += Math.max(0, horaires.getNbArrets(route) - 1 - horaires.getPremierArret(course));
+
+        //Connexions dans l'ordre des routes, puis triées par horaire de départ avec leur position d'origine
+        int[] routesOrigine = new int[nbConnexions];
+        int[] coursesOrigine = new int[nbConnexions];
+        int[] positionsOrigine = new int[nbConnexions];
+        long[] cles = new long[nbConnexions];
+        int k = 0;
+        for (int route = 0; route < horaires.getNbRoutes(); route++) {
+            for (int course = horaires.debutCourses(route); course < horaires.finCourses(route); course++) {
+                for (int position = horaires.getPremierArret(course); position < horaires.getNbArrets(route) - 1; position++, k++) {
+                    routesOrigine[k] = route;
+                    coursesOrigine[k] = course;
+                    positionsOrigine[k] = position;
+                    cles[k] = ((long) horaires.getDepart(route, course, position) << 32) | k;
+                }
+            }
+        }
+        Arrays.sort(cles);
+
+        departs = new int[nbConnexions];
+        arrivees = new int[nbConnexions];
+        horairesDepart = new int[nbConnexions];
+        horairesArrivee = new int[nbConnexions];
+        courses = new int[nbConnexions];
+        lignes = new int[nbConnexions];
+        suivantes = new int[nbConnexions];
+        sections = new SectionTransport[nbConnexions];
+        int[] dernieres = new int[nbCourses]; //dernière connexion rangée de chaque course
+        Arrays.fill(dernieres, -1);
+        for (int i = 0; i < nbConnexions; i++) {
+            int origine = (int) cles[i];
+            int route = routesOrigine[origine], course = coursesOrigine[origine], position = positionsOrigine[origine];
+            departs[i] = horaires.getArret(route, position);
+            arrivees[i] = horaires.getArret(route, position + 1);
+            horairesDepart[i] = horaires.getDepart(route, course, position);
+            horairesArrivee[i] = horaires.getArrivee(route, course, position + 1);
+            courses[i] = course;
+            lignes[i] = horaires.getIndexLigne(route);
+            sections[i] = horaires.getSection(route, position);
+
+            //Les connexions d'une course partent à des horaires strictement croissants : elles restent dans l'ordre
+            suivantes[i] = -1;
+            if (dernieres[course] >= 0) suivantes[dernieres[course]] = i;
+            dernieres[course] = i;
+        }
+    }
+
+    /**
+     * Renvoie le nombre de connexions.
+     *
+     * @return le nombre de connexions.
+     */
+    public int getNbConnexions() {
+        return departs.length;
+    }
+
+    /**
+     * Renvoie le nombre de courses auxquelles appartiennent les connexions.
+     *
+     * @return le nombre de courses.
+     */
+    public int getNbCourses() {
+        return nbCourses;
+    }
+
+    /**
+     * Cherche la première connexion qui part strictement après un horaire.
+     *
+     * @param horaire l'horaire, en secondes.
+     * @return l'index de la première connexion qui part après l'horaire, ou le nombre de connexions s'il n'y en a pas.
+     */
+    public int getPremiereConnexion(int horaire) {
+        int bas = 0, haut = horairesDepart.length;
+        while (bas < haut) {
+            int milieu = (bas + haut) >>> 1;
+            if (horairesDepart[milieu] <= horaire) bas = milieu + 1;
+            else haut = milieu;
+        }
+        return bas;
+    }
+
+    /**
+     * Renvoie la station de départ d'une connexion.
+     *
+     * @param connexion l'index de la connexion.
+     * @return l'index de la station de départ.
+     */
+    public int getDepart(int connexion) {
+        return departs[connexion];
+    }
+
+    /**
+     * Renvoie la station d'arrivée d'une connexion.
+     *
+     * @param connexion l'index de la connexion.
+     * @return l'index de la station d'arrivée.
+     */
+    public int getArrivee(int connexion) {
+        return arrivees[connexion];
+    }
+
+    /**
+     * Renvoie l'horaire de départ d'une connexion.
+     *
+     * @param connexion l'index de la connexion.
+     * @return l'horaire de départ, en secondes.
+     */
+    public int getHoraireDepart(int connexion) {
+        return horairesDepart[connexion];
+    }
+
+    /**
+     * Renvoie l'horaire d'arrivée d'une connexion.
+     *
+     * @param connexion l'index de la connexion.
+     * @return l'horaire d'arrivée, en secondes.
+     */
+    public int getHoraireArrivee(int connexion) {
+        return horairesArrivee[connexion];
+    }
+
+    /**
+     * Renvoie la course d'une connexion.
+     *
+     * @param connexion l'index de la connexion.
+     * @return l'index de la course.
+     */
+    public int getCourse(int connexion) {
+        return courses[connexion];
+    }
+
+    /**
+     * Renvoie la ligne d'une connexion.
+     *
+     * @param connexion l'index de la connexion.
+     * @return l'index de la ligne dans le graphe figé du Reseau.
+     */
+    public int getLigne(int connexion) {
+        return lignes[connexion];
+    }
+
+    /**
+     * Renvoie la connexion suivante de la même course.
+     *
+     * @param connexion l'index de la connexion.
+     * @return l'index de la connexion suivante, ou -1 si c'est la dernière de la course.
+     */
+    public int getSuivante(int connexion) {
+        return suivantes[connexion];
+    }
+
+    /**
+     * Renvoie la section du réseau parcourue par une connexion.
+     *
+     * @param connexion l'index de la connexion.
+     * @return la section parcourue.
+     */
+    public SectionTransport getSection(int connexion) {
+        return sections[connexion];
+    }
+}
@@ -0,0 +1,411 @@
+package fr.uparis.backapp.utils;
+
+import java.util.*;
+
+/**
+ * Hiérarchie de contraction du graphe des durées minimales : les sections en transport sans attente ni correspondance,
+ * et tous les chemins à pied précalculés. Elle est calculée une seule fois, et sert d'oracle de minorants exacts
+ * de la durée d'un trajet entre deux stations, sans parcourir tout le graphe à chaque demande.
+ * Les stations sont contractées une à une, de la moins importante à la plus importante, en ajoutant des raccourcis
+ * pour garder les distances entre les stations restantes : tout plus court chemin monte alors dans la hiérarchie, puis redescend.
+ * Les minorants ne valent que pour des distances de marche couvertes par les chemins précalculés.
+ */
+public class ContractionHierarchy {
+    final private static int INFINI = Integer.MAX_VALUE;
+    final private static int MAX_TRAITEES_TEMOIN = 500; //au-delà, on ajoute le raccourci sans chercher plus loin de témoin
+
+    final private int nbStations;
+    final private int[] rangs; //rang de contraction de chaque station
+    final private int[] ordre; //stations, de la plus importante à la moins importante
+    final private int nbRaccourcis;
+
+    //Arcs de la station i vers des stations plus importantes, aux positions debutsSortants[i] (incluse) à debutsSortants[i + 1] (exclue)
+    final private int[] debutsSortants;
+    final private int[] sortants;
+    final private int[] dureesSortants; //en secondes
+
+    //Arcs de stations plus importantes vers la station i, aux positions debutsEntrants[i] (incluse) à debutsEntrants[i + 1] (exclue)
+    final private int[] debutsEntrants;
+    final private int[] entrants;
+    final private int[] dureesEntrants; //en secondes
+
+    final private ThreadLocal<Espace> espaces = new ThreadLocal<>();
+
+    /**
+     * Constructeur de la hiérarchie, à partir du graphe figé des sections en transport et de ses chemins à pied.
+     *
+     * @param transit le graphe figé des sections en transport, avec les chemins à pied entre les stations.
+     */
+    public ContractionHierarchy(TransitGraph transit) {
+        FootpathGraph graphe = transit.getFootpathGraph();
+        nbStations = transit.getNbStations();
+
+        //Le graphe des durées minimales, en ne gardant que l'arc le plus court entre deux stations
+        List<Map<Integer, Integer>> arcs = new ArrayList<>();
+        for (int station = 0; station < nbStations; station++) {
+            Map<Integer, Integer> adjacence = new HashMap<>();
+            for (int chemin = graphe.debut(station), fin = graphe.fin(station, graphe.getDistanceMax()); chemin < fin; chemin++)
+                adjacence.merge(graphe.getVoisin(chemin), graphe.getDuree(chemin), Math::min);
+            for (int section = transit.debut(station), fin = transit.fin(station); section < fin; section++)
+                if (transit.getVoisin(section) != station) adjacence.merge(transit.getVoisin(section), transit.getDuree(section), Math::min);
+            arcs.add(adjacence);
+        }
+
+        //Les arcs plus longs qu'un autre chemin ne servent à aucun plus court chemin : on les retire avant la contraction
+        Espace espace = new Espace(nbStations);
+        List<Map<Integer, Integer>> sortantsRestants = new ArrayList<>(), entrantsRestants = new ArrayList<>();
+        for (int station = 0; station < nbStations; station++) {
+            sortantsRestants.add(new HashMap<>());
+            entrantsRestants.add(new HashMap<>());
+        }
+        for (int station = 0; station < nbStations; station++) {
+            rechercheTemoin(espace, arcs, station, -1, INFINI, INFINI);
+            for (Map.Entry<Integer, Integer> arc : arcs.get(station).entrySet()) {
+                if (espace.getAvant(arc.getKey()) < arc.getValue()) continue;
+                sortantsRestants.get(station).put(arc.getKey(), arc.getValue());
+                entrantsRestants.get(arc.getKey()).put(station, arc.getValue());
+            }
+        }
+
+        //Contraction des stations, par priorité croissante, recalculée au moment de les contracter
+        rangs = new int[nbStations];
+        ordre = new int[nbStations];
+        int[] voisinsContractes = new int[nbStations];
+        List<int[]> arcsSortants = new ArrayList<>(), arcsEntrants = new ArrayList<>(); //{station, station plus importante, durée}
+        IndexedMinHeap priorites = new IndexedMinHeap(nbStations);
+        for (int station = 0; station < nbStations; station++)
+            priorites.insertOrDecrease(station, getPriorite(espace, sortantsRestants, entrantsRestants, voisinsContractes, station));
+
+        int raccourcis = 0;
+        for (int rang = 0; rang < nbStations; rang++) {
+            int station = priorites.poll();
+            int priorite = getPriorite(espace, sortantsRestants, entrantsRestants, voisinsContractes, station);
+            if (!priorites.isEmpty() && priorite > priorites.getClef(priorites.peek())) {
+                priorites.insertOrDecrease(station, priorite);
+                rang--;
+                continue;
+            }
+
+            rangs[station] = rang;
+            ordre[nbStations - 1 - rang] = station;
+            Map<Integer, Integer> sortantsStation = sortantsRestants.get(station), entrantsStation = entrantsRestants.get(station);
+            for (List<Integer> raccourci : getRaccourcis(espace, sortantsRestants, entrantsRestants, station)) {
+                int depart = raccourci.get(0), arrivee = raccourci.get(1), duree = raccourci.get(2);
+                sortantsRestants.get(depart).merge(arrivee, duree, Math::min);
+                entrantsRestants.get(arrivee).merge(depart, duree, Math::min);
+                raccourcis++;
+            }
+
+            //Les arcs restants de la station vont tous vers des stations plus importantes
+            for (Map.Entry<Integer, Integer> arc : sortantsStation.entrySet()) {
+                arcsSortants.add(new int[]{station, arc.getKey(), arc.getValue()});
+                entrantsRestants.get(arc.getKey()).remove(station);
+                voisinsContractes[arc.getKey()]++;
+            }
+            for (Map.Entry<Integer, Integer> arc : entrantsStation.entrySet()) {
+                arcsEntrants.add(new int[]{station, arc.getKey(), arc.getValue()});
+                sortantsRestants.get(arc.getKey()).remove(station);
+                voisinsContractes[arc.getKey()]++;
+            }
+            sortantsStation.clear();
+            entrantsStation.clear();
+        }
+        nbRaccourcis = raccourcis;
+
+        debutsSortants = new int[nbStations + 1];
+        sortants = new int[arcsSortants.size()];
+        dureesSortants = new int[arcsSortants.size()];
+        remplir(arcsSortants, debutsSortants, sortants, dureesSortants);
+        debutsEntrants = new int[nbStations + 1];
+        entrants = new int[arcsEntrants.size()];
+        dureesEntrants = new int[arcsEntrants.size()];
+        remplir(arcsEntrants, debutsEntrants, entrants, dureesEntrants);
+    }
+
+    /**
+     * Range des arcs par station, dans des tableaux compacts.
+     *
+     * @param arcs les arcs, sous la forme {station, station plus importante, durée}.
+     * @param debuts la position du premier arc de chaque station, à remplir.
+     * @param voisins la station plus importante de chaque arc, à remplir.
+     * @param durees la durée de chaque arc, à remplir.
+     */
+    private static void remplir(List<int[]> arcs, int[] debuts, int[] voisins, int[] durees) {
+        for (int[] arc : arcs) debuts[arc[0] + 1]++;
+        for (int i = 0; i + 1 < debuts.length; i++) debuts[i + 1] += debuts[i];
+        int[] suivants = Arrays.copyOf(debuts, debuts.length - 1);
+        for (int[] arc : arcs) {
+            int position = suivants[arc[0]]++;
+            voisins[position] = arc[1];
+            durees[position] = arc[2];
+        }
+    }
+
+    /**
+     * Renvoie la priorité de contraction d'une station : le nombre de raccourcis qu'elle demande moins le nombre d'arcs qu'elle retire,
+     * plus le nombre de ses voisins déjà contractés, pour répartir les contractions dans tout le réseau.
+     *
+     * @param espace l'espace de travail des recherches de témoins.
+     * @param sortantsRestants les arcs sortants de chaque station, entre stations non contractées.
+     * @param entrantsRestants les arcs entrants de chaque station, entre stations non contractées.
+     * @param voisinsContractes le nombre de voisins déjà contractés de chaque station.
+     * @param station l'index de la station.
+     * @return la priorité de la station, les plus petites étant contractées d'abord.
+     */
+    private static int getPriorite(Espace espace, List<Map<Integer, Integer>> sortantsRestants, List<Map<Integer, Integer>> entrantsRestants,
+                                   int[] voisinsContractes, int station) {
+        int nbRaccourcis = getRaccourcis(espace, sortantsRestants, entrantsRestants, station).size();
+        return nbRaccourcis - sortantsRestants.get(station).size() - entrantsRestants.get(station).size() + voisinsContractes[station];
+    }
+
+    /**
+     * Renvoie les raccourcis à ajouter pour contracter une station : entre deux de ses voisins,
+     * quand le chemin qui passe par elle est plus court que tout autre chemin trouvé sans elle.
+     *
+     * @param espace l'espace de travail des recherches de témoins.
+     * @param sortantsRestants les arcs sortants de chaque station, entre stations non contractées.
+     * @param entrantsRestants les arcs entrants de chaque station, entre stations non contractées.
+     * @param station l'index de la station à contracter.
+     * @return les raccourcis, sous la forme [départ, arrivée, durée].
+     */
+    private static List<List<Integer>> getRaccourcis(Espace espace, List<Map<Integer, Integer>> sortantsRestants,
+                                                     List<Map<Integer, Integer>> entrantsRestants, int station) {
+        List<List<Integer>> raccourcis = new ArrayList<>();
+        Map<Integer, Integer> sortantsStation = sortantsRestants.get(station);
+        if (sortantsStation.isEmpty()) return raccourcis;
+        int maxSortant = Collections.max(sortantsStation.values());
+
+        for (Map.Entry<Integer, Integer> entrant : entrantsRestants.get(station).entrySet()) {
+            int depart = entrant.getKey(), dureeEntrante = entrant.getValue();
+            rechercheTemoin(espace, sortantsRestants, depart, station, dureeEntrante + maxSortant, MAX_TRAITEES_TEMOIN);
+            for (Map.Entry<Integer, Integer> sortant : sortantsStation.entrySet()) {
+                int arrivee = sortant.getKey(), duree = dureeEntrante + sortant.getValue();
+                if (arrivee != depart && espace.getAvant(arrivee) > duree) raccourcis.add(List.of(depart, arrivee, duree));
+            }
+        }
+        return raccourcis;
+    }
+
+    /**
+     * Recherche de plus courts chemins depuis une station, sans passer par une station exclue,
+     * jusqu'à une durée maximale ou un nombre maximal de stations traitées. Les durées trouvées sont dans l'espace de travail.
+     *
+     * @param espace l'espace de travail de la recherche.
+     * @param arcs les arcs sortants de chaque station.
+     * @param depart l'index de la station de départ.
+     * @param exclue l'index de la station par laquelle on ne passe pas, -1 s'il n'y en a pas.
+     * @param dureeMax la durée au-delà de laquelle on arrête la recherche, en secondes.
+     * @param maxTraitees le nombre maximal de stations traitées.
+     */
+    private static void rechercheTemoin(Espace espace, List<Map<Integer, Integer>> arcs, int depart, int exclue, int dureeMax, int maxTraitees) {
+        espace.nouvelleRecherche();
+        IndexedMinHeap tas = espace.tas;
+        espace.ameliorerAvant(depart, 0);
+        for (int traitees = 0; !tas.isEmpty() && traitees < maxTraitees; traitees++) {
+            int duree = tas.getClef(tas.peek());
+            if (duree > dureeMax) break;
+            int current = tas.poll();
+            for (Map.Entry<Integer, Integer> arc : arcs.get(current).entrySet())
+                if (arc.getKey() != exclue) espace.ameliorerAvant(arc.getKey(), duree + arc.getValue());
+        }
+        tas.clear();
+    }
+
+    /**
+     * Renvoie le nombre de stations de la hiérarchie.
+     *
+     * @return le nombre de stations.
+     */
+    public int getNbStations() {
+        return nbStations;
+    }
+
+    /**
+     * Renvoie le nombre de raccourcis ajoutés pendant la contraction.
+     *
+     * @return le nombre de raccourcis.
+     */
+    public int getNbRaccourcis() {
+        return nbRaccourcis;
+    }
+
+    /**
+     * Renvoie le rang de contraction d'une station, les stations les plus importantes ayant les rangs les plus grands.
+     *
+     * @param station l'index de la station.
+     * @return le rang de la station.
+     */
+    public int getRang(int station) {
+        return rangs[station];
+    }
+
+    /**
+     * Renvoie l'espace de travail des requêtes du thread courant.
+     *
+     * @return l'espace de travail, prêt pour une nouvelle requête.
+     */
+    private Espace getEspace() {
+        Espace espace = espaces.get();
+        if (espace == null) {
+            espace = new Espace(nbStations);
+            espaces.set(espace);
+        }
+        espace.nouvelleRecherche();
+        return espace;
+    }
+
+    /**
+     * Renvoie la durée minimale d'un trajet entre deux stations, par une recherche qui monte dans la hiérarchie depuis chacune d'elles.
+     *
+     * @param depart l'index de la station de départ.
+     * @param arrivee l'index de la station d'arrivée.
+     * @return la durée minimale, en secondes, ou Integer.MAX_VALUE si l'arrivée n'est pas atteignable.
+     */
+    public int getDureeMinimale(int depart, int arrivee) {
+        Espace espace = getEspace();
+        IndexedMinHeap tas = espace.tas;
+
+        //Montée depuis le départ, par les arcs sortants
+        espace.ameliorerAvant(depart, 0);
+        while (!tas.isEmpty()) {
+            int duree = tas.getClef(tas.peek());
+            int current = tas.poll();
+            for (int arc = debutsSortants[current]; arc < debutsSortants[current + 1]; arc++)
+                espace.ameliorerAvant(sortants[arc], duree + dureesSortants[arc]);
+        }
+
+        //Montée depuis l'arrivée, par les arcs entrants, en gardant la meilleure station de rencontre
+        int meilleure = INFINI;
+        espace.ameliorerArriere(arrivee, 0);
+        while (!tas.isEmpty()) {
+            int duree = tas.getClef(tas.peek());
+            int current = tas.poll();
+            if (espace.getAvant(current) != INFINI) meilleure = Math.min(meilleure, espace.getAvant(current) + duree);
+            for (int arc = debutsEntrants[current]; arc < debutsEntrants[current + 1]; arc++)
+                espace.ameliorerArriere(entrants[arc], duree + dureesEntrants[arc]);
+        }
+        return meilleure;
+    }
+
+    /**
+     * Renvoie, pour chaque station, la durée minimale d'un trajet jusqu'à des stations d'arrivée candidates,
+     * augmentée de la durée qui reste depuis chacune d'elles. Une seule montée depuis les arrivées candidates,
+     * puis un seul parcours des stations de la plus importante à la moins importante, suffisent pour toutes les stations.
+     *
+     * @param arrivees les index des stations d'arrivée candidates.
+     * @param restes la durée qui reste depuis chaque station d'arrivée candidate, en secondes.
+     * @param limite la durée au-delà de laquelle le minorant exact n'est pas utile, en secondes.
+     * @return le minorant de chaque station, en secondes, ou limite + 1 s'il dépasse la limite.
+     */
+    public int[] getDureesMinimales(int[] arrivees, int[] restes, int limite) {
+        Espace espace = getEspace();
+        IndexedMinHeap tas = espace.tas;
+        int plafond = Math.max(limite, 0) + 1;
+
+        for (int i = 0; i < arrivees.length; i++)
+            if (restes[i] < plafond) espace.ameliorerArriere(arrivees[i], restes[i]);
+        while (!tas.isEmpty() && tas.getClef(tas.peek()) < plafond) {
+            int duree = tas.getClef(tas.peek());
+            int current = tas.poll();
+            for (int arc = debutsEntrants[current]; arc < debutsEntrants[current + 1]; arc++)
+                espace.ameliorerArriere(entrants[arc], duree + dureesEntrants[arc]);
+        }
+        tas.clear();
+
+        //Les stations plus importantes sont calculées avant celles d'où partent leurs arcs
+        int[] durees = new int[nbStations];
+        for (int station : ordre) {
+            int duree = Math.min(espace.getArriere(station), plafond);
+            for (int arc = debutsSortants[station]; arc < debutsSortants[station + 1]; arc++)
+                duree = Math.min(duree, dureesSortants[arc] + durees[sortants[arc]]);
+            durees[station] = duree;
+        }
+        return durees;
+    }
+
+    /**
+     * Espace de travail d'une recherche dans la hiérarchie : le tas, et les durées depuis le départ et jusqu'à l'arrivée,
+     * valables si elles sont de l'époque courante.
+     */
+    private static class Espace {
+        final private IndexedMinHeap tas;
+        final private int[] avant;
+        final private int[] arriere;
+        final private int[] epoquesAvant;
+        final private int[] epoquesArriere;
+        private int epoque;
+
+        /**
+         * Constructeur d'un espace de travail, à partir du nombre de stations.
+         *
+         * @param nbStations le nombre de stations de la hiérarchie.
+         */
+        private Espace(int nbStations) {
+            tas = new IndexedMinHeap(nbStations);
+            avant = new int[nbStations];
+            arriere = new int[nbStations];
+            epoquesAvant = new int[nbStations];
+            epoquesArriere = new int[nbStations];
+            epoque = 0;
+        }
+
+        /**
+         * Commence une nouvelle recherche : les durées reprennent leur valeur par défaut, et le tas est vidé.
+         */
+        private void nouvelleRecherche() {
+            if (epoque == Integer.MAX_VALUE) {
+                Arrays.fill(epoquesAvant, 0);
+                Arrays.fill(epoquesArriere, 0);
+                epoque = 0;
+            }
+            epoque++;
+            tas.clear();
+        }
+
+        /**
+         * Renvoie la meilleure durée connue depuis le départ d'une station.
+         *
+         * @param station l'index de la station.
+         * @return la durée, en secondes, ou INFINI si la station n'est pas atteinte.
+         */
+        private int getAvant(int station) {
+            return (epoquesAvant[station] == epoque) ? avant[station] : INFINI;
+        }
+
+        /**
+         * Renvoie la meilleure durée connue d'une station jusqu'à l'arrivée.
+         *
+         * @param station l'index de la station.
+         * @return la durée, en secondes, ou INFINI si la station n'est pas atteinte.
+         */
+        private int getArriere(int station) {
+            return (epoquesArriere[station] == epoque) ? arriere[station] : INFINI;
+        }
+
+        /**
+         * Améliore la durée depuis le départ d'une station, et la met à jour dans le tas.
+         *
+         * @param station l'index de la station.
+         * @param duree la nouvelle durée, en secondes.
+         */
+        private void ameliorerAvant(int station, int duree) {
+            if (duree >= getAvant(station)) return;
+            epoquesAvant[station] = epoque;
+            avant[station] = duree;
+            tas.insertOrDecrease(station, duree);
+        }
+
+        /**
+         * Améliore la durée jusqu'à l'arrivée d'une station, et la met à jour dans le tas.
+         *
+         * @param station l'index de la station.
+         * @param duree la nouvelle durée, en secondes.
+         */
+        private void ameliorerArriere(int station, int duree) {
+            if (duree >= getArriere(station)) return;
+            epoquesArriere[station] = epoque;
+            arriere[station] = duree;
+            tas.insertOrDecrease(station, duree);
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package fr.uparis.backapp.utils;
+
+import fr.uparis.backapp.model.Coordonnee;
+import fr.uparis.backapp.model.lieu.Station;
+import fr.uparis.backapp.utils.constants.Constants;
+
+import java.util.*;
+
+import static fr.uparis.backapp.utils.Utils.distanceBetween;
+import static fr.uparis.backapp.utils.Utils.walkingDurationOf;
+
+/**
+ * Graphe des chemins à pied entre les stations, calculé une seule fois au chargement du Reseau.
+ * Les stations y sont repérées par un index, et les voisins de chaque station sont rangés par distance croissante,
+ * jusqu'à une distance maximale : une distance de marche acceptable devient ainsi une simple borne de parcours.
+ * Au-delà, les chemins sont cherchés dans l'index spatial des stations : les moteurs de recherche les parcourent tous de la même façon.
+ */
+public class FootpathGraph {
+    final private Station[] stations; //stations du graphe, repérées par leur index
+    final private Map<Station, Integer> indexStations;
+    final private NearbyStationIndex index; //pour les chemins plus longs que ceux précalculés
+    final private double distanceMax; //distance maximale des chemins précalculés, en km
+
+    //Voisins de la station i, aux positions debuts[i] (incluse) à debuts[i + 1] (exclue) des tableaux suivants
+    final private int[] debuts;
+    final private int[] voisins;
+    final private double[] distances; //en km
+    final private int[] durees; //en secondes
+
+    /**
+     * Constructeur du graphe des chemins à pied, à partir des stations et de la distance maximale des chemins.
+     *
+     * @param stations les stations du réseau.
+     * @param distanceMax la distance maximale des chemins à pied à précalculer, en km.
+     */
+    public FootpathGraph(Collection<Station> stations, double distanceMax) {
+        this(new NearbyStationIndex(stations, Constants.NEARBY_INDEX_CELL_SIZE), distanceMax);
+    }
+
+    /**
+     * Constructeur du graphe des chemins à pied, à partir de l'index spatial des stations et de la distance maximale des chemins.
+     *
+     * @param index l'index spatial des stations du réseau.
+     * @param distanceMax la distance maximale des chemins à pied à précalculer, en km.
+     */
+    public FootpathGraph(NearbyStationIndex index, double distanceMax) {
+        this.stations = index.getStations().toArray(new Station[0]);
+        this.index = index;
+        this.distanceMax = distanceMax;
+        this.indexStations = new HashMap<>();
+        for (int i = 0; i < this.stations.length; i++) indexStations.put(this.stations[i], i);
+
+        //Les voisins de chaque station, rangés par distance croissante
+        List<List<Station>> adjacences = new ArrayList<>();
+        int nbChemins = 0;
+        for (Station station : this.stations) {
+            List<Station> adjacence = index.rechercher(station.getLocalisation(), 0, distanceMax);
+            adjacence.remove(station);
+            adjacences.add(adjacence);
+            nbChemins += adjacence.size();
+        }
+
+        debuts = new int[this.stations.length + 1];
+        voisins = new int[nbChemins];
+        distances = new double[nbChemins];
+        durees = new int[nbChemins];
+        int k = 0;
+        for (int i = 0; i < this.stations.length; i++) {
+            debuts[i] = k;
+            for (Station voisin : adjacences.get(i)) {
+                voisins[k] = indexStations.get(voisin);
+                distances[k] = distanceBetween(stations[i].getLocalisation(), voisin.getLocalisation());
+                durees[k] = (int) walkingDurationOf(distances[k]).getSeconds();
+                k++;
+            }
+        }
+        debuts[this.stations.length] = k;
+    }
+
+    /**
+     * Renvoie le nombre de stations du graphe.
+     *
+     * @return le nombre de stations du graphe.
+     */
+    public int getNbStations() {
+        return stations.length;
+    }
+
+    /**
+     * Renvoie la station d'index donné.
+     *
+     * @param index l'index de la station.
+     * @return la station d'index donné.
+     */
+    public Station getStation(int index) {
+        return stations[index];
+    }
+
+    /**
+     * Copie une station du graphe, avec l'horaire auquel elle est atteinte.
+     *
+     * @param index l'index de la station à copier.
+     * @param horaire l'horaire de passage à la station, en secondes.
+     * @return une copie de la station, avec son horaire de passage.
+     */
+    public Station copyStation(int index, int horaire) {
+        Station copie = stations[index].copy();
+        copie.setSecondesDePassage(horaire);
+        return copie;
+    }
+
+    /**
+     * Renvoie l'index d'une station dans le graphe.
+     *
+     * @param station la station cherchée.
+     * @return l'index de la station, ou null si elle n'est pas dans le graphe.
+     */
+    public Integer getIndex(Station station) {
+        return indexStations.get(station);
+    }
+
+    /**
+     * Renvoie la distance maximale des chemins à pied précalculés.
+     *
+     * @return la distance maximale des chemins précalculés, en km.
+     */
+    public double getDistanceMax() {
+        return distanceMax;
+    }
+
+    /**
+     * Indique si les chemins précalculés suffisent pour une distance de marche donnée.
+     *
+     * @param distance la distance de marche acceptable, en km.
+     * @return true si tous les chemins de longueur au plus distance sont précalculés, false sinon.
+     */
+    public boolean couvre(double distance) {
+        return distance <= distanceMax;
+    }
+
+    /**
+     * Renvoie la position du premier chemin partant d'une station.
+     *
+     * @param station l'index de la station de départ.
+     * @return la position du premier chemin partant de la station.
+     */
+    public int debut(int station) {
+        return debuts[station];
+    }
+
+    /**
+     * Renvoie la position qui suit le dernier chemin partant d'une station de moins d'une certaine distance.
+     * Les chemins étant rangés par distance croissante, une recherche dichotomique suffit.
+     *
+     * @param station l'index de la station de départ.
+     * @param distance la distance maximale des chemins, en km.
+     * @return la position qui suit le dernier chemin de longueur au plus distance.
+     */
+    public int fin(int station, double distance) {
+        int bas = debuts[station], haut = debuts[station + 1];
+        while (bas < haut) {
+            int milieu = (bas + haut) >>> 1;
+            if (distances[milieu] <= distance) bas = milieu + 1;
+            else haut = milieu;
+        }
+        return bas;
+    }
+
+    /**
+     * Renvoie la station d'arrivée d'un chemin.
+     *
+     * @param chemin la position du chemin.
+     * @return l'index de la station d'arrivée du chemin.
+     */
+    public int getVoisin(int chemin) {
+        return voisins[chemin];
+    }
+
+    /**
+     * Renvoie la distance d'un chemin.
+     *
+     * @param chemin la position du chemin.
+     * @return la distance du chemin, en km.
+     */
+    public double getDistance(int chemin) {
+        return distances[chemin];
+    }
+
+    /**
+     * Renvoie la durée de marche d'un chemin.
+     *
+     * @param chemin la position du chemin.
+     * @return la durée de marche du chemin, en secondes.
+     */
+    public int getDuree(int chemin) {
+        return durees[chemin];
+    }
+
+    /**
+     * Parcourt les chemins à pied d'au plus une distance donnée depuis une station, vers les autres stations du graphe,
+     * par distance croissante. Les chemins précalculés servent s'ils suffisent ;
+     * sinon, les stations voisines sont cherchées dans l'index spatial et les durées de marche calculées à vol d'oiseau.
+     * Les chemins étant symétriques, ils servent aussi à remonter vers les stations d'où l'on peut venir à pied.
+     *
+     * @param station l'index de la station de départ.
+     * @param distance la distance de marche acceptable, en km.
+     * @param chemin l'action appliquée à chaque chemin.
+     */
+    public void parcourir(int station, double distance, Chemin chemin) {
+        if (couvre(distance)) {
+            for (int position = debut(station), fin = fin(station, distance); position < fin; position++)
+                chemin.emprunter(voisins[position], durees[position], distances[position]);
+            return;
+        }
+
+        Coordonnee localisation = stations[station].getLocalisation();
+        for (Station voisine : index.rechercher(localisation, Constants.DEFAULT_MIN_DISTANCE, distance)) {
+            Integer suivante = indexStations.get(voisine);
+            if (suivante == null || suivante == station) continue;
+            double longueur = distanceBetween(localisation, voisine.getLocalisation());
+            chemin.emprunter(suivante, (int) walkingDurationOf(longueur).getSeconds(), longueur);
+        }
+    }
+
+    /**
+     * Action appliquée à chaque chemin à pied parcouru depuis une station.
+     */
+    @FunctionalInterface
+    public interface Chemin {
+        /**
+         * Emprunte un chemin à pied vers une station voisine.
+         *
+         * @param voisin l'index de la station voisine.
+         * @param duree la durée de marche, en secondes.
+         * @param distance la distance du chemin, en km.
+         */
+        void emprunter(int voisin, int duree, double distance);
+    }
+}
@@ -0,0 +1,178 @@
+package fr.uparis.backapp.utils;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * Tas binaire minimum indexé, sur des éléments représentés par des entiers de 0 à capacité - 1.
+ * Chaque élément est associé à une clef entière, et sa position dans le tas est mémorisée,
+ * ce qui permet de diminuer la clef d'un élément déjà présent en temps logarithmique.
+ * À clef égale, l'élément d'index le plus petit est prioritaire.
+ */
+public class IndexedMinHeap {
+    final private int[] tas; //éléments rangés selon l'ordre du tas
+    final private int[] positions; //position de chaque élément dans le tas, -1 s'il n'y est pas
+    final private int[] clefs; //clef de chaque élément présent dans le tas
+    private int taille;
+
+    /**
+     * Constructeur du tas, à partir du nombre d'éléments qu'il peut contenir.
+     *
+     * @param capacite le nombre d'éléments distincts que peut contenir le tas.
+     */
+    public IndexedMinHeap(int capacite) {
+        tas = new int[capacite];
+        positions = new int[capacite];
+        clefs = new int[capacite];
+        Arrays.fill(positions, -1);
+        taille = 0;
+    }
+
+    /**
+     * Indique si le tas est vide.
+     *
+     * @return true si le tas ne contient aucun élément, false sinon.
+     */
+    public boolean isEmpty() {
+        return taille == 0;
+    }
+
+    /**
+     * Renvoie le nombre d'éléments présents dans le tas.
+     *
+     * @return le nombre d'éléments présents dans le tas.
+     */
+    public int size() {
+        return taille;
+    }
+
+    /**
+     * Indique si un élément est présent dans le tas.
+     *
+     * @param element l'élément cherché.
+     * @return true si l'élément est dans le tas, false sinon.
+     */
+    public boolean contains(int element) {
+        return positions[element] != -1;
+    }
+
+    /**
+     * Renvoie la clef d'un élément présent dans le tas.
+     *
+     * @param element l'élément dont on veut la clef.
+     * @return la clef de l'élément.
+     * @throws NoSuchElementException si l'élément n'est pas dans le tas.
+     */
+    public int getClef(int element) {
+        if (!contains(element)) throw new NoSuchElementException("Élément absent du tas : " + element);
+        return clefs[element];
+    }
+
+    /**
+     * Ajoute un élément dans le tas, ou diminue sa clef s'il y est déjà avec une clef plus grande.
+     *
+     * @param element l'élément à ajouter ou à mettre à jour.
+     * @param clef la nouvelle clef de l'élément.
+     * @return true si le tas a été modifié, false si l'élément y était déjà avec une clef inférieure ou égale.
+     */
+    public boolean insertOrDecrease(int element, int clef) {
+        if (contains(element)) {
+            if (clefs[element] <= clef) return false;
+            clefs[element] = clef;
+            remonter(positions[element]);
+            return true;
+        }
+        clefs[element] = clef;
+        tas[taille] = element;
+        positions[element] = taille;
+        remonter(taille++);
+        return true;
+    }
+
+    /**
+     * Renvoie l'élément de clef minimale, sans le retirer du tas.
+     *
+     * @return l'élément de clef minimale.
+     * @throws NoSuchElementException si le tas est vide.
+     */
+    public int peek() {
+        if (isEmpty()) throw new NoSuchElementException("Le tas est vide");
+        return tas[0];
+    }
+
+    /**
+     * Retire et renvoie l'élément de clef minimale.
+     *
+     * @return l'élément de clef minimale.
+     * @throws NoSuchElementException si le tas est vide.
+     */
+    public int poll() {
+        int min = peek();
+        echanger(0, --taille);
+        positions[min] = -1;
+        if (taille > 0) descendre(0);
+        return min;
+    }
+
+    /**
+     * Vide le tas.
+     */
+    public void clear() {
+        for (int i = 0; i < taille; i++) positions[tas[i]] = -1;
+        taille = 0;
+    }
+
+    /**
+     * Compare les éléments situés à deux positions du tas.
+     *
+     * @param i la position du premier élément.
+     * @param j la position du second élément.
+     * @return true si l'élément en position i est strictement prioritaire sur celui en position j.
+     */
+    private boolean plusPetit(int i, int j) {
+        int a = tas[i], b = tas[j];
+        return clefs[a] < clefs[b] || (clefs[a] == clefs[b] && a < b);
+    }
+
+    /**
+     * Fait remonter un élément dans le tas tant qu'il est prioritaire sur son parent.
+     *
+     * @param position la position de l'élément à faire remonter.
+     */
+    private void remonter(int position) {
+        int parent;
+        while (position > 0 && plusPetit(position, parent = (position - 1) / 2)) {
+            echanger(position, parent);
+            position = parent;
+        }
+    }
+
+    /**
+     * Fait descendre un élément dans le tas tant qu'un de ses enfants est prioritaire sur lui.
+     *
+     * @param position la position de l'élément à faire descendre.
+     */
+    private void descendre(int position) {
+        int enfant;
+        while ((enfant = 2 * position + 1) < taille) {
+            if (enfant + 1 < taille && plusPetit(enfant + 1, enfant)) enfant++;
+            if (!plusPetit(enfant, position)) return;
+            echanger(position, enfant);
+            position = enfant;
+        }
+    }
+
+    /**
+     * Échange deux éléments du tas, en mettant à jour leur position.
+     *
+     * @param i la position du premier élément.
+     * @param j la position du second élément.
+     */
+    private void echanger(int i, int j) {
+        int a = tas[i], b = tas[j];
+        tas[i] = b;
+        tas[j] = a;
+        positions[b] = i;
+        positions[a] = j;
+    }
+}
@@ -0,0 +1,268 @@
+package fr.uparis.backapp.utils;
+
+import fr.uparis.backapp.model.Coordonnee;
+
+import java.time.Duration;
+import java.time.LocalTime;
+
+import static fr.uparis.backapp.utils.Utils.distanceOfWalkingDuration;
+
+/**
+ * Requête de calcul d'itinéraire, immuable : elle contient tous les paramètres d'une recherche,
+ * et peut donc être partagée entre plusieurs recherches exécutées en parallèle.
+ */
+public class ItineraryQuery {
+    /**
+     * Les différents modes de calcul d'itinéraire.
+     */
+    public enum Mode {
+        OPTIMAL, //trajets les plus rapides
+        A_PIED, //trajet entièrement à pied
+        MARCHER_AU_MOINS, //trajets avec une distance de marche minimale
+        MARCHER_AU_PLUS, //trajets avec une distance de marche maximale entre les stations
+        PROFIL, //trajets non dominés pour tous les horaires de départ d'une fenêtre
+        ARRIVER_AVANT, //trajets qui partent le plus tard possible en arrivant au plus tard à un horaire
+        PARETO //trajets non dominés sur l'horaire d'arrivée, le nombre de correspondances et la distance marchée
+    }
+
+    /**
+     * Les algorithmes de recherche des trajets en transport.
+     */
+    public enum Algorithme {
+        DIJKSTRA, //plus court chemin sur le graphe des stations
+        ASTAR, //plus court chemin guidé vers l'arrivée par un minorant de la durée restante, mêmes trajets que DIJKSTRA
+        BIDIRECTIONNEL, //plus court chemin guidé par une recherche en arrière sur les durées minimales, mêmes trajets que DIJKSTRA
+        RAPTOR, //recherche par tours, optimale sur l'horaire d'arrivée et le nombre de correspondances
+        CSA, //parcours des connexions rangées par horaire de départ, pour le trajet qui arrive le plus tôt
+        ALTERNATIVES //trajets réellement différents, par pénalisation des sections des trajets déjà trouvés
+    }
+
+    final private Coordonnee depart;
+    final private Coordonnee arrivee;
+    final private LocalTime horaireDepart; //horaire d'arrivée au plus tard en mode ARRIVER_AVANT
+    final private LocalTime horaireFin; //fin de la fenêtre des horaires de départ, l'horaire de départ hors du mode profil
+    final private Mode mode;
+    final private double distance; //distance de marche du mode, en km
+    final private Algorithme algorithme;
+    final private SearchDeadline echeance; //au-delà de laquelle les recherches rendent les meilleurs trajets trouvés
+
+    /**
+     * Constructeur privé d'une requête, les requêtes étant créées par les méthodes de fabrique.
+     *
+     * @param depart point de départ du trajet.
+     * @param arrivee point d'arrivée du trajet.
+     * @param horaireDepart horaire de départ.
+     * @param horaireFin fin de la fenêtre des horaires de départ.
+     * @param mode le mode de calcul d'itinéraire.
+     * @param distance la distance de marche associée au mode, en km.
+     * @param algorithme l'algorithme de recherche des trajets en transport.
+     * @param echeance l'échéance du calcul.
+     */
+    private ItineraryQuery(Coordonnee depart, Coordonnee arrivee, LocalTime horaireDepart, LocalTime horaireFin, Mode mode, double distance,
+                           Algorithme algorithme, SearchDeadline echeance) {
+        this.depart = depart;
+        this.arrivee = arrivee;
+        this.horaireDepart = horaireDepart;
+        this.horaireFin = horaireFin;
+        this.mode = mode;
+        this.distance = distance;
+        this.algorithme = algorithme;
+        this.echeance = echeance;
+    }
+
+    /**
+     * Crée une requête pour les trajets les plus rapides.
+     *
+     * @param depart point de départ du trajet.
+     * @param arrivee point d'arrivée du trajet.
+     * @param horaireDepart horaire de départ.
+     * @return la requête correspondante.
+     */
+    public static ItineraryQuery optimal(Coordonnee depart, Coordonnee arrivee, LocalTime horaireDepart) {
+        return new ItineraryQuery(depart, arrivee, horaireDepart, horaireDepart, Mode.OPTIMAL, 0.0, Algorithme.DIJKSTRA, SearchDeadline.AUCUNE);
+    }
+
+    /**
+     * Crée une requête pour un trajet entièrement à pied.
+     *
+     * @param depart point de départ du trajet.
+     * @param arrivee point d'arrivée du trajet.
+     * @param horaireDepart horaire de départ.
+     * @return la requête correspondante.
+     */
+    public static ItineraryQuery aPied(Coordonnee depart, Coordonnee arrivee, LocalTime horaireDepart) {
+        return new ItineraryQuery(depart, arrivee, horaireDepart, horaireDepart, Mode.A_PIED, 0.0, Algorithme.DIJKSTRA, SearchDeadline.AUCUNE);
+    }
+
+    /**
+     * Crée une requête pour des trajets en mode sportif, avec une distance de marche minimale.
+     *
+     * @param depart point de départ du trajet.
+     * @param arrivee point d'arrivée du trajet.
+     * @param horaireDepart horaire de départ.
+     * @param distance la distance minimale à parcourir dans le trajet, en km.
+     * @return la requête correspondante.
+     */
+    public static ItineraryQuery marcherAuMoinsDistance(Coordonnee depart, Coordonnee arrivee, LocalTime horaireDepart, double distance) {
+        return new ItineraryQuery(depart, arrivee, horaireDepart, horaireDepart, Mode.MARCHER_AU_MOINS, distance, Algorithme.DIJKSTRA, SearchDeadline.AUCUNE);
+    }
+
+    /**
+     * Crée une requête pour des trajets en mode sportif, avec une durée de marche minimale.
+     *
+     * @param depart point de départ du trajet.
+     * @param arrivee point d'arrivée du trajet.
+     * @param horaireDepart horaire de départ.
+     * @param temps la durée minimale à parcourir dans le trajet.
+     * @return la requête correspondante.
+     */
+    public static ItineraryQuery marcherAuMoinsTemps(Coordonnee depart, Coordonnee arrivee, LocalTime horaireDepart, Duration temps) {
+        return new ItineraryQuery(depart, arrivee, horaireDepart, horaireDepart, Mode.MARCHER_AU_MOINS, distanceOfWalkingDuration(temps), Algorithme.DIJKSTRA, SearchDeadline.AUCUNE);
+    }
+
+    /**
+     * Crée une requête pour des trajets en mode paresseux.
+     *
+     * @param depart point de départ du trajet.
+     * @param arrivee point d'arrivée du trajet.
+     * @param horaireDepart horaire de départ.
+     * @param distance la distance maximale à parcourir entre les stations, en km.
+     * @return la requête correspondante.
+     */
+    public static ItineraryQuery marcherAuPlus(Coordonnee depart, Coordonnee arrivee, LocalTime horaireDepart, double distance) {
+        return new ItineraryQuery(depart, arrivee, horaireDepart, horaireDepart, Mode.MARCHER_AU_PLUS, distance, Algorithme.DIJKSTRA, SearchDeadline.AUCUNE);
+    }
+
+    /**
+     * Crée une requête pour les trajets non dominés sur une fenêtre d'horaires de départ :
+     * pour chacun, aucun autre trajet ne part plus tard en arrivant aussi tôt.
+     * Si la fin de la fenêtre précède son début, la fenêtre passe minuit.
+     *
+     * @param depart point de départ du trajet.
+     * @param arrivee point d'arrivée du trajet.
+     * @param horaireDebut début de la fenêtre des horaires de départ.
+     * @param horaireFin fin de la fenêtre des horaires de départ.
+     * @return la requête correspondante.
+     */
+    public static ItineraryQuery profil(Coordonnee depart, Coordonnee arrivee, LocalTime horaireDebut, LocalTime horaireFin) {
+        return new ItineraryQuery(depart, arrivee, horaireDebut, horaireFin, Mode.PROFIL, 0.0, Algorithme.RAPTOR, SearchDeadline.AUCUNE);
+    }
+
+    /**
+     * Crée une requête pour les trajets qui partent le plus tard possible en arrivant au plus tard à un horaire.
+     * L'horaire de la requête est alors celui d'arrivée.
+     *
+     * @param depart point de départ du trajet.
+     * @param arrivee point d'arrivée du trajet.
+     * @param horaireArrivee horaire d'arrivée au plus tard.
+     * @return la requête correspondante.
+     */
+    public static ItineraryQuery arriverAvant(Coordonnee depart, Coordonnee arrivee, LocalTime horaireArrivee) {
+        return new ItineraryQuery(depart, arrivee, horaireArrivee, horaireArrivee, Mode.ARRIVER_AVANT, 0.0, Algorithme.DIJKSTRA, SearchDeadline.AUCUNE);
+    }
+
+    /**
+     * Crée une requête pour les trajets non dominés sur l'horaire d'arrivée, le nombre de correspondances et la distance marchée :
+     * pour chacun, aucun autre trajet n'est au moins aussi bon sur les trois critères.
+     *
+     * @param depart point de départ du trajet.
+     * @param arrivee point d'arrivée du trajet.
+     * @param horaireDepart horaire de départ.
+     * @return la requête correspondante.
+     */
+    public static ItineraryQuery pareto(Coordonnee depart, Coordonnee arrivee, LocalTime horaireDepart) {
+        return new ItineraryQuery(depart, arrivee, horaireDepart, horaireDepart, Mode.PARETO, 0.0, Algorithme.DIJKSTRA, SearchDeadline.AUCUNE);
+    }
+
+    /**
+     * Crée une copie de la requête, avec un autre algorithme de recherche.
+     *
+     * @param algorithme l'algorithme de recherche des trajets en transport.
+     * @return la nouvelle requête.
+     */
+    public ItineraryQuery avecAlgorithme(Algorithme algorithme) {
+        return new ItineraryQuery(depart, arrivee, horaireDepart, horaireFin, mode, distance, algorithme, echeance);
+    }
+
+    /**
+     * Crée une copie de la requête, avec une échéance.
+     *
+     * @param echeance l'échéance du calcul, au-delà de laquelle les recherches rendent les meilleurs trajets trouvés.
+     * @return la nouvelle requête.
+     */
+    public ItineraryQuery avecEcheance(SearchDeadline echeance) {
+        return new ItineraryQuery(depart, arrivee, horaireDepart, horaireFin, mode, distance, algorithme, echeance);
+    }
+
+    /**
+     * Renvoie le point de départ du trajet.
+     *
+     * @return le point de départ du trajet.
+     */
+    public Coordonnee getDepart() {
+        return depart;
+    }
+
+    /**
+     * Renvoie le point d'arrivée du trajet.
+     *
+     * @return le point d'arrivée du trajet.
+     */
+    public Coordonnee getArrivee() {
+        return arrivee;
+    }
+
+    /**
+     * Renvoie l'horaire de départ, qui est l'horaire d'arrivée au plus tard en mode ARRIVER_AVANT.
+     *
+     * @return l'horaire de départ.
+     */
+    public LocalTime getHoraireDepart() {
+        return horaireDepart;
+    }
+
+    /**
+     * Renvoie la fin de la fenêtre des horaires de départ, qui est l'horaire de départ hors du mode profil.
+     *
+     * @return la fin de la fenêtre des horaires de départ.
+     */
+    public LocalTime getHoraireFin() {
+        return horaireFin;
+    }
+
+    /**
+     * Renvoie le mode de calcul d'itinéraire.
+     *
+     * @return le mode de calcul d'itinéraire.
+     */
+    public Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * Renvoie la distance de marche associée au mode : minimale en mode sportif, maximale entre les stations en mode paresseux.
+     *
+     * @return la distance de marche associée au mode, en km.
+     */
+    public double getDistance() {
+        return distance;
+    }
+
+    /**
+     * Renvoie l'algorithme de recherche des trajets en transport.
+     *
+     * @return l'algorithme de recherche des trajets en transport.
+     */
+    public Algorithme getAlgorithme() {
+        return algorithme;
+    }
+
+    /**
+     * Renvoie l'échéance du calcul, SearchDeadline.AUCUNE s'il n'y en a pas.
+     *
+     * @return l'échéance du calcul.
+     */
+    public SearchDeadline getEcheance() {
+        return echeance;
+    }
+}
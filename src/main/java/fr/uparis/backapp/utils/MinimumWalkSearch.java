@@ -0,0 +1,253 @@
+package fr.uparis.backapp.utils;
+
+import fr.uparis.backapp.model.Coordonnee;
+import fr.uparis.backapp.model.lieu.Lieu;
+import fr.uparis.backapp.model.lieu.Station;
+import fr.uparis.backapp.model.section.Section;
+import fr.uparis.backapp.utils.constants.Constants;
+
+import java.time.Duration;
+import java.util.*;
+
+import static fr.uparis.backapp.utils.Utils.distanceBetween;
+import static fr.uparis.backapp.utils.Utils.walkingDurationOf;
+
+/**
+ * Recherche multicritère des trajets les plus rapides qui marchent au moins une distance donnée sur l'ensemble du trajet :
+ * au début, entre les stations et à la fin.
+ * La distance déjà marchée est une ressource portée par les étiquettes : une station peut en avoir plusieurs,
+ * tant qu'aucune n'arrive plus tôt en ayant marché au moins autant. Au-delà de la distance minimale, marcher plus n'apporte rien :
+ * la distance portée est plafonnée, et il ne reste alors qu'une étiquette par station, comme dans dijkstra.
+ * Les étiquettes sont traitées par horaire croissant : la première étiquette d'une station d'arrivée candidate
+ * qui, avec la marche jusqu'à l'arrivée, atteint la distance minimale, donne le meilleur trajet par cette station.
+ */
+public class MinimumWalkSearch {
+    final private Coordonnee depart;
+    final private Coordonnee arrivee;
+    final private int horaireDepart; //en secondes depuis le début de la journée de service
+    final private TransitGraph transit;
+    final private FootpathGraph graphe;
+    final private double volonte;
+    final private int marcheMinimale; //en mètres
+    final private SearchDeadline echeance;
+
+    //Étiquettes, dans l'ordre de leur création
+    private int nbEtiquettes;
+    private int[] stations; //station de chaque étiquette
+    private int[] horaires; //horaire d'arrivée à la station, en secondes
+    private int[] marches; //distance déjà marchée, en mètres, plafonnée à la distance minimale
+    private int[] precedentes; //étiquette précédente sur le trajet, -1 pour une source
+    private int[] entrees; //section du graphe figé par laquelle on arrive, -1 à pied ou pour une source
+    private int[] suivantes; //étiquette suivante de la même station, -1 pour la dernière
+    private boolean[] dominees; //étiquettes dominées par une étiquette posée après elles, à ne plus traiter
+    private int[] premieres; //première étiquette de chaque station, -1 si elle n'en a pas
+    private SearchWorkspace etiquettesStations; //minorants de la durée restante de chaque station jusqu'à l'arrivée
+
+    /**
+     * Constructeur d'une recherche avec une distance de marche minimale.
+     *
+     * @param depart point de départ du trajet.
+     * @param arrivee point d'arrivée du trajet.
+     * @param horaireDepart horaire de départ, en secondes depuis le début de la journée de service.
+     * @param transit le graphe figé du Reseau, avec les chemins à pied entre les stations.
+     * @param volonte La distance que l'utilisateur accepte de parcourir entre deux stations, en km.
+     * @param marcheMinimale la distance de marche minimale sur l'ensemble du trajet, en km.
+     * @param echeance l'échéance du calcul, au-delà de laquelle la recherche rend les meilleurs trajets trouvés.
+     */
+    public MinimumWalkSearch(Coordonnee depart, Coordonnee arrivee, int horaireDepart, TransitGraph transit, double volonte, double marcheMinimale, SearchDeadline echeance) {
+        this.depart = depart;
+        this.arrivee = arrivee;
+        this.horaireDepart = horaireDepart;
+        this.transit = transit;
+        this.graphe = transit.getFootpathGraph();
+        this.volonte = volonte;
+        this.marcheMinimale = getMetres(marcheMinimale);
+        this.echeance = echeance;
+    }
+
+    /**
+     * Cherche, pour chaque station d'arrivée candidate, le trajet le plus rapide par cette station qui marche assez.
+     *
+     * @param sources les stations de départ candidates, avec la distance de marche depuis le départ, en km.
+     * @param puits les stations d'arrivée candidates, avec la distance de marche jusqu'à l'arrivée, en km.
+     * @param borne l'horaire d'arrivée, en secondes, que les trajets doivent battre.
+     * @param nbTrajets le nombre de trajets à trouver.
+     * @param minorants les minorants exacts de la durée restante de chaque station, donnés par la hiérarchie de contraction, ou null.
+     * @return au plus nbTrajets trajets, avec leurs sections de début et de fin à pied, dans l'ordre chronologique d'horaire d'arrivée.
+     */
+    public List<Section[]> rechercher(Map<Station, Double> sources, Map<Station, Double> puits, int borne, int nbTrajets, int[] minorants) {
+        int nbStations = graphe.getNbStations();
+        nbEtiquettes = 0;
+        stations = new int[nbStations];
+        horaires = new int[nbStations];
+        marches = new int[nbStations];
+        precedentes = new int[nbStations];
+        entrees = new int[nbStations];
+        suivantes = new int[nbStations];
+        dominees = new boolean[nbStations];
+        premieres = new int[nbStations];
+        Arrays.fill(premieres, -1);
+        etiquettesStations = SearchWorkspace.get(nbStations);
+        etiquettesStations.setMinorants(minorants);
+        PriorityQueue<Long> tas = new PriorityQueue<>(); //horaire, puis index de l'étiquette
+
+        double[] finales = new double[nbStations]; //distance de marche jusqu'à l'arrivée, en km, -1 si ce n'est pas une station d'arrivée candidate
+        Arrays.fill(finales, -1);
+        for (Map.Entry<Station, Double> puit : puits.entrySet()) {
+            Integer index = graphe.getIndex(puit.getKey());
+            if (index != null) finales[index] = puit.getValue();
+        }
+        for (Map.Entry<Station, Double> source : sources.entrySet()) {
+            Integer index = graphe.getIndex(source.getKey());
+            if (index == null) continue;
+            int horaire = horaireDepart + (int) walkingDurationOf(source.getValue()).getSeconds();
+            poser(tas, index, horaire, getMetres(source.getValue()), -1, -1, borne);
+        }
+
+        //Prendre l'étiquette la plus tôt, tant qu'elle peut encore battre le pire des meilleurs trajets trouvés
+        List<Section[]> trajets = new ArrayList<>();
+        boolean[] atteintes = new boolean[nbStations];
+        while (!tas.isEmpty()) {
+            int etiquette = (int) (tas.peek() & 0xFFFFFFFFL);
+            if (horaires[etiquette] >= borne || echeance.isDepassee()) break;
+            tas.poll();
+            if (dominees[etiquette]) continue;
+            int current = stations[etiquette], horaire = horaires[etiquette];
+
+            //Une station d'arrivée candidate donne un trajet, si l'on a assez marché en rejoignant l'arrivée
+            if (finales[current] >= 0 && !atteintes[current] && marches[etiquette] + getMetres(finales[current]) >= marcheMinimale) {
+                atteintes[current] = true;
+                int horaireArrivee = horaire + (int) walkingDurationOf(finales[current]).getSeconds();
+                if (horaireArrivee < borne) {
+                    trajets.add(getTrajet(etiquette, finales[current], horaireArrivee));
+                    trajets.sort(Comparator.comparingInt(trajet -> trajet[trajet.length - 1].getArrivee().getSecondesDePassage()));
+                    if (trajets.size() > nbTrajets) trajets.remove(trajets.size() - 1);
+                    if (trajets.size() == nbTrajets) borne = getArrivee(trajets.get(nbTrajets - 1));
+                }
+            }
+
+            //Les voisins à pied, qui font marcher
+            int borneCourante = borne;
+            graphe.parcourir(current, volonte, (next, duree, distance) ->
+                    poser(tas, next, horaire + duree, marches[etiquette] + getMetres(distance), etiquette, -1, borneCourante));
+            //Puis les voisins en transport, avec le temps de correspondance depuis la ligne de l'étiquette
+            int ligneArrivee = (entrees[etiquette] >= 0) ? transit.getLigneSection(entrees[etiquette]) : -1;
+            for (int section = transit.debut(current), fin = transit.fin(current); section < fin; section++) {
+                if (horaire + transit.getDuree(section) >= borne) continue;
+                int prochainDepart = transit.getSection(section).getProchainDepart(horaire);
+                if (prochainDepart < 0) continue;
+                poser(tas, transit.getVoisin(section), prochainDepart + transit.getDuree(section)
+                      + transit.getTempsCorrespondance(current, ligneArrivee, transit.getLigneSection(section)), marches[etiquette], etiquette, section, borne);
+            }
+        }
+        return trajets;
+    }
+
+    /**
+     * Pose une étiquette à une station, si aucune de ses étiquettes n'arrive au plus tard en ayant marché au moins autant,
+     * et marque comme dominées celles qu'elle domine.
+     *
+     * @param tas les étiquettes à traiter.
+     * @param station l'index de la station.
+     * @param horaire l'horaire d'arrivée à la station, en secondes.
+     * @param marche la distance déjà marchée, en mètres.
+     * @param precedente l'étiquette d'où l'on vient, -1 pour une source.
+     * @param entree la position, dans le graphe figé, de la section empruntée, -1 à pied ou pour une source.
+     * @param borne l'horaire d'arrivée que les trajets doivent battre, en secondes.
+     */
+    private void poser(PriorityQueue<Long> tas, int station, int horaire, int marche, int precedente, int entree, int borne) {
+        if (horaire + etiquettesStations.getEstimation(station, transit, arrivee) >= borne) return;
+        marche = Math.min(marche, marcheMinimale);
+        for (int autre = premieres[station]; autre >= 0; autre = suivantes[autre]) {
+            if (dominees[autre]) continue;
+            if (horaires[autre] <= horaire && marches[autre] >= marche) return;
+            if (horaire <= horaires[autre] && marche >= marches[autre]) dominees[autre] = true;
+        }
+
+        if (nbEtiquettes == stations.length) agrandir();
+        int etiquette = nbEtiquettes++;
+        stations[etiquette] = station;
+        horaires[etiquette] = horaire;
+        marches[etiquette] = marche;
+        precedentes[etiquette] = precedente;
+        entrees[etiquette] = entree;
+        suivantes[etiquette] = premieres[station];
+        dominees[etiquette] = false;
+        premieres[station] = etiquette;
+        tas.add(((long) horaire << 32) | etiquette);
+    }
+
+    /**
+     * Double la capacité des tableaux d'étiquettes.
+     */
+    private void agrandir() {
+        int capacite = 2 * stations.length;
+        stations = Arrays.copyOf(stations, capacite);
+        horaires = Arrays.copyOf(horaires, capacite);
+        marches = Arrays.copyOf(marches, capacite);
+        precedentes = Arrays.copyOf(precedentes, capacite);
+        entrees = Arrays.copyOf(entrees, capacite);
+        suivantes = Arrays.copyOf(suivantes, capacite);
+        dominees = Arrays.copyOf(dominees, capacite);
+    }
+
+    /**
+     * Convertit une distance en mètres entiers, pour comparer les distances marchées sans erreur d'arrondi.
+     *
+     * @param distance la distance, en km.
+     * @return la distance, en mètres.
+     */
+    private static int getMetres(double distance) {
+        return (int) Math.round(distance * 1000);
+    }
+
+    /**
+     * Renvoie l'horaire d'arrivée d'un trajet.
+     *
+     * @param trajet le trajet.
+     * @return l'horaire d'arrivée de sa dernière section, en secondes.
+     */
+    private static int getArrivee(Section[] trajet) {
+        return trajet[trajet.length - 1].getArrivee().getSecondesDePassage();
+    }
+
+    /**
+     * Crée le trajet d'une étiquette, en remontant les étiquettes précédentes jusqu'à la source,
+     * et en ajoutant les sections de début et de fin, qui sont à pied.
+     *
+     * @param derniere l'étiquette de la station d'arrivée candidate.
+     * @param distanceFin la distance de marche de la station d'arrivée candidate jusqu'à l'arrivée, en km.
+     * @param horaireArrivee l'horaire auquel on finit le trajet, à l'arrivée, en secondes.
+     * @return le trajet, avec ses sections de début et de fin à pied.
+     */
+    private Section[] getTrajet(int derniere, double distanceFin, int horaireArrivee) {
+        int nbSections = 0, premiere = derniere;
+        for (; precedentes[premiere] >= 0; premiere = precedentes[premiere]) nbSections++;
+
+        Section[] trajet = new Section[nbSections + 2];
+        Station departCandidat = graphe.copyStation(stations[premiere], horaires[premiere]);
+        double distanceDebut = distanceBetween(depart, departCandidat.getLocalisation());
+        trajet[0] = new Section(new Lieu(Constants.DEPART, depart, horaireDepart), departCandidat, walkingDurationOf(distanceDebut), distanceDebut);
+
+        int i = nbSections;
+        for (int etiquette = derniere; precedentes[etiquette] >= 0; etiquette = precedentes[etiquette]) {
+            int precedente = precedentes[etiquette];
+            if (entrees[etiquette] >= 0) {
+                Section copie = transit.getSection(entrees[etiquette]).copy();
+                copie.getDepart().setSecondesDePassage(horaires[precedente]);
+                copie.getArrivee().setSecondesDePassage(horaires[etiquette]);
+                trajet[i--] = copie;
+            }
+            else {
+                Coordonnee c1 = graphe.getStation(stations[precedente]).getLocalisation();
+                Coordonnee c2 = graphe.getStation(stations[etiquette]).getLocalisation();
+                trajet[i--] = new Section(new Lieu(Constants.DEPART, c1, horaires[precedente]), new Lieu(Constants.ARRIVEE, c2, horaires[etiquette]),
+                                          Duration.ofSeconds(horaires[etiquette] - horaires[precedente]), distanceBetween(c1, c2));
+            }
+        }
+
+        Station arriveeCandidat = graphe.copyStation(stations[derniere], horaires[derniere]);
+        trajet[nbSections + 1] = new Section(arriveeCandidat, new Lieu(Constants.ARRIVEE, arrivee, horaireArrivee), walkingDurationOf(distanceFin), distanceFin);
+        return trajet;
+    }
+}
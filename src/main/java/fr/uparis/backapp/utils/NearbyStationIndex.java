@@ -0,0 +1,243 @@
+package fr.uparis.backapp.utils;
+
+import fr.uparis.backapp.model.Coordonnee;
+import fr.uparis.backapp.model.lieu.Station;
+
+import java.util.*;
+
+import static fr.uparis.backapp.utils.Utils.distanceBetween;
+
+/**
+ * Index spatial des stations, pour trouver rapidement les stations proches d'une coordonnée.
+ * Les stations sont rangées dans une grille régulière en latitude et longitude, dont les cases font environ
+ * tailleCase km de côté : une recherche n'examine que les cases qui peuvent contenir des stations assez proches,
+ * et les distances sont ensuite calculées exactement, avec Utils.distanceBetween.
+ */
+public class NearbyStationIndex {
+    final private static double KM_PAR_DEGRE = 6372.795 * Math.PI / 180; //rayon moyen de la Terre utilisé par Utils
+
+    final private Station[] stations;
+    final private double latitudeMin, longitudeMin;
+    final private double hauteurCase, largeurCase; //taille d'une case en degrés
+    final private double tailleCaseKm; //côté minimal d'une case dans la zone des stations, en km
+    final private int nbLignes, nbColonnes;
+
+    //Stations de la case c, aux positions debuts[c] (incluse) à debuts[c + 1] (exclue) de contenus
+    final private int[] debuts;
+    final private int[] contenus;
+
+    /**
+     * Constructeur de l'index spatial, à partir des stations et de la taille des cases de la grille.
+     *
+     * @param stations les stations à indexer.
+     * @param tailleCase la taille approximative d'une case de la grille, en km.
+     */
+    public NearbyStationIndex(Collection<Station> stations, double tailleCase) {
+        this.stations = stations.toArray(new Station[0]);
+
+        double latMin = 0, latMax = 0, longMin = 0, longMax = 0;
+        for (int i = 0; i < this.stations.length; i++) {
+            Coordonnee c = this.stations[i].getLocalisation();
+            if (i == 0 || c.getLatitude() < latMin) latMin = c.getLatitude();
+            if (i == 0 || c.getLatitude() > latMax) latMax = c.getLatitude();
+            if (i == 0 || c.getLongitude() < longMin) longMin = c.getLongitude();
+            if (i == 0 || c.getLongitude() > longMax) longMax = c.getLongitude();
+        }
+        latitudeMin = latMin;
+        longitudeMin = longMin;
+
+        //La largeur en degrés des cases compense le rétrécissement des méridiens à la latitude la plus éloignée de l'équateur
+        double cosinusMin = Math.max(Math.cos(Math.toRadians(Math.max(Math.abs(latMin), Math.abs(latMax)))), 0.01);
+        //Des stations très éloignées les unes des autres agrandissent les cases, pour garder une grille de taille raisonnable
+        long nbCasesMax = Math.max(1024, 4L * this.stations.length);
+        while (((latMax - latMin) / (tailleCase / KM_PAR_DEGRE) + 1) * ((longMax - longMin) / (tailleCase / (KM_PAR_DEGRE * cosinusMin)) + 1) > nbCasesMax)
+            tailleCase *= 2;
+        hauteurCase = tailleCase / KM_PAR_DEGRE;
+        largeurCase = tailleCase / (KM_PAR_DEGRE * cosinusMin);
+        tailleCaseKm = tailleCase;
+        nbLignes = (int) ((latMax - latMin) / hauteurCase) + 1;
+        nbColonnes = (int) ((longMax - longMin) / largeurCase) + 1;
+
+        //Rangement des stations par case
+        int[] cases = new int[this.stations.length];
+        debuts = new int[nbLignes * nbColonnes + 1];
+        for (int i = 0; i < this.stations.length; i++) {
+            Coordonnee c = this.stations[i].getLocalisation();
+            cases[i] = ligne(c.getLatitude()) * nbColonnes + colonne(c.getLongitude());
+            debuts[cases[i] + 1]++;
+        }
+        for (int c = 0; c < nbLignes * nbColonnes; c++) debuts[c + 1] += debuts[c];
+        contenus = new int[this.stations.length];
+        int[] remplissage = Arrays.copyOf(debuts, debuts.length - 1);
+        for (int i = 0; i < this.stations.length; i++) contenus[remplissage[cases[i]]++] = i;
+    }
+
+    /**
+     * Renvoie les stations indexées.
+     *
+     * @return les stations indexées.
+     */
+    public List<Station> getStations() {
+        return Arrays.asList(stations);
+    }
+
+    /**
+     * Cherche les stations dont la distance à une coordonnée est comprise entre deux bornes.
+     *
+     * @param coordonnee la coordonnée autour de laquelle chercher.
+     * @param minDistance distance minimale des stations, en km.
+     * @param maxDistance distance maximale des stations, en km.
+     * @return les stations dont la distance est minorée par minDistance et majorée par maxDistance, de la plus proche à la plus lointaine.
+     */
+    public List<Station> rechercher(Coordonnee coordonnee, double minDistance, double maxDistance) {
+        List<Station> proches = new ArrayList<>();
+        List<Double> distances = new ArrayList<>();
+        if (stations.length == 0 || maxDistance < minDistance) return proches;
+
+        //Un demi-mètre de marge, les distances étant arrondies au mètre
+        double marge = maxDistance + 0.0005;
+        int ligneMin = ligne(coordonnee.getLatitude() - marge / KM_PAR_DEGRE);
+        int ligneMax = ligne(coordonnee.getLatitude() + marge / KM_PAR_DEGRE);
+        double cosinus = Math.max(Math.cos(Math.toRadians(Math.abs(coordonnee.getLatitude()) + marge / KM_PAR_DEGRE)), 0.01);
+        int colonneMin = colonne(coordonnee.getLongitude() - marge / (KM_PAR_DEGRE * cosinus));
+        int colonneMax = colonne(coordonnee.getLongitude() + marge / (KM_PAR_DEGRE * cosinus));
+
+        for (int l = ligneMin; l <= ligneMax; l++) {
+            for (int c = colonneMin; c <= colonneMax; c++) {
+                int numero = l * nbColonnes + c;
+                for (int k = debuts[numero]; k < debuts[numero + 1]; k++) {
+                    Station station = stations[contenus[k]];
+                    double distance = distanceBetween(coordonnee, station.getLocalisation());
+                    if (distance >= minDistance && distance <= maxDistance) {
+                        int position = positionInsertion(proches, distances, station, distance);
+                        proches.add(position, station);
+                        distances.add(position, distance);
+                    }
+                }
+            }
+        }
+        return proches;
+    }
+
+    /**
+     * Cherche les k stations les plus proches d'une coordonnée.
+     * Les cases sont examinées par anneaux concentriques, jusqu'à ce qu'aucune station plus proche ne puisse être trouvée.
+     *
+     * @param coordonnee la coordonnée autour de laquelle chercher.
+     * @param k le nombre de stations voulues.
+     * @return les k stations les plus proches (ou toutes s'il y en a moins), de la plus proche à la plus lointaine.
+     */
+    public List<Station> plusProches(Coordonnee coordonnee, int k) {
+        List<Station> proches = new ArrayList<>();
+        List<Double> distances = new ArrayList<>();
+        if (k <= 0 || stations.length == 0) return proches;
+
+        int ligneCentre = ligneNonBornee(coordonnee.getLatitude());
+        int colonneCentre = colonneNonBornee(coordonnee.getLongitude());
+        int rayonMax = Math.max(Math.max(Math.abs(ligneCentre), Math.abs(nbLignes - 1 - ligneCentre)),
+                                Math.max(Math.abs(colonneCentre), Math.abs(nbColonnes - 1 - colonneCentre)));
+
+        for (int rayon = 0; rayon <= rayonMax; rayon++) {
+            for (int l = ligneCentre - rayon; l <= ligneCentre + rayon; l++) {
+                for (int c = colonneCentre - rayon; c <= colonneCentre + rayon; c++) {
+                    //Uniquement le bord de l'anneau, et les cases de la grille
+                    if (Math.abs(l - ligneCentre) != rayon && Math.abs(c - colonneCentre) != rayon) continue;
+                    if (l < 0 || l >= nbLignes || c < 0 || c >= nbColonnes) continue;
+
+                    int numero = l * nbColonnes + c;
+                    for (int n = debuts[numero]; n < debuts[numero + 1]; n++) {
+                        Station station = stations[contenus[n]];
+                        double distance = distanceBetween(coordonnee, station.getLocalisation());
+                        if (proches.size() < k || distance < distances.get(k - 1)) {
+                            int position = positionInsertion(proches, distances, station, distance);
+                            proches.add(position, station);
+                            distances.add(position, distance);
+                            if (proches.size() > k) {
+                                proches.remove(k);
+                                distances.remove(k);
+                            }
+                        }
+                    }
+                }
+            }
+            //Les stations hors des anneaux déjà examinés sont au moins à rayon cases de distance
+            if (proches.size() == k && distances.get(k - 1) <= rayon * tailleCaseKm) break;
+        }
+        return proches;
+    }
+
+    /**
+     * Cherche la station qui se trouve exactement à une coordonnée.
+     *
+     * @param coordonnee la coordonnée de la station cherchée.
+     * @return une station qui se trouve à la coordonnée précisée, ou null s'il n'y en a pas.
+     */
+    public Station getStation(Coordonnee coordonnee) {
+        if (stations.length == 0) return null;
+        int l = ligneNonBornee(coordonnee.getLatitude()), c = colonneNonBornee(coordonnee.getLongitude());
+        if (l < 0 || l >= nbLignes || c < 0 || c >= nbColonnes) return null;
+
+        int numero = l * nbColonnes + c;
+        for (int k = debuts[numero]; k < debuts[numero + 1]; k++)
+            if (stations[contenus[k]].getLocalisation().equals(coordonnee))
+                return stations[contenus[k]];
+        return null;
+    }
+
+    /**
+     * Trouve la position d'insertion d'une station dans une liste rangée par distance croissante, puis par nom.
+     *
+     * @param proches les stations déjà trouvées.
+     * @param distances les distances des stations déjà trouvées.
+     * @param station la station à insérer.
+     * @param distance la distance de la station à insérer.
+     * @return la position d'insertion de la station.
+     */
+    private int positionInsertion(List<Station> proches, List<Double> distances, Station station, double distance) {
+        int position = proches.size();
+        while (position > 0 && (distances.get(position - 1) > distance
+                || (distances.get(position - 1) == distance && proches.get(position - 1).getNomLieu().compareTo(station.getNomLieu()) > 0)))
+            position--;
+        return position;
+    }
+
+    /**
+     * Renvoie la ligne de la grille d'une latitude, ramenée dans la grille.
+     *
+     * @param latitude la latitude en degrés.
+     * @return la ligne de la grille, entre 0 et nbLignes - 1.
+     */
+    private int ligne(double latitude) {
+        return Math.min(Math.max(ligneNonBornee(latitude), 0), nbLignes - 1);
+    }
+
+    /**
+     * Renvoie la colonne de la grille d'une longitude, ramenée dans la grille.
+     *
+     * @param longitude la longitude en degrés.
+     * @return la colonne de la grille, entre 0 et nbColonnes - 1.
+     */
+    private int colonne(double longitude) {
+        return Math.min(Math.max(colonneNonBornee(longitude), 0), nbColonnes - 1);
+    }
+
+    /**
+     * Renvoie la ligne de la grille d'une latitude, éventuellement hors de la grille.
+     *
+     * @param latitude la latitude en degrés.
+     * @return la ligne de la grille.
+     */
+    private int ligneNonBornee(double latitude) {
+        return (int) Math.floor((latitude - latitudeMin) / hauteurCase);
+    }
+
+    /**
+     * Renvoie la colonne de la grille d'une longitude, éventuellement hors de la grille.
+     *
+     * @param longitude la longitude en degrés.
+     * @return la colonne de la grille.
+     */
+    private int colonneNonBornee(double longitude) {
+        return (int) Math.floor((longitude - longitudeMin) / largeurCase);
+    }
+}
@@ -0,0 +1,331 @@
+package fr.uparis.backapp.utils;
+
+import fr.uparis.backapp.model.Coordonnee;
+import fr.uparis.backapp.model.Ligne;
+import fr.uparis.backapp.model.lieu.Lieu;
+import fr.uparis.backapp.model.lieu.Station;
+import fr.uparis.backapp.model.section.Section;
+import fr.uparis.backapp.model.section.SectionTransport;
+import fr.uparis.backapp.utils.constants.Constants;
+
+import java.time.Duration;
+import java.util.*;
+
+import static fr.uparis.backapp.utils.Utils.distanceBetween;
+import static fr.uparis.backapp.utils.Utils.walkingDurationOf;
+
+/**
+ * Recherche multicritère des trajets non dominés sur trois critères : l'horaire d'arrivée, le nombre de montées en transport
+ * et la distance marchée sur l'ensemble du trajet, au début, entre les stations et à la fin.
+ * Une station peut porter plusieurs étiquettes, tant qu'aucune n'est au moins aussi bonne sur les trois critères.
+ * Continuer sur la même ligne ne demande ni montée ni correspondance : une étiquette n'en domine une autre arrivée par une autre ligne
+ * que si elle est arrivée à pied, avec au moins une montée de moins.
+ * Une étiquette n'est pas développée si un trajet déjà trouvé fait au moins aussi bien qu'elle pourrait faire au mieux.
+ * Seul le mode PARETO s'en sert, et ses limites de marche totale et de correspondances choisissent dans l'ensemble trouvé.
+ * Les autres modes gardent leur propre recherche, leurs réponses n'étant pas des choix dans cet ensemble :
+ * les cinq trajets les plus rapides n'y sont pas tous, et les modes à pied bornent chaque marche ou imposent une marche minimale.
+ */
+public class ParetoSearch {
+    final private Coordonnee depart;
+    final private Coordonnee arrivee;
+    final private int horaireDepart; //en secondes depuis le début de la journée de service
+    final private TransitGraph transit;
+    final private FootpathGraph graphe;
+    final private double volonte;
+    final private SearchDeadline echeance;
+
+    //Étiquettes, dans l'ordre de leur création
+    private int nbEtiquettes;
+    private int[] stations; //station de chaque étiquette
+    private int[] horaires; //horaire d'arrivée à la station, en secondes
+    private int[] montees; //nombre de montées en transport
+    private int[] marches; //distance déjà marchée, en mètres
+    private int[] precedentes; //étiquette précédente sur le trajet, -1 pour une source
+    private int[] entrees; //section du graphe figé par laquelle on arrive, -1 à pied ou pour une source
+    private int[] suivantes; //étiquette suivante de la même station, -1 pour la dernière
+    private boolean[] dominees; //étiquettes dominées par une étiquette posée après elles, à ne plus traiter
+    private int[] premieres; //première étiquette de chaque station, -1 si elle n'en a pas
+    private SearchWorkspace etiquettesStations; //minorants de la durée restante de chaque station jusqu'à l'arrivée
+
+    //Trajets trouvés, non dominés entre eux, repérés par l'étiquette de leur station d'arrivée candidate
+    private List<int[]> trouves; //étiquette, horaire d'arrivée, montées, marche en mètres
+
+    /**
+     * Constructeur d'une recherche des trajets non dominés.
+     *
+     * @param depart point de départ du trajet.
+     * @param arrivee point d'arrivée du trajet.
+     * @param horaireDepart horaire de départ, en secondes depuis le début de la journée de service.
+     * @param transit le graphe figé du Reseau, avec les chemins à pied entre les stations.
+     * @param volonte La distance que l'utilisateur accepte de parcourir entre deux stations, en km.
+     * @param echeance l'échéance du calcul, au-delà de laquelle la recherche rend les meilleurs trajets trouvés.
+     */
+    public ParetoSearch(Coordonnee depart, Coordonnee arrivee, int horaireDepart, TransitGraph transit, double volonte, SearchDeadline echeance) {
+        this.depart = depart;
+        this.arrivee = arrivee;
+        this.horaireDepart = horaireDepart;
+        this.transit = transit;
+        this.graphe = transit.getFootpathGraph();
+        this.volonte = volonte;
+        this.echeance = echeance;
+    }
+
+    /**
+     * Cherche les trajets en transport non dominés sur l'horaire d'arrivée, le nombre de montées et la distance marchée.
+     *
+     * @param sources les stations de départ candidates, avec la distance de marche depuis le départ, en km.
+     * @param puits les stations d'arrivée candidates, avec la distance de marche jusqu'à l'arrivée, en km.
+     * @param borne l'horaire d'arrivée, en secondes, que les trajets doivent battre.
+     * @param minorants les minorants exacts de la durée restante de chaque station, donnés par la hiérarchie de contraction, ou null.
+     * @return les trajets non dominés, avec leurs sections de début et de fin à pied, dans l'ordre chronologique d'horaire d'arrivée.
+     */
+    public List<Section[]> rechercher(Map<Station, Double> sources, Map<Station, Double> puits, int borne, int[] minorants) {
+        int nbStations = graphe.getNbStations();
+        nbEtiquettes = 0;
+        stations = new int[nbStations];
+        horaires = new int[nbStations];
+        montees = new int[nbStations];
+        marches = new int[nbStations];
+        precedentes = new int[nbStations];
+        entrees = new int[nbStations];
+        suivantes = new int[nbStations];
+        dominees = new boolean[nbStations];
+        premieres = new int[nbStations];
+        Arrays.fill(premieres, -1);
+        etiquettesStations = SearchWorkspace.get(nbStations);
+        etiquettesStations.setMinorants(minorants);
+        trouves = new ArrayList<>();
+        PriorityQueue<Long> tas = new PriorityQueue<>(); //horaire augmenté du minorant de la durée restante, puis index de l'étiquette
+
+        double[] finales = new double[nbStations]; //distance de marche jusqu'à l'arrivée, en km, -1 si ce n'est pas une station d'arrivée candidate
+        Arrays.fill(finales, -1);
+        for (Map.Entry<Station, Double> puit : puits.entrySet()) {
+            Integer index = graphe.getIndex(puit.getKey());
+            if (index != null) finales[index] = puit.getValue();
+        }
+        for (Map.Entry<Station, Double> source : sources.entrySet()) {
+            Integer index = graphe.getIndex(source.getKey());
+            if (index == null) continue;
+            int horaire = horaireDepart + (int) walkingDurationOf(source.getValue()).getSeconds();
+            poser(tas, index, horaire, 0, getMetres(source.getValue()), -1, -1, borne);
+        }
+
+        //Prendre l'étiquette la plus prometteuse, tant qu'elle peut encore battre la borne
+        while (!tas.isEmpty() && (int) (tas.peek() >>> 32) < borne && !echeance.isDepassee()) {
+            int etiquette = (int) (tas.poll() & 0xFFFFFFFFL);
+            int current = stations[etiquette], horaire = horaires[etiquette];
+            int estimation = etiquettesStations.getEstimation(current, transit, arrivee);
+            if (dominees[etiquette] || isDominee(horaire + estimation, montees[etiquette], marches[etiquette])) continue;
+
+            //Une station d'arrivée candidate donne un trajet, s'il est en transport et qu'aucun trajet trouvé n'est au moins aussi bon
+            if (finales[current] >= 0 && montees[etiquette] > 0) {
+                int horaireArrivee = horaire + (int) walkingDurationOf(finales[current]).getSeconds();
+                int marche = marches[etiquette] + getMetres(finales[current]);
+                if (horaireArrivee < borne && !isDominee(horaireArrivee, montees[etiquette], marche)) {
+                    trouves.removeIf(trouve -> horaireArrivee <= trouve[1] && montees[etiquette] <= trouve[2] && marche <= trouve[3]);
+                    trouves.add(new int[]{etiquette, horaireArrivee, montees[etiquette], marche});
+                }
+            }
+
+            //Les voisins à pied
+            graphe.parcourir(current, volonte, (next, duree, distance) ->
+                    poser(tas, next, horaire + duree, montees[etiquette], marches[etiquette] + getMetres(distance), etiquette, -1, borne));
+            //Puis les voisins en transport : une nouvelle ligne demande une montée, et le temps de correspondance depuis la ligne de l'étiquette
+            int ligneArrivee = getLigne(etiquette);
+            for (int section = transit.debut(current), fin = transit.fin(current); section < fin; section++) {
+                if (horaire + transit.getDuree(section) >= borne) continue;
+                int ligne = transit.getLigneSection(section);
+                int nbMontees = montees[etiquette] + ((ligne == ligneArrivee) ? 0 : 1);
+                if (nbMontees > Constants.MAX_CORRESPONDANCES + 1) continue;
+                int prochainDepart = transit.getSection(section).getProchainDepart(horaire);
+                if (prochainDepart < 0) continue;
+                poser(tas, transit.getVoisin(section), prochainDepart + transit.getDuree(section) + transit.getTempsCorrespondance(current, ligneArrivee, ligne),
+                      nbMontees, marches[etiquette], etiquette, section, borne);
+            }
+        }
+
+        List<Section[]> trajets = new ArrayList<>();
+        trouves.sort(Comparator.comparingInt(trouve -> trouve[1]));
+        for (int[] trouve : trouves)
+            trajets.add(getTrajet(trouve[0], finales[stations[trouve[0]]], trouve[1]));
+        return trajets;
+    }
+
+    /**
+     * Pose une étiquette à une station, si aucune de ses étiquettes ni aucun trajet trouvé n'est au moins aussi bon,
+     * et marque comme dominées celles qu'elle domine.
+     *
+     * @param tas les étiquettes à traiter.
+     * @param station l'index de la station.
+     * @param horaire l'horaire d'arrivée à la station, en secondes.
+     * @param nbMontees le nombre de montées en transport.
+     * @param marche la distance déjà marchée, en mètres.
+     * @param precedente l'étiquette d'où l'on vient, -1 pour une source.
+     * @param entree la position, dans le graphe figé, de la section empruntée, -1 à pied ou pour une source.
+     * @param borne l'horaire d'arrivée que les trajets doivent battre, en secondes.
+     */
+    private void poser(PriorityQueue<Long> tas, int station, int horaire, int nbMontees, int marche, int precedente, int entree, int borne) {
+        int clef = horaire + etiquettesStations.getEstimation(station, transit, arrivee);
+        if (clef >= borne || isDominee(clef, nbMontees, marche)) return;
+        int ligne = (entree >= 0) ? transit.getLigneSection(entree) : -1;
+        for (int autre = premieres[station]; autre >= 0; autre = suivantes[autre]) {
+            if (dominees[autre]) continue;
+            if (domine(horaires[autre], montees[autre], marches[autre], getLigne(autre), horaire, nbMontees, marche, ligne)) return;
+            if (domine(horaire, nbMontees, marche, ligne, horaires[autre], montees[autre], marches[autre], getLigne(autre))) dominees[autre] = true;
+        }
+
+        if (nbEtiquettes == stations.length) agrandir();
+        int etiquette = nbEtiquettes++;
+        stations[etiquette] = station;
+        horaires[etiquette] = horaire;
+        montees[etiquette] = nbMontees;
+        marches[etiquette] = marche;
+        precedentes[etiquette] = precedente;
+        entrees[etiquette] = entree;
+        suivantes[etiquette] = premieres[station];
+        dominees[etiquette] = false;
+        premieres[station] = etiquette;
+        tas.add(((long) clef << 32) | etiquette);
+    }
+
+    /**
+     * Indique si une étiquette d'une station en domine une autre de la même station : tout ce que fait la seconde,
+     * la première peut le faire au moins aussi bien, même en continuant sur la ligne de la seconde.
+     *
+     * @param horaire1 l'horaire d'arrivée de la première étiquette, en secondes.
+     * @param nbMontees1 le nombre de montées de la première étiquette.
+     * @param marche1 la distance marchée de la première étiquette, en mètres.
+     * @param ligne1 la ligne par laquelle arrive la première étiquette, -1 à pied.
+     * @param horaire2 l'horaire d'arrivée de la seconde étiquette, en secondes.
+     * @param nbMontees2 le nombre de montées de la seconde étiquette.
+     * @param marche2 la distance marchée de la seconde étiquette, en mètres.
+     * @param ligne2 la ligne par laquelle arrive la seconde étiquette, -1 à pied.
+     * @return true si la première étiquette domine la seconde, false sinon.
+     */
+    private static boolean domine(int horaire1, int nbMontees1, int marche1, int ligne1, int horaire2, int nbMontees2, int marche2, int ligne2) {
+        if (horaire1 > horaire2 || marche1 > marche2) return false;
+        return (ligne1 == ligne2) ? nbMontees1 <= nbMontees2 : ligne1 < 0 && nbMontees1 < nbMontees2;
+    }
+
+    /**
+     * Indique si un trajet déjà trouvé est au moins aussi bon que ce que peut faire au mieux une étiquette.
+     *
+     * @param horaire le minorant de l'horaire d'arrivée de l'étiquette, en secondes.
+     * @param nbMontees le nombre de montées de l'étiquette.
+     * @param marche la distance marchée de l'étiquette, en mètres.
+     * @return true si un trajet trouvé domine l'étiquette, false sinon.
+     */
+    private boolean isDominee(int horaire, int nbMontees, int marche) {
+        for (int[] trouve : trouves)
+            if (trouve[1] <= horaire && trouve[2] <= nbMontees && trouve[3] <= marche) return true;
+        return false;
+    }
+
+    /**
+     * Renvoie la ligne par laquelle on arrive à la station d'une étiquette.
+     *
+     * @param etiquette l'étiquette.
+     * @return l'index de la ligne, ou -1 à pied ou pour une source.
+     */
+    private int getLigne(int etiquette) {
+        return (entrees[etiquette] >= 0) ? transit.getLigneSection(entrees[etiquette]) : -1;
+    }
+
+    /**
+     * Double la capacité des tableaux d'étiquettes.
+     */
+    private void agrandir() {
+        int capacite = 2 * stations.length;
+        stations = Arrays.copyOf(stations, capacite);
+        horaires = Arrays.copyOf(horaires, capacite);
+        montees = Arrays.copyOf(montees, capacite);
+        marches = Arrays.copyOf(marches, capacite);
+        precedentes = Arrays.copyOf(precedentes, capacite);
+        entrees = Arrays.copyOf(entrees, capacite);
+        suivantes = Arrays.copyOf(suivantes, capacite);
+        dominees = Arrays.copyOf(dominees, capacite);
+    }
+
+    /**
+     * Convertit une distance en mètres entiers, pour comparer les distances marchées sans erreur d'arrondi.
+     *
+     * @param distance la distance, en km.
+     * @return la distance, en mètres.
+     */
+    private static int getMetres(double distance) {
+        return (int) Math.round(distance * 1000);
+    }
+
+    /**
+     * Renvoie la distance marchée sur l'ensemble d'un trajet : toutes ses sections qui ne sont pas en transport.
+     *
+     * @param trajet le trajet.
+     * @return la distance marchée, en km.
+     */
+    public static double getMarche(Section[] trajet) {
+        double marche = 0;
+        for (Section section : trajet)
+            if (!(section instanceof SectionTransport)) marche += section.getDistance();
+        return marche;
+    }
+
+    /**
+     * Renvoie le nombre de correspondances d'un trajet : les montées en transport après la première.
+     * Continuer sur la même ligne n'est pas une correspondance.
+     *
+     * @param trajet le trajet.
+     * @return le nombre de correspondances, 0 pour un trajet à pied.
+     */
+    public static int getNbCorrespondances(Section[] trajet) {
+        int nbMontees = 0;
+        Ligne ligne = null;
+        for (Section section : trajet) {
+            if (section instanceof SectionTransport sectionTransport) {
+                if (!sectionTransport.getLigne().equals(ligne)) nbMontees++;
+                ligne = sectionTransport.getLigne();
+            }
+            else ligne = null;
+        }
+        return Math.max(0, nbMontees - 1);
+    }
+
+    /**
+     * Crée le trajet d'une étiquette, en remontant les étiquettes précédentes jusqu'à la source,
+     * et en ajoutant les sections de début et de fin, qui sont à pied.
+     *
+     * @param derniere l'étiquette de la station d'arrivée candidate.
+     * @param distanceFin la distance de marche de la station d'arrivée candidate jusqu'à l'arrivée, en km.
+     * @param horaireArrivee l'horaire auquel on finit le trajet, à l'arrivée, en secondes.
+     * @return le trajet, avec ses sections de début et de fin à pied.
+     */
+    private Section[] getTrajet(int derniere, double distanceFin, int horaireArrivee) {
+        int nbSections = 0, premiere = derniere;
+        for (; precedentes[premiere] >= 0; premiere = precedentes[premiere]) nbSections++;
+
+        Section[] trajet = new Section[nbSections + 2];
+        Station departCandidat = graphe.copyStation(stations[premiere], horaires[premiere]);
+        double distanceDebut = distanceBetween(depart, departCandidat.getLocalisation());
+        trajet[0] = new Section(new Lieu(Constants.DEPART, depart, horaireDepart), departCandidat, walkingDurationOf(distanceDebut), distanceDebut);
+
+        int i = nbSections;
+        for (int etiquette = derniere; precedentes[etiquette] >= 0; etiquette = precedentes[etiquette]) {
+            int precedente = precedentes[etiquette];
+            if (entrees[etiquette] >= 0) {
+                Section copie = transit.getSection(entrees[etiquette]).copy();
+                copie.getDepart().setSecondesDePassage(horaires[precedente]);
+                copie.getArrivee().setSecondesDePassage(horaires[etiquette]);
+                trajet[i--] = copie;
+            }
+            else {
+                Coordonnee c1 = graphe.getStation(stations[precedente]).getLocalisation();
+                Coordonnee c2 = graphe.getStation(stations[etiquette]).getLocalisation();
+                trajet[i--] = new Section(new Lieu(Constants.DEPART, c1, horaires[precedente]), new Lieu(Constants.ARRIVEE, c2, horaires[etiquette]),
+                                          Duration.ofSeconds(horaires[etiquette] - horaires[precedente]), distanceBetween(c1, c2));
+            }
+        }
+
+        Station arriveeCandidat = graphe.copyStation(stations[derniere], horaires[derniere]);
+        trajet[nbSections + 1] = new Section(arriveeCandidat, new Lieu(Constants.ARRIVEE, arrivee, horaireArrivee), walkingDurationOf(distanceFin), distanceFin);
+        return trajet;
+    }
+}
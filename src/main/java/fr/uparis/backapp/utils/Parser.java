@@ -10,8 +10,6 @@ import org.apache.commons.io.IOUtils;
 import java.io.IOException;
 import java.io.InputStream;
 import java.time.Duration;
-import java.time.LocalTime;
-import java.time.format.DateTimeFormatter;
 import java.util.*;
 
 import static fr.uparis.backapp.utils.constants.Constants.*;
@@ -42,7 +40,7 @@ public class Parser {
      *
      * @return l'instance unique de la classe Parser.
      */
-    public static Parser getInstance() {
+    public static synchronized Parser getInstance() {
         if (instance == null) {
             instance = new Parser();
             instance.parseMap();
@@ -149,13 +147,13 @@ public class Parser {
     private void parseTime() {
         Config config = Config.getInstance();
         List<String[]> fileLines = getFileLines(config.getProperty(SCHEDULES_FILE_PATH_PROPERTY));
-        Map<String, Map<String, List<LocalTime>>> passagePerVariant = new HashMap<>();
+        Map<String, Map<String, List<Integer>>> passagePerVariant = new HashMap<>();
         fileLines.forEach(l -> {
             String lineVariant = l[SCHEDULES_FILE_LINE_INDEX] + " variant " + l[SCHEDULES_FILE_VARIANTE_INDEX];
-            Map<String, List<LocalTime>> lineDetail = passagePerVariant.getOrDefault(lineVariant, new HashMap<>());
+            Map<String, List<Integer>> lineDetail = passagePerVariant.getOrDefault(lineVariant, new HashMap<>());
             String terminal = l[SCHEDULES_FILE_TERMINUS_INDEX];
-            List<LocalTime> departureTimeByTerminal = lineDetail.getOrDefault(terminal, new ArrayList<>());
-            LocalTime time = LocalTime.parse(correctTime(l[SCHEDULES_FILE_TIME_INDEX]), DateTimeFormatter.ofPattern("HH:mm"));
+            List<Integer> departureTimeByTerminal = lineDetail.getOrDefault(terminal, new ArrayList<>());
+            int time = getSecondsFromString(l[SCHEDULES_FILE_TIME_INDEX]); //en secondes depuis le début de la journée de service
 
             departureTimeByTerminal.add(time);
             lineDetail.put(terminal, departureTimeByTerminal);
@@ -164,32 +162,33 @@ public class Parser {
 
         addSchedulesToLines(passagePerVariant);//TODO discuss this one (elle peut etre enlever)
         calculate_schedules(passagePerVariant);
+        sections.forEach(SectionTransport::figerHoraires); //horaires triés pour les recherches du prochain départ
     }
 
     /**
      * Ajoute les horaires de départ de chaque ligne à la carte en fonction des horaires fournis sous forme de dictionnaire.
      *
-     * @param map un dictionnaire contenant les horaires de départ pour chaque variant de ligne et chaque terminus.
+     * @param map un dictionnaire contenant les horaires de départ pour chaque variant de ligne et chaque terminus, en secondes.
      */
-    private void addSchedulesToLines(Map<String, Map<String, List<LocalTime>>> map) {
+    private void addSchedulesToLines(Map<String, Map<String, List<Integer>>> map) {
         map.forEach((variant, timesByTerminal) ->
-                timesByTerminal.values().forEach(times -> times.forEach(time -> lignes.get(variant).addHoraireDepart(time)))
+                timesByTerminal.values().forEach(times -> times.forEach(time -> lignes.get(variant).addHoraireDepart(getTimeFromSeconds(time))))
         );
     }
 
     /**
      * Calcule les horaires de départ pour chaque section du réseau à partir d'une carte des horaires de passage pour chaque combinaison de variant et terminus.
      *
-     * @param map une carte des horaires de passage pour chaque combinaison de variant et terminus.
+     * @param map une carte des horaires de passage pour chaque combinaison de variant et terminus, en secondes.
      * @throws IllegalArgumentException si l'une des stations de départ n'est pas présente dans le réseau.
      */
-    private void calculate_schedules(Map<String, Map<String, List<LocalTime>>> map) {
+    private void calculate_schedules(Map<String, Map<String, List<Integer>>> map) {
         map.forEach((variant, timesByTerminal) ->
                 timesByTerminal.forEach((terminal, times) -> {
                     SectionTransport sectionDepart = findSectionDepart(terminal, variant);
                     if (sectionDepart == null)
                         throw new IllegalArgumentException("Station départ introuvable dans le réseau");
-                    sectionDepart.addHorairesDepart(times);
+                    sectionDepart.addDeparts(times);
                     propagateSchedules(sectionDepart);
                 })
         );
@@ -214,6 +213,7 @@ public class Parser {
      * Calcule les horaires de départ de la section initiale et les propage à toutes les sections connectées à cette section,
      * en utilisant les durées des sections pour calculer les horaires de départ des sections suivantes,
      * et en rajoutant 40 secondes à chaque arrêt.
+     * Les horaires restent dans la journée de service de la course : ils dépassent une journée après minuit.
      *
      * @param sectionDepart la section de départ à partir de laquelle propager les horaires de départ.
      */
@@ -222,11 +222,8 @@ public class Parser {
         SectionTransport nextSectionInTheSameLine = currentSection.moveToNextSectionInTheSameLine(sections);
 
         while (nextSectionInTheSameLine != null) {
-            SectionTransport finalCurrentSection = currentSection;
-            SectionTransport finalNextSectionInTheSameLine = nextSectionInTheSameLine;
-            currentSection.getHorairesDepart().forEach(time ->
-                    finalNextSectionInTheSameLine.addHoraireDepart(time.plus(finalCurrentSection.getDuree())
-                            .plus(Duration.ofSeconds(40)))); //40 secondes d'arrêt
+            int decalage = (int) currentSection.getDuree().getSeconds() + Constants.STOP_DURATION; //temps d'arrêt
+            for (int time : currentSection.getDeparts()) nextSectionInTheSameLine.addDepart(time + decalage);
 
             currentSection = nextSectionInTheSameLine;
             nextSectionInTheSameLine = currentSection.moveToNextSectionInTheSameLine(sections);
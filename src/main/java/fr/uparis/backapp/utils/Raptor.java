@@ -0,0 +1,412 @@
+package fr.uparis.backapp.utils;
+
+import fr.uparis.backapp.model.Coordonnee;
+import fr.uparis.backapp.model.lieu.Lieu;
+import fr.uparis.backapp.model.lieu.Station;
+import fr.uparis.backapp.model.section.Section;
+import fr.uparis.backapp.model.section.SectionTransport;
+import fr.uparis.backapp.utils.constants.Constants;
+
+import java.time.Duration;
+import java.util.*;
+
+import static fr.uparis.backapp.utils.Utils.distanceBetween;
+import static fr.uparis.backapp.utils.Utils.walkingDurationOf;
+
+/**
+ * Recherche d'itinéraires par tours (RAPTOR, Round-bAsed Public Transit Optimized Router).
+ * Le tour k trouve les meilleurs horaires d'arrivée aux stations avec k trajets en transport :
+ * chaque tour parcourt une seule fois les routes qui passent par les stations améliorées au tour précédent,
+ * puis les chemins à pied depuis les stations améliorées.
+ * Les trajets trouvés sont optimaux au sens de Pareto sur l'horaire d'arrivée et le nombre de correspondances.
+ * Une recherche de profil enchaîne des passes sur tous les horaires de départ d'une fenêtre, en gardant les étiquettes d'une passe à l'autre.
+ */
+public class Raptor {
+    final private static int INFINI = Integer.MAX_VALUE;
+
+    //Manière dont une station est atteinte à un tour
+    final private static int SOURCE = 0;
+    final private static int TRANSPORT = 1;
+    final private static int MARCHE = 2;
+
+    final private Coordonnee depart;
+    final private Coordonnee arrivee;
+    final private int horaireDepart; //en secondes depuis le début de la journée de service
+    final private RaptorTimetable horaires;
+    final private TransitGraph transit;
+    final private FootpathGraph graphe;
+    final private double volonte;
+    final private SearchDeadline echeance;
+
+    //Étiquettes de chaque tour, indexées comme les stations
+    private int[][] etiquettes; //horaires d'arrivée, en secondes
+    private int[][] types; //SOURCE, TRANSPORT ou MARCHE
+    private int[][] tours; //tour auquel l'étiquette a été posée
+    private int[][] routes; //route empruntée, pour TRANSPORT
+    private int[][] courses; //course empruntée, pour TRANSPORT
+    private int[][] montees; //position de la montée dans la route pour TRANSPORT, station d'origine pour MARCHE
+    private int[][] descentes; //position de la descente dans la route, pour TRANSPORT
+    private int[] meilleures; //meilleur horaire d'arrivée connu à chaque station, tous tours confondus
+    private boolean[] marquees; //stations améliorées au tour courant
+    private int[] finales; //durée de marche jusqu'à l'arrivée, -1 si ce n'est pas une station d'arrivée candidate
+    private int meilleureArrivee; //meilleur horaire d'arrivée connu, en secondes
+
+    /**
+     * Constructeur d'une recherche RAPTOR.
+     *
+     * @param depart point de départ du trajet.
+     * @param arrivee point d'arrivée du trajet.
+     * @param horaireDepart horaire de départ, en secondes depuis le début de la journée de service.
+     * @param horaires les horaires du réseau rangés par routes.
+     * @param transit le graphe figé du Reseau, avec les chemins à pied entre les stations.
+     * @param volonte La distance que l'utilisateur accepte de parcourir entre deux stations, en km.
+     * @param echeance l'échéance du calcul, au-delà de laquelle la recherche rend les meilleurs trajets trouvés.
+     */
+    public Raptor(Coordonnee depart, Coordonnee arrivee, int horaireDepart, RaptorTimetable horaires, TransitGraph transit, double volonte, SearchDeadline echeance) {
+        this.depart = depart;
+        this.arrivee = arrivee;
+        this.horaireDepart = horaireDepart;
+        this.horaires = horaires;
+        this.transit = transit;
+        this.graphe = transit.getFootpathGraph();
+        this.volonte = volonte;
+        this.echeance = echeance;
+    }
+
+    /**
+     * Cherche les trajets optimaux au sens de Pareto depuis des stations sources vers un puits.
+     *
+     * @param sources les stations de départ candidates, avec leur horaire de départ, en secondes.
+     * @param puits les stations d'arrivée candidates, avec la durée de marche jusqu'à l'arrivée.
+     * @param borne l'horaire d'arrivée, en secondes, que les trajets doivent battre.
+     * @return les trajets trouvés, avec leurs sections de début et de fin à pied, du moins rapide au plus rapide.
+     */
+    public List<Section[]> rechercher(Map<Station, Integer> sources, Map<Station, Duration> puits, int borne) {
+        initialiser(puits, borne);
+        return passer(sources, horaireDepart, Map.of());
+    }
+
+    /**
+     * Cherche, pour chaque horaire de départ d'une fenêtre, le trajet qui arrive le plus tôt, et ne garde que les trajets non dominés :
+     * ceux qu'aucun trajet partant plus tard n'égale à l'arrivée. Une seule recherche de profil (rRAPTOR) suffit :
+     * les horaires de départ utiles, ceux des courses au départ des sources, sont parcourus du plus tardif au plus tôt,
+     * et chaque passe garde les étiquettes des précédentes, qui restent valables pour partir plus tôt.
+     * Une passe ne trouve donc un trajet que s'il arrive strictement plus tôt que tous ceux qui partent plus tard.
+     * Au premier tour d'une passe, on ne parcourt depuis ses sources que les routes des courses qui fixent son horaire :
+     * les autres n'offrent pas de nouvelle course.
+     *
+     * @param marches les stations de départ candidates, avec la durée de marche depuis le départ, en secondes.
+     * @param puits les stations d'arrivée candidates, avec la durée de marche jusqu'à l'arrivée.
+     * @param debut le début de la fenêtre des horaires de départ, en secondes.
+     * @param fin la fin de la fenêtre des horaires de départ, en secondes.
+     * @param dureeMax la durée, en secondes, que les trajets doivent battre depuis leur horaire de départ.
+     * @return les trajets non dominés, avec leurs sections de début et de fin à pied, du départ le plus tôt au plus tardif.
+     */
+    public List<Section[]> rechercherProfil(Map<Station, Integer> marches, Map<Station, Duration> puits, int debut, int fin, int dureeMax) {
+        initialiser(puits, INFINI);
+
+        //Les horaires de départ qui permettent tout juste de monter dans une course à une source, avec les sources et les routes concernées :
+        //les autres ne permettent pas de monter dans d'autres courses qu'à la passe précédente
+        TreeMap<Integer, Map<Integer, Set<Integer>>> departs = new TreeMap<>(Comparator.reverseOrder());
+        Map<Integer, Set<Integer>> toutes = new HashMap<>();
+        for (Station source : marches.keySet()) {
+            Integer station = graphe.getIndex(source);
+            if (station != null) toutes.put(station, null); //toutes les routes pour le départ à la fin de la fenêtre
+        }
+        departs.put(fin, toutes);
+        for (Map.Entry<Station, Integer> marche : marches.entrySet()) {
+            Integer station = graphe.getIndex(marche.getKey());
+            if (station == null) continue;
+            for (int passage = horaires.debutPassages(station); passage < horaires.finPassages(station); passage++) {
+                int route = horaires.getRoutePassage(passage), position = horaires.getPositionPassage(passage);
+                if (position == horaires.getNbArrets(route) - 1) continue;
+                for (int course = horaires.debutCourses(route); course < horaires.finCourses(route); course++) {
+                    int horaire = horaires.getDepart(route, course, position) - marche.getValue() - 1;
+                    if (horaires.getPremierArret(course) <= position && debut <= horaire && horaire < fin)
+                        departs.computeIfAbsent(horaire, h -> new HashMap<>()).computeIfAbsent(station, s -> new HashSet<>()).add(route);
+                }
+            }
+        }
+
+        LinkedList<Section[]> trajets = new LinkedList<>();
+        for (Map.Entry<Integer, Map<Integer, Set<Integer>>> entree : departs.entrySet()) {
+            if (echeance.isDepassee()) break; //les départs les plus tardifs sont déjà traités
+            int horaire = entree.getKey();
+            Map<Station, Integer> sources = new LinkedHashMap<>();
+            for (int source : entree.getValue().keySet()) sources.put(graphe.getStation(source), horaire + marches.get(graphe.getStation(source)));
+            meilleureArrivee = Math.min(meilleureArrivee, horaire + dureeMax);
+            List<Section[]> trajetsPasse = passer(sources, horaire, entree.getValue());
+            if (!trajetsPasse.isEmpty()) trajets.addFirst(trajetsPasse.get(trajetsPasse.size() - 1));
+        }
+        return trajets;
+    }
+
+    /**
+     * Prépare les étiquettes de tous les tours, et les stations d'arrivée candidates.
+     *
+     * @param puits les stations d'arrivée candidates, avec la durée de marche jusqu'à l'arrivée.
+     * @param borne l'horaire d'arrivée, en secondes, que les trajets doivent battre.
+     */
+    private void initialiser(Map<Station, Duration> puits, int borne) {
+        int nbStations = graphe.getNbStations();
+        int nbTours = Constants.MAX_CORRESPONDANCES + 2; //le tour 0 pour les sources, puis un tour par trajet en transport
+        etiquettes = new int[nbTours][nbStations];
+        types = new int[nbTours][nbStations];
+        tours = new int[nbTours][nbStations];
+        routes = new int[nbTours][nbStations];
+        courses = new int[nbTours][nbStations];
+        montees = new int[nbTours][nbStations];
+        descentes = new int[nbTours][nbStations];
+        meilleures = new int[nbStations];
+        marquees = new boolean[nbStations];
+        for (int[] etiquettesTour : etiquettes) Arrays.fill(etiquettesTour, INFINI);
+        Arrays.fill(meilleures, INFINI);
+
+        finales = new int[nbStations];
+        Arrays.fill(finales, -1);
+        for (Map.Entry<Station, Duration> entree : puits.entrySet()) {
+            Integer index = graphe.getIndex(entree.getKey());
+            if (index != null) finales[index] = (int) entree.getValue().getSeconds();
+        }
+        meilleureArrivee = borne;
+    }
+
+    /**
+     * Fait une passe de RAPTOR depuis des sources, en gardant les étiquettes déjà posées.
+     *
+     * @param sources les stations de départ candidates, avec leur horaire de départ, en secondes.
+     * @param horaireDepartTrajets l'horaire de départ des trajets, en secondes.
+     * @param routesSources les seules routes à parcourir au premier tour depuis certaines sources, null pour toutes leurs routes.
+     * @return les trajets trouvés qui battent le meilleur horaire d'arrivée connu, du moins rapide au plus rapide.
+     */
+    private List<Section[]> passer(Map<Station, Integer> sources, int horaireDepartTrajets, Map<Integer, Set<Integer>> routesSources) {
+        int nbStations = graphe.getNbStations();
+        int nbTours = etiquettes.length;
+        Arrays.fill(marquees, false);
+
+        //Tour 0 : les sources, et les stations voisines à pied
+        for (Map.Entry<Station, Integer> source : sources.entrySet()) {
+            Integer index = graphe.getIndex(source.getKey());
+            int horaire = source.getValue();
+            if (index != null && horaire < etiquettes[0][index]) {
+                etiquettes[0][index] = horaire;
+                meilleures[index] = Math.min(meilleures[index], horaire);
+                types[0][index] = SOURCE;
+                tours[0][index] = 0;
+                marquees[index] = true;
+            }
+        }
+
+        int[] arriveesTours = new int[nbTours]; //meilleure arrivée trouvée à chaque tour
+        int[] stationsTours = new int[nbTours]; //station d'arrivée candidate de cette arrivée, -1 s'il n'y en a pas
+        Arrays.fill(stationsTours, -1);
+
+        for (int k = 0; k < nbTours; k++) {
+            if (k > 0) {
+                if (echeance.isDepassee()) break; //les tours déjà faits donnent les meilleurs trajets trouvés
+                copierTour(k);
+                if (!parcourirRoutes(k, meilleureArrivee, (k == 1) ? routesSources : Map.of())) break;
+            }
+            marcher(k, meilleureArrivee);
+
+            //Les stations d'arrivée candidates améliorées rejoignent l'arrivée à pied
+            for (int station = 0; station < nbStations; station++) {
+                if (marquees[station] && finales[station] >= 0 && etiquettes[k][station] + finales[station] < meilleureArrivee) {
+                    meilleureArrivee = etiquettes[k][station] + finales[station];
+                    arriveesTours[k] = meilleureArrivee;
+                    stationsTours[k] = station;
+                }
+            }
+        }
+
+        List<Section[]> trajets = new ArrayList<>();
+        for (int k = 0; k < nbTours; k++)
+            if (stationsTours[k] >= 0) trajets.add(getTrajet(k, stationsTours[k], horaireDepartTrajets, arriveesTours[k]));
+        return trajets;
+    }
+
+    /**
+     * Commence un tour avec les étiquettes du tour précédent, quand elles sont meilleures que celles déjà posées à ce tour
+     * par une passe précédente.
+     *
+     * @param k le tour à commencer.
+     */
+    private void copierTour(int k) {
+        for (int station = 0; station < etiquettes[k].length; station++) {
+            if (etiquettes[k - 1][station] >= etiquettes[k][station]) continue;
+            etiquettes[k][station] = etiquettes[k - 1][station];
+            types[k][station] = types[k - 1][station];
+            tours[k][station] = tours[k - 1][station];
+            routes[k][station] = routes[k - 1][station];
+            courses[k][station] = courses[k - 1][station];
+            montees[k][station] = montees[k - 1][station];
+            descentes[k][station] = descentes[k - 1][station];
+        }
+    }
+
+    /**
+     * Parcourt les routes qui passent par les stations améliorées au tour précédent,
+     * à partir de la première de ces stations sur chaque route.
+     *
+     * @param k le tour courant.
+     * @param meilleureArrivee le meilleur horaire d'arrivée connu, en secondes.
+     * @param routesStations les seules routes à parcourir depuis certaines stations, null pour toutes leurs routes.
+     * @return true si au moins une station a été marquée au tour précédent, false sinon.
+     */
+    private boolean parcourirRoutes(int k, int meilleureArrivee, Map<Integer, Set<Integer>> routesStations) {
+        int[] premieresPositions = new int[horaires.getNbRoutes()];
+        Arrays.fill(premieresPositions, INFINI);
+        List<Integer> routesAParcourir = new ArrayList<>();
+        for (int station = 0; station < marquees.length; station++) {
+            if (!marquees[station]) continue;
+            marquees[station] = false;
+            Set<Integer> routesStation = routesStations.get(station);
+            for (int passage = horaires.debutPassages(station); passage < horaires.finPassages(station); passage++) {
+                int route = horaires.getRoutePassage(passage);
+                if (routesStation != null && !routesStation.contains(route)) continue;
+                if (premieresPositions[route] == INFINI) routesAParcourir.add(route);
+                premieresPositions[route] = Math.min(premieresPositions[route], horaires.getPositionPassage(passage));
+            }
+        }
+        if (routesAParcourir.isEmpty()) return false;
+
+        for (int route : routesAParcourir) {
+            int course = -1, montee = -1;
+            for (int position = premieresPositions[route]; position < horaires.getNbArrets(route); position++) {
+                int station = horaires.getArret(route, position);
+
+                //Descente de la course courante
+                if (course >= 0) {
+                    int horaire = horaires.getArrivee(route, course, position);
+                    if (horaire < meilleures[station] && horaire < meilleureArrivee) {
+                        etiquettes[k][station] = horaire;
+                        meilleures[station] = horaire;
+                        types[k][station] = TRANSPORT;
+                        tours[k][station] = k;
+                        routes[k][station] = route;
+                        courses[k][station] = course;
+                        montees[k][station] = montee;
+                        descentes[k][station] = position;
+                        marquees[station] = true;
+                    }
+                }
+
+                //Montée dans une course plus tôt, si la station était atteinte au tour précédent
+                if (position < horaires.getNbArrets(route) - 1 && etiquettes[k - 1][station] != INFINI) {
+                    int horaire = etiquettes[k - 1][station] + getTempsCorrespondance(k - 1, station, route);
+                    if (course < 0 || horaire < horaires.getDepart(route, course, position)) {
+                        int plusTot = horaires.getPremiereCourse(route, position, horaire);
+                        if (plusTot >= 0 && (course < 0 || plusTot < course)) {
+                            course = plusTot;
+                            montee = position;
+                        }
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Renvoie le temps de correspondance pour monter dans une route à une station,
+     * si l'on y est arrivé par une autre ligne : le trajet à pied entre les quais, et la pénalité de correspondance.
+     *
+     * @param k le tour auquel on est arrivé à la station.
+     * @param station l'index de la station.
+     * @param route la route dans laquelle on monte.
+     * @return le temps de correspondance, en secondes.
+     */
+    private int getTempsCorrespondance(int k, int station, int route) {
+        if (types[k][station] != TRANSPORT) return 0;
+        return transit.getTempsCorrespondance(station, horaires.getIndexLigne(routes[k][station]), horaires.getIndexLigne(route));
+    }
+
+    /**
+     * Examine les chemins à pied depuis les stations améliorées au tour courant, sans enchaîner deux chemins à pied.
+     *
+     * @param k le tour courant.
+     * @param meilleureArrivee le meilleur horaire d'arrivée connu, en secondes.
+     */
+    private void marcher(int k, int meilleureArrivee) {
+        List<Integer> ameliorees = new ArrayList<>();
+        for (int station = 0; station < marquees.length; station++)
+            if (marquees[station]) ameliorees.add(station);
+
+        for (int station : ameliorees)
+            graphe.parcourir(station, volonte, (voisine, duree, distance) -> marcherVers(k, station, voisine, duree, meilleureArrivee));
+    }
+
+    /**
+     * Examine le chemin à pied d'une station améliorée vers une voisine.
+     *
+     * @param k le tour courant.
+     * @param station l'index de la station améliorée.
+     * @param voisine l'index de la station voisine.
+     * @param duree la durée de marche, en secondes.
+     * @param meilleureArrivee le meilleur horaire d'arrivée connu, en secondes.
+     */
+    private void marcherVers(int k, int station, int voisine, int duree, int meilleureArrivee) {
+        //Une station améliorée en transport à ce tour garde son étiquette, dont peuvent déjà dépendre d'autres chemins à pied
+        if (marquees[voisine] && types[k][voisine] != MARCHE) return;
+
+        int horaire = etiquettes[k][station] + duree;
+        if (horaire < meilleures[voisine] && horaire < meilleureArrivee) {
+            etiquettes[k][voisine] = horaire;
+            meilleures[voisine] = horaire;
+            types[k][voisine] = MARCHE;
+            tours[k][voisine] = k;
+            montees[k][voisine] = station;
+            marquees[voisine] = true;
+        }
+    }
+
+    /**
+     * Reconstruit le trajet qui arrive à une station d'arrivée candidate à un tour,
+     * en remontant les étiquettes jusqu'à la source.
+     *
+     * @param k le tour auquel la station d'arrivée candidate est atteinte.
+     * @param arriveeCandidate l'index de la station d'arrivée candidate.
+     * @param horaireDepartTrajet l'horaire de départ du trajet, en secondes.
+     * @param horaireArrivee l'horaire d'arrivée, en secondes.
+     * @return le trajet, avec ses sections de début et de fin à pied.
+     */
+    private Section[] getTrajet(int k, int arriveeCandidate, int horaireDepartTrajet, int horaireArrivee) {
+        LinkedList<Section> trajet = new LinkedList<>();
+        int tour = k, station = arriveeCandidate;
+        while (types[tour][station] != SOURCE) {
+            int origine = tours[tour][station];
+            if (types[tour][station] == TRANSPORT) {
+                int route = routes[tour][station], course = courses[tour][station];
+                for (int position = descentes[tour][station] - 1; position >= montees[tour][station]; position--) {
+                    Section section = horaires.getSection(route, position).copy();
+                    section.getDepart().setSecondesDePassage(horaires.getDepart(route, course, position));
+                    section.getArrivee().setSecondesDePassage(horaires.getArrivee(route, course, position + 1));
+                    trajet.addFirst(section);
+                }
+                station = horaires.getArret(route, montees[tour][station]);
+                tour = origine - 1;
+            }
+            else {
+                int precedente = montees[tour][station];
+                Coordonnee c1 = graphe.getStation(precedente).getLocalisation();
+                Coordonnee c2 = graphe.getStation(station).getLocalisation();
+                trajet.addFirst(new Section(new Lieu(Constants.DEPART, c1, etiquettes[origine][precedente]),
+                                            new Lieu(Constants.ARRIVEE, c2, etiquettes[origine][station]),
+                                            Duration.ofSeconds(etiquettes[origine][station] - etiquettes[origine][precedente]),
+                                            distanceBetween(c1, c2)));
+                station = precedente;
+                tour = origine;
+            }
+        }
+
+        Station departCandidat = graphe.getStation(station);
+        Station arriveeCandidat = graphe.getStation(arriveeCandidate);
+        double distanceDebut = distanceBetween(depart, departCandidat.getLocalisation());
+        double distanceFin = distanceBetween(arrivee, arriveeCandidat.getLocalisation());
+        trajet.addFirst(new Section(new Lieu(Constants.DEPART, depart, horaireDepartTrajet), graphe.copyStation(station, etiquettes[tour][station]),
+                                    walkingDurationOf(distanceDebut), distanceDebut));
+        trajet.addLast(new Section(graphe.copyStation(arriveeCandidate, etiquettes[k][arriveeCandidate]), new Lieu(Constants.ARRIVEE, arrivee, horaireArrivee),
+                                   walkingDurationOf(distanceFin), distanceFin));
+        return trajet.toArray(new Section[0]);
+    }
+}
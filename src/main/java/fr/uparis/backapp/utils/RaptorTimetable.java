@@ -0,0 +1,370 @@
+package fr.uparis.backapp.utils;
+
+import fr.uparis.backapp.model.Ligne;
+import fr.uparis.backapp.model.section.SectionTransport;
+import fr.uparis.backapp.utils.constants.Constants;
+
+import java.util.*;
+
+/**
+ * Horaires du réseau rangés par routes, pour l'algorithme RAPTOR.
+ * Une route est une suite de stations desservies par une variante de Ligne, dans l'ordre où le Parser propage les horaires :
+ * chaque course de la route part à une heure de base, et passe à chaque station avec un décalage fixe.
+ * Les stations sont repérées par leur index dans le graphe des chemins à pied.
+ */
+public class RaptorTimetable {
+    final private Ligne[] lignes; //ligne de chaque route
+    final private int[] indexLignes; //index de la ligne de chaque route dans le graphe figé du Reseau
+
+    //Stations de la route r, aux positions debutsArrets[r] (incluse) à debutsArrets[r + 1] (exclue) des tableaux suivants
+    final private int[] debutsArrets;
+    final private int[] arrets;
+    final private SectionTransport[] sections; //section vers la station suivante, null pour la dernière station
+    final private int[] decalagesArrivee; //en secondes, depuis l'heure de base de la course
+    final private int[] decalagesDepart; //en secondes, depuis l'heure de base de la course
+
+    //Courses de la route r, aux positions debutsCourses[r] (incluse) à debutsCourses[r + 1] (exclue), par heure de base croissante
+    final private int[] debutsCourses;
+    final private int[] bases; //heure de base de chaque course, en secondes
+    final private int[] premiersArrets; //position, dans la route, de la première station où l'on peut monter dans la course
+
+    //Passages des routes à la station s, aux positions debutsPassages[s] (incluse) à debutsPassages[s + 1] (exclue)
+    final private int[] debutsPassages;
+    final private int[] passagesRoutes;
+    final private int[] passagesPositions;
+
+    /**
+     * Constructeur des horaires par routes, à partir des sections du réseau et du graphe figé du Reseau.
+     *
+     * @param sections les sections du réseau, avec leurs horaires de départ.
+     * @param transit le graphe figé du Reseau, qui donne l'index des stations et des lignes.
+     */
+    public RaptorTimetable(Collection<SectionTransport> sections, TransitGraph transit) {
+        FootpathGraph graphe = transit.getFootpathGraph();
+        //Les sections de chaque ligne, dans l'ordre des sections du réseau
+        Map<Ligne, List<SectionTransport>> sectionsParLigne = new LinkedHashMap<>();
+        for (SectionTransport section : sections)
+            if (section.getLigne() != null && graphe.getIndex(section.getDepart()) != null && graphe.getIndex(section.getArrivee()) != null)
+                sectionsParLigne.computeIfAbsent(section.getLigne(), ligne -> new ArrayList<>()).add(section);
+
+        List<Ligne> lignesRoutes = new ArrayList<>();
+        List<List<SectionTransport>> chemins = new ArrayList<>();
+        for (Map.Entry<Ligne, List<SectionTransport>> entree : sectionsParLigne.entrySet()) {
+            for (List<SectionTransport> chemin : getChemins(entree.getValue())) {
+                lignesRoutes.add(entree.getKey());
+                chemins.add(chemin);
+            }
+        }
+
+        int nbRoutes = chemins.size(), nbArrets = 0;
+        for (List<SectionTransport> chemin : chemins) nbArrets += chemin.size() + 1;
+        lignes = lignesRoutes.toArray(new Ligne[0]);
+        indexLignes = new int[nbRoutes];
+        for (int r = 0; r < nbRoutes; r++) indexLignes[r] = transit.getIndexLigne(lignes[r]);
+        debutsArrets = new int[nbRoutes + 1];
+        arrets = new int[nbArrets];
+        this.sections = new SectionTransport[nbArrets];
+        decalagesArrivee = new int[nbArrets];
+        decalagesDepart = new int[nbArrets];
+        debutsCourses = new int[nbRoutes + 1];
+        List<int[]> courses = new ArrayList<>(); //heure de base et première station de chaque course
+
+        int k = 0;
+        for (int r = 0; r < nbRoutes; r++) {
+            List<SectionTransport> chemin = chemins.get(r);
+            debutsArrets[r] = k;
+            debutsCourses[r] = courses.size();
+            for (int i = 0; i <= chemin.size(); i++, k++) {
+                if (i < chemin.size()) {
+                    this.sections[k] = chemin.get(i);
+                    arrets[k] = graphe.getIndex(chemin.get(i).getDepart());
+                }
+                else arrets[k] = graphe.getIndex(chemin.get(i - 1).getArrivee());
+                if (i > 0) {
+                    decalagesArrivee[k] = decalagesDepart[k - 1] + (int) chemin.get(i - 1).getDuree().getSeconds();
+                    decalagesDepart[k] = decalagesArrivee[k] + Constants.STOP_DURATION;
+                }
+            }
+            courses.addAll(getCourses(chemin, Arrays.copyOfRange(decalagesDepart, debutsArrets[r], k)));
+        }
+        debutsArrets[nbRoutes] = k;
+        debutsCourses[nbRoutes] = courses.size();
+        bases = new int[courses.size()];
+        premiersArrets = new int[courses.size()];
+        for (int c = 0; c < courses.size(); c++) {
+            bases[c] = courses.get(c)[0];
+            premiersArrets[c] = courses.get(c)[1];
+        }
+
+        //Passages des routes à chaque station
+        int nbStations = graphe.getNbStations();
+        debutsPassages = new int[nbStations + 1];
+        for (int arret : arrets) debutsPassages[arret + 1]++;
+        for (int s = 0; s < nbStations; s++) debutsPassages[s + 1] += debutsPassages[s];
+        passagesRoutes = new int[nbArrets];
+        passagesPositions = new int[nbArrets];
+        int[] remplissage = Arrays.copyOf(debutsPassages, nbStations);
+        for (int r = 0; r < nbRoutes; r++) {
+            for (int position = debutsArrets[r]; position < debutsArrets[r + 1]; position++) {
+                int passage = remplissage[arrets[position]]++;
+                passagesRoutes[passage] = r;
+                passagesPositions[passage] = position - debutsArrets[r];
+            }
+        }
+    }
+
+    /**
+     * Découpe les sections d'une ligne en chemins, en suivant les sections comme le Parser pour propager les horaires :
+     * chaque chemin commence à une section qui ne suit aucune autre, puis les sections qui ne sont sur aucun chemin
+     * et qui ont des horaires commencent un nouveau chemin.
+     *
+     * @param sectionsLigne les sections de la ligne.
+     * @return les chemins de la ligne, sous forme de suites de sections.
+     */
+    private static List<List<SectionTransport>> getChemins(List<SectionTransport> sectionsLigne) {
+        Set<SectionTransport> ensemble = new LinkedHashSet<>(sectionsLigne);
+        Map<SectionTransport, SectionTransport> suivantes = new HashMap<>();
+        for (SectionTransport section : sectionsLigne) {
+            SectionTransport suivante = section.moveToNextSectionInTheSameLine(ensemble);
+            if (suivante != null) suivantes.put(section, suivante);
+        }
+
+        List<SectionTransport> debuts = new ArrayList<>();
+        Collection<SectionTransport> suivies = suivantes.values();
+        for (SectionTransport section : sectionsLigne)
+            if (!suivies.contains(section)) debuts.add(section);
+
+        List<List<SectionTransport>> chemins = new ArrayList<>();
+        Set<SectionTransport> parcourues = new HashSet<>();
+        for (SectionTransport debut : debuts) chemins.add(getChemin(debut, suivantes, parcourues));
+        for (SectionTransport section : sectionsLigne)
+            if (!parcourues.contains(section) && section.getDeparts().length > 0)
+                chemins.add(getChemin(section, suivantes, parcourues));
+        return chemins;
+    }
+
+    /**
+     * Suit les sections d'une ligne à partir d'une section, jusqu'à la fin de la ligne ou jusqu'à revenir sur le chemin.
+     *
+     * @param debut la première section du chemin.
+     * @param suivantes la section suivante de chaque section de la ligne.
+     * @param parcourues les sections déjà placées sur un chemin, complétées avec celles de ce chemin.
+     * @return le chemin, sous forme de suite de sections.
+     */
+    private static List<SectionTransport> getChemin(SectionTransport debut, Map<SectionTransport, SectionTransport> suivantes,
+                                                    Set<SectionTransport> parcourues) {
+        List<SectionTransport> chemin = new ArrayList<>();
+        Set<SectionTransport> dejaVues = new HashSet<>();
+        for (SectionTransport section = debut; section != null && dejaVues.add(section); section = suivantes.get(section))
+            chemin.add(section);
+        parcourues.addAll(chemin);
+        return chemin;
+    }
+
+    /**
+     * Retrouve les courses d'un chemin à partir des horaires de départ de ses sections.
+     * Un horaire qui ne correspond à aucune course déjà trouvée commence une nouvelle course, à partir de cette section.
+     *
+     * @param chemin le chemin, sous forme de suite de sections.
+     * @param decalages le décalage de départ de chaque section du chemin, en secondes.
+     * @return l'heure de base et la première station de chaque course, par heure de base croissante.
+     */
+    private static List<int[]> getCourses(List<SectionTransport> chemin, int[] decalages) {
+        List<int[]> courses = new ArrayList<>();
+        for (int i = 0; i < chemin.size(); i++) {
+            Set<Integer> expliques = new HashSet<>();
+            for (int[] course : courses) expliques.add(course[0] + decalages[i]);
+
+            for (int horaire : chemin.get(i).getDeparts())
+                if (!expliques.contains(horaire)) courses.add(new int[]{horaire - decalages[i], i});
+        }
+        courses.sort(Comparator.comparingInt((int[] course) -> course[0]).thenComparingInt(course -> course[1]));
+        return courses;
+    }
+
+    /**
+     * Renvoie le nombre de routes.
+     *
+     * @return le nombre de routes.
+     */
+    public int getNbRoutes() {
+        return lignes.length;
+    }
+
+    /**
+     * Renvoie la ligne d'une route.
+     *
+     * @param route l'index de la route.
+     * @return la ligne de la route.
+     */
+    public Ligne getLigne(int route) {
+        return lignes[route];
+    }
+
+    /**
+     * Renvoie l'index de la ligne d'une route dans le graphe figé du Reseau.
+     *
+     * @param route l'index de la route.
+     * @return l'index de la ligne de la route, ou -1 si elle n'est pas dans le graphe.
+     */
+    public int getIndexLigne(int route) {
+        return indexLignes[route];
+    }
+
+    /**
+     * Renvoie le nombre de stations d'une route.
+     *
+     * @param route l'index de la route.
+     * @return le nombre de stations de la route.
+     */
+    public int getNbArrets(int route) {
+        return debutsArrets[route + 1] - debutsArrets[route];
+    }
+
+    /**
+     * Renvoie une station d'une route.
+     *
+     * @param route l'index de la route.
+     * @param position la position de la station dans la route.
+     * @return l'index de la station.
+     */
+    public int getArret(int route, int position) {
+        return arrets[debutsArrets[route] + position];
+    }
+
+    /**
+     * Renvoie la section qui part d'une station d'une route.
+     *
+     * @param route l'index de la route.
+     * @param position la position de la station de départ dans la route.
+     * @return la section vers la station suivante de la route, ou null pour la dernière station.
+     */
+    public SectionTransport getSection(int route, int position) {
+        return sections[debutsArrets[route] + position];
+    }
+
+    /**
+     * Renvoie le nombre de courses de toutes les routes.
+     *
+     * @return le nombre de courses.
+     */
+    public int getNbCourses() {
+        return bases.length;
+    }
+
+    /**
+     * Renvoie l'index de la première course d'une route.
+     *
+     * @param route l'index de la route.
+     * @return l'index de la première course de la route.
+     */
+    public int debutCourses(int route) {
+        return debutsCourses[route];
+    }
+
+    /**
+     * Renvoie l'index qui suit la dernière course d'une route.
+     *
+     * @param route l'index de la route.
+     * @return l'index qui suit la dernière course de la route.
+     */
+    public int finCourses(int route) {
+        return debutsCourses[route + 1];
+    }
+
+    /**
+     * Renvoie la position, dans sa route, de la première station où l'on peut monter dans une course.
+     *
+     * @param course l'index de la course.
+     * @return la position de la première station de la course.
+     */
+    public int getPremierArret(int course) {
+        return premiersArrets[course];
+    }
+
+    /**
+     * Renvoie l'horaire d'arrivée d'une course à une station de sa route.
+     *
+     * @param route l'index de la route.
+     * @param course l'index de la course.
+     * @param position la position de la station dans la route.
+     * @return l'horaire d'arrivée, en secondes.
+     */
+    public int getArrivee(int route, int course, int position) {
+        return bases[course] + decalagesArrivee[debutsArrets[route] + position];
+    }
+
+    /**
+     * Renvoie l'horaire de départ d'une course à une station de sa route.
+     *
+     * @param route l'index de la route.
+     * @param course l'index de la course.
+     * @param position la position de la station dans la route.
+     * @return l'horaire de départ, en secondes.
+     */
+    public int getDepart(int route, int course, int position) {
+        return bases[course] + decalagesDepart[debutsArrets[route] + position];
+    }
+
+    /**
+     * Cherche la première course d'une route qui part d'une station strictement après un horaire.
+     * Les courses d'une route étant rangées par heure de base, une recherche dichotomique suffit.
+     *
+     * @param route l'index de la route.
+     * @param position la position de la station dans la route.
+     * @param horaire l'horaire à partir duquel on peut monter, en secondes.
+     * @return l'index de la première course dans laquelle on peut monter, ou -1 s'il n'y en a pas.
+     */
+    public int getPremiereCourse(int route, int position, int horaire) {
+        int decalage = decalagesDepart[debutsArrets[route] + position];
+        int bas = debutsCourses[route], haut = debutsCourses[route + 1];
+        while (bas < haut) {
+            int milieu = (bas + haut) >>> 1;
+            if (bases[milieu] + decalage <= horaire) bas = milieu + 1;
+            else haut = milieu;
+        }
+        for (int course = bas; course < debutsCourses[route + 1]; course++)
+            if (premiersArrets[course] <= position) return course;
+        return -1;
+    }
+
+    /**
+     * Renvoie la position du premier passage d'une route à une station.
+     *
+     * @param station l'index de la station.
+     * @return la position du premier passage à la station.
+     */
+    public int debutPassages(int station) {
+        return debutsPassages[station];
+    }
+
+    /**
+     * Renvoie la position qui suit le dernier passage d'une route à une station.
+     *
+     * @param station l'index de la station.
+     * @return la position qui suit le dernier passage à la station.
+     */
+    public int finPassages(int station) {
+        return debutsPassages[station + 1];
+    }
+
+    /**
+     * Renvoie la route d'un passage à une station.
+     *
+     * @param passage la position du passage.
+     * @return l'index de la route.
+     */
+    public int getRoutePassage(int passage) {
+        return passagesRoutes[passage];
+    }
+
+    /**
+     * Renvoie la position de la station dans la route d'un passage.
+     *
+     * @param passage la position du passage.
+     * @return la position de la station dans la route.
+     */
+    public int getPositionPassage(int passage) {
+        return passagesPositions[passage];
+    }
+}
@@ -0,0 +1,250 @@
+package fr.uparis.backapp.utils;
+
+import fr.uparis.backapp.model.Coordonnee;
+import fr.uparis.backapp.model.lieu.Lieu;
+import fr.uparis.backapp.model.lieu.Station;
+import fr.uparis.backapp.model.section.Section;
+import fr.uparis.backapp.model.section.SectionTransport;
+import fr.uparis.backapp.utils.constants.Constants;
+
+import java.time.Duration;
+import java.util.*;
+
+import static fr.uparis.backapp.model.section.SectionTransport.AUCUN_DEPART;
+import static fr.uparis.backapp.utils.Utils.distanceBetween;
+import static fr.uparis.backapp.utils.Utils.walkingDurationOf;
+
+/**
+ * Recherche en arrière, depuis l'horaire d'arrivée, des trajets qui partent le plus tard possible en arrivant à temps.
+ * C'est le symétrique de dijkstra : les états sont traités de l'horaire limite le plus tardif au plus tôt,
+ * en prenant pour chaque section le dernier départ qui permet encore d'arriver à temps.
+ * L'horaire limite d'un état est le dernier horaire auquel on peut être à sa station, au sens de la recherche en avant.
+ * Le temps de correspondance, que la recherche en avant ajoute à l'arrivée de la section suivante, dépend de la ligne
+ * par laquelle on arrive : chaque station a donc un état par quai, pour repartir par la ligne du quai,
+ * et un état à pied, pour rejoindre l'arrivée ou une station voisine à pied, sans correspondance.
+ * Comme en recherche A*, la clef d'un état est son horaire limite diminué d'un minorant de la durée depuis le départ.
+ * Les trajets renvoyés sont rejoués en avant depuis leur horaire de départ, avec les règles de dijkstra.
+ */
+public class ReverseSearch {
+    final private Coordonnee depart;
+    final private Coordonnee arrivee;
+    final private int horaireArrivee; //en secondes depuis le début de la journée de service
+    final private TransitGraph transit;
+    final private FootpathGraph graphe;
+    final private double volonte;
+    final private SearchDeadline echeance;
+
+    //États, indexés comme les stations pour les états à pied, puis comme les quais, décalés du nombre de stations
+    private int[] stations; //station de chaque état
+    private int[] limites; //dernier horaire auquel on peut être à la station, AUCUN_DEPART si l'état n'est pas atteint
+    private boolean[] traites;
+    private int[] suivants; //état suivant sur le trajet, -1 pour rejoindre l'arrivée à pied
+    private int[] sorties; //section empruntée vers l'état suivant, -1 à pied
+    private int[] departsMax; //dernier départ possible de la section empruntée, sans correspondance, en secondes
+    private int[] marches; //durée de marche vers l'état suivant, en secondes
+    private SearchWorkspace etiquettesStations; //minorants de la durée du départ jusqu'à chaque station
+
+    /**
+     * Constructeur d'une recherche en arrière.
+     *
+     * @param depart point de départ du trajet.
+     * @param arrivee point d'arrivée du trajet.
+     * @param horaireArrivee horaire d'arrivée au plus tard, en secondes depuis le début de la journée de service.
+     * @param transit le graphe figé du Reseau, avec les chemins à pied entre les stations.
+     * @param volonte La distance que l'utilisateur accepte de parcourir entre deux stations, en km.
+     * @param echeance l'échéance du calcul, au-delà de laquelle la recherche rend les meilleurs trajets trouvés.
+     */
+    public ReverseSearch(Coordonnee depart, Coordonnee arrivee, int horaireArrivee, TransitGraph transit, double volonte, SearchDeadline echeance) {
+        this.depart = depart;
+        this.arrivee = arrivee;
+        this.horaireArrivee = horaireArrivee;
+        this.transit = transit;
+        this.graphe = transit.getFootpathGraph();
+        this.volonte = volonte;
+        this.echeance = echeance;
+    }
+
+    /**
+     * Cherche, pour chaque station de départ candidate, le trajet qui en part le plus tard en arrivant à temps.
+     *
+     * @param sources les stations de départ candidates, avec la durée de marche depuis le départ, en secondes.
+     * @param puits les stations d'arrivée candidates, avec la durée de marche jusqu'à l'arrivée.
+     * @param borne l'horaire de départ, en secondes, que les trajets doivent battre.
+     * @return les trajets trouvés, avec leurs sections de début et de fin à pied, du départ le plus tardif au plus tôt.
+     */
+    public List<Section[]> rechercher(Map<Station, Integer> sources, Map<Station, Duration> puits, int borne) {
+        int nbStations = graphe.getNbStations(), nbEtats = nbStations + transit.getNbQuais();
+        stations = new int[nbEtats];
+        limites = new int[nbEtats];
+        traites = new boolean[nbEtats];
+        suivants = new int[nbEtats];
+        sorties = new int[nbEtats];
+        departsMax = new int[nbEtats];
+        marches = new int[nbEtats];
+        etiquettesStations = SearchWorkspace.get(nbStations);
+        Arrays.fill(limites, AUCUN_DEPART);
+        for (int station = 0; station < nbStations; station++) {
+            stations[station] = station;
+            for (int quai = transit.debutQuais(station); quai < transit.finQuais(station); quai++) stations[nbStations + quai] = station;
+        }
+        IndexedMinHeap tas = new IndexedMinHeap(nbEtats); //clef : l'opposé de l'horaire limite diminué du minorant depuis le départ
+
+        int[] debuts = new int[nbStations]; //durée de marche depuis le départ, -1 si ce n'est pas une station de départ candidate
+        Arrays.fill(debuts, -1);
+        int nbSources = 0;
+        for (Map.Entry<Station, Integer> source : sources.entrySet()) {
+            Integer index = graphe.getIndex(source.getKey());
+            if (index != null && debuts[index] < 0) {
+                debuts[index] = source.getValue();
+                nbSources++;
+            }
+        }
+        int[] finales = new int[nbStations]; //durée de marche jusqu'à l'arrivée, -1 si ce n'est pas une station d'arrivée candidate
+        Arrays.fill(finales, -1);
+        for (Map.Entry<Station, Duration> puit : puits.entrySet()) {
+            Integer index = graphe.getIndex(puit.getKey());
+            if (index == null) continue;
+            finales[index] = (int) puit.getValue().getSeconds();
+            ameliorer(tas, index, -1, horaireArrivee - finales[index], -1, 0, 0, borne);
+        }
+
+        //Prendre l'état qui permet de partir le plus tard, tant qu'il peut encore battre la borne
+        List<Section[]> trajets = new ArrayList<>();
+        boolean[] atteintes = new boolean[nbStations];
+        int nbSourcesAtteintes = 0;
+        while (!tas.isEmpty() && nbSourcesAtteintes < nbSources && -tas.getClef(tas.peek()) > borne && !echeance.isDepassee()) {
+            int etat = tas.poll(), current = stations[etat];
+            traites[etat] = true;
+
+            //Le premier état traité d'une station de départ candidate donne son dernier départ, à pied depuis le départ
+            if (debuts[current] >= 0 && !atteintes[current]) {
+                atteintes[current] = true;
+                nbSourcesAtteintes++;
+                if (limites[etat] - debuts[current] > borne) trajets.add(getTrajet(etat, limites[etat] - debuts[current], finales));
+            }
+
+            //Les voisins à pied, les chemins étant symétriques : on arrive à pied, sans correspondance
+            graphe.parcourir(current, volonte, (previous, duree, distance) -> ameliorer(tas, previous, etat, limites[etat] - duree, -1, 0, duree, borne));
+            //Puis les sections qui arrivent ici, avec leur dernier départ
+            for (int entrante = transit.debutEntrantes(current), fin = transit.finEntrantes(current); entrante < fin; entrante++)
+                prendreVers(tas, etat, transit.getDepartEntrante(entrante), transit.getEntrante(entrante), borne);
+        }
+
+        trajets.sort(Comparator.comparingInt((Section[] trajet) -> trajet[0].getDepart().getSecondesDePassage()).reversed());
+        return trajets;
+    }
+
+    /**
+     * Examine une section d'une station précédente vers la station d'un état traité, en prenant son dernier départ
+     * qui permet d'être à temps dans cet état, correspondance comprise : l'état du quai de sa ligne à la station précédente en profite.
+     *
+     * @param tas les états à traiter.
+     * @param etat l'état traité.
+     * @param previous l'index de la station de départ de la section.
+     * @param section la position de la section dans le graphe figé.
+     * @param borne l'horaire de départ que les trajets doivent battre, en secondes.
+     */
+    private void prendreVers(IndexedMinHeap tas, int etat, int previous, int section, int borne) {
+        int ligne = transit.getLigneSection(section), precedent = -1;
+        for (int quai = transit.debutQuais(previous); quai < transit.finQuais(previous) && precedent < 0; quai++)
+            if (transit.getLigneQuai(quai) == ligne) precedent = graphe.getNbStations() + quai;
+        //Inutile de chercher le dernier départ s'il ne peut pas améliorer l'état du quai, même sans attente ni correspondance
+        if (precedent < 0 || traites[precedent] || limites[etat] - transit.getDuree(section) - 1 <= limites[precedent]) return;
+
+        int limite = getLimite(etat, ligne);
+        if (limite == AUCUN_DEPART) return;
+        int departMax = limite - transit.getDuree(section);
+        int dernierDepart = transit.getSection(section).getDernierDepart(departMax);
+        if (dernierDepart != AUCUN_DEPART) //la recherche en avant part strictement après l'horaire où l'on est à la station
+            ameliorer(tas, precedent, etat, dernierDepart - 1, section, departMax, 0, borne);
+    }
+
+    /**
+     * Améliore l'horaire limite d'un état, s'il n'est pas traité et peut encore battre la borne,
+     * même en rejoignant sa station depuis le départ à la vitesse maximale du réseau : c'est sa clef dans le tas.
+     *
+     * @param tas les états à traiter.
+     * @param etat l'état amélioré.
+     * @param suivant l'état suivant, -1 pour rejoindre l'arrivée à pied.
+     * @param limite le nouvel horaire limite, en secondes.
+     * @param sortie la section empruntée vers l'état suivant, -1 à pied.
+     * @param departMax le dernier départ possible de la section empruntée, sans correspondance, en secondes.
+     * @param marche la durée de marche vers l'état suivant, en secondes.
+     * @param borne l'horaire de départ que les trajets doivent battre, en secondes.
+     */
+    private void ameliorer(IndexedMinHeap tas, int etat, int suivant, int limite, int sortie, int departMax, int marche, int borne) {
+        if (traites[etat] || limite <= limites[etat]) return;
+        int clef = limite - etiquettesStations.getEstimation(stations[etat], transit, depart);
+        if (clef <= borne) return;
+        limites[etat] = limite;
+        suivants[etat] = suivant;
+        sorties[etat] = sortie;
+        departsMax[etat] = departMax;
+        marches[etat] = marche;
+        tas.insertOrDecrease(etat, -clef);
+    }
+
+    /**
+     * Renvoie le dernier horaire auquel on peut être à la station d'un état traité, selon la ligne par laquelle on y arrive :
+     * pour repartir par une autre ligne, le dernier départ de la section suivante doit laisser le temps de correspondance.
+     *
+     * @param etat l'état traité.
+     * @param ligneArrivee l'index de la ligne par laquelle on arrive, ou -1 si l'on arrive à pied.
+     * @return l'horaire limite, en secondes, ou AUCUN_DEPART s'il n'y a plus de départ à temps.
+     */
+    private int getLimite(int etat, int ligneArrivee) {
+        if (sorties[etat] < 0 || ligneArrivee < 0) return limites[etat];
+        int correspondance = transit.getTempsCorrespondance(stations[etat], ligneArrivee, transit.getLigneSection(sorties[etat]));
+        if (correspondance == 0) return limites[etat];
+        int dernierDepart = transit.getSection(sorties[etat]).getDernierDepart(departsMax[etat] - correspondance);
+        return (dernierDepart == AUCUN_DEPART) ? AUCUN_DEPART : dernierDepart - 1;
+    }
+
+    /**
+     * Reconstruit le trajet qui part d'un état, en suivant les états suivants jusqu'à l'arrivée,
+     * et le rejoue en avant depuis son horaire de départ, avec les prochains départs et les temps de correspondance de dijkstra.
+     *
+     * @param premier l'état de la station de départ candidate.
+     * @param horaireDepart l'horaire de départ, en secondes.
+     * @param finales les durées de marche jusqu'à l'arrivée, indexées comme les stations.
+     * @return le trajet, avec ses sections de début et de fin à pied.
+     */
+    private Section[] getTrajet(int premier, int horaireDepart, int[] finales) {
+        List<Section> trajet = new ArrayList<>();
+        int etat = premier, horaire = limites[premier], ligneArrivee = -1;
+        Station departCandidat = graphe.copyStation(stations[premier], horaire);
+        double distanceDebut = distanceBetween(depart, departCandidat.getLocalisation());
+        trajet.add(new Section(new Lieu(Constants.DEPART, depart, horaireDepart), departCandidat, walkingDurationOf(distanceDebut), distanceDebut));
+
+        while (suivants[etat] >= 0) {
+            int station = stations[etat], suivante = stations[suivants[etat]], horaireSuivant;
+            if (sorties[etat] >= 0) {
+                SectionTransport section = transit.getSection(sorties[etat]);
+                int ligne = transit.getLigneSection(sorties[etat]);
+                horaireSuivant = section.getProchainDepart(horaire) + transit.getDuree(sorties[etat])
+                                 + transit.getTempsCorrespondance(station, ligneArrivee, ligne);
+                Section copie = section.copy();
+                copie.getDepart().setSecondesDePassage(horaire);
+                copie.getArrivee().setSecondesDePassage(horaireSuivant);
+                trajet.add(copie);
+                ligneArrivee = ligne;
+            }
+            else {
+                horaireSuivant = horaire + marches[etat];
+                Coordonnee c1 = graphe.getStation(station).getLocalisation();
+                Coordonnee c2 = graphe.getStation(suivante).getLocalisation();
+                trajet.add(new Section(new Lieu(Constants.DEPART, c1, horaire), new Lieu(Constants.ARRIVEE, c2, horaireSuivant),
+                                       Duration.ofSeconds(marches[etat]), distanceBetween(c1, c2)));
+                ligneArrivee = -1;
+            }
+            etat = suivants[etat];
+            horaire = horaireSuivant;
+        }
+
+        Station arriveeCandidat = graphe.copyStation(stations[etat], horaire);
+        double distanceFin = distanceBetween(arrivee, arriveeCandidat.getLocalisation());
+        trajet.add(new Section(arriveeCandidat, new Lieu(Constants.ARRIVEE, arrivee, horaire + finales[stations[etat]]),
+                               walkingDurationOf(distanceFin), distanceFin));
+        return trajet.toArray(new Section[0]);
+    }
+}
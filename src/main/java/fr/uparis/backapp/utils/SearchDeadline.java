@@ -0,0 +1,62 @@
+package fr.uparis.backapp.utils;
+
+/**
+ * Échéance d'un calcul d'itinéraire : au-delà, les recherches cessent de développer de nouvelles étiquettes,
+ * et rendent les meilleurs trajets trouvés jusque-là.
+ * Le temps accordé compte à partir de la création de l'échéance, c'est-à-dire de l'arrivée de la requête :
+ * les structures du Reseau sont construites au démarrage, pour que la première requête ne les paie pas sur son temps.
+ * Une même échéance est consultée par toutes les recherches d'un même calcul,
+ * et retient qu'une recherche l'a trouvée dépassée : les trajets rendus sont alors peut-être incomplets.
+ */
+public class SearchDeadline {
+    /**
+     * Échéance qui n'est jamais dépassée.
+     */
+    public static final SearchDeadline AUCUNE = new SearchDeadline(Long.MAX_VALUE);
+
+    final private long duree; //temps accordé, en nanosecondes, Long.MAX_VALUE s'il n'y a pas d'échéance
+    final private long debut = System.nanoTime(); //départ du décompte, à la création de l'échéance
+    private volatile boolean interrompue; //une recherche a trouvé l'échéance dépassée
+
+    /**
+     * Constructeur privé d'une échéance, les échéances étant créées par la méthode de fabrique.
+     *
+     * @param duree le temps accordé, en nanosecondes, Long.MAX_VALUE s'il n'y a pas d'échéance.
+     */
+    private SearchDeadline(long duree) {
+        this.duree = duree;
+    }
+
+    /**
+     * Crée une échéance qui accorde un temps donné aux recherches d'un calcul, décompté dès maintenant.
+     *
+     * @param millisecondes le temps accordé, en millisecondes, ou un temps négatif ou nul pour ne pas avoir d'échéance.
+     * @return l'échéance correspondante.
+     */
+    public static SearchDeadline dans(long millisecondes) {
+        return (millisecondes <= 0) ? AUCUNE : new SearchDeadline(millisecondes * 1_000_000);
+    }
+
+    /**
+     * Indique si l'échéance est dépassée, auquel cas la recherche qui la consulte doit s'arrêter :
+     * le calcul est alors marqué comme interrompu.
+     *
+     * @return true si l'échéance est dépassée, false sinon.
+     */
+    public boolean isDepassee() {
+        if (interrompue) return true;
+        if (duree == Long.MAX_VALUE) return false;
+        if (System.nanoTime() - debut < duree) return false;
+        interrompue = true;
+        return true;
+    }
+
+    /**
+     * Indique si une recherche s'est arrêtée à l'échéance, auquel cas de meilleurs trajets ont pu ne pas être trouvés.
+     *
+     * @return true si le calcul a été interrompu, false sinon.
+     */
+    public boolean isInterrompue() {
+        return interrompue;
+    }
+}
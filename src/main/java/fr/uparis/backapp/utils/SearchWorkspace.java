@@ -0,0 +1,445 @@
+package fr.uparis.backapp.utils;
+
+import fr.uparis.backapp.model.Coordonnee;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Espace de travail réutilisable d'une recherche de plus courts chemins : les étiquettes des stations et le tas des stations à traiter.
+ * Chaque thread garde le sien, dimensionné au nombre de stations, d'une recherche à l'autre.
+ * Les étiquettes ne sont pas effacées entre deux recherches : chacune porte l'époque de sa dernière écriture,
+ * et une étiquette d'une époque passée vaut les valeurs par défaut. Commencer une recherche revient ainsi à changer d'époque.
+ * Une station peut avoir une étiquette par couche, pour garder plusieurs trajets vers elle, par exemple un par source :
+ * les étiquettes sont alors celles des noeuds (couche, station), d'index couche * nombre de stations + station.
+ * Avec une seule couche, un noeud est une station. Les durées de marche jusqu'à l'arrivée et les minorants restent propres aux stations.
+ */
+public class SearchWorkspace {
+    final private static int INFINI = Integer.MAX_VALUE;
+
+    final private static ThreadLocal<SearchWorkspace> espaces = new ThreadLocal<>();
+    final private static AtomicLong nbCreations = new AtomicLong();
+    final private static AtomicLong nbRecherches = new AtomicLong();
+    final private static LongAdder nbTraitees = new LongAdder();
+
+    final private int nbStations;
+    final private IndexedMinHeap tas;
+    final private int[] epoques; //époque de la dernière écriture des étiquettes de chaque noeud
+    final private int[] epoquesStations; //époque de la dernière écriture des étiquettes propres à chaque station
+    private int epoque;
+    private int estimationParDefaut; //minorant des stations dont l'estimation n'est pas calculée, -1 s'il n'y en a pas
+    private int[] minorants; //minorants de la durée restante calculés pour toutes les stations avant la recherche, null s'il n'y en a pas
+
+    //Étiquettes des noeuds, indexées comme les noeuds, valables si elles sont de l'époque courante
+    final private int[] horaires; //en secondes, INFINI tant que le noeud n'est pas atteint
+    final private boolean[] traitees;
+    final private int[] origines; //source de laquelle part le meilleur trajet
+    final private int[] precedentes; //noeud précédent sur le meilleur trajet, -1 pour une source
+    final private int[] entrees; //section du graphe figé par laquelle on arrive, -1 à pied ou pour une source
+
+    //Étiquettes propres aux stations, indexées comme les stations, valables si elles sont de l'époque courante
+    final private int[] finales; //durée de marche jusqu'à l'arrivée, en secondes, -1 si ce n'est pas une station d'arrivée candidate
+    final private int[] estimations; //minorant de la durée restante jusqu'à l'arrivée, en secondes, -1 s'il n'est pas encore calculé
+    final private int[] nbNoeudsTraites; //nombre de noeuds traités de la station, toutes couches confondues
+
+    /**
+     * Constructeur d'un espace de travail à une seule couche, à partir du nombre de stations.
+     *
+     * @param nbStations le nombre de stations du graphe dans lequel on cherche.
+     */
+    public SearchWorkspace(int nbStations) {
+        this(nbStations, 1);
+    }
+
+    /**
+     * Constructeur d'un espace de travail, à partir du nombre de stations et du nombre de couches.
+     *
+     * @param nbStations le nombre de stations du graphe dans lequel on cherche.
+     * @param nbCouches le nombre d'étiquettes que peut avoir chaque station.
+     */
+    public SearchWorkspace(int nbStations, int nbCouches) {
+        int nbNoeuds = nbStations * nbCouches;
+        this.nbStations = nbStations;
+        tas = new IndexedMinHeap(nbNoeuds);
+        epoques = new int[nbNoeuds];
+        epoquesStations = new int[nbStations];
+        epoque = 0;
+        horaires = new int[nbNoeuds];
+        traitees = new boolean[nbNoeuds];
+        origines = new int[nbNoeuds];
+        precedentes = new int[nbNoeuds];
+        entrees = new int[nbNoeuds];
+        finales = new int[nbStations];
+        estimations = new int[nbStations];
+        nbNoeudsTraites = new int[nbStations];
+        nbCreations.incrementAndGet();
+    }
+
+    /**
+     * Renvoie l'espace de travail du thread courant, prêt pour une nouvelle recherche à une seule couche.
+     * Il n'est recréé que si le nombre de stations a changé.
+     *
+     * @param nbStations le nombre de stations du graphe dans lequel on cherche.
+     * @return l'espace de travail du thread courant, sans étiquette.
+     */
+    public static SearchWorkspace get(int nbStations) {
+        return get(nbStations, 1);
+    }
+
+    /**
+     * Renvoie l'espace de travail du thread courant, prêt pour une nouvelle recherche.
+     * Il n'est recréé que si le nombre de stations a changé, ou s'il a moins de couches que demandé :
+     * il garde alors le plus grand nombre de couches demandé jusque-là.
+     *
+     * @param nbStations le nombre de stations du graphe dans lequel on cherche.
+     * @param nbCouches le nombre d'étiquettes que doit pouvoir avoir chaque station.
+     * @return l'espace de travail du thread courant, sans étiquette.
+     */
+    public static SearchWorkspace get(int nbStations, int nbCouches) {
+        SearchWorkspace espace = espaces.get();
+        if (espace == null || espace.getNbStations() != nbStations || espace.getNbCouches() < nbCouches) {
+            int couches = (espace == null || espace.getNbStations() != nbStations) ? nbCouches : Math.max(nbCouches, espace.getNbCouches());
+            espace = new SearchWorkspace(nbStations, couches);
+            espaces.set(espace);
+        }
+        espace.nouvelleRecherche();
+        return espace;
+    }
+
+    /**
+     * Renvoie le nombre d'espaces de travail créés depuis le lancement, pour suivre les allocations.
+     *
+     * @return le nombre d'espaces de travail créés.
+     */
+    public static long getNbCreations() {
+        return nbCreations.get();
+    }
+
+    /**
+     * Renvoie le nombre de recherches commencées depuis le lancement, tous espaces de travail confondus.
+     *
+     * @return le nombre de recherches commencées.
+     */
+    public static long getNbRecherches() {
+        return nbRecherches.get();
+    }
+
+    /**
+     * Renvoie le nombre de stations traitées depuis le lancement, toutes recherches confondues.
+     *
+     * @return le nombre de stations traitées.
+     */
+    public static long getNbTraitees() {
+        return nbTraitees.sum();
+    }
+
+    /**
+     * Commence une nouvelle recherche : toutes les étiquettes reprennent leur valeur par défaut, et le tas est vidé.
+     */
+    public void nouvelleRecherche() {
+        if (epoque == Integer.MAX_VALUE) { //rare : les anciennes époques ne doivent pas revenir
+            Arrays.fill(epoques, 0);
+            Arrays.fill(epoquesStations, 0);
+            epoque = 0;
+        }
+        epoque++;
+        estimationParDefaut = -1;
+        minorants = null;
+        tas.clear();
+        nbRecherches.incrementAndGet();
+    }
+
+    /**
+     * Renvoie le nombre de stations couvertes par l'espace de travail.
+     *
+     * @return le nombre de stations.
+     */
+    public int getNbStations() {
+        return nbStations;
+    }
+
+    /**
+     * Renvoie le nombre de couches, c'est-à-dire le nombre d'étiquettes que peut avoir chaque station.
+     *
+     * @return le nombre de couches.
+     */
+    public int getNbCouches() {
+        return epoques.length / nbStations;
+    }
+
+    /**
+     * Renvoie le noeud d'une station dans une couche.
+     *
+     * @param couche l'index de la couche.
+     * @param station l'index de la station.
+     * @return l'index du noeud.
+     */
+    public int getNoeud(int couche, int station) {
+        return couche * nbStations + station;
+    }
+
+    /**
+     * Renvoie la couche d'un noeud.
+     *
+     * @param noeud l'index du noeud.
+     * @return l'index de la couche.
+     */
+    public int getCouche(int noeud) {
+        return noeud / nbStations;
+    }
+
+    /**
+     * Renvoie la station d'un noeud.
+     *
+     * @param noeud l'index du noeud.
+     * @return l'index de la station.
+     */
+    public int getStation(int noeud) {
+        return noeud % nbStations;
+    }
+
+    /**
+     * Renvoie le tas des noeuds à traiter, avec leur horaire d'arrivée en secondes.
+     *
+     * @return le tas des stations à traiter.
+     */
+    public IndexedMinHeap getTas() {
+        return tas;
+    }
+
+    /**
+     * Donne à un noeud ses étiquettes par défaut, si elles sont d'une époque passée.
+     *
+     * @param noeud l'index du noeud.
+     */
+    private void toucher(int noeud) {
+        if (epoques[noeud] == epoque) return;
+        epoques[noeud] = epoque;
+        horaires[noeud] = INFINI;
+        traitees[noeud] = false;
+        origines[noeud] = noeud;
+        precedentes[noeud] = -1;
+        entrees[noeud] = -1;
+    }
+
+    /**
+     * Donne à une station ses étiquettes propres par défaut, si elles sont d'une époque passée.
+     *
+     * @param station l'index de la station.
+     */
+    private void toucherStation(int station) {
+        if (epoquesStations[station] == epoque) return;
+        epoquesStations[station] = epoque;
+        finales[station] = -1;
+        estimations[station] = -1;
+        nbNoeudsTraites[station] = 0;
+    }
+
+    /**
+     * Renvoie le meilleur horaire d'arrivée connu à un noeud.
+     *
+     * @param noeud l'index du noeud.
+     * @return l'horaire d'arrivée, en secondes, ou INFINI si le noeud n'est pas atteint.
+     */
+    public int getHoraire(int noeud) {
+        return (epoques[noeud] == epoque) ? horaires[noeud] : INFINI;
+    }
+
+    /**
+     * Indique si un noeud est traité, c'est-à-dire que son horaire d'arrivée ne peut plus être amélioré.
+     *
+     * @param noeud l'index du noeud.
+     * @return true si le noeud est traité, false sinon.
+     */
+    public boolean isTraitee(int noeud) {
+        return epoques[noeud] == epoque && traitees[noeud];
+    }
+
+    /**
+     * Marque un noeud comme traité, et le compte pour sa station.
+     *
+     * @param noeud l'index du noeud.
+     */
+    public void setTraitee(int noeud) {
+        toucher(noeud);
+        traitees[noeud] = true;
+        toucherStation(getStation(noeud));
+        nbNoeudsTraites[getStation(noeud)]++;
+        nbTraitees.increment();
+    }
+
+    /**
+     * Renvoie le nombre de noeuds traités d'une station, toutes couches confondues.
+     *
+     * @param station l'index de la station.
+     * @return le nombre de noeuds traités.
+     */
+    public int getNbNoeudsTraites(int station) {
+        return (epoquesStations[station] == epoque) ? nbNoeudsTraites[station] : 0;
+    }
+
+    /**
+     * Renvoie la source de laquelle part le meilleur trajet connu d'un noeud.
+     *
+     * @param noeud l'index du noeud.
+     * @return l'index du noeud source, ou le noeud lui-même s'il n'est pas atteint.
+     */
+    public int getOrigine(int noeud) {
+        return (epoques[noeud] == epoque) ? origines[noeud] : noeud;
+    }
+
+    /**
+     * Renvoie le noeud précédent sur le meilleur trajet connu d'un noeud.
+     *
+     * @param noeud l'index du noeud.
+     * @return l'index du noeud précédent, ou -1 pour une source ou un noeud non atteint.
+     */
+    public int getPrecedente(int noeud) {
+        return (epoques[noeud] == epoque) ? precedentes[noeud] : -1;
+    }
+
+    /**
+     * Renvoie la section par laquelle on arrive à un noeud sur son meilleur trajet connu.
+     *
+     * @param noeud l'index du noeud.
+     * @return la position de la section dans le graphe figé, ou -1 à pied, pour une source ou un noeud non atteint.
+     */
+    public int getEntree(int noeud) {
+        return (epoques[noeud] == epoque) ? entrees[noeud] : -1;
+    }
+
+    /**
+     * Renvoie la durée de marche d'une station d'arrivée candidate jusqu'à l'arrivée.
+     *
+     * @param station l'index de la station.
+     * @return la durée de marche, en secondes, ou -1 si ce n'est pas une station d'arrivée candidate.
+     */
+    public int getFinale(int station) {
+        return (epoquesStations[station] == epoque) ? finales[station] : -1;
+    }
+
+    /**
+     * Fait d'une station une station d'arrivée candidate.
+     *
+     * @param station l'index de la station.
+     * @param duree la durée de marche jusqu'à l'arrivée, en secondes.
+     */
+    public void setFinale(int station, int duree) {
+        toucherStation(station);
+        finales[station] = duree;
+    }
+
+    /**
+     * Renvoie le minorant de la durée restante d'une station jusqu'à l'arrivée.
+     *
+     * @param station l'index de la station.
+     * @return le minorant, en secondes, s'il est calculé, sinon le minorant par défaut, -1 s'il n'y en a pas.
+     */
+    public int getEstimation(int station) {
+        return isEstimee(station) ? estimations[station] : estimationParDefaut;
+    }
+
+    /**
+     * Renvoie le minorant de la durée restante d'une station jusqu'à une cible, calculé une seule fois par recherche :
+     * le plus grand de la durée minimale à vol d'oiseau dans le réseau et du minorant calculé avant la recherche.
+     * C'est la borne commune des moteurs de recherche, pour guider le tas comme pour écarter les stations trop lointaines ;
+     * la durée minimale étant symétrique, elle borne aussi la durée depuis la cible, en recherche en arrière.
+     *
+     * @param station l'index de la station.
+     * @param transit le graphe des sections en transport, qui donne la durée minimale à vol d'oiseau.
+     * @param cible la localisation vers laquelle on cherche.
+     * @return le minorant de la durée restante, en secondes.
+     */
+    public int getEstimation(int station, TransitGraph transit, Coordonnee cible) {
+        int estimation = getEstimation(station);
+        if (estimation < 0) {
+            estimation = Math.max(transit.getDureeMinimale(transit.getFootpathGraph().getStation(station).getLocalisation(), cible), getMinorant(station));
+            setEstimation(station, estimation);
+        }
+        return estimation;
+    }
+
+    /**
+     * Indique si le minorant de la durée restante d'une station jusqu'à l'arrivée est calculé.
+     *
+     * @param station l'index de la station.
+     * @return true si le minorant est calculé, false sinon.
+     */
+    public boolean isEstimee(int station) {
+        return epoquesStations[station] == epoque && estimations[station] >= 0;
+    }
+
+    /**
+     * Fixe le minorant de la durée restante des stations dont l'estimation n'est pas calculée, jusqu'à la prochaine recherche.
+     *
+     * @param estimation le minorant par défaut, en secondes, ou -1 pour qu'il n'y en ait pas.
+     */
+    public void setEstimationParDefaut(int estimation) {
+        estimationParDefaut = estimation;
+    }
+
+    /**
+     * Renvoie le minorant de la durée restante d'une station jusqu'à l'arrivée, calculé pour toutes les stations avant la recherche.
+     *
+     * @param station l'index de la station.
+     * @return le minorant, en secondes, ou 0 s'il n'y en a pas.
+     */
+    public int getMinorant(int station) {
+        return (minorants == null) ? 0 : minorants[station];
+    }
+
+    /**
+     * Fixe les minorants de la durée restante de toutes les stations jusqu'à l'arrivée, jusqu'à la prochaine recherche.
+     *
+     * @param minorants les minorants, en secondes, indexés comme les stations, ou null s'il n'y en a pas.
+     */
+    public void setMinorants(int[] minorants) {
+        this.minorants = minorants;
+    }
+
+    /**
+     * Mémorise le minorant de la durée restante d'une station jusqu'à l'arrivée.
+     *
+     * @param station l'index de la station.
+     * @param estimation le minorant, en secondes.
+     */
+    public void setEstimation(int station, int estimation) {
+        toucherStation(station);
+        estimations[station] = estimation;
+    }
+
+    /**
+     * Fait d'un noeud une source de la recherche, et l'ajoute au tas.
+     *
+     * @param noeud l'index du noeud.
+     * @param horaire l'horaire auquel on y arrive, en secondes.
+     * @param clef la clef du noeud dans le tas : son horaire, augmenté d'un éventuel minorant de la durée restante.
+     */
+    public void setSource(int noeud, int horaire, int clef) {
+        toucher(noeud);
+        horaires[noeud] = horaire;
+        origines[noeud] = noeud;
+        precedentes[noeud] = -1;
+        entrees[noeud] = -1;
+        tas.insertOrDecrease(noeud, clef);
+    }
+
+    /**
+     * Améliore l'horaire d'arrivée d'un noeud, avec son prédécesseur, et le met à jour dans le tas.
+     *
+     * @param precedente l'index du noeud d'où l'on vient.
+     * @param noeud l'index du noeud amélioré.
+     * @param horaire le nouvel horaire d'arrivée, en secondes.
+     * @param entree la position, dans le graphe figé, de la section empruntée, -1 pour un chemin à pied.
+     * @param clef la clef du noeud dans le tas : son horaire, augmenté d'un éventuel minorant de la durée restante.
+     */
+    public void ameliorer(int precedente, int noeud, int horaire, int entree, int clef) {
+        toucher(noeud);
+        horaires[noeud] = horaire;
+        origines[noeud] = getOrigine(precedente);
+        precedentes[noeud] = precedente;
+        entrees[noeud] = entree;
+        tas.insertOrDecrease(noeud, clef);
+    }
+}
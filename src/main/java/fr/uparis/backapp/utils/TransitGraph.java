@@ -0,0 +1,395 @@
+package fr.uparis.backapp.utils;
+
+import fr.uparis.backapp.model.Coordonnee;
+import fr.uparis.backapp.model.Ligne;
+import fr.uparis.backapp.model.lieu.Station;
+import fr.uparis.backapp.model.section.SectionTransport;
+import fr.uparis.backapp.utils.constants.Constants;
+
+import java.util.*;
+
+import static fr.uparis.backapp.utils.Utils.distanceBetween;
+import static fr.uparis.backapp.utils.Utils.walkingDurationOf;
+
+/**
+ * Graphe figé des sections en transport entre les stations, pour les calculs d'itinéraires.
+ * Les stations y sont repérées par leur index dans le graphe des chemins à pied, et les lignes par un index dense :
+ * les recherches n'ont ainsi besoin ni de hacher des Station ou des Ligne, ni de parcourir des ensembles.
+ * Le modèle objet ne sert plus qu'à construire ce graphe, et à présenter les trajets trouvés.
+ */
+public class TransitGraph {
+    final private FootpathGraph graphe; //chemins à pied, qui donnent aussi l'index des stations
+    final private Ligne[] lignes; //lignes, repérées par leur index
+    final private Map<Ligne, Integer> indexLignes; //par identité, pour ne pas hacher les stations et les horaires des lignes
+
+    //Sections partant de la station i, aux positions debuts[i] (incluse) à debuts[i + 1] (exclue) des tableaux suivants,
+    //dans l'ordre des correspondances de la station
+    final private int[] debuts;
+    final private int[] voisins;
+    final private int[] lignesSections; //index de la ligne de chaque section
+    final private int[] durees; //en secondes
+    final private SectionTransport[] sections;
+
+    //Sections arrivant à la station i, aux positions debutsEntrantes[i] (incluse) à debutsEntrantes[i + 1] (exclue) :
+    //leur position dans les tableaux précédents, et leur station de départ
+    final private int[] debutsEntrantes;
+    final private int[] entrantes;
+    final private int[] departsEntrantes;
+
+    final private double vitesseMax; //vitesse à vol d'oiseau maximale des sections et de la marche, en km/h
+
+    //Quais de la station i, aux positions debutsQuais[i] (incluse) à debutsQuais[i + 1] (exclue) des tableaux suivants
+    final private int[] debutsQuais;
+    final private int[] lignesQuais;
+    final private Coordonnee[] localisationsQuais;
+    //Temps de correspondance entre les quais de la station i, ligne par ligne, à partir de la position debutsCorrespondances[i]
+    final private int[] debutsCorrespondances;
+    final private int[] tempsCorrespondances;
+
+    /**
+     * Constructeur du graphe des sections en transport, à partir des correspondances des stations du graphe des chemins à pied.
+     *
+     * @param graphe le graphe des chemins à pied entre les stations.
+     */
+    public TransitGraph(FootpathGraph graphe) {
+        this.graphe = graphe;
+        int nbStations = graphe.getNbStations();
+
+        //Les lignes, dans l'ordre où on les rencontre
+        List<Ligne> listeLignes = new ArrayList<>();
+        indexLignes = new IdentityHashMap<>();
+        List<SectionTransport> listeSections = new ArrayList<>();
+        debuts = new int[nbStations + 1];
+        for (int i = 0; i < nbStations; i++) {
+            debuts[i] = listeSections.size();
+            for (SectionTransport section : graphe.getStation(i).getCorrespondances()) {
+                if (section.getLigne() == null || graphe.getIndex(section.getArrivee()) == null) continue;
+                if (!indexLignes.containsKey(section.getLigne())) {
+                    indexLignes.put(section.getLigne(), listeLignes.size());
+                    listeLignes.add(section.getLigne());
+                }
+                listeSections.add(section);
+            }
+        }
+        debuts[nbStations] = listeSections.size();
+        lignes = listeLignes.toArray(new Ligne[0]);
+
+        int nbSections = listeSections.size();
+        voisins = new int[nbSections];
+        lignesSections = new int[nbSections];
+        durees = new int[nbSections];
+        sections = listeSections.toArray(new SectionTransport[0]);
+        double vitesse = Constants.AVERAGE_WALKING_SPEED;
+        for (int k = 0; k < nbSections; k++) {
+            voisins[k] = graphe.getIndex(sections[k].getArrivee());
+            lignesSections[k] = indexLignes.get(sections[k].getLigne());
+            durees[k] = (int) sections[k].getDuree().getSeconds();
+
+            //Une section instantanée entre deux stations distinctes interdit tout minorant de durée
+            double distance = distanceBetween(sections[k].getDepart().getLocalisation(), sections[k].getArrivee().getLocalisation());
+            if (distance > 0) vitesse = Math.max(vitesse, (durees[k] > 0) ? 3600 * distance / durees[k] : Double.POSITIVE_INFINITY);
+        }
+        vitesseMax = vitesse;
+
+        //Les sections rangées par station d'arrivée, pour les recherches en arrière
+        debutsEntrantes = new int[nbStations + 1];
+        for (int k = 0; k < nbSections; k++) debutsEntrantes[voisins[k] + 1]++;
+        for (int i = 0; i < nbStations; i++) debutsEntrantes[i + 1] += debutsEntrantes[i];
+        entrantes = new int[nbSections];
+        departsEntrantes = new int[nbSections];
+        int[] suivantes = Arrays.copyOf(debutsEntrantes, nbStations);
+        for (int i = 0; i < nbStations; i++) {
+            for (int k = debuts[i]; k < debuts[i + 1]; k++) {
+                int position = suivantes[voisins[k]]++;
+                entrantes[position] = k;
+                departsEntrantes[position] = i;
+            }
+        }
+
+        //Un quai par ligne qui part de la station ou qui y arrive
+        debutsQuais = new int[nbStations + 1];
+        List<Integer> listeLignesQuais = new ArrayList<>();
+        List<Coordonnee> listeLocalisationsQuais = new ArrayList<>();
+        for (int i = 0; i < nbStations; i++) {
+            debutsQuais[i] = listeLignesQuais.size();
+            Station station = graphe.getStation(i);
+            List<Integer> lignesStation = new ArrayList<>();
+            for (int k = debuts[i]; k < debuts[i + 1]; k++) lignesStation.add(lignesSections[k]);
+            for (int k = debutsEntrantes[i]; k < debutsEntrantes[i + 1]; k++) lignesStation.add(lignesSections[entrantes[k]]);
+            for (int ligne : lignesStation) {
+                if (listeLignesQuais.subList(debutsQuais[i], listeLignesQuais.size()).contains(ligne)) continue;
+                listeLignesQuais.add(ligne);
+                listeLocalisationsQuais.add(station.getLocalisation(lignes[ligne].getNomLigne()));
+            }
+        }
+        debutsQuais[nbStations] = listeLignesQuais.size();
+        lignesQuais = listeLignesQuais.stream().mapToInt(Integer::intValue).toArray();
+        localisationsQuais = listeLocalisationsQuais.toArray(new Coordonnee[0]);
+
+        //Les temps de correspondance entre deux quais, calculés une fois pour toutes
+        debutsCorrespondances = new int[nbStations + 1];
+        for (int i = 0; i < nbStations; i++) {
+            int nbQuais = debutsQuais[i + 1] - debutsQuais[i];
+            debutsCorrespondances[i + 1] = debutsCorrespondances[i] + nbQuais * nbQuais;
+        }
+        tempsCorrespondances = new int[debutsCorrespondances[nbStations]];
+        for (int i = 0; i < nbStations; i++) {
+            int nbQuais = debutsQuais[i + 1] - debutsQuais[i];
+            for (int q1 = 0; q1 < nbQuais; q1++)
+                for (int q2 = 0; q2 < nbQuais; q2++)
+                    tempsCorrespondances[debutsCorrespondances[i] + q1 * nbQuais + q2] = (q1 == q2) ? 0 :
+                            calculerTempsCorrespondance(localisationsQuais[debutsQuais[i] + q1], localisationsQuais[debutsQuais[i] + q2]);
+        }
+    }
+
+    /**
+     * Renvoie le graphe des chemins à pied, qui donne l'index des stations.
+     *
+     * @return le graphe des chemins à pied entre les stations.
+     */
+    public FootpathGraph getFootpathGraph() {
+        return graphe;
+    }
+
+    /**
+     * Renvoie le nombre de stations du graphe.
+     *
+     * @return le nombre de stations du graphe.
+     */
+    public int getNbStations() {
+        return graphe.getNbStations();
+    }
+
+    /**
+     * Renvoie le nombre de lignes du graphe.
+     *
+     * @return le nombre de lignes du graphe.
+     */
+    public int getNbLignes() {
+        return lignes.length;
+    }
+
+    /**
+     * Renvoie la ligne d'index donné.
+     *
+     * @param ligne l'index de la ligne.
+     * @return la ligne d'index donné.
+     */
+    public Ligne getLigne(int ligne) {
+        return lignes[ligne];
+    }
+
+    /**
+     * Renvoie l'index d'une ligne dans le graphe.
+     *
+     * @param ligne la ligne cherchée.
+     * @return l'index de la ligne, ou -1 si elle n'est pas dans le graphe.
+     */
+    public int getIndexLigne(Ligne ligne) {
+        return indexLignes.getOrDefault(ligne, -1);
+    }
+
+    /**
+     * Renvoie la position de la première section partant d'une station.
+     *
+     * @param station l'index de la station de départ.
+     * @return la position de la première section partant de la station.
+     */
+    public int debut(int station) {
+        return debuts[station];
+    }
+
+    /**
+     * Renvoie la position qui suit la dernière section partant d'une station.
+     *
+     * @param station l'index de la station de départ.
+     * @return la position qui suit la dernière section partant de la station.
+     */
+    public int fin(int station) {
+        return debuts[station + 1];
+    }
+
+    /**
+     * Renvoie la position de la première section arrivant à une station, parmi les sections entrantes.
+     *
+     * @param station l'index de la station d'arrivée.
+     * @return la position de la première section entrante de la station.
+     */
+    public int debutEntrantes(int station) {
+        return debutsEntrantes[station];
+    }
+
+    /**
+     * Renvoie la position qui suit la dernière section arrivant à une station, parmi les sections entrantes.
+     *
+     * @param station l'index de la station d'arrivée.
+     * @return la position qui suit la dernière section entrante de la station.
+     */
+    public int finEntrantes(int station) {
+        return debutsEntrantes[station + 1];
+    }
+
+    /**
+     * Renvoie la position, dans le graphe, d'une section entrante.
+     *
+     * @param entrante la position de la section parmi les sections entrantes.
+     * @return la position de la section dans le graphe.
+     */
+    public int getEntrante(int entrante) {
+        return entrantes[entrante];
+    }
+
+    /**
+     * Renvoie la station de départ d'une section entrante.
+     *
+     * @param entrante la position de la section parmi les sections entrantes.
+     * @return l'index de la station de départ de la section.
+     */
+    public int getDepartEntrante(int entrante) {
+        return departsEntrantes[entrante];
+    }
+
+    /**
+     * Renvoie la station d'arrivée d'une section.
+     *
+     * @param section la position de la section.
+     * @return l'index de la station d'arrivée de la section.
+     */
+    public int getVoisin(int section) {
+        return voisins[section];
+    }
+
+    /**
+     * Renvoie la ligne d'une section.
+     *
+     * @param section la position de la section.
+     * @return l'index de la ligne de la section.
+     */
+    public int getLigneSection(int section) {
+        return lignesSections[section];
+    }
+
+    /**
+     * Renvoie la durée d'une section.
+     *
+     * @param section la position de la section.
+     * @return la durée de la section, en secondes.
+     */
+    public int getDuree(int section) {
+        return durees[section];
+    }
+
+    /**
+     * Renvoie la section du Reseau à une position, pour ses horaires de départ et pour présenter les trajets.
+     *
+     * @param section la position de la section.
+     * @return la section du Reseau.
+     */
+    public SectionTransport getSection(int section) {
+        return sections[section];
+    }
+
+    /**
+     * Renvoie la vitesse à vol d'oiseau maximale sur le réseau, en transport comme à pied.
+     *
+     * @return la vitesse maximale, en km/h.
+     */
+    public double getVitesseMax() {
+        return vitesseMax;
+    }
+
+    /**
+     * Renvoie un minorant de la durée de tout trajet entre deux points, à la vitesse maximale du réseau à vol d'oiseau.
+     *
+     * @param c1 le point de départ.
+     * @param c2 le point d'arrivée.
+     * @return le minorant de la durée du trajet, en secondes.
+     */
+    public int getDureeMinimale(Coordonnee c1, Coordonnee c2) {
+        return (int) (3600 * distanceBetween(c1, c2) / vitesseMax);
+    }
+
+    /**
+     * Renvoie le nombre de quais du graphe, un par ligne qui part de chaque station ou qui y arrive.
+     *
+     * @return le nombre de quais.
+     */
+    public int getNbQuais() {
+        return lignesQuais.length;
+    }
+
+    /**
+     * Renvoie la position du premier quai d'une station.
+     *
+     * @param station l'index de la station.
+     * @return la position du premier quai de la station.
+     */
+    public int debutQuais(int station) {
+        return debutsQuais[station];
+    }
+
+    /**
+     * Renvoie la position qui suit le dernier quai d'une station.
+     *
+     * @param station l'index de la station.
+     * @return la position qui suit le dernier quai de la station.
+     */
+    public int finQuais(int station) {
+        return debutsQuais[station + 1];
+    }
+
+    /**
+     * Renvoie la ligne d'un quai.
+     *
+     * @param quai la position du quai.
+     * @return l'index de la ligne du quai.
+     */
+    public int getLigneQuai(int quai) {
+        return lignesQuais[quai];
+    }
+
+    /**
+     * Renvoie le temps de correspondance à une station, pour passer d'une ligne à une autre :
+     * le trajet à pied entre les quais, et la pénalité de correspondance.
+     *
+     * @param station l'index de la station.
+     * @param ligneArrivee l'index de la ligne par laquelle on arrive, ou -1 si l'on n'arrive pas en transport.
+     * @param ligneDepart l'index de la ligne dans laquelle on monte.
+     * @return le temps de correspondance, en secondes, nul si l'on ne change pas de ligne.
+     */
+    public int getTempsCorrespondance(int station, int ligneArrivee, int ligneDepart) {
+        if (ligneArrivee < 0 || ligneDepart < 0 || ligneArrivee == ligneDepart) return 0;
+        int q1 = getQuai(station, ligneArrivee), q2 = getQuai(station, ligneDepart);
+        if (q1 < 0 || q2 < 0) { //ligne qui ne passe pas par la station
+            Station courante = graphe.getStation(station);
+            return calculerTempsCorrespondance(courante.getLocalisation(lignes[ligneArrivee].getNomLigne()),
+                                               courante.getLocalisation(lignes[ligneDepart].getNomLigne()));
+        }
+        int nbQuais = debutsQuais[station + 1] - debutsQuais[station];
+        return tempsCorrespondances[debutsCorrespondances[station] + q1 * nbQuais + q2];
+    }
+
+    /**
+     * Renvoie la position du quai d'une ligne parmi les quais d'une station.
+     *
+     * @param station l'index de la station.
+     * @param ligne l'index de la ligne.
+     * @return la position du quai parmi ceux de la station, ou -1 si la ligne ne passe pas par la station.
+     */
+    private int getQuai(int station, int ligne) {
+        for (int quai = debutsQuais[station]; quai < debutsQuais[station + 1]; quai++)
+            if (lignesQuais[quai] == ligne) return quai - debutsQuais[station];
+        return -1;
+    }
+
+    /**
+     * Calcule le temps de correspondance entre deux quais : le trajet à pied de l'un à l'autre, et la pénalité de correspondance.
+     *
+     * @param c1 la localisation du quai d'arrivée.
+     * @param c2 la localisation du quai de départ.
+     * @return le temps de correspondance, en secondes.
+     */
+    private static int calculerTempsCorrespondance(Coordonnee c1, Coordonnee c2) {
+        return (int) walkingDurationOf(distanceBetween(c1, c2)).getSeconds() + Constants.PENALTY * 60;
+    }
+}
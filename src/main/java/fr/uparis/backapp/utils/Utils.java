@@ -57,18 +57,6 @@ public class Utils {
         return Duration.ofMinutes(approximativeSeconds / 60).plusSeconds(approximativeSeconds % 60);
     }
 
-    /**
-     * Convertit une chaîne de caractères représentant l'heure au format "hh:mm" en une chaîne de caractères au même format, avec des zéros ajoutés devant l'heure et les minutes si nécessaire.
-     *
-     * @param time la chaîne de caractères représentant l'heure à mettre dans le format souhaité.
-     * @return la chaîne de caractères représentant l'heure corrigée, au format "hh:mm".
-     * @throws NumberFormatException si la chaîne de caractères passée en argument n'est pas au format "hh:mm", où "hh" représente l'heure en format 24 heures et "mm" représente les minutes.
-     */
-    public static String correctTime(String time) {
-        String[] times = time.split(":");
-        return String.format("%1$02d:%2$02d", Integer.parseInt(times[0]), Integer.parseInt(times[1]));
-    }
-
     /**
      * Calcule la distance entre deux coordonnées, avec une précision au mètre.
      *
@@ -150,6 +138,33 @@ public class Utils {
         return LocalTime.of(Integer.parseInt(times[0]), Integer.parseInt(times[1]));
     }
 
+    /**
+     * Convertit une chaîne de caractères dans le format "heures:minutes" en secondes depuis le début de la journée de service.
+     * Les heures peuvent dépasser 23, pour les horaires d'après minuit de la journée de service.
+     *
+     * @param time La chaîne de temps à convertir.
+     * @return le nombre de secondes correspondant à la chaîne de caractères donnée.
+     * @throws NumberFormatException si la chaîne de caractères n'est pas au format "heures:minutes".
+     */
+    public static int getSecondsFromString(String time) {
+        String[] times = time.trim().split(COLON);
+        if (times.length != 2) throw new NumberFormatException("Not an hours:minutes time: " + time);
+        int heures = Integer.parseInt(times[0]), minutes = Integer.parseInt(times[1]);
+        if (heures < 0 || minutes < 0 || minutes > 59) throw new NumberFormatException("Not an hours:minutes time: " + time);
+        return heures * 3600 + minutes * 60;
+    }
+
+    /**
+     * Convertit un horaire en secondes depuis le début de la journée de service en LocalTime, pour l'affichage :
+     * les horaires d'après minuit reviennent dans la journée.
+     *
+     * @param seconds l'horaire, en secondes depuis le début de la journée de service.
+     * @return le LocalTime correspondant.
+     */
+    public static LocalTime getTimeFromSeconds(int seconds) {
+        return LocalTime.ofSecondOfDay(Math.floorMod(seconds, SECONDS_PER_DAY));
+    }
+
 
     /**
      * Récupère les coordonnées d'un lieu donné sous forme de chaîne de caractères.
@@ -19,6 +19,33 @@ public class Constants {
      */
     public static final String SCHEDULES_FILE_PATH_PROPERTY = "schedules.file.path";
 
+    /**
+     * Algorithme de recherche des trajets en transport utilisé quand la requête n'en précise pas (DIJKSTRA, ASTAR, BIDIRECTIONNEL, RAPTOR, CSA ou ALTERNATIVES).
+     */
+    public static final String ROUTING_ENGINE_PROPERTY = "routing.engine";
+
+    /**
+     * Temps accordé aux recherches d'un calcul d'itinéraire, en millisecondes (0 : pas de limite).
+     * Au-delà, les meilleurs trajets trouvés sont renvoyés, marqués comme partiels.
+     */
+    public static final String ROUTING_DEADLINE_PROPERTY = "routing.deadline.ms";
+
+    /**
+     * Nombre maximal de requêtes dont les itinéraires sont gardés en cache (0 : pas de cache).
+     */
+    public static final String ROUTING_CACHE_SIZE_PROPERTY = "routing.cache.size";
+
+    /**
+     * Largeur des créneaux d'heures de départ du cache des itinéraires, en secondes :
+     * une requête reprend les itinéraires calculés pour le même créneau, recalés sur son heure de départ.
+     */
+    public static final String ROUTING_CACHE_BUCKET_PROPERTY = "routing.cache.bucket.seconds";
+
+    /**
+     * En-tête de la réponse qui indique si les itinéraires renvoyés sont partiels, la recherche ayant atteint son échéance.
+     */
+    public static final String PARTIAL_RESULT_HEADER = "X-Partial-Result";
+
     /**
      * Délimiteur utilisé par le fichier CSV.
      */
@@ -120,6 +147,17 @@ public class Constants {
     public static final double DEFAULT_ECART_DISTANCE = 5.0 / 6.0; //10 minutes de marche
 
 
+    /**
+     * Distance maximale des chemins à pied entre stations précalculés au chargement du réseau, en km.
+     */
+    public static final double MAX_FOOTPATH_DISTANCE = 3.0;
+
+    /**
+     * Taille des cases de la grille de l'index spatial des stations, en km.
+     */
+    public static final double NEARBY_INDEX_CELL_SIZE = 0.5;
+
+
     /**
      * Vitesse moyenne de marche en km/h.
      */
@@ -135,4 +173,40 @@ public class Constants {
      * Pénalité appliquée pour les correspondances.
      */
     public static final int PENALTY = 2;
+
+    /**
+     * Temps d'arrêt d'un train à chaque station, en secondes.
+     */
+    public static final int STOP_DURATION = 40;
+
+    /**
+     * Durée d'une journée, en secondes. Les horaires d'une journée de service comptent les secondes depuis son début,
+     * et dépassent cette durée pour les courses qui roulent encore après minuit.
+     */
+    public static final int SECONDS_PER_DAY = 24 * 60 * 60;
+
+    /**
+     * Nombre maximal de correspondances d'un trajet calculé par RAPTOR.
+     */
+    public static final int MAX_CORRESPONDANCES = 6;
+
+    /**
+     * Part de la durée d'une section ajoutée à son horaire d'arrivée, pour les trajets alternatifs, à chaque fois qu'un trajet trouvé l'emprunte.
+     */
+    public static final double ALTERNATIVE_PENALTY_FACTOR = 1.0;
+
+    /**
+     * Part maximale de la durée en transport d'un trajet alternatif qu'il peut partager avec un trajet déjà gardé.
+     */
+    public static final double MAX_ALTERNATIVE_OVERLAP = 0.6;
+
+    /**
+     * Rapport maximal entre la durée d'un trajet alternatif et celle du trajet le plus rapide.
+     */
+    public static final double MAX_ALTERNATIVE_STRETCH = 1.5;
+
+    /**
+     * Nombre maximal de recherches faites pour trouver les trajets alternatifs d'une requête.
+     */
+    public static final int MAX_ALTERNATIVE_SEARCHES = 2 * MAX_TRAJETS_NUMBER;
 }
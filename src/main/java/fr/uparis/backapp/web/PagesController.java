@@ -1,14 +1,19 @@
 package fr.uparis.backapp.web;
 
 import fr.uparis.backapp.model.section.Section;
+import fr.uparis.backapp.services.ItineraryCache;
 import fr.uparis.backapp.services.ItineraryService;
+import fr.uparis.backapp.utils.ItineraryQuery;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalTime;
 import java.util.List;
 import java.util.Map;
 
+import static fr.uparis.backapp.utils.constants.Constants.PARTIAL_RESULT_HEADER;
+
 
 @RestController
 public class PagesController {
@@ -30,12 +35,13 @@ public class PagesController {
      * @param origin      la station ou les coordonnées de départ.
      * @param destination la station ou les coordonnées d'arrivée.
      * @param time        l'heure de départ.
+     * @param engine      l'algorithme de recherche des trajets en transport (facultatif).
      * @return la liste des itinéraires possibles sous forme de tableau de sections.
      */
     @ResponseBody
     @GetMapping("itinerary/optimal")
-    public List<Section[]> searchItinerary(@RequestParam("origin") String origin, @RequestParam("destination") String destination, @RequestParam("time") String time) {
-        return itineraryService.searchItinerary(origin, destination, time);
+    public ResponseEntity<List<Section[]>> searchItinerary(@RequestParam("origin") String origin, @RequestParam("destination") String destination, @RequestParam("time") String time, @RequestParam(value = "engine", required = false) ItineraryQuery.Algorithme engine) {
+        return toResponse(itineraryService.searchItinerary(origin, destination, time, engine));
     }
 
     /**
@@ -45,12 +51,59 @@ public class PagesController {
      * @param destination la station ou les coordonnées d'arrivée.
      * @param time        l'heure de départ.
      * @param distanceMax la distance maximale à parcourir à pied.
+     * @param engine      l'algorithme de recherche des trajets en transport (facultatif).
      * @return la liste des itinéraires possibles sous forme de tableau de sections.
      */
     @ResponseBody
     @GetMapping("itinerary/lazy")
-    public List<Section[]> searchLazyItinerary(@RequestParam("origin") String origin, @RequestParam("destination") String destination, @RequestParam("time") String time, @RequestParam("distanceMax") double distanceMax) {
-        return itineraryService.searchLazyItinerary(origin, destination, time, distanceMax);
+    public ResponseEntity<List<Section[]>> searchLazyItinerary(@RequestParam("origin") String origin, @RequestParam("destination") String destination, @RequestParam("time") String time, @RequestParam("distanceMax") double distanceMax, @RequestParam(value = "engine", required = false) ItineraryQuery.Algorithme engine) {
+        return toResponse(itineraryService.searchLazyItinerary(origin, destination, time, distanceMax, engine));
+    }
+
+    /**
+     * Recherche les itinéraires non dominés entre deux lieux spécifiés, pour tous les horaires de départ d'une fenêtre.
+     *
+     * @param origin      la station ou les coordonnées de départ.
+     * @param destination la station ou les coordonnées d'arrivée.
+     * @param from        le début de la fenêtre des heures de départ.
+     * @param to          la fin de la fenêtre des heures de départ.
+     * @return la liste des itinéraires non dominés sous forme de tableau de sections, du départ le plus tôt au plus tardif.
+     */
+    @ResponseBody
+    @GetMapping("itinerary/profile")
+    public ResponseEntity<List<Section[]>> searchProfileItinerary(@RequestParam("origin") String origin, @RequestParam("destination") String destination, @RequestParam("from") String from, @RequestParam("to") String to) {
+        return toResponse(itineraryService.searchProfileItinerary(origin, destination, from, to));
+    }
+
+    /**
+     * Recherche les itinéraires non dominés entre deux lieux spécifiés à un moment donné, sur l'heure d'arrivée,
+     * le nombre de correspondances et la distance marchée.
+     *
+     * @param origin      la station ou les coordonnées de départ.
+     * @param destination la station ou les coordonnées d'arrivée.
+     * @param time        l'heure de départ.
+     * @param distanceMax la distance de marche maximale sur l'ensemble du trajet (facultatif).
+     * @param changesMax  le nombre maximal de correspondances (facultatif).
+     * @return la liste des itinéraires non dominés sous forme de tableau de sections, de l'arrivée la plus tôt à la plus tardive.
+     */
+    @ResponseBody
+    @GetMapping("itinerary/pareto")
+    public ResponseEntity<List<Section[]>> searchParetoItinerary(@RequestParam("origin") String origin, @RequestParam("destination") String destination, @RequestParam("time") String time, @RequestParam(value = "distanceMax", required = false) Double distanceMax, @RequestParam(value = "changesMax", required = false) Integer changesMax) {
+        return toResponse(itineraryService.searchParetoItinerary(origin, destination, time, distanceMax, changesMax));
+    }
+
+    /**
+     * Recherche les itinéraires entre deux lieux spécifiés qui partent le plus tard possible en arrivant au plus tard à une heure donnée.
+     *
+     * @param origin      la station ou les coordonnées de départ.
+     * @param destination la station ou les coordonnées d'arrivée.
+     * @param time        l'heure d'arrivée au plus tard.
+     * @return la liste des itinéraires possibles sous forme de tableau de sections, du départ le plus tardif au plus tôt.
+     */
+    @ResponseBody
+    @GetMapping("itinerary/arrival")
+    public ResponseEntity<List<Section[]>> searchArrivalItinerary(@RequestParam("origin") String origin, @RequestParam("destination") String destination, @RequestParam("time") String time) {
+        return toResponse(itineraryService.searchArrivalItinerary(origin, destination, time));
     }
 
     /**
@@ -63,8 +116,8 @@ public class PagesController {
      */
     @ResponseBody
     @GetMapping("itinerary/fullSport")
-    public List<Section[]> searchFullSportItinerary(@RequestParam("origin") String origin, @RequestParam("destination") String destination, @RequestParam("time") String time) {
-        return itineraryService.searchFullSportItinerary(origin, destination, time);
+    public ResponseEntity<List<Section[]>> searchFullSportItinerary(@RequestParam("origin") String origin, @RequestParam("destination") String destination, @RequestParam("time") String time) {
+        return toResponse(itineraryService.searchFullSportItinerary(origin, destination, time));
     }
 
     /**
@@ -78,8 +131,8 @@ public class PagesController {
      */
     @ResponseBody
     @GetMapping("itinerary/sport/distance")
-    public List<Section[]> searchItineraryWithMinWalkingDistance(@RequestParam("origin") String origin, @RequestParam("destination") String destination, @RequestParam("time") String time, @RequestParam("distanceMin") double distanceMin) {
-        return itineraryService.searchItineraryWithMinWalkingDistance(origin, destination, time, distanceMin);
+    public ResponseEntity<List<Section[]>> searchItineraryWithMinWalkingDistance(@RequestParam("origin") String origin, @RequestParam("destination") String destination, @RequestParam("time") String time, @RequestParam("distanceMin") double distanceMin) {
+        return toResponse(itineraryService.searchItineraryWithMinWalkingDistance(origin, destination, time, distanceMin));
     }
 
     /**
@@ -93,8 +146,8 @@ public class PagesController {
      */
     @ResponseBody
     @GetMapping("itinerary/sport/time")
-    public List<Section[]> searchItineraryWithMinWalkingDuration(@RequestParam("origin") String origin, @RequestParam("destination") String destination, @RequestParam("time") String time, @RequestParam("walkingTimeMin") double walkingTimeMin) {
-        return itineraryService.searchItineraryWithMinWalkingMinutes(origin, destination, time, walkingTimeMin);
+    public ResponseEntity<List<Section[]>> searchItineraryWithMinWalkingDuration(@RequestParam("origin") String origin, @RequestParam("destination") String destination, @RequestParam("time") String time, @RequestParam("walkingTimeMin") double walkingTimeMin) {
+        return toResponse(itineraryService.searchItineraryWithMinWalkingMinutes(origin, destination, time, walkingTimeMin));
     }
 
     /**
@@ -120,4 +173,25 @@ public class PagesController {
     public Map<String, List<LocalTime>> getStationSchedules(@RequestParam("station") String station) {
         return itineraryService.getStationSchedules(station);
     }
+
+    /**
+     * Retourne les mesures d'utilisation du cache des itinéraires.
+     *
+     * @return les nombres de requêtes servies par le cache, calculées, oubliées et invalidées, et la taille du cache.
+     */
+    @ResponseBody
+    @GetMapping("itinerary/cache")
+    public ItineraryCache.Stats getCacheStats() {
+        return itineraryService.getCacheStats();
+    }
+
+    /**
+     * Construit la réponse d'une recherche d'itinéraires, avec l'en-tête qui indique si la recherche a atteint son échéance.
+     *
+     * @param itineraries les itinéraires trouvés, et s'ils sont partiels.
+     * @return la réponse, dont le corps est la liste des itinéraires sous forme de tableau de sections.
+     */
+    private static ResponseEntity<List<Section[]>> toResponse(ItineraryService.Itineraries itineraries) {
+        return ResponseEntity.ok().header(PARTIAL_RESULT_HEADER, String.valueOf(itineraries.partial())).body(itineraries.trajects());
+    }
 }
\ No newline at end of file
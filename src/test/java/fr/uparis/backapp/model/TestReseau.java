@@ -45,8 +45,11 @@ public class TestReseau {
         assertNull(reseau.getStation("station"));
         assertNull(reseau.getStation(new Coordonnee(1, 0)));
 
+        long version = reseau.getVersion();
         reseau.addStation(station);
+        assertEquals(version + 1, reseau.getVersion());
         reseau.addStation(station); //doublon
+        assertEquals(version + 1, reseau.getVersion());
         assertEquals(NB_STATIONS + 1, stations.size());
         assertEquals(station, reseau.getStation("station"));
         assertEquals(station, reseau.getStation(new Coordonnee(1, 0)));
@@ -62,6 +62,6 @@ public class TestLieu {
         assertNotEquals(lieu, copie);
         assertEquals(lieu.nomLieu, copie.nomLieu);
         assertEquals(lieu.localisation, copie.localisation);
-        assertEquals(lieu.horaireDePassage, copie.horaireDePassage);
+        assertEquals(lieu.secondesDePassage, copie.secondesDePassage);
     }
 }
\ No newline at end of file
@@ -13,6 +13,8 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
+import static fr.uparis.backapp.utils.Utils.getSecondsFromString;
+import static fr.uparis.backapp.utils.constants.Constants.SECONDS_PER_DAY;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
 
@@ -86,7 +88,7 @@ public class TestSectionTransport {
         section.addHoraireDepart(horaire2);
         assertEquals(2, section.getHorairesDepart().size());
         assertEquals(horaire2, section.getHoraireProchainDepart(LocalTime.of(0, 4)));
-        assertNull(section.getHoraireProchainDepart(LocalTime.of(23, 59)));
+        assertEquals(horaire2, section.getHoraireProchainDepart(LocalTime.of(23, 59))); //le lendemain
 
         section.removeHoraireDepart(horaire1);
         assertEquals(1, section.getHorairesDepart().size());
@@ -99,6 +101,111 @@ public class TestSectionTransport {
         assertTrue(section.getHorairesDepart().contains(horaire2));
     }
 
+    /**
+     * Tests sur la recherche du prochain départ dans les horaires figés, et leur mise à jour après une modification.
+     */
+    @Test
+    public void testsProchainDepart() {
+        assertEquals(-1, section.getProchainDepart(0));
+        assertEquals(0, section.getDeparts().length);
+
+        section.addHorairesDepart(List.of(LocalTime.of(12, 0), LocalTime.of(8, 30), LocalTime.of(17, 45)));
+        assertArrayEquals(new int[]{LocalTime.of(8, 30).toSecondOfDay(), LocalTime.of(12, 0).toSecondOfDay(),
+                                    LocalTime.of(17, 45).toSecondOfDay()}, section.figerHoraires());
+        assertEquals(LocalTime.of(8, 30).toSecondOfDay(), section.getProchainDepart(0));
+        assertEquals(LocalTime.of(12, 0).toSecondOfDay(), section.getProchainDepart(LocalTime.of(8, 30).toSecondOfDay()));
+        assertEquals(LocalTime.of(8, 30).toSecondOfDay() + SECONDS_PER_DAY, section.getProchainDepart(LocalTime.of(17, 45).toSecondOfDay()));
+        assertEquals(LocalTime.of(17, 45), section.getHoraireProchainDepart(LocalTime.of(12, 0)));
+        assertEquals(LocalTime.of(8, 30), section.getHoraireProchainDepart(LocalTime.of(23, 0)));
+
+        //Les horaires figés suivent les ajouts et suppressions
+        section.addHoraireDepart(LocalTime.of(10, 0));
+        assertEquals(LocalTime.of(10, 0), section.getHoraireProchainDepart(LocalTime.of(9, 0)));
+        section.removeHoraireDepart(LocalTime.of(8, 30));
+        assertEquals(LocalTime.of(10, 0), section.getHoraireProchainDepart(LocalTime.of(0, 0)));
+        assertEquals(3, section.getDeparts().length);
+
+        //Ainsi que les modifications faites par les heures de départ
+        assertTrue(section.getHorairesDepart().add(LocalTime.of(11, 0)));
+        assertFalse(section.getHorairesDepart().add(LocalTime.of(11, 0)));
+        assertEquals(LocalTime.of(11, 0), section.getHoraireProchainDepart(LocalTime.of(10, 30)));
+        assertTrue(section.getHorairesDepart().remove(LocalTime.of(11, 0)));
+        assertEquals(LocalTime.of(12, 0), section.getHoraireProchainDepart(LocalTime.of(10, 30)));
+        section.getHorairesDepart().removeIf(heure -> heure.isBefore(LocalTime.NOON));
+        assertEquals(LocalTime.of(12, 0), section.getHoraireProchainDepart(LocalTime.of(0, 0)));
+        assertEquals(2, section.getDeparts().length);
+        section.getHorairesDepart().clear();
+        assertEquals(-1, section.getProchainDepart(0));
+    }
+
+    /**
+     * Tests sur les courses qui passent minuit : leurs horaires dépassent 24h, et servent aussi les recherches du petit matin.
+     */
+    @Test
+    public void testsApresMinuit() {
+        section.addDeparts(List.of(getSecondsFromString("23:50"), getSecondsFromString("24:10")));
+        assertEquals(getSecondsFromString("24:10"), section.getProchainDepart(getSecondsFromString("23:55")));
+        assertEquals(getSecondsFromString("00:10"), section.getProchainDepart(getSecondsFromString("00:05")));
+        assertEquals(getSecondsFromString("23:50") + SECONDS_PER_DAY, section.getProchainDepart(getSecondsFromString("24:10")));
+        assertEquals(LocalTime.of(0, 10), section.getHoraireProchainDepart(LocalTime.of(23, 55)));
+        assertTrue(section.getHorairesDepart().contains(LocalTime.of(0, 10)));
+    }
+
+    /**
+     * Tests sur les heures de départ d'après minuit : elles se confondent avec les mêmes heures de la journée,
+     * alors que les horaires en secondes restent distincts.
+     */
+    @Test
+    public void testsHeuresApresMinuit() {
+        section.addDeparts(List.of(getSecondsFromString("00:10"), getSecondsFromString("24:10"), getSecondsFromString("23:50")));
+        assertEquals(3, section.getDeparts().length);
+        assertEquals(2, section.getHorairesDepart().size());
+        assertEquals(Set.of(LocalTime.of(0, 10), LocalTime.of(23, 50)), new HashSet<>(section.getHorairesDepart()));
+        assertFalse(section.getHorairesDepart().add(LocalTime.of(0, 10)));
+
+        assertTrue(section.getHorairesDepart().remove(LocalTime.of(0, 10)));
+        assertArrayEquals(new int[]{getSecondsFromString("23:50")}, section.getDeparts());
+        assertFalse(section.getHorairesDepart().contains(LocalTime.of(0, 10)));
+    }
+
+    /**
+     * Tests sur des horaires à plusieurs journées de la journée de service : les départs se répètent chaque journée.
+     */
+    @Test
+    public void testsPlusieursJournees() {
+        section.addDeparts(List.of(getSecondsFromString("08:30"), getSecondsFromString("17:45"), getSecondsFromString("24:10")));
+        int deuxJours = 2 * SECONDS_PER_DAY;
+        assertEquals(deuxJours + getSecondsFromString("00:10"), section.getProchainDepart(deuxJours));
+        assertEquals(deuxJours + getSecondsFromString("17:45"), section.getProchainDepart(deuxJours + getSecondsFromString("09:00")));
+        assertEquals(deuxJours + getSecondsFromString("24:10"), section.getProchainDepart(deuxJours + getSecondsFromString("18:00")));
+        assertEquals(3 * SECONDS_PER_DAY + getSecondsFromString("08:30"), section.getProchainDepart(deuxJours + getSecondsFromString("24:30")));
+        assertEquals(getSecondsFromString("08:30") - SECONDS_PER_DAY, section.getProchainDepart(getSecondsFromString("00:20") - SECONDS_PER_DAY));
+
+        assertEquals(deuxJours + getSecondsFromString("17:45"), section.getDernierDepart(deuxJours + getSecondsFromString("23:00")));
+        assertEquals(deuxJours + getSecondsFromString("00:10"), section.getDernierDepart(deuxJours + getSecondsFromString("08:00")));
+        assertEquals(deuxJours + getSecondsFromString("08:30"), section.getDernierDepart(deuxJours + getSecondsFromString("08:30")));
+    }
+
+    /**
+     * Tests sur la recherche du dernier départ, au plus tard à un horaire, symétrique de celle du prochain départ.
+     */
+    @Test
+    public void testsDernierDepart() {
+        assertEquals(SectionTransport.AUCUN_DEPART, section.getDernierDepart(0));
+
+        section.addHorairesDepart(List.of(LocalTime.of(12, 0), LocalTime.of(8, 30), LocalTime.of(17, 45)));
+        assertEquals(LocalTime.of(12, 0).toSecondOfDay(), section.getDernierDepart(LocalTime.of(12, 0).toSecondOfDay()));
+        assertEquals(LocalTime.of(8, 30).toSecondOfDay(), section.getDernierDepart(LocalTime.of(11, 59).toSecondOfDay()));
+        assertEquals(LocalTime.of(17, 45).toSecondOfDay() - SECONDS_PER_DAY, section.getDernierDepart(LocalTime.of(8, 0).toSecondOfDay())); //la veille
+        assertEquals(LocalTime.of(8, 30).toSecondOfDay() + SECONDS_PER_DAY, section.getDernierDepart(LocalTime.of(9, 0).toSecondOfDay() + SECONDS_PER_DAY));
+
+        //Une course d'après minuit de la veille part plus tard que toutes celles du jour
+        section.addDepart(getSecondsFromString("24:10"));
+        assertEquals(getSecondsFromString("00:10"), section.getDernierDepart(getSecondsFromString("00:20")));
+        assertEquals(LocalTime.of(17, 45).toSecondOfDay(), section.getDernierDepart(LocalTime.of(23, 0).toSecondOfDay()));
+        assertEquals(getSecondsFromString("24:10"), section.getDernierDepart(getSecondsFromString("24:30")));
+    }
+
     /**
      * Tests d'égalité.
      */
@@ -0,0 +1,171 @@
+package fr.uparis.backapp.services;
+
+import fr.uparis.backapp.model.Coordonnee;
+import fr.uparis.backapp.model.Reseau;
+import fr.uparis.backapp.model.lieu.Station;
+import fr.uparis.backapp.model.section.Section;
+import fr.uparis.backapp.utils.Calculator;
+import fr.uparis.backapp.utils.ItineraryQuery;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testeur du cache des itinéraires.
+ */
+public class TestItineraryCache {
+    final private Reseau reseau = Reseau.getInstance();
+    final private Coordonnee depart = reseau.getStation("Nation").getLocalisation();
+    final private Coordonnee arrivee = reseau.getStation("Boucicaut").getLocalisation();
+
+    /**
+     * Calcule les itinéraires d'une requête et les garde dans le cache.
+     *
+     * @param cache le cache.
+     * @param requete la requête de calcul d'itinéraire.
+     * @return les itinéraires calculés.
+     */
+    private List<Section[]> calculer(ItineraryCache cache, ItineraryQuery requete) {
+        long version = reseau.getVersion();
+        List<Section[]> trajets = Calculator.itineraireFactory(requete);
+        cache.put(requete, trajets, version);
+        return trajets;
+    }
+
+    /**
+     * Renvoie l'heure d'arrivée la plus tôt parmi des itinéraires.
+     *
+     * @param trajets les itinéraires.
+     * @return l'heure d'arrivée la plus tôt, en secondes.
+     */
+    private int getPremiereArrivee(List<Section[]> trajets) {
+        int premiere = Integer.MAX_VALUE;
+        for (Section[] trajet : trajets) premiere = Math.min(premiere, trajet[trajet.length - 1].getArrivee().getSecondesDePassage());
+        return premiere;
+    }
+
+    /**
+     * Teste la reprise des itinéraires dans le même créneau, recalés sur l'heure de la requête,
+     * mais pas pour une heure plus matinale, ni dans un autre créneau.
+     */
+    @Test
+    void testsRecalage() {
+        ItineraryCache cache = new ItineraryCache(reseau, 10, 3600);
+        ItineraryQuery requete = ItineraryQuery.optimal(depart, arrivee, LocalTime.of(13, 10)).avecAlgorithme(ItineraryQuery.Algorithme.DIJKSTRA);
+        assertNull(cache.get(requete));
+        List<Section[]> trajets = calculer(cache, requete);
+
+        List<Section[]> repris = cache.get(requete);
+        assertNotNull(repris);
+        assertEquals(trajets.size(), repris.size());
+        for (int i = 0; i < trajets.size(); i++) {
+            assertEquals(trajets.get(i).length, repris.get(i).length);
+            for (int j = 0; j < trajets.get(i).length; j++) {
+                assertEquals(trajets.get(i)[j].getDepart().getSecondesDePassage(), repris.get(i)[j].getDepart().getSecondesDePassage());
+                assertEquals(trajets.get(i)[j].getArrivee().getSecondesDePassage(), repris.get(i)[j].getArrivee().getSecondesDePassage());
+            }
+        }
+        assertNotSame(trajets.get(0)[0], repris.get(0)[0]); //copies recalées, les itinéraires gardés ne changent pas
+
+        LocalTime plusTard = LocalTime.of(13, 10, 5);
+        repris = cache.get(ItineraryQuery.optimal(depart, arrivee, plusTard).avecAlgorithme(ItineraryQuery.Algorithme.DIJKSTRA));
+        if (repris != null) { //les mêmes trajets, partis plus tard, arrivent à la même heure
+            assertEquals(plusTard.toSecondOfDay(), repris.get(0)[0].getDepart().getSecondesDePassage());
+            assertEquals(getPremiereArrivee(trajets), getPremiereArrivee(repris));
+        }
+
+        assertNull(cache.get(ItineraryQuery.optimal(depart, arrivee, LocalTime.of(13, 9)).avecAlgorithme(ItineraryQuery.Algorithme.DIJKSTRA)));
+        assertNull(cache.get(ItineraryQuery.optimal(depart, arrivee, LocalTime.of(14, 10)).avecAlgorithme(ItineraryQuery.Algorithme.DIJKSTRA)));
+        assertNull(cache.get(ItineraryQuery.optimal(depart, arrivee, LocalTime.of(13, 10)).avecAlgorithme(ItineraryQuery.Algorithme.RAPTOR)));
+        assertNull(cache.get(ItineraryQuery.marcherAuPlus(depart, arrivee, LocalTime.of(13, 10), 0.5).avecAlgorithme(ItineraryQuery.Algorithme.DIJKSTRA)));
+
+        ItineraryCache.Stats stats = cache.getStats();
+        assertEquals(1, stats.size());
+        assertEquals(7, stats.hits() + stats.misses());
+        assertTrue(stats.hits() >= 1);
+    }
+
+    /**
+     * Teste que les itinéraires des arrivées au plus tard ne sont repris que pour la même heure exactement.
+     */
+    @Test
+    void testsHeureExacte() {
+        ItineraryCache cache = new ItineraryCache(reseau, 10, 3600);
+        ItineraryQuery requete = ItineraryQuery.arriverAvant(depart, arrivee, LocalTime.of(14, 0));
+        List<Section[]> trajets = calculer(cache, requete);
+
+        List<Section[]> repris = cache.get(requete);
+        assertNotNull(repris);
+        assertEquals(trajets.size(), repris.size());
+        assertSame(trajets.get(0), repris.get(0));
+        assertNull(cache.get(ItineraryQuery.arriverAvant(depart, arrivee, LocalTime.of(14, 0, 30))));
+    }
+
+    /**
+     * Teste que l'algorithme ne compte dans la clef que si le mode de la requête en dépend :
+     * les trajets qui marchent au moins une distance sont repris quel que soit l'algorithme demandé.
+     */
+    @Test
+    void testsAlgorithmeIgnore() {
+        ItineraryCache cache = new ItineraryCache(reseau, 10, 3600);
+        ItineraryQuery requete = ItineraryQuery.marcherAuMoinsDistance(depart, arrivee, LocalTime.of(13, 10), 0.5);
+        calculer(cache, requete.avecAlgorithme(ItineraryQuery.Algorithme.DIJKSTRA));
+
+        assertNotNull(cache.get(requete.avecAlgorithme(ItineraryQuery.Algorithme.ALTERNATIVES)));
+        assertEquals(1, cache.getStats().hits());
+        assertEquals(1, cache.getStats().size());
+    }
+
+    /**
+     * Teste que les requêtes les moins récemment demandées sont oubliées au-delà de la taille du cache,
+     * et qu'un cache de taille nulle ne garde rien.
+     */
+    @Test
+    void testsTaille() {
+        ItineraryCache cache = new ItineraryCache(reseau, 2, 60);
+        ItineraryQuery requete1 = ItineraryQuery.aPied(depart, arrivee, LocalTime.of(10, 0));
+        ItineraryQuery requete2 = ItineraryQuery.aPied(arrivee, depart, LocalTime.of(10, 0));
+        ItineraryQuery requete3 = ItineraryQuery.aPied(depart, arrivee, LocalTime.of(11, 0));
+        calculer(cache, requete1);
+        calculer(cache, requete2);
+        assertNotNull(cache.get(requete1)); //requete2 devient la moins récente
+        calculer(cache, requete3);
+
+        assertNotNull(cache.get(requete1));
+        assertNull(cache.get(requete2));
+        assertNotNull(cache.get(requete3));
+        assertEquals(new ItineraryCache.Stats(3, 1, 1, 0, 2), cache.getStats());
+
+        ItineraryCache vide = new ItineraryCache(reseau, 0, 60);
+        calculer(vide, requete1);
+        assertNull(vide.get(requete1));
+        assertEquals(0, vide.getStats().size());
+    }
+
+    /**
+     * Teste que le cache est vidé quand le Reseau est modifié, et que les itinéraires calculés avant la modification ne sont pas gardés.
+     */
+    @Test
+    void testsInvalidation() {
+        ItineraryCache cache = new ItineraryCache(reseau, 10, 60);
+        ItineraryQuery requete = ItineraryQuery.aPied(depart, arrivee, LocalTime.of(10, 0));
+        calculer(cache, requete);
+        assertNotNull(cache.get(requete));
+
+        long version = reseau.getVersion();
+        Station station = new Station("station du cache", new Coordonnee(1, 0));
+        reseau.addStation(station);
+        reseau.removeStation(station);
+        assertTrue(reseau.getVersion() > version);
+
+        assertNull(cache.get(requete));
+        assertEquals(1, cache.getStats().invalidations());
+        assertEquals(0, cache.getStats().size());
+
+        cache.put(requete, Calculator.itineraireFactory(requete), version); //calculé avant la modification
+        assertNull(cache.get(requete));
+    }
+}
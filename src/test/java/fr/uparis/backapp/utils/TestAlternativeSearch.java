@@ -0,0 +1,89 @@
+package fr.uparis.backapp.utils;
+
+import fr.uparis.backapp.model.Coordonnee;
+import fr.uparis.backapp.model.Ligne;
+import fr.uparis.backapp.model.lieu.Station;
+import fr.uparis.backapp.model.section.Section;
+import fr.uparis.backapp.model.section.SectionTransport;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testeur de la recherche de trajets alternatifs.
+ */
+public class TestAlternativeSearch {
+    final private Station a = new Station("A", new Coordonnee(48.80, 2.30));
+    final private Station b = new Station("B", new Coordonnee(48.82, 2.34));
+    final private Station c = new Station("C", new Coordonnee(48.84, 2.30));
+    final private Station d = new Station("D", new Coordonnee(48.86, 2.34));
+    final private TransitGraph transit;
+
+    /**
+     * Construit un réseau de deux lignes de A à D : L1 par B, la plus rapide, et L2 par C, plus lente de 30 secondes.
+     */
+    public TestAlternativeSearch() {
+        Ligne l1 = new Ligne("L1"), l2 = new Ligne("L2");
+        SectionTransport ab = new SectionTransport(a, b, Duration.ofSeconds(60), 1.0, l1);
+        SectionTransport bd = new SectionTransport(b, d, Duration.ofSeconds(60), 1.0, l1);
+        SectionTransport ac = new SectionTransport(a, c, Duration.ofSeconds(60), 1.0, l2);
+        SectionTransport cd = new SectionTransport(c, d, Duration.ofSeconds(60), 1.0, l2);
+        ab.addHoraireDepart(LocalTime.of(8, 0));
+        bd.addHoraireDepart(LocalTime.of(8, 2));
+        ac.addHoraireDepart(LocalTime.of(8, 0, 30));
+        cd.addHoraireDepart(LocalTime.of(8, 2, 30));
+        a.addCorrespondance(ab);
+        b.addCorrespondance(bd);
+        a.addCorrespondance(ac);
+        c.addCorrespondance(cd);
+        transit = new TransitGraph(new FootpathGraph(List.of(a, b, c, d), 0.0));
+    }
+
+    /**
+     * Lance une recherche de A à D, avec un départ à 7h59.
+     *
+     * @param borne l'horaire d'arrivée que les trajets doivent battre.
+     * @param nbTrajets le nombre de trajets à trouver.
+     * @return les trajets trouvés.
+     */
+    private List<Section[]> rechercher(LocalTime borne, int nbTrajets) {
+        int horaireDepart = LocalTime.of(7, 59).toSecondOfDay();
+        return new AlternativeSearch(a.getLocalisation(), d.getLocalisation(), horaireDepart, transit, 0.0, SearchDeadline.AUCUNE)
+                   .rechercher(Map.of(a, horaireDepart), Map.of(d, Duration.ZERO), borne.toSecondOfDay(), nbTrajets, null);
+    }
+
+    /**
+     * Teste que le second trajet emprunte l'autre ligne, et non la même avec une autre fin : chaque section est pénalisée une fois empruntée.
+     */
+    @Test
+    void testsTrajetsDifferents() {
+        List<Section[]> trajets = rechercher(LocalTime.of(9, 0), 3);
+        assertEquals(2, trajets.size()); //les deux lignes, aucun troisième trajet assez différent
+
+        Section[] plusRapide = trajets.get(0), alternatif = trajets.get(1);
+        assertEquals(4, plusRapide.length);
+        assertEquals("L1", ((SectionTransport) plusRapide[1]).getLigne().getNomLigne());
+        assertEquals(LocalTime.of(8, 3), plusRapide[3].getArrivee().getHoraireDePassage());
+        assertEquals("L2", ((SectionTransport) alternatif[1]).getLigne().getNomLigne());
+        assertEquals(LocalTime.of(8, 1, 30), alternatif[1].getArrivee().getHoraireDePassage());
+        assertEquals(LocalTime.of(8, 3, 30), alternatif[3].getArrivee().getHoraireDePassage()); //les vrais horaires, sans pénalité
+
+        assertEquals(1, rechercher(LocalTime.of(9, 0), 1).size());
+    }
+
+    /**
+     * Teste qu'aucun trajet n'est gardé s'il ne bat pas la borne.
+     */
+    @Test
+    void testsBorne() {
+        List<Section[]> trajets = rechercher(LocalTime.of(8, 3, 30), 3);
+        assertEquals(1, trajets.size());
+        assertEquals("L1", ((SectionTransport) trajets.get(0)[1]).getLigne().getNomLigne());
+        assertTrue(rechercher(LocalTime.of(8, 3), 3).isEmpty());
+    }
+}
@@ -4,36 +4,26 @@ import fr.uparis.backapp.model.Coordonnee;
 import fr.uparis.backapp.model.Reseau;
 import fr.uparis.backapp.model.lieu.Station;
 import fr.uparis.backapp.model.section.Section;
+import fr.uparis.backapp.model.section.SectionTransport;
 import fr.uparis.backapp.utils.constants.Constants;
-import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.time.Duration;
 import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
+import static fr.uparis.backapp.utils.constants.Constants.SECONDS_PER_DAY;
 import static org.junit.jupiter.api.Assertions.*;
 
 /**
  * Testeur des calculs d'itinéraires.
  */
 public class TestCalculator {
-    Reseau reseau = Reseau.getInstance();
+    final private static String[][] TRAJETS = {{"Danube", "Stalingrad"}, {"Nation", "Boucicaut"}, {"Lourmel", "Gare du Nord"}, {"Balard", "Porte de Montreuil"}};
 
-    /**
-     * S'assure qu'il n'y a pas de concurrence pour les différents tests.
-     */
-    @BeforeEach
-    public void waitFinish() {
-        while(Calculator.getIsCalculating()) {
-            try {
-                Thread.sleep(1000);
-            }
-            catch(InterruptedException e) {
-                throw new RuntimeException(e);
-            }
-        }
-    }
+    Reseau reseau = Reseau.getInstance();
 
     /**
      * Comparaison de deux trajets.
@@ -72,19 +62,16 @@ public class TestCalculator {
         Coordonnee arrivee2 = reseau.getStation("Buttes Chaumont").getLocalisation();
         Coordonnee arrivee3 = reseau.getStation("Stalingrad").getLocalisation();
 
-        Calculator.changeAPied();
-        List<Section[]> trajetsTrouves1 = Calculator.itineraireFactory(depart, arrivee1, horaireDepart);
+        List<Section[]> trajetsTrouves1 = Calculator.itineraireFactory(ItineraryQuery.aPied(depart, arrivee1, horaireDepart));
         assertNotNull(trajetsTrouves1);
         assertEquals(1, trajetsTrouves1.size());
         assertEquals(1, trajetsTrouves1.get(0).length);
 
-        Calculator.changeAPied();
-        List<Section[]> trajetsTrouves2 = Calculator.itineraireFactory(depart, arrivee2, horaireDepart);
+        List<Section[]> trajetsTrouves2 = Calculator.itineraireFactory(ItineraryQuery.aPied(depart, arrivee2, horaireDepart));
         assertEquals(1, trajetsTrouves2.size());
         assertEquals(1, trajetsTrouves2.get(0).length);
 
-        Calculator.changeAPied();
-        List<Section[]> trajetsTrouves3 = Calculator.itineraireFactory(depart, arrivee3, horaireDepart);
+        List<Section[]> trajetsTrouves3 = Calculator.itineraireFactory(ItineraryQuery.aPied(depart, arrivee3, horaireDepart));
         assertEquals(1, trajetsTrouves3.size());
         assertEquals(1, trajetsTrouves3.get(0).length);
     }
@@ -99,13 +86,11 @@ public class TestCalculator {
         Coordonnee arrivee = reseau.getStation("Boucicaut").getLocalisation();
 
         //Trajets avec au moins 10 minutes de marche
-        Calculator.changeMarcherAuMoinsDistance(Constants.DEFAULT_ECART_DISTANCE);
-        List<Section[]> trajetsTrouves0 = Calculator.itineraireFactory(depart, arrivee, horaireDepart);
+        List<Section[]> trajetsTrouves0 = Calculator.itineraireFactory(ItineraryQuery.marcherAuMoinsDistance(depart, arrivee, horaireDepart, Constants.DEFAULT_ECART_DISTANCE));
         assertNotNull(trajetsTrouves0);
         assertTrue(trajetsTrouves0.size() <= Constants.MAX_TRAJETS_NUMBER);
 
-        Calculator.changeMarcherAuMoinsTemps(Duration.ofMinutes(10));
-        List<Section[]> trajetsTrouves1 = Calculator.itineraireFactory(depart, arrivee, horaireDepart);
+        List<Section[]> trajetsTrouves1 = Calculator.itineraireFactory(ItineraryQuery.marcherAuMoinsTemps(depart, arrivee, horaireDepart, Duration.ofMinutes(10)));
         assertNotNull(trajetsTrouves1);
         assertTrue(sameTrajet(trajetsTrouves0, trajetsTrouves1));
     }
@@ -119,13 +104,11 @@ public class TestCalculator {
         Station depart = reseau.getStation("Lourmel");
         Station arrivee = reseau.getStation("Mairie d'Issy");
 
-        Calculator.changeMarcherAuMoinsDistance(0.91);
-        List<Section[]> trajetsTrouves1 = Calculator.itineraireFactory(depart.getLocalisation(), arrivee.getLocalisation(), horaireDepart);
+        List<Section[]> trajetsTrouves1 = Calculator.itineraireFactory(ItineraryQuery.marcherAuMoinsDistance(depart.getLocalisation(), arrivee.getLocalisation(), horaireDepart, 0.91));
         assertNotNull(trajetsTrouves1);
         assertTrue(trajetsTrouves1.size() <= Constants.MAX_TRAJETS_NUMBER);
 
-        Calculator.changeMarcherAuMoinsDistance(1.4);
-        List<Section[]> trajetsTrouves2 = Calculator.itineraireFactory(depart.getLocalisation(), arrivee.getLocalisation(), horaireDepart);
+        List<Section[]> trajetsTrouves2 = Calculator.itineraireFactory(ItineraryQuery.marcherAuMoinsDistance(depart.getLocalisation(), arrivee.getLocalisation(), horaireDepart, 1.4));
         assertNotNull(trajetsTrouves2);
         assertTrue(trajetsTrouves2.size() <= Constants.MAX_TRAJETS_NUMBER);
 
@@ -133,6 +116,14 @@ public class TestCalculator {
         Section[] sections2=trajetsTrouves2.get(0);
         assertTrue(sections1[sections1.length - 1].getArrivee().getHoraireDePassage()
                 .isBefore(sections2[sections2.length - 1].getArrivee().getHoraireDePassage()));
+
+        //La marche compte au début, entre les stations et à la fin
+        for(Section[] sections: trajetsTrouves2) {
+            double marche = 0;
+            for(Section section: sections)
+                if(!(section instanceof SectionTransport)) marche += section.getDistance();
+            assertTrue(marche >= 1.4 - 0.001);
+        }
     }
 
     /**
@@ -150,12 +141,349 @@ public class TestCalculator {
         assertTrue(trajetsTrouves0.size() <= Constants.MAX_TRAJETS_NUMBER);
 
         //Trajet avec au plus 0 minute de marche entre les stations
-        Calculator.changeMarcherAuPlus(Constants.DEFAULT_MIN_DISTANCE);
-        List<Section[]> trajetsTrouves1 = Calculator.itineraireFactory(depart, arrivee, horaireDepart);
+        List<Section[]> trajetsTrouves1 = Calculator.itineraireFactory(ItineraryQuery.marcherAuPlus(depart, arrivee, horaireDepart, Constants.DEFAULT_MIN_DISTANCE));
         assertNotNull(trajetsTrouves1);
         assertTrue(sameTrajet(trajetsTrouves0, trajetsTrouves1));
     }
 
+    /**
+     * Renvoie les horaires d'arrivée de chacun des trajets.
+     *
+     * @param trajets les trajets dont on veut les horaires d'arrivée.
+     * @return les horaires d'arrivée, dans l'ordre des trajets.
+     */
+    private List<LocalTime> horairesArrivee(List<Section[]> trajets) {
+        return trajets.stream().map(sections -> sections[sections.length - 1].getArrivee().getHoraireDePassage()).toList();
+    }
+
+    /**
+     * Renvoie les requêtes de trajet optimal, au départ de 8h00, entre les stations de TRAJETS.
+     *
+     * @return une requête par couple de stations.
+     */
+    private List<ItineraryQuery> requetes() {
+        List<ItineraryQuery> requetes = new ArrayList<>();
+        for(String[] trajet: TRAJETS)
+            requetes.add(ItineraryQuery.optimal(reseau.getStation(trajet[0]).getLocalisation(),
+                                                reseau.getStation(trajet[1]).getLocalisation(), LocalTime.of(8, 0)));
+        return requetes;
+    }
+
+    /**
+     * Vérifie que des trajets sont rangés par horaire d'arrivée.
+     *
+     * @param trajets les trajets à vérifier.
+     */
+    private void assertRangesParArrivee(List<Section[]> trajets) {
+        List<LocalTime> horaires = horairesArrivee(trajets);
+        List<LocalTime> tries = new ArrayList<>(horaires);
+        Collections.sort(tries);
+        assertEquals(tries, horaires);
+    }
+
+    /**
+     * Vérifie que chaque section d'un trajet part au plus tôt à l'arrivée de la précédente.
+     *
+     * @param trajet le trajet à vérifier.
+     */
+    private void assertHorairesSuccessifs(Section[] trajet) {
+        for(int i = 1; i < trajet.length; i++)
+            assertTrue(trajet[i].getDepart().getSecondesDePassage() >= trajet[i - 1].getArrivee().getSecondesDePassage());
+    }
+
+    /**
+     * Vérifie qu'un algorithme trouve les trajets de dijkstra pour chaque requête de TRAJETS,
+     * en traitant à chaque fois au plus autant de stations, et moins au total.
+     *
+     * @param algorithme l'algorithme à comparer à dijkstra.
+     */
+    private void assertTrajetsDijkstra(ItineraryQuery.Algorithme algorithme) {
+        long traiteesDijkstra = 0, traiteesAlgorithme = 0;
+        for(ItineraryQuery requete: requetes()) {
+            long avant = SearchWorkspace.getNbTraitees();
+            List<Section[]> trajetsDijkstra = Calculator.itineraireFactory(requete);
+            long milieu = SearchWorkspace.getNbTraitees();
+            List<Section[]> trajetsAlgorithme = Calculator.itineraireFactory(requete.avecAlgorithme(algorithme));
+            long apres = SearchWorkspace.getNbTraitees();
+
+            assertTrue(sameTrajet(trajetsDijkstra, trajetsAlgorithme));
+            assertEquals(horairesArrivee(trajetsDijkstra), horairesArrivee(trajetsAlgorithme));
+            assertTrue(apres - milieu <= milieu - avant);
+            traiteesDijkstra += milieu - avant;
+            traiteesAlgorithme += apres - milieu;
+        }
+        assertTrue(traiteesAlgorithme < traiteesDijkstra);
+    }
+
+    /**
+     * Teste que les itinéraires calculés sont ceux attendus, en comparant les horaires d'arrivée et les stations empruntées.
+     */
+    @Test
+    public void testsItinerairesAttendus() {
+        Coordonnee nation = reseau.getStation("Nation").getLocalisation();
+        Coordonnee boucicaut = reseau.getStation("Boucicaut").getLocalisation();
+        List<Section[]> trajetsTrouves1 = Calculator.itineraireFactory(nation, boucicaut, LocalTime.of(12, 28, 59));
+        assertNotNull(trajetsTrouves1);
+        assertEquals(List.of(LocalTime.of(13, 2, 32), LocalTime.of(13, 5, 24), LocalTime.of(13, 6, 24),
+                             LocalTime.of(13, 6, 32), LocalTime.of(13, 6, 32)), horairesArrivee(trajetsTrouves1));
+        assertEquals(25, trajetsTrouves1.get(0).length);
+
+        Coordonnee danube = reseau.getStation("Danube").getLocalisation();
+        Coordonnee stalingrad = reseau.getStation("Stalingrad").getLocalisation();
+        List<Section[]> trajetsTrouves2 = Calculator.itineraireFactory(danube, stalingrad, LocalTime.of(8, 0));
+        assertNotNull(trajetsTrouves2);
+        assertEquals(List.of(LocalTime.of(8, 9, 17), LocalTime.of(8, 9, 18), LocalTime.of(8, 11, 20),
+                             LocalTime.of(8, 11, 50), LocalTime.of(8, 12, 58)), horairesArrivee(trajetsTrouves2));
+        assertEquals("Danube", trajetsTrouves2.get(0)[0].getArrivee().getNomLieu());
+        assertEquals("Stalingrad", trajetsTrouves2.get(0)[trajetsTrouves2.get(0).length - 1].getDepart().getNomLieu());
+    }
+
+    /**
+     * Teste les itinéraires calculés avec RAPTOR : rangés par horaire d'arrivée, et dont les horaires de passage se suivent.
+     */
+    @Test
+    public void testsItinerairesRaptor() {
+        Coordonnee danube = reseau.getStation("Danube").getLocalisation();
+        Coordonnee stalingrad = reseau.getStation("Stalingrad").getLocalisation();
+        LocalTime horaireDepart = LocalTime.of(8, 0);
+        List<Section[]> trajetsTrouves = Calculator.itineraireFactory(ItineraryQuery.optimal(danube, stalingrad, horaireDepart)
+                                                                                   .avecAlgorithme(ItineraryQuery.Algorithme.RAPTOR));
+        assertFalse(trajetsTrouves.isEmpty());
+        assertRangesParArrivee(trajetsTrouves);
+
+        for(Section[] trajet: trajetsTrouves) {
+            assertEquals(horaireDepart, trajet[0].getDepart().getHoraireDePassage());
+            assertHorairesSuccessifs(trajet);
+        }
+        assertEquals("Danube", trajetsTrouves.get(0)[0].getArrivee().getNomLieu());
+    }
+
+    /**
+     * Teste les itinéraires calculés avec A* : ce sont ceux de dijkstra, en traitant moins de stations.
+     */
+    @Test
+    public void testsItinerairesAStar() {
+        assertTrajetsDijkstra(ItineraryQuery.Algorithme.ASTAR);
+    }
+
+    /**
+     * Teste les itinéraires calculés par la recherche bidirectionnelle : ce sont ceux de dijkstra,
+     * et la recherche en avant traite moins de stations.
+     */
+    @Test
+    public void testsItinerairesBidirectionnels() {
+        assertTrajetsDijkstra(ItineraryQuery.Algorithme.BIDIRECTIONNEL);
+    }
+
+    /**
+     * Teste les trajets alternatifs : le plus rapide arrive au moins aussi tôt que celui de dijkstra,
+     * et chaque trajet partage au plus une part de sa durée en transport avec ceux qui arrivent avant lui.
+     */
+    @Test
+    public void testsItinerairesAlternatives() {
+        for(ItineraryQuery requete: requetes()) {
+            List<Section[]> trajetsDijkstra = Calculator.itineraireFactory(requete);
+            List<Section[]> trajetsAlternatifs = Calculator.itineraireFactory(requete.avecAlgorithme(ItineraryQuery.Algorithme.ALTERNATIVES));
+            assertTrue(trajetsAlternatifs.size() > 1);
+            assertFalse(horairesArrivee(trajetsAlternatifs).get(0).isAfter(horairesArrivee(trajetsDijkstra).get(0)));
+            assertRangesParArrivee(trajetsAlternatifs);
+
+            for(int i = 0; i < trajetsAlternatifs.size(); i++) {
+                Section[] sections = trajetsAlternatifs.get(i);
+                assertHorairesSuccessifs(sections);
+                for(int k = 0; k < i; k++) {
+                    long partage = 0, transport = 0;
+                    for(Section section: sections) {
+                        if(!(section instanceof SectionTransport)) continue;
+                        transport += section.getDuree().getSeconds();
+                        for(Section autre: trajetsAlternatifs.get(k))
+                            if(autre instanceof SectionTransport && autre.getLigne() == section.getLigne()
+                                    && autre.getDepart().getNomLieu().equals(section.getDepart().getNomLieu())
+                                    && autre.getArrivee().getNomLieu().equals(section.getArrivee().getNomLieu()))
+                                partage += section.getDuree().getSeconds();
+                    }
+                    assertTrue(partage <= transport * Constants.MAX_ALTERNATIVE_OVERLAP);
+                }
+            }
+        }
+    }
+
+    /**
+     * Teste les itinéraires calculés avec CSA : le trajet qui arrive le plus tôt est celui que trouve RAPTOR.
+     */
+    @Test
+    public void testsItinerairesCsa() {
+        for(ItineraryQuery requete: requetes()) {
+            List<Section[]> trajetsCsa = Calculator.itineraireFactory(requete.avecAlgorithme(ItineraryQuery.Algorithme.CSA));
+            List<Section[]> trajetsRaptor = Calculator.itineraireFactory(requete.avecAlgorithme(ItineraryQuery.Algorithme.RAPTOR));
+            assertFalse(trajetsCsa.isEmpty());
+            assertEquals(horairesArrivee(trajetsRaptor).get(0), horairesArrivee(trajetsCsa).get(0));
+            for(Section[] sections: trajetsCsa) assertHorairesSuccessifs(sections);
+        }
+    }
+
+    /**
+     * Teste le profil entre 8h00 et 8h30 : des trajets qui partent et arrivent de plus en plus tard,
+     * dont chacun arrive aussi tôt que le meilleur trajet RAPTOR partant au même horaire.
+     */
+    @Test
+    public void testsItinerairesProfil() {
+        Coordonnee danube = reseau.getStation("Danube").getLocalisation();
+        Coordonnee stalingrad = reseau.getStation("Stalingrad").getLocalisation();
+        List<Section[]> profil = Calculator.itineraireFactory(ItineraryQuery.profil(danube, stalingrad, LocalTime.of(8, 0), LocalTime.of(8, 30)));
+        assertTrue(profil.size() > 1);
+
+        for(int i = 0; i < profil.size(); i++) {
+            Section[] trajet = profil.get(i);
+            int depart = trajet[0].getDepart().getSecondesDePassage(), arrivee = trajet[trajet.length - 1].getArrivee().getSecondesDePassage();
+            assertTrue(LocalTime.of(8, 0).toSecondOfDay() <= depart && depart <= LocalTime.of(8, 30).toSecondOfDay());
+            if(i > 0) {
+                Section[] precedent = profil.get(i - 1);
+                assertTrue(precedent[0].getDepart().getSecondesDePassage() < depart);
+                assertTrue(precedent[precedent.length - 1].getArrivee().getSecondesDePassage() < arrivee);
+            }
+            assertHorairesSuccessifs(trajet);
+        }
+
+        for(Section[] trajet: profil.subList(0, Math.min(5, profil.size()))) {
+            LocalTime depart = trajet[0].getDepart().getHoraireDePassage();
+            List<Section[]> trajetsRaptor = Calculator.itineraireFactory(ItineraryQuery.optimal(danube, stalingrad, depart)
+                                                                                       .avecAlgorithme(ItineraryQuery.Algorithme.RAPTOR));
+            assertEquals(horairesArrivee(trajetsRaptor).get(0), trajet[trajet.length - 1].getArrivee().getHoraireDePassage());
+        }
+    }
+
+    /**
+     * Teste les trajets qui arrivent avant 9h00 : du départ le plus tardif au plus tôt, tous à l'heure,
+     * et partir au départ du plus tardif suffit au trajet le plus rapide pour arriver à l'heure.
+     */
+    @Test
+    public void testsItinerairesArriverAvant() {
+        Coordonnee danube = reseau.getStation("Danube").getLocalisation();
+        Coordonnee stalingrad = reseau.getStation("Stalingrad").getLocalisation();
+        int limite = LocalTime.of(9, 0).toSecondOfDay();
+        List<Section[]> trajets = Calculator.itineraireFactory(ItineraryQuery.arriverAvant(danube, stalingrad, LocalTime.of(9, 0)));
+        assertTrue(trajets.size() > 1);
+        assertTrue(trajets.size() <= Constants.MAX_TRAJETS_NUMBER);
+
+        for(int i = 0; i < trajets.size(); i++) {
+            Section[] trajet = trajets.get(i);
+            assertTrue(trajet[trajet.length - 1].getArrivee().getSecondesDePassage() <= limite);
+            if(i > 0) {
+                Section[] precedent = trajets.get(i - 1);
+                assertTrue(precedent[0].getDepart().getSecondesDePassage() >= trajet[0].getDepart().getSecondesDePassage());
+            }
+            assertHorairesSuccessifs(trajet);
+        }
+
+        //Partir au départ du plus tardif suffit pour arriver à l'heure
+        Section[] plusTardif = trajets.get(0);
+        List<Section[]> trajetsDijkstra = Calculator.itineraireFactory(ItineraryQuery.optimal(danube, stalingrad, plusTardif[0].getDepart().getHoraireDePassage()));
+        assertFalse(horairesArrivee(trajetsDijkstra).get(0).isAfter(LocalTime.of(9, 0)));
+    }
+
+    /**
+     * Teste les trajets non dominés : dans l'ordre d'arrivée, aucun n'est au moins aussi bon qu'un autre sur les trois critères,
+     * le plus rapide arrive aussi tôt que le trajet le plus rapide, et le trajet à pied, sans montée, finit la liste.
+     */
+    @Test
+    public void testsItinerairesPareto() {
+        LocalTime horaireDepart = LocalTime.of(13, 10);
+        Coordonnee depart = reseau.getStation("Nation").getLocalisation();
+        Coordonnee arrivee = reseau.getStation("Boucicaut").getLocalisation();
+        List<Section[]> trajets = Calculator.itineraireFactory(ItineraryQuery.pareto(depart, arrivee, horaireDepart));
+        assertTrue(trajets.size() > 2);
+        assertEquals(1, trajets.get(trajets.size() - 1).length);
+
+        List<LocalTime> arrivees = horairesArrivee(trajets);
+        for(int i = 1; i < trajets.size(); i++) assertFalse(arrivees.get(i).isBefore(arrivees.get(i - 1)));
+        for(int i = 0; i < trajets.size() - 1; i++)
+            for(int j = 0; j < trajets.size() - 1; j++)
+                if(i != j) assertFalse(!arrivees.get(j).isAfter(arrivees.get(i))
+                                        && ParetoSearch.getNbCorrespondances(trajets.get(j)) <= ParetoSearch.getNbCorrespondances(trajets.get(i))
+                                        && ParetoSearch.getMarche(trajets.get(j)) < ParetoSearch.getMarche(trajets.get(i)) - 0.001);
+
+        List<Section[]> trajetsOptimaux = Calculator.itineraireFactory(ItineraryQuery.optimal(depart, arrivee, horaireDepart));
+        assertFalse(arrivees.get(0).isAfter(horairesArrivee(trajetsOptimaux).get(0)));
+    }
+
+    /**
+     * Teste le recalage d'un trajet : sur son propre horaire de départ, il garde ses horaires de passage ;
+     * plus tard, il part à l'horaire demandé et reprend les prochains départs.
+     */
+    @Test
+    public void testsRecalerTrajet() {
+        Coordonnee depart = reseau.getStation("Nation").getLocalisation();
+        Coordonnee arrivee = reseau.getStation("Boucicaut").getLocalisation();
+        LocalTime horaire = LocalTime.of(13, 10);
+        List<Section[]> trajets = Calculator.itineraireFactory(ItineraryQuery.optimal(depart, arrivee, horaire).avecAlgorithme(ItineraryQuery.Algorithme.DIJKSTRA));
+
+        for(Section[] trajet: trajets) {
+            Section[] recale = Calculator.recalerTrajet(trajet, horaire.toSecondOfDay());
+            assertNotNull(recale);
+            assertEquals(trajet.length, recale.length);
+            for(int i = 0; i < trajet.length; i++) {
+                assertNotSame(trajet[i], recale[i]);
+                assertEquals(trajet[i].getDepart().getSecondesDePassage(), recale[i].getDepart().getSecondesDePassage());
+                assertEquals(trajet[i].getArrivee().getSecondesDePassage(), recale[i].getArrivee().getSecondesDePassage());
+            }
+
+            int plusTard = horaire.toSecondOfDay() + 3600;
+            recale = Calculator.recalerTrajet(trajet, plusTard);
+            assertNotNull(recale);
+            assertEquals(plusTard, recale[0].getDepart().getSecondesDePassage());
+            assertTrue(recale[recale.length - 1].getArrivee().getSecondesDePassage() >= trajet[trajet.length - 1].getArrivee().getSecondesDePassage() + 3600);
+            assertEquals(horaire.toSecondOfDay(), trajet[0].getDepart().getSecondesDePassage()); //le trajet donné n'est pas modifié
+        }
+    }
+
+    /**
+     * Teste qu'une échéance dépassée arrête les recherches : le calcul rend le trajet à pied, seul trouvé, et est marqué comme interrompu.
+     */
+    @Test
+    public void testsItinerairesEcheance() throws InterruptedException {
+        Coordonnee depart = reseau.getStation("Nation").getLocalisation();
+        Coordonnee arrivee = reseau.getStation("Boucicaut").getLocalisation();
+        ItineraryQuery requete = ItineraryQuery.marcherAuPlus(depart, arrivee, LocalTime.of(13, 10), 2.0);
+
+        SearchDeadline echeance = SearchDeadline.dans(1);
+        Thread.sleep(5);
+        List<Section[]> trajets = Calculator.itineraireFactory(requete.avecEcheance(echeance));
+        assertTrue(echeance.isInterrompue());
+        assertEquals(1, trajets.size());
+        assertEquals(1, trajets.get(0).length);
+
+        echeance = SearchDeadline.dans(60_000);
+        trajets = Calculator.itineraireFactory(requete.avecEcheance(echeance));
+        assertFalse(echeance.isInterrompue());
+        assertTrue(sameTrajet(Calculator.itineraireFactory(requete), trajets));
+    }
+
+    /**
+     * Teste les trajets qui passent minuit : les horaires continuent au-delà de 24h, et les courses d'après minuit
+     * servent aussi les recherches du petit matin.
+     */
+    @Test
+    public void testsItinerairesApresMinuit() {
+        Coordonnee nation = reseau.getStation("Nation").getLocalisation();
+        Coordonnee boucicaut = reseau.getStation("Boucicaut").getLocalisation();
+        List<Section[]> trajetsTrouves1 = Calculator.itineraireFactory(nation, boucicaut, LocalTime.of(23, 22));
+        assertFalse(trajetsTrouves1.isEmpty());
+        assertTrue(trajetsTrouves1.get(0).length > 1);
+        for(Section[] trajet: trajetsTrouves1) {
+            assertHorairesSuccessifs(trajet);
+            assertTrue(trajet[trajet.length - 1].getArrivee().getSecondesDePassage() > SECONDS_PER_DAY);
+        }
+        assertTrue(horairesArrivee(trajetsTrouves1).get(0).isBefore(LocalTime.of(1, 0)));
+
+        //À minuit, la course partie la veille à 24:00:35 mène encore de Lourmel à Balard
+        Coordonnee lourmel = reseau.getStation("Lourmel").getLocalisation();
+        Coordonnee balard = reseau.getStation("Balard").getLocalisation();
+        List<Section[]> trajetsTrouves2 = Calculator.itineraireFactory(lourmel, balard, LocalTime.MIDNIGHT);
+        assertEquals(3, trajetsTrouves2.get(0).length);
+        assertEquals(LocalTime.of(0, 1, 8), horairesArrivee(trajetsTrouves2).get(0));
+    }
+
     /**
      * Teste des trajets qui ne renvoient pas d'itinéraire avec dijkstra à cause de l'horaire des trains.
      */
@@ -171,28 +499,47 @@ public class TestCalculator {
         assertEquals(1, trajetsTrouves0.size());
 
         //Trajet lazy
-        Calculator.changeMarcherAuPlus(Constants.DEFAULT_MIN_DISTANCE);
-        List<Section[]> trajetsTrouves1 = Calculator.itineraireFactory(depart, arrivee, horaireDepart);
+        List<Section[]> trajetsTrouves1 = Calculator.itineraireFactory(ItineraryQuery.marcherAuPlus(depart, arrivee, horaireDepart, Constants.DEFAULT_MIN_DISTANCE));
         assertNotNull(trajetsTrouves1);
         assertEquals(1, trajetsTrouves1.size());
 
         //Trajet sportif
-        Calculator.changeMarcherAuMoinsDistance(1.0);
-        List<Section[]> trajetsTrouves2 = Calculator.itineraireFactory(depart, arrivee, horaireDepart);
+        List<Section[]> trajetsTrouves2 = Calculator.itineraireFactory(ItineraryQuery.marcherAuMoinsDistance(depart, arrivee, horaireDepart, 1.0));
         assertNotNull(trajetsTrouves2);
         assertEquals(1, trajetsTrouves2.size());
     }
 
     /**
-     * Teste la concurrence de la recherche d'itinéraire.
+     * Teste la concurrence de la recherche d'itinéraire : des recherches simultanées, dans des modes différents,
+     * donnent les mêmes trajets que les recherches faites l'une après l'autre.
      */
     @Test
-    public void testsConsecutiveCall() {
+    public void testsConsecutiveCall() throws InterruptedException {
         LocalTime horaireDepart = LocalTime.of(12, 28, 59, 0);
         Coordonnee depart = reseau.getStation("Nation").getLocalisation();
         Coordonnee arrivee = reseau.getStation("Boucicaut").getLocalisation();
+        List<ItineraryQuery> requetes = List.of(
+                ItineraryQuery.optimal(depart, arrivee, horaireDepart),
+                ItineraryQuery.aPied(depart, arrivee, horaireDepart),
+                ItineraryQuery.marcherAuPlus(depart, arrivee, horaireDepart, 0.1),
+                ItineraryQuery.marcherAuMoinsDistance(depart, arrivee, horaireDepart, 0.5),
+                ItineraryQuery.optimal(arrivee, depart, LocalTime.of(8, 0)));
 
-        new Thread(() -> assertNotNull(Calculator.itineraireFactory(depart, arrivee, horaireDepart))).start();
-        new Thread(() -> assertNull(Calculator.itineraireFactory(depart, arrivee, horaireDepart))).start();
+        List<List<Section[]>> attendus = requetes.stream().map(Calculator::itineraireFactory).toList();
+
+        List<List<Section[]>> trouves = new ArrayList<>(Collections.nCopies(2 * requetes.size(), null));
+        List<Thread> threads = new ArrayList<>();
+        for(int i = 0; i < trouves.size(); i++) {
+            int numero = i;
+            threads.add(new Thread(() -> trouves.set(numero, Calculator.itineraireFactory(requetes.get(numero % requetes.size())))));
+        }
+        for(Thread thread: threads) thread.start();
+        for(Thread thread: threads) thread.join();
+
+        for(int i = 0; i < trouves.size(); i++) {
+            assertNotNull(trouves.get(i));
+            assertTrue(sameTrajet(attendus.get(i % requetes.size()), trouves.get(i)));
+            assertEquals(horairesArrivee(attendus.get(i % requetes.size())), horairesArrivee(trouves.get(i)));
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,91 @@
+package fr.uparis.backapp.utils;
+
+import fr.uparis.backapp.model.Coordonnee;
+import fr.uparis.backapp.model.Ligne;
+import fr.uparis.backapp.model.lieu.Station;
+import fr.uparis.backapp.model.section.Section;
+import fr.uparis.backapp.model.section.SectionTransport;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testeur de l'algorithme CSA.
+ */
+public class TestConnectionScan {
+    final private Station a = new Station("A", new Coordonnee(48.80, 2.30));
+    final private Station b = new Station("B", new Coordonnee(48.85, 2.35));
+    final private Station c = new Station("C", new Coordonnee(48.90, 2.40));
+    final private FootpathGraph graphe = new FootpathGraph(List.of(a, b, c), 0.0);
+    final private TransitGraph transit;
+    final private ConnectionTimetable connexions;
+
+    /**
+     * Construit un réseau de trois lignes : L1 de A à B puis L2 de B à C, plus rapides avec une correspondance,
+     * ou L3 directement de A à C.
+     */
+    public TestConnectionScan() {
+        SectionTransport ab = new SectionTransport(a, b, Duration.ofSeconds(60), 1.0, new Ligne("L1"));
+        SectionTransport bc = new SectionTransport(b, c, Duration.ofSeconds(60), 1.0, new Ligne("L2"));
+        SectionTransport ac = new SectionTransport(a, c, Duration.ofSeconds(600), 2.0, new Ligne("L3"));
+        ab.addHoraireDepart(LocalTime.of(8, 0));
+        bc.addHoraireDepart(LocalTime.of(8, 2)); //trop tôt, à cause du temps de correspondance
+        bc.addHoraireDepart(LocalTime.of(8, 4));
+        ac.addHoraireDepart(LocalTime.of(8, 0, 30));
+        a.addCorrespondance(ab);
+        b.addCorrespondance(bc);
+        a.addCorrespondance(ac);
+        transit = new TransitGraph(graphe);
+        connexions = new ConnectionTimetable(new RaptorTimetable(List.of(ab, bc, ac), transit));
+    }
+
+    /**
+     * Lance une recherche de A à C.
+     *
+     * @param horaireDepart l'horaire de départ de A.
+     * @param borne l'horaire d'arrivée que le trajet doit battre.
+     * @return le trajet trouvé.
+     */
+    private List<Section[]> rechercher(LocalTime horaireDepart, LocalTime borne) {
+        ConnectionScan csa = new ConnectionScan(a.getLocalisation(), c.getLocalisation(), horaireDepart.toSecondOfDay(), connexions, transit, 0.0, SearchDeadline.AUCUNE);
+        return csa.rechercher(Map.of(a, horaireDepart.toSecondOfDay()), Map.of(c, Duration.ZERO), borne.toSecondOfDay());
+    }
+
+    /**
+     * Teste le trajet qui arrive le plus tôt, avec une correspondance.
+     */
+    @Test
+    void testsPlusTot() {
+        List<Section[]> trajets = rechercher(LocalTime.of(7, 59), LocalTime.MAX);
+        assertEquals(1, trajets.size());
+
+        Section[] trajet = trajets.get(0);
+        assertEquals(4, trajet.length);
+        assertFalse(trajet[0] instanceof SectionTransport);
+        assertEquals("L1", ((SectionTransport) trajet[1]).getLigne().getNomLigne());
+        assertEquals("L2", ((SectionTransport) trajet[2]).getLigne().getNomLigne());
+        assertFalse(trajet[3] instanceof SectionTransport);
+        assertEquals(LocalTime.of(8, 0), trajet[1].getDepart().getHoraireDePassage());
+        assertEquals(LocalTime.of(8, 4), trajet[2].getDepart().getHoraireDePassage());
+        assertEquals(LocalTime.of(8, 5), trajet[3].getArrivee().getHoraireDePassage());
+    }
+
+    /**
+     * Teste les recherches sans trajet : trop tard pour les courses, ou pas de trajet qui bat la borne.
+     */
+    @Test
+    void testsSansTrajet() {
+        //Le départ de L1 à 8h00 est manqué, il ne reste que L3
+        List<Section[]> trajets = rechercher(LocalTime.of(8, 0), LocalTime.MAX);
+        assertEquals(1, trajets.size());
+        assertEquals(LocalTime.of(8, 10, 30), trajets.get(0)[trajets.get(0).length - 1].getArrivee().getHoraireDePassage());
+
+        assertTrue(rechercher(LocalTime.of(8, 1), LocalTime.MAX).isEmpty());
+        assertTrue(rechercher(LocalTime.of(7, 59), LocalTime.of(8, 5)).isEmpty());
+    }
+}
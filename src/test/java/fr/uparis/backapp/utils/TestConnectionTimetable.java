@@ -0,0 +1,95 @@
+package fr.uparis.backapp.utils;
+
+import fr.uparis.backapp.model.Coordonnee;
+import fr.uparis.backapp.model.Ligne;
+import fr.uparis.backapp.model.Reseau;
+import fr.uparis.backapp.model.lieu.Station;
+import fr.uparis.backapp.model.section.SectionTransport;
+import fr.uparis.backapp.utils.constants.Constants;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testeur des connexions du réseau rangées par horaire de départ.
+ */
+public class TestConnectionTimetable {
+    final private Station a = new Station("A", new Coordonnee(48.80, 2.30));
+    final private Station b = new Station("B", new Coordonnee(48.85, 2.35));
+    final private Station c = new Station("C", new Coordonnee(48.90, 2.40));
+    final private FootpathGraph graphe = new FootpathGraph(List.of(a, b, c), 0.0);
+
+    /**
+     * Construit les connexions d'une ligne A -> B -> C : deux courses depuis A, et une course qui commence à B.
+     *
+     * @return les connexions de la ligne.
+     */
+    private ConnectionTimetable getConnexions() {
+        Ligne ligne = new Ligne("L");
+        SectionTransport ab = new SectionTransport(a, b, Duration.ofSeconds(60), 1.0, ligne);
+        SectionTransport bc = new SectionTransport(b, c, Duration.ofSeconds(120), 1.0, ligne);
+        ab.addHorairesDepart(List.of(LocalTime.of(8, 0), LocalTime.of(8, 10)));
+        bc.addHorairesDepart(List.of(LocalTime.of(8, 1).plusSeconds(Constants.STOP_DURATION),
+                                     LocalTime.of(8, 11).plusSeconds(Constants.STOP_DURATION),
+                                     LocalTime.of(8, 5)));
+        a.addCorrespondance(ab);
+        b.addCorrespondance(bc);
+        return new ConnectionTimetable(new RaptorTimetable(List.of(ab, bc), new TransitGraph(graphe)));
+    }
+
+    /**
+     * Teste les connexions : une par horaire de départ des sections, rangées par horaire de départ, et chaînées par course.
+     */
+    @Test
+    void testsConnexions() {
+        ConnectionTimetable connexions = getConnexions();
+        assertEquals(5, connexions.getNbConnexions());
+        assertEquals(3, connexions.getNbCourses());
+        for (int i = 1; i < connexions.getNbConnexions(); i++)
+            assertTrue(connexions.getHoraireDepart(i - 1) <= connexions.getHoraireDepart(i));
+
+        //La première course : A à 8h00, puis B
+        assertEquals(graphe.getIndex(a), connexions.getDepart(0));
+        assertEquals(graphe.getIndex(b), connexions.getArrivee(0));
+        assertEquals(LocalTime.of(8, 0).toSecondOfDay(), connexions.getHoraireDepart(0));
+        assertEquals(LocalTime.of(8, 1).toSecondOfDay(), connexions.getHoraireArrivee(0));
+        int suivante = connexions.getSuivante(0);
+        assertEquals(connexions.getCourse(0), connexions.getCourse(suivante));
+        assertEquals(graphe.getIndex(b), connexions.getDepart(suivante));
+        assertEquals(LocalTime.of(8, 1).toSecondOfDay() + Constants.STOP_DURATION, connexions.getHoraireDepart(suivante));
+        assertEquals(-1, connexions.getSuivante(suivante));
+        assertEquals("C", connexions.getSection(suivante).getArrivee().getNomLieu());
+    }
+
+    /**
+     * Teste la recherche de la première connexion qui part après un horaire.
+     */
+    @Test
+    void testsPremiereConnexion() {
+        ConnectionTimetable connexions = getConnexions();
+        assertEquals(0, connexions.getPremiereConnexion(LocalTime.of(7, 0).toSecondOfDay()));
+        assertEquals(1, connexions.getPremiereConnexion(LocalTime.of(8, 0).toSecondOfDay()));
+        assertEquals(LocalTime.of(8, 5).toSecondOfDay(),
+                     connexions.getHoraireDepart(connexions.getPremiereConnexion(LocalTime.of(8, 2).toSecondOfDay())));
+        assertEquals(connexions.getNbConnexions(), connexions.getPremiereConnexion(LocalTime.of(9, 0).toSecondOfDay()));
+    }
+
+    /**
+     * Teste que les connexions du Reseau couvrent chaque horaire de départ des sections.
+     */
+    @Test
+    void testsReseau() {
+        Reseau reseau = Reseau.getInstance();
+        ConnectionTimetable connexions = reseau.getConnectionTimetable();
+        long nbHoraires = reseau.getSections().stream()
+                                .filter(section -> reseau.getFootpathGraph().getIndex(section.getDepart()) != null)
+                                .mapToLong(section -> section.getDeparts().length).sum();
+        assertTrue(connexions.getNbConnexions() >= nbHoraires);
+        for (int i = 1; i < connexions.getNbConnexions(); i++)
+            assertTrue(connexions.getHoraireDepart(i - 1) <= connexions.getHoraireDepart(i));
+    }
+}
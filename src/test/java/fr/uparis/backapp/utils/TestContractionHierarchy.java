@@ -0,0 +1,126 @@
+package fr.uparis.backapp.utils;
+
+import fr.uparis.backapp.model.Coordonnee;
+import fr.uparis.backapp.model.Ligne;
+import fr.uparis.backapp.model.Reseau;
+import fr.uparis.backapp.model.lieu.Station;
+import fr.uparis.backapp.model.section.SectionTransport;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testeur de la hiérarchie de contraction du graphe des durées minimales.
+ */
+public class TestContractionHierarchy {
+    /**
+     * Teste les durées minimales sur un petit réseau, sans chemin à pied : A vers B, B vers C, et un arc direct de A vers C plus long.
+     */
+    @Test
+    void testsPetitReseau() {
+        Station a = new Station("A", new Coordonnee(48.80, 2.30));
+        Station b = new Station("B", new Coordonnee(48.85, 2.35));
+        Station c = new Station("C", new Coordonnee(48.90, 2.40));
+        Ligne ligne = new Ligne("L1");
+        a.addCorrespondance(new SectionTransport(a, b, Duration.ofSeconds(60), 1.0, ligne));
+        b.addCorrespondance(new SectionTransport(b, c, Duration.ofSeconds(90), 1.0, ligne));
+        a.addCorrespondance(new SectionTransport(a, c, Duration.ofSeconds(200), 1.0, new Ligne("L2")));
+        TransitGraph transit = new TransitGraph(new FootpathGraph(List.of(a, b, c), 0.0));
+        ContractionHierarchy hierarchie = new ContractionHierarchy(transit);
+        FootpathGraph graphe = transit.getFootpathGraph();
+        int indexA = graphe.getIndex(a), indexB = graphe.getIndex(b), indexC = graphe.getIndex(c);
+
+        assertEquals(0, hierarchie.getDureeMinimale(indexA, indexA));
+        assertEquals(60, hierarchie.getDureeMinimale(indexA, indexB));
+        assertEquals(150, hierarchie.getDureeMinimale(indexA, indexC));
+        assertEquals(Integer.MAX_VALUE, hierarchie.getDureeMinimale(indexC, indexA)); //pas de retour
+
+        int[] durees = hierarchie.getDureesMinimales(new int[]{indexC}, new int[]{10}, 1000);
+        assertEquals(160, durees[indexA]);
+        assertEquals(100, durees[indexB]);
+        assertEquals(10, durees[indexC]);
+
+        durees = hierarchie.getDureesMinimales(new int[]{indexC}, new int[]{10}, 120); //au-delà de la limite
+        assertEquals(121, durees[indexA]);
+        assertEquals(100, durees[indexB]);
+    }
+
+    /**
+     * Teste que les durées minimales de la hiérarchie du Reseau sont celles d'une recherche dans tout le graphe des durées minimales.
+     */
+    @Test
+    void testsReseau() {
+        TransitGraph transit = Reseau.getInstance().getTransitGraph();
+        ContractionHierarchy hierarchie = Reseau.getInstance().getContractionHierarchy();
+        int nbStations = transit.getNbStations();
+        assertEquals(nbStations, hierarchie.getNbStations());
+
+        int[][] durees = new int[nbStations][];
+        for (int depart = 0; depart < nbStations; depart++) {
+            durees[depart] = getDurees(transit, depart);
+            for (int arrivee = 0; arrivee < nbStations; arrivee += 7)
+                assertEquals(durees[depart][arrivee], hierarchie.getDureeMinimale(depart, arrivee));
+        }
+
+        //Vers plusieurs stations d'arrivée candidates, avec une durée restante depuis chacune
+        int[] arrivees = {0, nbStations / 3, nbStations / 2}, restes = {120, 0, 300};
+        int limite = 1800;
+        int[] minorants = hierarchie.getDureesMinimales(arrivees, restes, limite);
+        for (int station = 0; station < nbStations; station++) {
+            long attendu = Long.MAX_VALUE;
+            for (int i = 0; i < arrivees.length; i++)
+                if (durees[station][arrivees[i]] != Integer.MAX_VALUE) attendu = Math.min(attendu, (long) durees[station][arrivees[i]] + restes[i]);
+            assertEquals(Math.min(attendu, limite + 1), minorants[station]);
+        }
+    }
+
+    /**
+     * Teste que les rangs de contraction sont tous distincts.
+     */
+    @Test
+    void testsRangs() {
+        ContractionHierarchy hierarchie = Reseau.getInstance().getContractionHierarchy();
+        int[] rangs = new int[hierarchie.getNbStations()];
+        for (int station = 0; station < rangs.length; station++) rangs[station] = hierarchie.getRang(station);
+        Arrays.sort(rangs);
+        for (int rang = 0; rang < rangs.length; rang++) assertEquals(rang, rangs[rang]);
+    }
+
+    /**
+     * Recherche simple des durées minimales depuis une station, dans le graphe des sections et de tous les chemins à pied précalculés.
+     *
+     * @param transit le graphe figé des sections en transport.
+     * @param depart l'index de la station de départ.
+     * @return la durée minimale jusqu'à chaque station, en secondes, Integer.MAX_VALUE si elle n'est pas atteignable.
+     */
+    private static int[] getDurees(TransitGraph transit, int depart) {
+        FootpathGraph graphe = transit.getFootpathGraph();
+        IndexedMinHeap tas = new IndexedMinHeap(transit.getNbStations());
+        int[] durees = new int[transit.getNbStations()];
+        Arrays.fill(durees, Integer.MAX_VALUE);
+        durees[depart] = 0;
+        tas.insertOrDecrease(depart, 0);
+        while (!tas.isEmpty()) {
+            int current = tas.poll();
+            for (int chemin = graphe.debut(current), fin = graphe.fin(current, graphe.getDistanceMax()); chemin < fin; chemin++) {
+                int duree = durees[current] + graphe.getDuree(chemin), voisin = graphe.getVoisin(chemin);
+                if (duree < durees[voisin]) {
+                    durees[voisin] = duree;
+                    tas.insertOrDecrease(voisin, duree);
+                }
+            }
+            for (int section = transit.debut(current), fin = transit.fin(current); section < fin; section++) {
+                int duree = durees[current] + transit.getDuree(section), voisin = transit.getVoisin(section);
+                if (duree < durees[voisin]) {
+                    durees[voisin] = duree;
+                    tas.insertOrDecrease(voisin, duree);
+                }
+            }
+        }
+        return durees;
+    }
+}
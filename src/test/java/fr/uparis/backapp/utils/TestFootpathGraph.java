@@ -0,0 +1,105 @@
+package fr.uparis.backapp.utils;
+
+import fr.uparis.backapp.model.Coordonnee;
+import fr.uparis.backapp.model.lieu.Station;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static fr.uparis.backapp.utils.Utils.distanceBetween;
+import static fr.uparis.backapp.utils.Utils.walkingDurationOf;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testeur du graphe des chemins à pied entre les stations.
+ */
+public class TestFootpathGraph {
+    final private Station nation = new Station("Nation", new Coordonnee(48.84811123157566, 2.3980040127977436));
+    final private Station picpus = new Station("Picpus", new Coordonnee(48.84511908489, 2.40114097452));
+    final private Station avron = new Station("Avron", new Coordonnee(48.85211123157, 2.39812611282));
+    final private Station boucicaut = new Station("Boucicaut", new Coordonnee(48.841024160993214, 2.2879184311245595));
+    final private FootpathGraph graphe = new FootpathGraph(List.of(nation, picpus, avron, boucicaut), 1.0);
+
+    /**
+     * Teste l'indexation des stations.
+     */
+    @Test
+    void testsIndex() {
+        assertEquals(4, graphe.getNbStations());
+        for (int i = 0; i < graphe.getNbStations(); i++)
+            assertEquals(i, graphe.getIndex(graphe.getStation(i)));
+        assertNull(graphe.getIndex(new Station("station", new Coordonnee(0, 0))));
+    }
+
+    /**
+     * Teste les chemins précalculés : rangés par distance croissante, sans boucle, et bornés par la distance maximale.
+     */
+    @Test
+    void testsChemins() {
+        int indexNation = graphe.getIndex(nation);
+        int debut = graphe.debut(indexNation), fin = graphe.fin(indexNation, graphe.getDistanceMax());
+        assertEquals(2, fin - debut); //Boucicaut est trop loin
+
+        assertEquals(picpus, graphe.getStation(graphe.getVoisin(debut)));
+        assertEquals(avron, graphe.getStation(graphe.getVoisin(debut + 1)));
+        assertEquals(distanceBetween(nation.getLocalisation(), picpus.getLocalisation()), graphe.getDistance(debut));
+        assertEquals(walkingDurationOf(graphe.getDistance(debut)).getSeconds(), graphe.getDuree(debut));
+        assertTrue(graphe.getDistance(debut) <= graphe.getDistance(debut + 1));
+
+        //Borne de distance plus petite
+        assertEquals(debut + 1, graphe.fin(indexNation, graphe.getDistance(debut)));
+        assertEquals(debut, graphe.fin(indexNation, 0.0));
+
+        int indexBoucicaut = graphe.getIndex(boucicaut);
+        assertEquals(graphe.debut(indexBoucicaut), graphe.fin(indexBoucicaut, 1.0));
+    }
+
+    /**
+     * Teste la couverture des distances de marche par les chemins précalculés.
+     */
+    @Test
+    void testsCouvre() {
+        assertTrue(graphe.couvre(0.0));
+        assertTrue(graphe.couvre(1.0));
+        assertFalse(graphe.couvre(1.5));
+    }
+
+    /**
+     * Teste le parcours des chemins à pied, avec les chemins précalculés, puis au-delà avec l'index spatial des stations.
+     */
+    @Test
+    void testsParcourir() {
+        int indexNation = graphe.getIndex(nation);
+        List<Integer> voisins = new ArrayList<>();
+        graphe.parcourir(indexNation, 1.0, (voisin, duree, distance) -> {
+            assertEquals(distanceBetween(nation.getLocalisation(), graphe.getStation(voisin).getLocalisation()), distance, 1e-9);
+            assertEquals(walkingDurationOf(distance).getSeconds(), duree);
+            voisins.add(voisin);
+        });
+        assertEquals(List.of(graphe.getIndex(picpus), graphe.getIndex(avron)), voisins);
+
+        //Au-delà des chemins précalculés, Boucicaut est atteinte, et jamais Nation elle-même
+        voisins.clear();
+        graphe.parcourir(indexNation, 20.0, (voisin, duree, distance) -> {
+            assertEquals(walkingDurationOf(distance).getSeconds(), duree);
+            voisins.add(voisin);
+        });
+        assertEquals(3, voisins.size());
+        assertTrue(voisins.contains(graphe.getIndex(boucicaut)));
+        assertFalse(voisins.contains(indexNation));
+    }
+
+    /**
+     * Teste la copie d'une station, avec son horaire de passage, sans toucher à la station du graphe.
+     */
+    @Test
+    void testsCopyStation() {
+        int indexPicpus = graphe.getIndex(picpus);
+        Station copie = graphe.copyStation(indexPicpus, 3600);
+        assertEquals(picpus, copie);
+        assertNotSame(picpus, copie);
+        assertEquals(3600, copie.getSecondesDePassage());
+        assertNotEquals(3600, picpus.getSecondesDePassage());
+    }
+}
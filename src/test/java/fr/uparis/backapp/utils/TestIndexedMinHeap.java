@@ -0,0 +1,62 @@
+package fr.uparis.backapp.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.NoSuchElementException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testeur du tas binaire minimum indexé.
+ */
+public class TestIndexedMinHeap {
+    /**
+     * Teste l'ajout et le retrait des éléments dans l'ordre de leur clef.
+     */
+    @Test
+    void testsInsertAndPoll() {
+        IndexedMinHeap tas = new IndexedMinHeap(6);
+        assertTrue(tas.isEmpty());
+
+        tas.insertOrDecrease(3, 30);
+        tas.insertOrDecrease(0, 50);
+        tas.insertOrDecrease(5, 10);
+        tas.insertOrDecrease(1, 40);
+        tas.insertOrDecrease(4, 30); //même clef que 3
+        assertEquals(5, tas.size());
+        assertTrue(tas.contains(4));
+        assertFalse(tas.contains(2));
+        assertEquals(30, tas.getClef(4));
+
+        assertEquals(5, tas.poll());
+        assertEquals(3, tas.poll()); //à clef égale, le plus petit index d'abord
+        assertEquals(4, tas.poll());
+        assertEquals(1, tas.poll());
+        assertEquals(0, tas.poll());
+        assertTrue(tas.isEmpty());
+        assertFalse(tas.contains(0));
+        assertThrows(NoSuchElementException.class, tas::poll);
+    }
+
+    /**
+     * Teste la diminution de la clef d'un élément déjà présent.
+     */
+    @Test
+    void testsDecreaseKey() {
+        IndexedMinHeap tas = new IndexedMinHeap(4);
+        tas.insertOrDecrease(0, 10);
+        tas.insertOrDecrease(1, 20);
+        tas.insertOrDecrease(2, 30);
+
+        assertFalse(tas.insertOrDecrease(2, 40)); //clef plus grande, ignorée
+        assertEquals(30, tas.getClef(2));
+        assertTrue(tas.insertOrDecrease(2, 5));
+        assertEquals(2, tas.peek());
+        assertEquals(3, tas.size());
+
+        tas.clear();
+        assertTrue(tas.isEmpty());
+        assertFalse(tas.contains(1));
+        assertThrows(NoSuchElementException.class, () -> tas.getClef(1));
+    }
+}
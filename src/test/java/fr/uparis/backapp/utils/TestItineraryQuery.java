@@ -0,0 +1,88 @@
+package fr.uparis.backapp.utils;
+
+import fr.uparis.backapp.model.Coordonnee;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalTime;
+
+import static fr.uparis.backapp.utils.Utils.distanceOfWalkingDuration;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testeur des requêtes de calcul d'itinéraire.
+ */
+public class TestItineraryQuery {
+    final private Coordonnee depart = new Coordonnee(48.84811123157566, 2.3980040127977436);
+    final private Coordonnee arrivee = new Coordonnee(48.841024160993214, 2.2879184311245595);
+    final private LocalTime horaire = LocalTime.of(12, 28, 59);
+
+    /**
+     * Teste les paramètres des requêtes créées par les méthodes de fabrique.
+     */
+    @Test
+    void testsFabriques() {
+        ItineraryQuery optimal = ItineraryQuery.optimal(depart, arrivee, horaire);
+        assertEquals(depart, optimal.getDepart());
+        assertEquals(arrivee, optimal.getArrivee());
+        assertEquals(horaire, optimal.getHoraireDepart());
+        assertEquals(ItineraryQuery.Mode.OPTIMAL, optimal.getMode());
+
+        assertEquals(ItineraryQuery.Mode.A_PIED, ItineraryQuery.aPied(depart, arrivee, horaire).getMode());
+
+        ItineraryQuery marcherAuPlus = ItineraryQuery.marcherAuPlus(depart, arrivee, horaire, 0.3);
+        assertEquals(ItineraryQuery.Mode.MARCHER_AU_PLUS, marcherAuPlus.getMode());
+        assertEquals(0.3, marcherAuPlus.getDistance());
+
+        ItineraryQuery marcherAuMoins = ItineraryQuery.marcherAuMoinsDistance(depart, arrivee, horaire, 1.2);
+        assertEquals(ItineraryQuery.Mode.MARCHER_AU_MOINS, marcherAuMoins.getMode());
+        assertEquals(1.2, marcherAuMoins.getDistance());
+
+        assertEquals(horaire, optimal.getHoraireFin()); //pas de fenêtre
+        ItineraryQuery profil = ItineraryQuery.profil(depart, arrivee, horaire, horaire.plusHours(1));
+        assertEquals(ItineraryQuery.Mode.PROFIL, profil.getMode());
+        assertEquals(horaire, profil.getHoraireDepart());
+        assertEquals(horaire.plusHours(1), profil.getHoraireFin());
+        assertEquals(ItineraryQuery.Algorithme.RAPTOR, profil.getAlgorithme());
+        assertEquals(profil.getHoraireFin(), profil.avecAlgorithme(ItineraryQuery.Algorithme.RAPTOR).getHoraireFin());
+
+        ItineraryQuery arriverAvant = ItineraryQuery.arriverAvant(depart, arrivee, horaire);
+        assertEquals(ItineraryQuery.Mode.ARRIVER_AVANT, arriverAvant.getMode());
+        assertEquals(horaire, arriverAvant.getHoraireDepart()); //horaire d'arrivée au plus tard
+        assertEquals(ItineraryQuery.Algorithme.DIJKSTRA, arriverAvant.getAlgorithme());
+
+        ItineraryQuery pareto = ItineraryQuery.pareto(depart, arrivee, horaire);
+        assertEquals(ItineraryQuery.Mode.PARETO, pareto.getMode());
+        assertEquals(horaire, pareto.getHoraireDepart());
+
+        SearchDeadline echeance = SearchDeadline.dans(100);
+        assertSame(SearchDeadline.AUCUNE, pareto.getEcheance());
+        assertSame(echeance, pareto.avecEcheance(echeance).avecAlgorithme(ItineraryQuery.Algorithme.RAPTOR).getEcheance());
+    }
+
+    /**
+     * Teste la conversion de la durée de marche minimale en distance.
+     */
+    @Test
+    void testsMarcherAuMoinsTemps() {
+        ItineraryQuery requete = ItineraryQuery.marcherAuMoinsTemps(depart, arrivee, horaire, Duration.ofMinutes(10));
+        assertEquals(ItineraryQuery.Mode.MARCHER_AU_MOINS, requete.getMode());
+        assertEquals(distanceOfWalkingDuration(Duration.ofMinutes(10)), requete.getDistance());
+    }
+
+    /**
+     * Teste le choix de l'algorithme, qui ne modifie pas la requête d'origine.
+     */
+    @Test
+    void testsAlgorithme() {
+        ItineraryQuery requete = ItineraryQuery.marcherAuPlus(depart, arrivee, horaire, 0.3);
+        assertEquals(ItineraryQuery.Algorithme.DIJKSTRA, requete.getAlgorithme());
+
+        ItineraryQuery raptor = requete.avecAlgorithme(ItineraryQuery.Algorithme.RAPTOR);
+        assertEquals(ItineraryQuery.Algorithme.RAPTOR, raptor.getAlgorithme());
+        assertEquals(ItineraryQuery.Algorithme.DIJKSTRA, requete.getAlgorithme());
+        assertEquals(requete.getMode(), raptor.getMode());
+        assertEquals(requete.getDistance(), raptor.getDistance());
+        assertEquals(requete.getHoraireDepart(), raptor.getHoraireDepart());
+    }
+}
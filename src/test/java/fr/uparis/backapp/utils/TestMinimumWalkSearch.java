@@ -0,0 +1,100 @@
+package fr.uparis.backapp.utils;
+
+import fr.uparis.backapp.model.Coordonnee;
+import fr.uparis.backapp.model.Ligne;
+import fr.uparis.backapp.model.lieu.Station;
+import fr.uparis.backapp.model.section.Section;
+import fr.uparis.backapp.model.section.SectionTransport;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testeur de la recherche de trajets avec une distance de marche minimale.
+ */
+public class TestMinimumWalkSearch {
+    final private Station a = new Station("A", new Coordonnee(48.80, 2.30));
+    final private Station b = new Station("B", new Coordonnee(48.82, 2.34));
+    final private Station c = new Station("C", new Coordonnee(48.822, 2.34));
+    final private Station d = new Station("D", new Coordonnee(48.86, 2.34));
+    final private TransitGraph transit;
+
+    /**
+     * Construit un réseau de A à D : L1 par B, la plus rapide, et L2 depuis C, à quelques minutes de marche de B, qui part plus tard.
+     */
+    public TestMinimumWalkSearch() {
+        Ligne l1 = new Ligne("L1"), l2 = new Ligne("L2");
+        SectionTransport ab = new SectionTransport(a, b, Duration.ofSeconds(60), 1.0, l1);
+        SectionTransport bd = new SectionTransport(b, d, Duration.ofSeconds(60), 1.0, l1);
+        SectionTransport cd = new SectionTransport(c, d, Duration.ofSeconds(60), 1.0, l2);
+        ab.addHoraireDepart(LocalTime.of(8, 0));
+        bd.addHoraireDepart(LocalTime.of(8, 2));
+        cd.addHoraireDepart(LocalTime.of(8, 10));
+        a.addCorrespondance(ab);
+        b.addCorrespondance(bd);
+        c.addCorrespondance(cd);
+        transit = new TransitGraph(new FootpathGraph(List.of(a, b, c, d), 0.5));
+    }
+
+    /**
+     * Lance une recherche de A à D, avec un départ à 7h59.
+     *
+     * @param marcheMinimale la distance de marche minimale, en km.
+     * @param distanceFin la distance de marche de D jusqu'à l'arrivée, en km.
+     * @param borne l'horaire d'arrivée que les trajets doivent battre.
+     * @return les trajets trouvés.
+     */
+    private List<Section[]> rechercher(double marcheMinimale, double distanceFin, LocalTime borne) {
+        int horaireDepart = LocalTime.of(7, 59).toSecondOfDay();
+        return new MinimumWalkSearch(a.getLocalisation(), d.getLocalisation(), horaireDepart, transit, 0.5, marcheMinimale, SearchDeadline.AUCUNE)
+                   .rechercher(Map.of(a, 0.0), Map.of(d, distanceFin), borne.toSecondOfDay(), 3, null);
+    }
+
+    /**
+     * Teste que, sans assez de marche sur le trajet le plus rapide, on marche de B à C pour prendre L2.
+     */
+    @Test
+    void testsMarcheEntreStations() {
+        List<Section[]> trajets = rechercher(0.0, 0.0, LocalTime.of(9, 0));
+        assertEquals(1, trajets.size()); //un seul trajet par station d'arrivée candidate
+        Section[] plusRapide = trajets.get(0);
+        assertEquals(4, plusRapide.length);
+        assertEquals("L1", ((SectionTransport) plusRapide[2]).getLigne().getNomLigne());
+        assertEquals(LocalTime.of(8, 3), plusRapide[3].getArrivee().getHoraireDePassage());
+
+        trajets = rechercher(0.2, 0.0, LocalTime.of(9, 0));
+        assertEquals(1, trajets.size());
+        Section[] sportif = trajets.get(0);
+        assertEquals(5, sportif.length);
+        assertEquals("L1", ((SectionTransport) sportif[1]).getLigne().getNomLigne());
+        assertFalse(sportif[2] instanceof SectionTransport); //de B à C, à pied
+        assertTrue(sportif[2].getDistance() >= 0.2);
+        assertEquals("L2", ((SectionTransport) sportif[3]).getLigne().getNomLigne());
+        assertEquals(LocalTime.of(8, 11), sportif[4].getArrivee().getHoraireDePassage());
+    }
+
+    /**
+     * Teste que la marche de la fin du trajet compte dans la distance minimale.
+     */
+    @Test
+    void testsMarcheFinale() {
+        List<Section[]> trajets = rechercher(0.2, 0.3, LocalTime.of(9, 0));
+        assertEquals(1, trajets.size());
+        assertEquals(4, trajets.get(0).length);
+        assertEquals("L1", ((SectionTransport) trajets.get(0)[2]).getLigne().getNomLigne());
+    }
+
+    /**
+     * Teste qu'aucun trajet n'est gardé s'il ne bat pas la borne.
+     */
+    @Test
+    void testsBorne() {
+        assertEquals(1, rechercher(0.2, 0.0, LocalTime.of(8, 11, 1)).size());
+        assertTrue(rechercher(0.2, 0.0, LocalTime.of(8, 11)).isEmpty());
+    }
+}
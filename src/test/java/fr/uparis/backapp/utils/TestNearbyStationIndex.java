@@ -0,0 +1,96 @@
+package fr.uparis.backapp.utils;
+
+import fr.uparis.backapp.model.Coordonnee;
+import fr.uparis.backapp.model.Reseau;
+import fr.uparis.backapp.model.lieu.Station;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static fr.uparis.backapp.utils.Utils.distanceBetween;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testeur de l'index spatial des stations.
+ */
+public class TestNearbyStationIndex {
+    final private Set<Station> stations = Reseau.getInstance().getStations();
+    final private NearbyStationIndex index = new NearbyStationIndex(stations, 0.5);
+    final private List<Coordonnee> coordonnees = List.of(
+            new Coordonnee(48.84811123157566, 2.3980040127977436), //Nation
+            new Coordonnee(48.841024160993214, 2.2879184311245595), //Boucicaut
+            new Coordonnee(48.8566, 2.3522), //centre de Paris
+            new Coordonnee(48.95, 2.1)); //hors de Paris
+
+    /**
+     * Cherche les stations proches d'une coordonnée, en parcourant toutes les stations.
+     *
+     * @param coordonnee la coordonnée autour de laquelle chercher.
+     * @param minDistance distance minimale des stations, en km.
+     * @param maxDistance distance maximale des stations, en km.
+     * @return l'ensemble des stations dont la distance est comprise entre minDistance et maxDistance.
+     */
+    private Set<Station> rechercheLineaire(Coordonnee coordonnee, double minDistance, double maxDistance) {
+        Set<Station> proches = new HashSet<>();
+        for (Station station : stations) {
+            double distance = distanceBetween(coordonnee, station.getLocalisation());
+            if (distance >= minDistance && distance <= maxDistance) proches.add(station);
+        }
+        return proches;
+    }
+
+    /**
+     * Teste la recherche des stations dans un anneau, en la comparant au parcours de toutes les stations.
+     */
+    @Test
+    void testsRechercher() {
+        double[][] anneaux = {{0, 0}, {0, 0.3}, {0, 5.0 / 6.0}, {0.5, 1.3}, {1.4, 2.2}, {0, 30}};
+        for (Coordonnee coordonnee : coordonnees) {
+            for (double[] anneau : anneaux) {
+                List<Station> proches = index.rechercher(coordonnee, anneau[0], anneau[1]);
+                assertEquals(rechercheLineaire(coordonnee, anneau[0], anneau[1]), new HashSet<>(proches));
+                for (int i = 1; i < proches.size(); i++)
+                    assertTrue(distanceBetween(coordonnee, proches.get(i - 1).getLocalisation())
+                            <= distanceBetween(coordonnee, proches.get(i).getLocalisation()));
+            }
+        }
+        assertTrue(index.rechercher(coordonnees.get(0), 1, 0.5).isEmpty());
+    }
+
+    /**
+     * Teste la recherche des k stations les plus proches.
+     */
+    @Test
+    void testsPlusProches() {
+        for (Coordonnee coordonnee : coordonnees) {
+            List<Station> triees = new ArrayList<>(stations);
+            triees.sort(Comparator.comparingDouble(station -> distanceBetween(coordonnee, station.getLocalisation())));
+
+            for (int k : new int[]{1, 5, 40}) {
+                List<Station> proches = index.plusProches(coordonnee, k);
+                assertEquals(k, proches.size());
+                //Les distances doivent être les mêmes, même si l'ordre des stations à égale distance peut différer
+                for (int i = 0; i < k; i++)
+                    assertEquals(distanceBetween(coordonnee, triees.get(i).getLocalisation()),
+                                 distanceBetween(coordonnee, proches.get(i).getLocalisation()));
+            }
+        }
+        assertEquals(stations.size(), index.plusProches(coordonnees.get(0), stations.size() + 10).size());
+        assertTrue(index.plusProches(coordonnees.get(0), 0).isEmpty());
+    }
+
+    /**
+     * Teste la recherche d'une station à partir de sa coordonnée exacte.
+     */
+    @Test
+    void testsGetStation() {
+        for (Station station : stations)
+            assertEquals(station.getLocalisation(), index.getStation(station.getLocalisation()).getLocalisation());
+        assertNull(index.getStation(new Coordonnee(48.8566, 2.3522)));
+        assertNull(index.getStation(new Coordonnee(0, 0)));
+
+        NearbyStationIndex vide = new NearbyStationIndex(new ArrayList<>(), 0.5);
+        assertNull(vide.getStation(new Coordonnee(0, 0)));
+        assertTrue(vide.rechercher(new Coordonnee(0, 0), 0, 10).isEmpty());
+    }
+}
@@ -0,0 +1,95 @@
+package fr.uparis.backapp.utils;
+
+import fr.uparis.backapp.model.Coordonnee;
+import fr.uparis.backapp.model.Ligne;
+import fr.uparis.backapp.model.lieu.Station;
+import fr.uparis.backapp.model.section.Section;
+import fr.uparis.backapp.model.section.SectionTransport;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testeur de la recherche des trajets non dominés sur l'horaire d'arrivée, le nombre de correspondances et la distance marchée.
+ */
+public class TestParetoSearch {
+    final private Station a = new Station("A", new Coordonnee(48.80, 2.30));
+    final private Station b = new Station("B", new Coordonnee(48.82, 2.34));
+    final private Station c = new Station("C", new Coordonnee(48.86, 2.338));
+    final private Station d = new Station("D", new Coordonnee(48.86, 2.34));
+    final private TransitGraph transit;
+
+    /**
+     * Construit un réseau de A à D : L1 puis L2 par B, le plus rapide avec une correspondance, L4 jusqu'à C, à quelques pas de D,
+     * et deux trajets directs, L3 puis L5, plus lent que L3.
+     */
+    public TestParetoSearch() {
+        Ligne l1 = new Ligne("L1"), l2 = new Ligne("L2"), l3 = new Ligne("L3"), l4 = new Ligne("L4"), l5 = new Ligne("L5");
+        SectionTransport ab = new SectionTransport(a, b, Duration.ofSeconds(60), 1.0, l1);
+        SectionTransport bd = new SectionTransport(b, d, Duration.ofSeconds(60), 1.0, l2);
+        SectionTransport ad = new SectionTransport(a, d, Duration.ofSeconds(120), 1.0, l3);
+        SectionTransport ac = new SectionTransport(a, c, Duration.ofSeconds(60), 1.0, l4);
+        SectionTransport adLente = new SectionTransport(a, d, Duration.ofSeconds(60), 1.0, l5);
+        ab.addHoraireDepart(LocalTime.of(8, 0));
+        bd.addHoraireDepart(LocalTime.of(8, 2));
+        ad.addHoraireDepart(LocalTime.of(8, 5));
+        ac.addHoraireDepart(LocalTime.of(8, 3));
+        adLente.addHoraireDepart(LocalTime.of(8, 10));
+        a.addCorrespondance(ab);
+        b.addCorrespondance(bd);
+        a.addCorrespondance(ad);
+        a.addCorrespondance(ac);
+        a.addCorrespondance(adLente);
+        transit = new TransitGraph(new FootpathGraph(List.of(a, b, c, d), 0.5));
+    }
+
+    /**
+     * Lance une recherche de A à D, avec un départ à 7h59.
+     *
+     * @param borne l'horaire d'arrivée que les trajets doivent battre.
+     * @return les trajets trouvés.
+     */
+    private List<Section[]> rechercher(LocalTime borne) {
+        int horaireDepart = LocalTime.of(7, 59).toSecondOfDay();
+        return new ParetoSearch(a.getLocalisation(), d.getLocalisation(), horaireDepart, transit, 0.5, SearchDeadline.AUCUNE)
+                   .rechercher(Map.of(a, 0.0), Map.of(d, 0.0), borne.toSecondOfDay(), null);
+    }
+
+    /**
+     * Teste que chaque trajet gardé est le meilleur sur un critère, et que le trajet direct plus lent, dominé, n'est pas gardé.
+     */
+    @Test
+    void testsTrajetsNonDomines() {
+        List<Section[]> trajets = rechercher(LocalTime.of(9, 0));
+        assertEquals(3, trajets.size());
+
+        Section[] plusRapide = trajets.get(0), marche = trajets.get(1), direct = trajets.get(2);
+        assertEquals("L2", ((SectionTransport) plusRapide[2]).getLigne().getNomLigne());
+        assertEquals(1, ParetoSearch.getNbCorrespondances(plusRapide));
+        assertEquals(0.0, ParetoSearch.getMarche(plusRapide), 1e-9);
+
+        assertEquals("L4", ((SectionTransport) marche[1]).getLigne().getNomLigne());
+        assertFalse(marche[2] instanceof SectionTransport); //de C à D, à pied
+        assertEquals(0, ParetoSearch.getNbCorrespondances(marche));
+        assertTrue(ParetoSearch.getMarche(marche) > 0.1);
+
+        assertEquals("L3", ((SectionTransport) direct[1]).getLigne().getNomLigne());
+        assertEquals(LocalTime.of(8, 7), direct[2].getArrivee().getHoraireDePassage());
+        assertEquals(0, ParetoSearch.getNbCorrespondances(direct));
+        assertEquals(0.0, ParetoSearch.getMarche(direct), 1e-9);
+    }
+
+    /**
+     * Teste qu'aucun trajet n'est gardé s'il ne bat pas la borne.
+     */
+    @Test
+    void testsBorne() {
+        assertEquals(2, rechercher(LocalTime.of(8, 7)).size());
+        assertTrue(rechercher(LocalTime.of(8, 3)).isEmpty());
+    }
+}
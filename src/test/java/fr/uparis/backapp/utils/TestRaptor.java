@@ -0,0 +1,133 @@
+package fr.uparis.backapp.utils;
+
+import fr.uparis.backapp.model.Coordonnee;
+import fr.uparis.backapp.model.Ligne;
+import fr.uparis.backapp.model.lieu.Station;
+import fr.uparis.backapp.model.section.Section;
+import fr.uparis.backapp.model.section.SectionTransport;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testeur de l'algorithme RAPTOR.
+ */
+public class TestRaptor {
+    final private Station a = new Station("A", new Coordonnee(48.80, 2.30));
+    final private Station b = new Station("B", new Coordonnee(48.85, 2.35));
+    final private Station c = new Station("C", new Coordonnee(48.90, 2.40));
+    final private FootpathGraph graphe = new FootpathGraph(List.of(a, b, c), 0.0);
+    final private TransitGraph transit;
+    final private RaptorTimetable horaires;
+
+    /**
+     * Construit un réseau de trois lignes : L1 de A à B puis L2 de B à C, plus rapides avec une correspondance,
+     * ou L3 directement de A à C.
+     */
+    public TestRaptor() {
+        SectionTransport ab = new SectionTransport(a, b, Duration.ofSeconds(60), 1.0, new Ligne("L1"));
+        SectionTransport bc = new SectionTransport(b, c, Duration.ofSeconds(60), 1.0, new Ligne("L2"));
+        SectionTransport ac = new SectionTransport(a, c, Duration.ofSeconds(600), 2.0, new Ligne("L3"));
+        ab.addHoraireDepart(LocalTime.of(8, 0));
+        bc.addHoraireDepart(LocalTime.of(8, 2)); //trop tôt, à cause du temps de correspondance
+        bc.addHoraireDepart(LocalTime.of(8, 4));
+        ac.addHoraireDepart(LocalTime.of(8, 0, 30));
+        a.addCorrespondance(ab);
+        b.addCorrespondance(bc);
+        a.addCorrespondance(ac);
+        transit = new TransitGraph(graphe);
+        horaires = new RaptorTimetable(List.of(ab, bc, ac), transit);
+    }
+
+    /**
+     * Lance une recherche de A à C.
+     *
+     * @param borne l'horaire d'arrivée que les trajets doivent battre.
+     * @return les trajets trouvés.
+     */
+    private List<Section[]> rechercher(LocalTime borne) {
+        Raptor raptor = new Raptor(a.getLocalisation(), c.getLocalisation(), LocalTime.of(7, 59).toSecondOfDay(), horaires, transit, 0.0, SearchDeadline.AUCUNE);
+        return raptor.rechercher(Map.of(a, LocalTime.of(7, 59).toSecondOfDay()), Map.of(c, Duration.ZERO), borne.toSecondOfDay());
+    }
+
+    /**
+     * Teste les trajets optimaux au sens de Pareto : le trajet direct, puis le trajet plus rapide avec une correspondance.
+     */
+    @Test
+    void testsPareto() {
+        List<Section[]> trajets = rechercher(LocalTime.MAX);
+        assertEquals(2, trajets.size());
+
+        Section[] direct = trajets.get(0);
+        assertEquals(3, direct.length);
+        assertEquals("L3", ((SectionTransport) direct[1]).getLigne().getNomLigne());
+        assertEquals(LocalTime.of(8, 0, 30), direct[1].getDepart().getHoraireDePassage());
+        assertEquals(LocalTime.of(8, 10, 30), direct[2].getArrivee().getHoraireDePassage());
+
+        Section[] correspondance = trajets.get(1);
+        assertEquals(4, correspondance.length);
+        assertEquals("L1", ((SectionTransport) correspondance[1]).getLigne().getNomLigne());
+        assertEquals("L2", ((SectionTransport) correspondance[2]).getLigne().getNomLigne());
+        assertEquals(LocalTime.of(8, 1), correspondance[1].getArrivee().getHoraireDePassage());
+        assertEquals(LocalTime.of(8, 4), correspondance[2].getDepart().getHoraireDePassage());
+        assertEquals(LocalTime.of(8, 5), correspondance[3].getArrivee().getHoraireDePassage());
+
+        //Les trajets commencent et finissent à pied
+        for (Section[] trajet : trajets) {
+            assertFalse(trajet[0] instanceof SectionTransport);
+            assertFalse(trajet[trajet.length - 1] instanceof SectionTransport);
+            assertEquals(LocalTime.of(7, 59), trajet[0].getDepart().getHoraireDePassage());
+        }
+    }
+
+    /**
+     * Teste l'élagage par l'horaire d'arrivée à battre.
+     */
+    @Test
+    void testsBorne() {
+        List<Section[]> trajets = rechercher(LocalTime.of(8, 6));
+        assertEquals(1, trajets.size());
+        assertEquals(LocalTime.of(8, 5), trajets.get(0)[trajets.get(0).length - 1].getArrivee().getHoraireDePassage());
+
+        assertTrue(rechercher(LocalTime.of(8, 5)).isEmpty());
+    }
+
+    /**
+     * Teste la recherche de profil entre 7h50 et 8h10 : le trajet avec correspondance pour partir au plus tard à 8h00,
+     * puis le trajet direct pour partir au plus tard à 8h00:30, et plus aucun trajet ensuite.
+     */
+    @Test
+    void testsProfil() {
+        Raptor raptor = new Raptor(a.getLocalisation(), c.getLocalisation(), LocalTime.of(7, 50).toSecondOfDay(), horaires, transit, 0.0, SearchDeadline.AUCUNE);
+        List<Section[]> trajets = raptor.rechercherProfil(Map.of(a, 0), Map.of(c, Duration.ZERO),
+                LocalTime.of(7, 50).toSecondOfDay(), LocalTime.of(8, 10).toSecondOfDay(), 3600);
+        assertEquals(2, trajets.size());
+
+        Section[] correspondance = trajets.get(0);
+        assertEquals(4, correspondance.length);
+        assertEquals(LocalTime.of(7, 59, 59), correspondance[0].getDepart().getHoraireDePassage());
+        assertEquals(LocalTime.of(8, 5), correspondance[3].getArrivee().getHoraireDePassage());
+
+        Section[] direct = trajets.get(1);
+        assertEquals(3, direct.length);
+        assertEquals(LocalTime.of(8, 0, 29), direct[0].getDepart().getHoraireDePassage());
+        assertEquals(LocalTime.of(8, 10, 30), direct[2].getArrivee().getHoraireDePassage());
+
+        //Les trajets doivent battre la durée maximale depuis leur horaire de départ : le trajet direct est trop long
+        raptor = new Raptor(a.getLocalisation(), c.getLocalisation(), LocalTime.of(7, 50).toSecondOfDay(), horaires, transit, 0.0, SearchDeadline.AUCUNE);
+        trajets = raptor.rechercherProfil(Map.of(a, 0), Map.of(c, Duration.ZERO),
+                LocalTime.of(7, 50).toSecondOfDay(), LocalTime.of(8, 10).toSecondOfDay(), 400);
+        assertEquals(1, trajets.size());
+        assertEquals(LocalTime.of(8, 5), trajets.get(0)[3].getArrivee().getHoraireDePassage());
+
+        //Rien ne part dans la fenêtre
+        raptor = new Raptor(a.getLocalisation(), c.getLocalisation(), LocalTime.of(8, 1).toSecondOfDay(), horaires, transit, 0.0, SearchDeadline.AUCUNE);
+        assertTrue(raptor.rechercherProfil(Map.of(a, 0), Map.of(c, Duration.ZERO),
+                LocalTime.of(8, 1).toSecondOfDay(), LocalTime.of(8, 30).toSecondOfDay(), 3600).isEmpty());
+    }
+}
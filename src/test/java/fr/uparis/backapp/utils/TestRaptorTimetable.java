@@ -0,0 +1,117 @@
+package fr.uparis.backapp.utils;
+
+import fr.uparis.backapp.model.Coordonnee;
+import fr.uparis.backapp.model.Ligne;
+import fr.uparis.backapp.model.Reseau;
+import fr.uparis.backapp.model.lieu.Station;
+import fr.uparis.backapp.model.section.SectionTransport;
+import fr.uparis.backapp.utils.constants.Constants;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testeur des horaires du réseau rangés par routes.
+ */
+public class TestRaptorTimetable {
+    final private Station a = new Station("A", new Coordonnee(48.80, 2.30));
+    final private Station b = new Station("B", new Coordonnee(48.85, 2.35));
+    final private Station c = new Station("C", new Coordonnee(48.90, 2.40));
+    final private Ligne ligne = new Ligne("L");
+    final private SectionTransport ab = new SectionTransport(a, b, Duration.ofSeconds(60), 1.0, ligne);
+    final private SectionTransport bc = new SectionTransport(b, c, Duration.ofSeconds(120), 1.0, ligne);
+    final private FootpathGraph graphe = new FootpathGraph(List.of(a, b, c), 0.0);
+
+    /**
+     * Construit les horaires d'une ligne A -> B -> C : deux courses depuis A, et une course qui commence à B.
+     *
+     * @return les horaires de la ligne.
+     */
+    private RaptorTimetable getHoraires() {
+        int arret = Constants.STOP_DURATION;
+        ab.addHorairesDepart(List.of(LocalTime.of(8, 0), LocalTime.of(8, 10)));
+        bc.addHorairesDepart(List.of(LocalTime.of(8, 1).plusSeconds(arret), LocalTime.of(8, 11).plusSeconds(arret), LocalTime.of(8, 5)));
+        a.addCorrespondance(ab);
+        b.addCorrespondance(bc);
+        return new RaptorTimetable(List.of(bc, ab), new TransitGraph(graphe));
+    }
+
+    /**
+     * Teste le découpage de la ligne en une route, et les horaires de ses courses.
+     */
+    @Test
+    void testsRoute() {
+        RaptorTimetable horaires = getHoraires();
+        assertEquals(1, horaires.getNbRoutes());
+        assertEquals(ligne, horaires.getLigne(0));
+        assertEquals(3, horaires.getNbArrets(0));
+        assertEquals(graphe.getIndex(a), horaires.getArret(0, 0));
+        assertEquals(graphe.getIndex(b), horaires.getArret(0, 1));
+        assertEquals(graphe.getIndex(c), horaires.getArret(0, 2));
+        assertEquals(ab, horaires.getSection(0, 0));
+        assertEquals(bc, horaires.getSection(0, 1));
+        assertNull(horaires.getSection(0, 2));
+
+        int course = horaires.getPremiereCourse(0, 0, LocalTime.of(7, 0).toSecondOfDay());
+        assertEquals(LocalTime.of(8, 0).toSecondOfDay(), horaires.getDepart(0, course, 0));
+        assertEquals(LocalTime.of(8, 1).toSecondOfDay(), horaires.getArrivee(0, course, 1));
+        assertEquals(LocalTime.of(8, 1).toSecondOfDay() + Constants.STOP_DURATION, horaires.getDepart(0, course, 1));
+        assertEquals(LocalTime.of(8, 1).toSecondOfDay() + Constants.STOP_DURATION + 120, horaires.getArrivee(0, course, 2));
+    }
+
+    /**
+     * Teste la recherche de la première course dans laquelle on peut monter.
+     */
+    @Test
+    void testsPremiereCourse() {
+        RaptorTimetable horaires = getHoraires();
+        //Strictement après l'horaire demandé
+        int course = horaires.getPremiereCourse(0, 0, LocalTime.of(8, 0).toSecondOfDay());
+        assertEquals(LocalTime.of(8, 10).toSecondOfDay(), horaires.getDepart(0, course, 0));
+        assertEquals(-1, horaires.getPremiereCourse(0, 0, LocalTime.of(8, 10).toSecondOfDay()));
+
+        //La course qui commence à B n'est pas accessible depuis A, mais l'est depuis B
+        course = horaires.getPremiereCourse(0, 0, LocalTime.of(8, 1).toSecondOfDay());
+        assertEquals(LocalTime.of(8, 10).toSecondOfDay(), horaires.getDepart(0, course, 0));
+        course = horaires.getPremiereCourse(0, 1, LocalTime.of(8, 2).toSecondOfDay());
+        assertEquals(LocalTime.of(8, 5).toSecondOfDay(), horaires.getDepart(0, course, 1));
+    }
+
+    /**
+     * Teste les passages des routes aux stations.
+     */
+    @Test
+    void testsPassages() {
+        RaptorTimetable horaires = getHoraires();
+        for (int station = 0; station < graphe.getNbStations(); station++) {
+            assertEquals(1, horaires.finPassages(station) - horaires.debutPassages(station));
+            int passage = horaires.debutPassages(station);
+            assertEquals(station, horaires.getArret(horaires.getRoutePassage(passage), horaires.getPositionPassage(passage)));
+        }
+    }
+
+    /**
+     * Teste que chaque horaire de départ des sections du Reseau correspond à une course d'une route.
+     */
+    @Test
+    void testsReseau() {
+        Reseau reseau = Reseau.getInstance();
+        RaptorTimetable horaires = reseau.getRaptorTimetable();
+        assertTrue(horaires.getNbRoutes() > 0);
+        for (int route = 0; route < horaires.getNbRoutes(); route++) {
+            for (int position = 0; position < horaires.getNbArrets(route) - 1; position++) {
+                SectionTransport section = horaires.getSection(route, position);
+                assertEquals(horaires.getLigne(route), section.getLigne());
+                for (int horaire : section.getDeparts()) {
+                    int course = horaires.getPremiereCourse(route, position, horaire - 1);
+                    assertTrue(course >= 0);
+                    assertEquals(horaire, horaires.getDepart(route, course, position));
+                }
+            }
+        }
+    }
+}
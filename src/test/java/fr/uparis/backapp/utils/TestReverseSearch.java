@@ -0,0 +1,95 @@
+package fr.uparis.backapp.utils;
+
+import fr.uparis.backapp.model.Coordonnee;
+import fr.uparis.backapp.model.Ligne;
+import fr.uparis.backapp.model.lieu.Station;
+import fr.uparis.backapp.model.section.Section;
+import fr.uparis.backapp.model.section.SectionTransport;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Map;
+
+import static fr.uparis.backapp.utils.constants.Constants.PENALTY;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testeur de la recherche en arrière depuis l'horaire d'arrivée.
+ */
+public class TestReverseSearch {
+    final private Station a = new Station("A", new Coordonnee(48.80, 2.30));
+    final private Station b = new Station("B", new Coordonnee(48.85, 2.35));
+    final private Station c = new Station("C", new Coordonnee(48.90, 2.40));
+    final private TransitGraph transit;
+
+    /**
+     * Construit un réseau de trois lignes : L1 de A à B puis L2 de B à C, avec une correspondance à B,
+     * et L3 directement de A à C, plus lente.
+     */
+    public TestReverseSearch() {
+        SectionTransport ab = new SectionTransport(a, b, Duration.ofSeconds(60), 1.0, new Ligne("L1"));
+        SectionTransport bc = new SectionTransport(b, c, Duration.ofSeconds(60), 1.0, new Ligne("L2"));
+        SectionTransport ac = new SectionTransport(a, c, Duration.ofSeconds(600), 2.0, new Ligne("L3"));
+        ab.addHorairesDepart(List.of(LocalTime.of(8, 0), LocalTime.of(8, 10)));
+        bc.addHorairesDepart(List.of(LocalTime.of(8, 3), LocalTime.of(8, 13)));
+        ac.addHorairesDepart(List.of(LocalTime.of(7, 55), LocalTime.of(8, 5)));
+        a.addCorrespondance(ab);
+        b.addCorrespondance(bc);
+        a.addCorrespondance(ac);
+        transit = new TransitGraph(new FootpathGraph(List.of(a, b, c), 0.0));
+    }
+
+    /**
+     * Lance une recherche de A à C.
+     *
+     * @param horaireArrivee l'horaire d'arrivée au plus tard.
+     * @return les trajets trouvés.
+     */
+    private List<Section[]> rechercher(LocalTime horaireArrivee) {
+        return new ReverseSearch(a.getLocalisation(), c.getLocalisation(), horaireArrivee.toSecondOfDay(), transit, 0.0, SearchDeadline.AUCUNE)
+                   .rechercher(Map.of(a, 0), Map.of(c, Duration.ZERO), 0);
+    }
+
+    /**
+     * Teste le dernier départ, selon l'horaire d'arrivée : avec la correspondance, le trajet compte la pénalité de dijkstra.
+     */
+    @Test
+    void testsDernierDepart() {
+        int correspondance = transit.getTempsCorrespondance(transit.getFootpathGraph().getIndex(b), 0, 1);
+        assertTrue(correspondance >= PENALTY * 60);
+
+        //Avec la correspondance à B, on arrive à C à 8h04 plus le temps de correspondance
+        LocalTime arriveeCorrespondance = LocalTime.of(8, 4).plusSeconds(correspondance);
+        List<Section[]> trajets = rechercher(arriveeCorrespondance);
+        assertEquals(1, trajets.size());
+        Section[] trajet = trajets.get(0);
+        assertEquals(4, trajet.length);
+        assertEquals(LocalTime.of(7, 59, 59), trajet[0].getDepart().getHoraireDePassage());
+        assertEquals(arriveeCorrespondance, trajet[3].getArrivee().getHoraireDePassage());
+
+        //Une seconde plus tôt, il faut prendre le direct de 7h55
+        trajet = rechercher(arriveeCorrespondance.minusSeconds(1)).get(0);
+        assertEquals(3, trajet.length);
+        assertEquals("L3", ((SectionTransport) trajet[1]).getLigne().getNomLigne());
+        assertEquals(LocalTime.of(7, 54, 59), trajet[0].getDepart().getHoraireDePassage());
+        assertEquals(LocalTime.of(8, 5), trajet[2].getArrivee().getHoraireDePassage());
+
+        //Le direct de 8h05 part plus tard que la correspondance de 8h00
+        trajet = rechercher(LocalTime.of(8, 15)).get(0);
+        assertEquals(LocalTime.of(8, 4, 59), trajet[0].getDepart().getHoraireDePassage());
+    }
+
+    /**
+     * Teste qu'aucun trajet n'est renvoyé s'il ne bat pas l'horaire de départ à battre, ou s'il n'y a pas de départ à temps.
+     */
+    @Test
+    void testsBorne() {
+        assertTrue(rechercher(LocalTime.of(8, 4)).isEmpty());
+
+        List<Section[]> trajets = new ReverseSearch(a.getLocalisation(), c.getLocalisation(), LocalTime.of(8, 15).toSecondOfDay(), transit, 0.0, SearchDeadline.AUCUNE)
+                                      .rechercher(Map.of(a, 0), Map.of(c, Duration.ZERO), LocalTime.of(8, 5).toSecondOfDay());
+        assertTrue(trajets.isEmpty());
+    }
+}
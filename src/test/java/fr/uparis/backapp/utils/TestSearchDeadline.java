@@ -0,0 +1,38 @@
+package fr.uparis.backapp.utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testeur des échéances de calcul.
+ */
+public class TestSearchDeadline {
+    /**
+     * Teste qu'une absence d'échéance n'est jamais dépassée.
+     */
+    @Test
+    void testsAucune() {
+        assertSame(SearchDeadline.AUCUNE, SearchDeadline.dans(0));
+        assertSame(SearchDeadline.AUCUNE, SearchDeadline.dans(-5));
+        assertFalse(SearchDeadline.AUCUNE.isDepassee());
+        assertFalse(SearchDeadline.AUCUNE.isInterrompue());
+    }
+
+    /**
+     * Teste que le décompte part à la création de l'échéance, et que le dépassement est retenu.
+     */
+    @Test
+    void testsDepassement() throws InterruptedException {
+        SearchDeadline longue = SearchDeadline.dans(60_000);
+        assertFalse(longue.isDepassee());
+        assertFalse(longue.isInterrompue());
+
+        SearchDeadline echeance = SearchDeadline.dans(1);
+        assertFalse(echeance.isInterrompue());
+        Thread.sleep(5); //jamais consultée : le décompte est tout de même parti
+        assertTrue(echeance.isDepassee());
+        assertTrue(echeance.isInterrompue());
+        assertTrue(echeance.isDepassee());
+    }
+}
@@ -0,0 +1,154 @@
+package fr.uparis.backapp.utils;
+
+import fr.uparis.backapp.model.Coordonnee;
+import fr.uparis.backapp.model.Reseau;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.time.LocalTime;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Testeur de l'espace de travail réutilisable des recherches.
+ */
+public class TestSearchWorkspace {
+    /**
+     * Teste que changer d'époque rend à toutes les étiquettes leur valeur par défaut.
+     */
+    @Test
+    void testsEpoque() {
+        SearchWorkspace etiquettes = new SearchWorkspace(3);
+        etiquettes.nouvelleRecherche();
+        assertEquals(Integer.MAX_VALUE, etiquettes.getHoraire(0));
+
+        etiquettes.setSource(0, 100, 100);
+        etiquettes.ameliorer(0, 1, 200, 5, 250);
+        etiquettes.setFinale(2, 30);
+        etiquettes.setTraitee(0);
+        assertEquals(100, etiquettes.getHoraire(0));
+        assertTrue(etiquettes.isTraitee(0));
+        assertEquals(200, etiquettes.getHoraire(1));
+        assertEquals(0, etiquettes.getOrigine(1));
+        assertEquals(0, etiquettes.getPrecedente(1));
+        assertEquals(5, etiquettes.getEntree(1));
+        assertEquals(30, etiquettes.getFinale(2));
+        assertEquals(Integer.MAX_VALUE, etiquettes.getHoraire(2));
+        assertEquals(2, etiquettes.getTas().size());
+
+        etiquettes.nouvelleRecherche();
+        for (int station = 0; station < 3; station++) {
+            assertEquals(Integer.MAX_VALUE, etiquettes.getHoraire(station));
+            assertFalse(etiquettes.isTraitee(station));
+            assertEquals(-1, etiquettes.getPrecedente(station));
+            assertEquals(-1, etiquettes.getEntree(station));
+            assertEquals(-1, etiquettes.getFinale(station));
+        }
+        assertTrue(etiquettes.getTas().isEmpty());
+    }
+
+    /**
+     * Teste les couches : chaque station a une étiquette par couche, et compte ses noeuds traités toutes couches confondues.
+     */
+    @Test
+    void testsCouches() {
+        SearchWorkspace etiquettes = new SearchWorkspace(3, 2);
+        etiquettes.nouvelleRecherche();
+        int noeud = etiquettes.getNoeud(1, 2);
+        assertEquals(5, noeud);
+        assertEquals(1, etiquettes.getCouche(noeud));
+        assertEquals(2, etiquettes.getStation(noeud));
+
+        etiquettes.setSource(etiquettes.getNoeud(0, 2), 100, 100);
+        etiquettes.setSource(noeud, 50, 50);
+        etiquettes.setFinale(2, 30);
+        etiquettes.setTraitee(noeud);
+        etiquettes.setTraitee(etiquettes.getNoeud(0, 2));
+        assertEquals(100, etiquettes.getHoraire(etiquettes.getNoeud(0, 2)));
+        assertEquals(50, etiquettes.getHoraire(noeud));
+        assertEquals(2, etiquettes.getNbNoeudsTraites(2));
+        assertEquals(30, etiquettes.getFinale(2));
+
+        etiquettes.nouvelleRecherche();
+        assertEquals(0, etiquettes.getNbNoeudsTraites(2));
+        assertEquals(-1, etiquettes.getFinale(2));
+        assertFalse(etiquettes.isTraitee(noeud));
+    }
+
+    /**
+     * Teste que chaque thread garde son espace de travail, tant que le nombre de stations ne change pas
+     * et qu'il a assez de couches.
+     */
+    @Test
+    void testsParThread() throws InterruptedException {
+        SearchWorkspace etiquettes = SearchWorkspace.get(3);
+        etiquettes.setSource(1, 10, 10);
+        assertSame(etiquettes, SearchWorkspace.get(3));
+        assertEquals(Integer.MAX_VALUE, etiquettes.getHoraire(1));
+        assertNotSame(etiquettes, SearchWorkspace.get(4));
+
+        etiquettes = SearchWorkspace.get(4, 3);
+        assertEquals(3, etiquettes.getNbCouches());
+        assertSame(etiquettes, SearchWorkspace.get(4, 2));
+        assertSame(etiquettes, SearchWorkspace.get(4));
+
+        AtomicReference<SearchWorkspace> autre = new AtomicReference<>();
+        Thread thread = new Thread(() -> autre.set(SearchWorkspace.get(4)));
+        thread.start();
+        thread.join();
+        assertNotSame(SearchWorkspace.get(4), autre.get());
+    }
+
+    /**
+     * Renvoie le nombre d'octets alloués jusque-là par le thread courant.
+     *
+     * @return le nombre d'octets alloués par le thread courant.
+     */
+    private static long getOctetsAlloues() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getCurrentThreadAllocatedBytes();
+    }
+
+    /**
+     * Teste, en mesurant les octets alloués par le thread, que reprendre l'espace de travail du thread n'alloue pas ses étiquettes :
+     * cent reprises allouent moins qu'un seul espace de travail neuf, que seul un changement du nombre de stations fait allouer.
+     */
+    @Test
+    void testsAllocations() {
+        assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+        int nbStations = Reseau.getInstance().getTransitGraph().getNbStations();
+        SearchWorkspace.get(nbStations, 2);
+
+        long avant = getOctetsAlloues();
+        new SearchWorkspace(nbStations, 2);
+        long octetsEspace = getOctetsAlloues() - avant;
+
+        avant = getOctetsAlloues();
+        for (int i = 0; i < 100; i++) SearchWorkspace.get(nbStations, 2).setSource(i % nbStations, i, i);
+        assertTrue(getOctetsAlloues() - avant < octetsEspace);
+
+        avant = getOctetsAlloues();
+        SearchWorkspace.get(nbStations + 1, 2);
+        assertTrue(getOctetsAlloues() - avant >= octetsEspace);
+    }
+
+    /**
+     * Teste que les calculs d'itinéraires réutilisent les espaces de travail :
+     * au plus un est créé, pour le thread appelant, quel que soit le nombre de recherches.
+     */
+    @Test
+    void testsReutilisation() {
+        Reseau reseau = Reseau.getInstance();
+        Coordonnee nation = reseau.getStation("Nation").getLocalisation();
+        Coordonnee boucicaut = reseau.getStation("Boucicaut").getLocalisation();
+        long creations = SearchWorkspace.getNbCreations();
+        long recherches = SearchWorkspace.getNbRecherches();
+
+        for (int i = 0; i < 20; i++)
+            Calculator.itineraireFactory(nation, boucicaut, LocalTime.of(8, i));
+
+        assertTrue(SearchWorkspace.getNbRecherches() - recherches >= 20);
+        assertTrue(SearchWorkspace.getNbCreations() - creations <= 1);
+    }
+}
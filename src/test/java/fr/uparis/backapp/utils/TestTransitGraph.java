@@ -0,0 +1,158 @@
+package fr.uparis.backapp.utils;
+
+import fr.uparis.backapp.model.Coordonnee;
+import fr.uparis.backapp.model.Ligne;
+import fr.uparis.backapp.model.Reseau;
+import fr.uparis.backapp.model.lieu.Station;
+import fr.uparis.backapp.model.section.SectionTransport;
+import fr.uparis.backapp.utils.constants.Constants;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static fr.uparis.backapp.utils.Utils.distanceBetween;
+import static fr.uparis.backapp.utils.Utils.walkingDurationOf;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testeur du graphe figé des sections en transport.
+ */
+public class TestTransitGraph {
+    final private Station a = new Station("A", new Coordonnee(48.80, 2.30));
+    final private Station b = new Station("B", new Coordonnee(48.85, 2.35));
+    final private Station c = new Station("C", new Coordonnee(48.90, 2.40));
+    final private Ligne l1 = new Ligne("L1");
+    final private Ligne l2 = new Ligne("L2");
+    final private SectionTransport ab = new SectionTransport(a, b, Duration.ofSeconds(60), 1.0, l1);
+    final private SectionTransport bc = new SectionTransport(b, c, Duration.ofSeconds(90), 1.0, l2);
+    final private TransitGraph transit;
+
+    /**
+     * Construit un réseau de deux lignes : L1 de A à B, et L2 de B à C, dont le quai est à l'écart de la station.
+     */
+    public TestTransitGraph() {
+        a.addCorrespondance(ab);
+        b.addCorrespondance(bc);
+        b.addLocalisation("L2", new Coordonnee(48.851, 2.351));
+        transit = new TransitGraph(new FootpathGraph(List.of(a, b, c), 0.0));
+    }
+
+    /**
+     * Teste les sections partant de chaque station, et leurs attributs.
+     */
+    @Test
+    void testsSections() {
+        FootpathGraph graphe = transit.getFootpathGraph();
+        int indexA = graphe.getIndex(a), indexB = graphe.getIndex(b), indexC = graphe.getIndex(c);
+        assertEquals(3, transit.getNbStations());
+
+        assertEquals(1, transit.fin(indexA) - transit.debut(indexA));
+        int section = transit.debut(indexA);
+        assertEquals(indexB, transit.getVoisin(section));
+        assertEquals(60, transit.getDuree(section));
+        assertSame(ab, transit.getSection(section));
+        assertSame(l1, transit.getLigne(transit.getLigneSection(section)));
+
+        section = transit.debut(indexB);
+        assertEquals(indexC, transit.getVoisin(section));
+        assertEquals(90, transit.getDuree(section));
+        assertSame(bc, transit.getSection(section));
+
+        assertEquals(transit.debut(indexC), transit.fin(indexC));
+    }
+
+    /**
+     * Teste l'index des lignes.
+     */
+    @Test
+    void testsLignes() {
+        assertEquals(2, transit.getNbLignes());
+        for (int ligne = 0; ligne < transit.getNbLignes(); ligne++)
+            assertEquals(ligne, transit.getIndexLigne(transit.getLigne(ligne)));
+        assertEquals(-1, transit.getIndexLigne(new Ligne("L1"))); //index par identité
+    }
+
+    /**
+     * Teste les sections arrivant à chaque station, qui reprennent les sections partantes.
+     */
+    @Test
+    void testsEntrantes() {
+        FootpathGraph graphe = transit.getFootpathGraph();
+        int indexA = graphe.getIndex(a), indexB = graphe.getIndex(b), indexC = graphe.getIndex(c);
+        assertEquals(transit.debutEntrantes(indexA), transit.finEntrantes(indexA));
+
+        assertEquals(1, transit.finEntrantes(indexB) - transit.debutEntrantes(indexB));
+        int section = transit.getEntrante(transit.debutEntrantes(indexB));
+        assertSame(ab, transit.getSection(section));
+        assertEquals(indexA, transit.getDepartEntrante(transit.debutEntrantes(indexB)));
+
+        assertEquals(1, transit.finEntrantes(indexC) - transit.debutEntrantes(indexC));
+        assertSame(bc, transit.getSection(transit.getEntrante(transit.debutEntrantes(indexC))));
+        assertEquals(indexB, transit.getDepartEntrante(transit.debutEntrantes(indexC)));
+
+        TransitGraph reseau = Reseau.getInstance().getTransitGraph();
+        int nbEntrantes = 0;
+        for (int station = 0; station < reseau.getNbStations(); station++) {
+            for (int k = reseau.debutEntrantes(station); k < reseau.finEntrantes(station); k++) {
+                int entrante = reseau.getEntrante(k);
+                assertEquals(station, reseau.getVoisin(entrante));
+                assertTrue(reseau.debut(reseau.getDepartEntrante(k)) <= entrante && entrante < reseau.fin(reseau.getDepartEntrante(k)));
+                nbEntrantes++;
+            }
+        }
+        assertEquals(reseau.debut(reseau.getNbStations()), nbEntrantes);
+    }
+
+    /**
+     * Teste les temps de correspondance : nuls sans changement de ligne, la marche entre les quais et la pénalité sinon.
+     */
+    @Test
+    void testsCorrespondances() {
+        int indexB = transit.getFootpathGraph().getIndex(b);
+        int ligne1 = transit.getIndexLigne(l1), ligne2 = transit.getIndexLigne(l2);
+        assertEquals(0, transit.getTempsCorrespondance(indexB, ligne1, ligne1));
+        assertEquals(0, transit.getTempsCorrespondance(indexB, -1, ligne2));
+
+        long marche = walkingDurationOf(distanceBetween(b.getLocalisation(), b.getLocalisation("L2"))).getSeconds();
+        assertEquals(marche + Constants.PENALTY * 60, transit.getTempsCorrespondance(indexB, ligne1, ligne2));
+        assertEquals(transit.getTempsCorrespondance(indexB, ligne1, ligne2), transit.getTempsCorrespondance(indexB, ligne2, ligne1));
+    }
+
+    /**
+     * Teste le minorant des durées de trajet, qui ne dépasse la durée d'aucune section ni d'aucun trajet à pied.
+     */
+    @Test
+    void testsDureeMinimale() {
+        assertEquals(3600 * distanceBetween(a.getLocalisation(), b.getLocalisation()) / 60, transit.getVitesseMax(), 1e-9);
+        assertTrue(transit.getDureeMinimale(a.getLocalisation(), b.getLocalisation()) <= 60);
+        assertTrue(transit.getDureeMinimale(a.getLocalisation(), c.getLocalisation()) <= 60 + 90);
+        assertEquals(0, transit.getDureeMinimale(b.getLocalisation(), b.getLocalisation()));
+
+        TransitGraph graphe = Reseau.getInstance().getTransitGraph();
+        assertTrue(graphe.getVitesseMax() >= Constants.AVERAGE_WALKING_SPEED);
+        for (int section = 0; section < graphe.debut(graphe.getNbStations()); section++) {
+            SectionTransport correspondance = graphe.getSection(section);
+            assertTrue(graphe.getDureeMinimale(correspondance.getDepart().getLocalisation(), correspondance.getArrivee().getLocalisation())
+                       <= graphe.getDuree(section));
+        }
+    }
+
+    /**
+     * Teste que le graphe du Reseau reprend chaque correspondance de ses stations.
+     */
+    @Test
+    void testsReseau() {
+        TransitGraph graphe = Reseau.getInstance().getTransitGraph();
+        for (int station = 0; station < graphe.getNbStations(); station++) {
+            Station courante = graphe.getFootpathGraph().getStation(station);
+            assertEquals(courante.getCorrespondances().size(), graphe.fin(station) - graphe.debut(station));
+            int section = graphe.debut(station); //dans l'ordre des correspondances
+            for (SectionTransport correspondance : courante.getCorrespondances()) {
+                assertSame(correspondance, graphe.getSection(section));
+                assertSame(correspondance.getLigne(), graphe.getLigne(graphe.getLigneSection(section)));
+                section++;
+            }
+        }
+    }
+}
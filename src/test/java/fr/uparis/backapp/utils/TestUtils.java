@@ -16,6 +16,7 @@ import java.util.Map;
 import java.util.Set;
 
 import static fr.uparis.backapp.utils.Utils.*;
+import static fr.uparis.backapp.utils.constants.Constants.SECONDS_PER_DAY;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
@@ -64,24 +65,6 @@ public class TestUtils {
         assertEquals("PT2M5S", correctDuration(duration3).toString());
     }
 
-    /**
-     * Teste la conversion d'un horaire vers le format "hh:mm".
-     */
-    @Test
-    public void testsCorrectTime() {
-        String time1 = "5:8";
-        String expected1 = "05:08";
-        assertEquals(expected1, correctTime(time1));
-
-        String time2 = "12:45";
-        String expected2 = "12:45";
-        assertEquals(expected2, correctTime(time2));
-
-        String time3 = "6:7";
-        String expected3 = "06:07";
-        assertEquals(expected3, correctTime(time3));
-    }
-
     /**
      * Teste le calcul de distance entre deux coordonnées.
      */
@@ -177,6 +160,40 @@ public class TestUtils {
         assertEquals(LocalTime.of(0, 0), getTimeFromString("00:00"));
     }
 
+    /**
+     * Teste la conversion d'une chaîne de caractères en secondes depuis le début de la journée de service,
+     * y compris pour les heures d'après minuit, au-delà de 23.
+     */
+    @Test
+    public void testsGetSecondsFromString() {
+        assertEquals(0, getSecondsFromString("00:00"));
+        assertEquals(5 * 3600 + 10 * 60, getSecondsFromString("5:10"));
+        assertEquals(23 * 3600 + 59 * 60, getSecondsFromString(" 23:59 "));
+        assertEquals(SECONDS_PER_DAY, getSecondsFromString("24:00"));
+        assertEquals(SECONDS_PER_DAY + 10 * 60, getSecondsFromString("24:10"));
+        assertEquals(27 * 3600 + 30 * 60, getSecondsFromString("27:30"));
+
+        for (String malformee : List.of("", "12", "12h30", "12:30:00", "ab:cd", "12:", ":30", "-1:00", "12:-5", "12:60"))
+            assertThrows(NumberFormatException.class, () -> getSecondsFromString(malformee), malformee);
+    }
+
+    /**
+     * Teste la conversion de secondes depuis le début de la journée de service en LocalTime :
+     * les horaires d'après minuit, et ceux d'avant la journée, reviennent dans la journée.
+     */
+    @Test
+    public void testsGetTimeFromSeconds() {
+        assertEquals(LocalTime.MIDNIGHT, getTimeFromSeconds(0));
+        assertEquals(LocalTime.of(23, 59, 59), getTimeFromSeconds(SECONDS_PER_DAY - 1));
+        assertEquals(LocalTime.MIDNIGHT, getTimeFromSeconds(SECONDS_PER_DAY));
+        assertEquals(LocalTime.of(0, 10), getTimeFromSeconds(getSecondsFromString("24:10")));
+        assertEquals(LocalTime.of(3, 30), getTimeFromSeconds(getSecondsFromString("27:30")));
+        assertEquals(LocalTime.of(8, 0), getTimeFromSeconds(2 * SECONDS_PER_DAY + 8 * 3600));
+        assertEquals(LocalTime.of(23, 50), getTimeFromSeconds(-10 * 60)); //la veille
+        for (int secondes = -SECONDS_PER_DAY; secondes < 2 * SECONDS_PER_DAY; secondes += 4321)
+            assertEquals(getTimeFromSeconds(secondes), getTimeFromSeconds(secondes + SECONDS_PER_DAY));
+    }
+
     /**
      * Teste la récupération de coordonnées depuis un nom de station ou une coordonnée.
      */
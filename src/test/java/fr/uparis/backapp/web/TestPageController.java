@@ -3,38 +3,28 @@ package fr.uparis.backapp.web;
 import fr.uparis.backapp.model.Coordonnee;
 import fr.uparis.backapp.model.Reseau;
 import fr.uparis.backapp.model.section.Section;
+import fr.uparis.backapp.services.ItineraryCache;
 import fr.uparis.backapp.services.ItineraryService;
 import fr.uparis.backapp.utils.Calculator;
-import org.junit.jupiter.api.BeforeEach;
+import fr.uparis.backapp.utils.ItineraryQuery;
+import fr.uparis.backapp.utils.ParetoSearch;
 import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
 
 import java.time.Duration;
 import java.time.LocalTime;
 import java.util.List;
 import java.util.Map;
 
+import static fr.uparis.backapp.utils.constants.Constants.PARTIAL_RESULT_HEADER;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class TestPageController{
-    PagesController controller = new PagesController(new ItineraryService());
+    ItineraryService service = new ItineraryService();
+    PagesController controller = new PagesController(service);
     Reseau reseau = Reseau.getInstance();
 
-    /**
-     * S'assure qu'il n'y a pas de concurrence pour les différents tests.
-     */
-    @BeforeEach
-    public void waitFinish() {
-        while(Calculator.getIsCalculating()) {
-            try {
-                Thread.sleep(1000);
-            }
-            catch(InterruptedException e) {
-                throw new RuntimeException(e);
-            }
-        }
-    }
-
     /**
      * Renvoie les coordonnées sous forme de String, dans le format de la requête js.
      *
@@ -94,7 +84,7 @@ public class TestPageController{
         LocalTime horaire = LocalTime.of(13, 10);
         String horaireString = horaireToString(horaire);
 
-        List<Section[]> trajetService = controller.searchItinerary(departString, arriveeString, horaireString);
+        List<Section[]> trajetService = controller.searchItinerary(departString, arriveeString, horaireString, null).getBody();
 
         assertEquals(0, trajetService.size());
     }
@@ -113,10 +103,87 @@ public class TestPageController{
         LocalTime horaire = LocalTime.of(13, 10);
         String horaireString = horaireToString(horaire);
 
-        List<Section[]> trajetService = controller.searchItinerary(departString, arriveeString, horaireString);
-        List<Section[]> trajetCalculator = Calculator.itineraireFactory(depart, arrivee, horaire);
+        ResponseEntity<List<Section[]>> reponse = controller.searchItinerary(departString, arriveeString, horaireString, null);
+        List<Section[]> trajetService = reponse.getBody();
+        List<Section[]> trajetCalculator = Calculator.itineraireFactory(ItineraryQuery.optimal(depart, arrivee, horaire).avecAlgorithme(service.getDefaultEngine()));
+
+        assertTrue(sameTrajet(trajetCalculator, trajetService));
+        assertEquals("false", reponse.getHeaders().getFirst(PARTIAL_RESULT_HEADER)); //bien avant l'échéance
+    }
+
+    /**
+     * Teste le calcul d'itinéraire avec l'algorithme RAPTOR.
+     */
+    @Test
+    public void testRaptorItinerary() {
+        Coordonnee depart = reseau.getStation("Nation").getLocalisation();
+        String departString = coordonneeToString(depart);
+
+        Coordonnee arrivee = reseau.getStation("Boucicaut").getLocalisation();
+        String arriveeString = coordonneeToString(arrivee);
+
+        LocalTime horaire = LocalTime.of(13, 10);
+        String horaireString = horaireToString(horaire);
+
+        List<Section[]> trajetService = controller.searchItinerary(departString, arriveeString, horaireString, ItineraryQuery.Algorithme.RAPTOR).getBody();
+        List<Section[]> trajetCalculator = Calculator.itineraireFactory(ItineraryQuery.optimal(depart, arrivee, horaire).avecAlgorithme(ItineraryQuery.Algorithme.RAPTOR));
+
+        assertFalse(trajetService.isEmpty());
+        assertTrue(sameTrajet(trajetCalculator, trajetService));
+    }
+
+    /**
+     * Teste le calcul des itinéraires non dominés sur une fenêtre d'horaires de départ.
+     */
+    @Test
+    public void testProfileItinerary() {
+        Coordonnee depart = reseau.getStation("Nation").getLocalisation();
+        Coordonnee arrivee = reseau.getStation("Boucicaut").getLocalisation();
+        LocalTime debut = LocalTime.of(13, 10), fin = LocalTime.of(13, 40);
+
+        List<Section[]> trajetService = controller.searchProfileItinerary(coordonneeToString(depart), coordonneeToString(arrivee),
+                                                                          horaireToString(debut), horaireToString(fin)).getBody();
+        List<Section[]> trajetCalculator = Calculator.itineraireFactory(ItineraryQuery.profil(depart, arrivee, debut, fin));
+
+        assertTrue(trajetService.size() > 1);
+        assertTrue(sameTrajet(trajetCalculator, trajetService));
+    }
+
+    /**
+     * Teste le calcul des itinéraires qui arrivent au plus tard à un horaire.
+     */
+    @Test
+    public void testArrivalItinerary() {
+        Coordonnee depart = reseau.getStation("Nation").getLocalisation();
+        Coordonnee arrivee = reseau.getStation("Boucicaut").getLocalisation();
+        LocalTime horaire = LocalTime.of(14, 0);
+
+        List<Section[]> trajetService = controller.searchArrivalItinerary(coordonneeToString(depart), coordonneeToString(arrivee), horaireToString(horaire)).getBody();
+        List<Section[]> trajetCalculator = Calculator.itineraireFactory(ItineraryQuery.arriverAvant(depart, arrivee, horaire));
+
+        assertFalse(trajetService.isEmpty());
+        assertTrue(sameTrajet(trajetCalculator, trajetService));
+    }
+
+    /**
+     * Teste le calcul des itinéraires non dominés, et leur filtre sur le nombre de correspondances.
+     */
+    @Test
+    public void testParetoItinerary() {
+        Coordonnee depart = reseau.getStation("Nation").getLocalisation();
+        Coordonnee arrivee = reseau.getStation("Boucicaut").getLocalisation();
+        LocalTime horaire = LocalTime.of(13, 10);
+
+        List<Section[]> trajetService = controller.searchParetoItinerary(coordonneeToString(depart), coordonneeToString(arrivee), horaireToString(horaire), null, null).getBody();
+        List<Section[]> trajetCalculator = Calculator.itineraireFactory(ItineraryQuery.pareto(depart, arrivee, horaire));
 
+        assertFalse(trajetService.isEmpty());
         assertTrue(sameTrajet(trajetCalculator, trajetService));
+
+        List<Section[]> sansCorrespondance = controller.searchParetoItinerary(coordonneeToString(depart), coordonneeToString(arrivee), horaireToString(horaire), null, 0).getBody();
+        assertFalse(sansCorrespondance.isEmpty());
+        assertTrue(sansCorrespondance.size() < trajetService.size());
+        for (Section[] trajet : sansCorrespondance) assertEquals(0, ParetoSearch.getNbCorrespondances(trajet));
     }
 
     /**
@@ -135,9 +202,8 @@ public class TestPageController{
 
         double distanceMax = 0.1;
 
-        List<Section[]> trajetService = controller.searchLazyItinerary(departString, arriveeString, horaireString, distanceMax);
-        Calculator.changeMarcherAuPlus(distanceMax);
-        List<Section[]> trajetCalculator = Calculator.itineraireFactory(depart, arrivee, horaire);
+        List<Section[]> trajetService = controller.searchLazyItinerary(departString, arriveeString, horaireString, distanceMax, null).getBody();
+        List<Section[]> trajetCalculator = Calculator.itineraireFactory(ItineraryQuery.marcherAuPlus(depart, arrivee, horaire, distanceMax).avecAlgorithme(service.getDefaultEngine()));
 
         assertTrue(sameTrajet(trajetCalculator, trajetService));
     }
@@ -156,9 +222,8 @@ public class TestPageController{
         LocalTime horaire = LocalTime.of(13, 10);
         String horaireString = horaireToString(horaire);
 
-        List<Section[]> trajetService = controller.searchFullSportItinerary(departString, arriveeString, horaireString);
-        Calculator.changeAPied();
-        List<Section[]> trajetCalculator = Calculator.itineraireFactory(depart, arrivee, horaire);
+        List<Section[]> trajetService = controller.searchFullSportItinerary(departString, arriveeString, horaireString).getBody();
+        List<Section[]> trajetCalculator = Calculator.itineraireFactory(ItineraryQuery.aPied(depart, arrivee, horaire));
 
         assertTrue(sameTrajet(trajetCalculator, trajetService));
     }
@@ -179,9 +244,8 @@ public class TestPageController{
 
         double distanceMin = 0.1;
 
-        List<Section[]> trajetService = controller.searchItineraryWithMinWalkingDistance(departString, arriveeString, horaireString, distanceMin);
-        Calculator.changeMarcherAuMoinsDistance(distanceMin);
-        List<Section[]> trajetCalculator = Calculator.itineraireFactory(depart, arrivee, horaire);
+        List<Section[]> trajetService = controller.searchItineraryWithMinWalkingDistance(departString, arriveeString, horaireString, distanceMin).getBody();
+        List<Section[]> trajetCalculator = Calculator.itineraireFactory(ItineraryQuery.marcherAuMoinsDistance(depart, arrivee, horaire, distanceMin));
         assertTrue(sameTrajet(trajetCalculator, trajetService));
     }
 
@@ -202,12 +266,30 @@ public class TestPageController{
         int minutes = 5;
         Duration duree = Duration.ofMinutes(minutes);
 
-        List<Section[]> trajetService = controller.searchItineraryWithMinWalkingDuration(departString, arriveeString, horaireString, minutes);
-        Calculator.changeMarcherAuMoinsTemps(duree);
-        List<Section[]> trajetCalculator = Calculator.itineraireFactory(depart, arrivee, horaire);
+        List<Section[]> trajetService = controller.searchItineraryWithMinWalkingDuration(departString, arriveeString, horaireString, minutes).getBody();
+        List<Section[]> trajetCalculator = Calculator.itineraireFactory(ItineraryQuery.marcherAuMoinsTemps(depart, arrivee, horaire, duree));
         assertTrue(sameTrajet(trajetCalculator, trajetService));
     }
 
+    /**
+     * Teste les mesures du cache : une requête déjà calculée, depuis la même station donnée par son nom, est reprise du cache.
+     */
+    @Test
+    public void testsCacheStats() {
+        Coordonnee depart = reseau.getStation("Nation").getLocalisation();
+        Coordonnee arrivee = reseau.getStation("Boucicaut").getLocalisation();
+        String departString = coordonneeToString(depart);
+        String arriveeString = coordonneeToString(arrivee);
+        String horaireString = horaireToString(LocalTime.of(13, 10));
+
+        ItineraryCache.Stats stats = controller.getCacheStats();
+        List<Section[]> trajetService = controller.searchFullSportItinerary(departString, arriveeString, horaireString).getBody();
+        List<Section[]> trajetCache = controller.searchFullSportItinerary("Nation", "Boucicaut", horaireString).getBody(); //même station
+        assertTrue(sameTrajet(trajetService, trajetCache));
+        assertEquals(stats.misses() + 1, controller.getCacheStats().misses());
+        assertEquals(stats.hits() + 1, controller.getCacheStats().hits());
+    }
+
     /**
      * Teste les résultats d'autocomplétion des stations dans la barre de saisie.
      */